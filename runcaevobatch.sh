@@ -0,0 +1,14 @@
+#!/bin/bash
+#
+# runcaevobatch.sh <dir-or-filelist> [batch|watch]
+#
+# Loads all models once and writes <file>.info.xml for every text file.
+# Use "watch" to keep polling the directory for new files.
+#
+
+
+props=default.properties
+sieves=default.sieves
+mode=${2:-batch}
+
+mvn exec:java -Dexec.mainClass=caevo.Main -Dprops=$props -Dsieves=$sieves -Dexec.args="$1 $mode"
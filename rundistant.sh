@@ -1,15 +1,8 @@
 #!/bin/bash
 #OUT_DIR="data_02202020/done/"
-FILE_DIR="${1}/*"
-for f in $FILE_DIR
-do
-  if [[ ${f: -4} != ".xml"  && ${f: -4} != "ents" ]]; then
-    if test ! -f "${f}.info.xml"; then
-      echo "Processing $f file..."
-      ./runcaevoraw.sh $f
-    fi
-  fi
-done
+# One JVM for the whole directory: files that already have a .info.xml are
+# skipped, as are .xml and *ents files.
+./runcaevobatch.sh "${1}" batch
 
 #mv $1 $OUT_DIR
 
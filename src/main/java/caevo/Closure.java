@@ -27,6 +27,8 @@ public class Closure {
   static boolean report = true;
   static String rulePath = "/closure-sieve.dat";
   HashMap<String, TLink.Type> rules[];
+  // The same rules compiled into [matchCase][relation1][relation2] lookups.
+  TLink.Type table[][][];
 
   public Closure() throws IOException {
     this(Closure.class.getResource(rulePath));
@@ -44,9 +46,11 @@ public class Closure {
   // 1: A-B C-A
   // 2: B-A A-C
   // 3: B-A C-A
-  private TLink.Type closeLinks(TLink.Type relation1, TLink.Type relation2,
+  TLink.Type closeLinks(TLink.Type relation1, TLink.Type relation2,
       int matchCase) {
-    return rules[matchCase].get(relation1 + " " + relation2);
+    if (relation1 == null || relation2 == null)
+      return null;
+    return table[matchCase][relation1.ordinal()][relation2.ordinal()];
   }
 
   /**
@@ -64,6 +68,8 @@ public class Closure {
       for (int i = 0; i < 4; i++) {
         rules[i] = new HashMap<String, TLink.Type>();
       }
+      int numTypes = TLink.Type.values().length;
+      table = new TLink.Type[4][numTypes][numTypes];
 
       while (in.ready()) {
         String line = in.readLine();
@@ -91,6 +97,7 @@ public class Closure {
           // System.out.println("Adding closure rule: " + first + " " + second +
           // " " + closed);
           rules[matchCase].put(first + " " + second, closed);
+          table[matchCase][first.ordinal()][second.ordinal()] = closed;
           numAdded++;
         }
       }
@@ -311,24 +318,7 @@ public class Closure {
     int status = newLinkStatus(seen, A, B, rel);
 
     if (status == 0) {
-      TLink link;
-      int times = 0;
-
-      // See what type of relation we are adding (e.g. event-time)
-      // YES, this depends on making sure all time variables start with 't'
-      if (A.charAt(0) == 't')
-        times++;
-      if (B.charAt(0) == 't')
-        times++;
-
-      // Create the appropriate TLink
-      if (times == 2)
-        link = new TimeTimeLink(A, B, rel, true);
-      else if (times == 1)
-        link = new EventTimeLink(A, B, rel, true);
-      else
-        link = new EventEventLink(A, B, rel, true);
-
+      TLink link = createClosedLink(A, B, rel);
       relations.add(link);
       seen.put(A + B, rel);
 
@@ -338,6 +328,29 @@ public class Closure {
       return null;
   }
 
+  /**
+   * Creates a TLink marked as coming from closure, of the type (event-event,
+   * event-time, time-time) that matches the two ids.
+   */
+  static TLink createClosedLink(String A, String B, TLink.Type rel) {
+    int times = 0;
+
+    // See what type of relation we are adding (e.g. event-time)
+    // YES, this depends on making sure all time variables start with 't'
+    if (A.charAt(0) == 't')
+      times++;
+    if (B.charAt(0) == 't')
+      times++;
+
+    // Create the appropriate TLink
+    if (times == 2)
+      return new TimeTimeLink(A, B, rel, true);
+    else if (times == 1)
+      return new EventTimeLink(A, B, rel, true);
+    else
+      return new EventEventLink(A, B, rel, true);
+  }
+
   /**
    * Tells you if a new proposed link A-B is ok with the current relations. 0:
    * doesn't exist. 1: already exists, or is consistent with existing relation
@@ -347,50 +360,63 @@ public class Closure {
       String B, TLink.Type rel) {
     // Make sure we don't already have a relation
     if (seen.containsKey(A + B)) {
-      TLink.Type current = seen.get(A + B);
-      if (current != rel) {
-
-        // some relation clashes are ok
-        if ((current == TLink.Type.BEFORE && rel == TLink.Type.IBEFORE)
-            || (current == TLink.Type.IBEFORE && rel == TLink.Type.BEFORE))
-          return 1;
-
-        if (report) {
-          System.err.println("Closure conflict: " + A + " " + B);
-          System.err.println("...old relation " + A + " " + seen.get(A + B)
-              + " " + B + " adding new relation " + A + " " + rel + " " + B);
-        }
-        return 2;
-      } else
-        return 1; // exact same relation already exists
+      int status = sameOrderStatus(seen.get(A + B), rel);
+      if (status == 2 && report) {
+        System.err.println("Closure conflict: " + A + " " + B);
+        System.err.println("...old relation " + A + " " + seen.get(A + B)
+            + " " + B + " adding new relation " + A + " " + rel + " " + B);
+      }
+      return status;
     }
     // Make sure the inverse relation doesn't exist
     else if (seen.containsKey(B + A)) {
-      TLink.Type reverse = seen.get(B + A);
-      TLink.Type relReversed = TLink.invertRelation(rel);
-      // inverse simultaneous relations are harmless, just ignore
-      if (reverse == relReversed ||
-      // INCLUDES and BEGINS/ENDS is ok
-          (rel == TLink.Type.INCLUDES
-              && (reverse == TLink.Type.BEGINS || reverse == TLink.Type.ENDS))
-          ||
-          // BEGINS/ENDS and INCLUDES is ok
-          (reverse == TLink.Type.INCLUDES
-              && (rel == TLink.Type.BEGINS || rel == TLink.Type.ENDS)))
-        return 1;
-
-      if (report) {
+      int status = reverseOrderStatus(seen.get(B + A), rel);
+      if (status == 2 && report) {
         System.err.println("Closure conflict: " + A + " " + B);
         System.err.println("...old relation " + B + " " + seen.get(B + A) + " "
             + A + " adding new relation " + A + " " + rel + " " + B);
       }
-      return 2;
+      return status;
     }
     // Else, you can add the new relation.
     else
       return 0;
   }
 
+  /**
+   * Status of adding A-B-rel when A-B-current already exists. 1: the same or a
+   * compatible relation. 2: conflict.
+   */
+  static int sameOrderStatus(TLink.Type current, TLink.Type rel) {
+    if (current != rel) {
+      // some relation clashes are ok
+      if ((current == TLink.Type.BEFORE && rel == TLink.Type.IBEFORE)
+          || (current == TLink.Type.IBEFORE && rel == TLink.Type.BEFORE))
+        return 1;
+      return 2;
+    } else
+      return 1; // exact same relation already exists
+  }
+
+  /**
+   * Status of adding A-B-rel when B-A-reverse already exists. 1: the inverse or
+   * a compatible relation. 2: conflict.
+   */
+  static int reverseOrderStatus(TLink.Type reverse, TLink.Type rel) {
+    TLink.Type relReversed = TLink.invertRelation(rel);
+    // inverse simultaneous relations are harmless, just ignore
+    if (reverse == relReversed ||
+    // INCLUDES and BEGINS/ENDS is ok
+        (rel == TLink.Type.INCLUDES
+            && (reverse == TLink.Type.BEGINS || reverse == TLink.Type.ENDS))
+        ||
+        // BEGINS/ENDS and INCLUDES is ok
+        (reverse == TLink.Type.INCLUDES
+            && (rel == TLink.Type.BEGINS || rel == TLink.Type.ENDS)))
+      return 1;
+    return 2;
+  }
+
   /**
    * Generates a complete set of NONE tlinks between all pairs of events that
    * are not already tlinks. One pair A-B or B-A, not both A-B and B-A.
@@ -2,19 +2,27 @@ package caevo;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import caevo.tlink.EventEventLink;
 import caevo.tlink.EventTimeLink;
 import caevo.tlink.TLink;
+import caevo.tlink.TLinkStore;
 import caevo.tlink.TimeTimeLink;
+import caevo.util.ConfusionMatrix;
 import caevo.util.SieveStats;
 import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.stats.Counters;
 
 /**
  * Evaluation functions for TLink classification.
@@ -61,6 +69,21 @@ public class Evaluate {
     return false;
   }
 
+  /**
+   * Same as above, but only looks at the gold links between the guessed link's
+   * two ids, rather than the whole list.
+   */
+  public static boolean isLinkCorrect(TLink guessed, TLinkStore goldLinks) {
+    if (guessed == null || goldLinks == null)
+      return false;
+
+    for (TLink gold : goldLinks.getAll(guessed.getId1(), guessed.getId2()))
+      if (gold.compareToTLink(guessed))
+        return true;
+
+    return false;
+  }
+
   public static SieveDocuments getTrainSet(SieveDocuments docs) {
     SieveDocuments newdocs = new SieveDocuments();
     for (SieveDocument doc : docs.getDocuments())
@@ -102,126 +125,133 @@ public class Evaluate {
    *          The documents to normalize.
    */
   public static void normalizeAllTlinksByTextOrder(SieveDocuments docs) {
-    for (SieveDocument doc : docs.getDocuments()) {
-      List<TLink> removal = new ArrayList<TLink>();
-      List<TLink> addition = new ArrayList<TLink>();
-
-      for (TLink link : doc.getTlinks()) {
-        // System.out.println("normalizing " + link + " instance=" +
-        // link.getClass().toString());
-
-        // Event-event links.
-        if (link instanceof EventEventLink) {
-          TextEvent first = doc.getEventByEiid(link.getId1());
-          TextEvent second = doc.getEventByEiid(link.getId2());
-          if (first == null || second == null)
-            System.out.println("WARNING: document " + doc.getDocname()
-                + " has a link with a null event: " + link);
-          else if (!first.isBeforeInText(second)) {
-            removal.add(link);
-            TLink.Type invertedRelation = TLink
-                .invertRelation(link.getRelation());
-            TLink newlink = TLink.clone(link);
-            newlink.setId1(link.getId2());
-            newlink.setId2(link.getId1());
-            newlink.setRelation(invertedRelation);
-            addition.add(newlink);
-          }
+    for (SieveDocument doc : docs.getDocuments())
+      normalizeTlinksByTextOrder(doc);
+  }
+
+  /**
+   * Same as above, for one document.
+   */
+  public static void normalizeTlinksByTextOrder(SieveDocument doc) {
+    List<TLink> removal = new ArrayList<TLink>();
+    List<TLink> addition = new ArrayList<TLink>();
+
+    for (TLink link : doc.getTlinks()) {
+      // System.out.println("normalizing " + link + " instance=" +
+      // link.getClass().toString());
+
+      // Event-event links.
+      if (link instanceof EventEventLink) {
+        TextEvent first = doc.getEventByEiid(link.getId1());
+        TextEvent second = doc.getEventByEiid(link.getId2());
+        if (first == null || second == null)
+          System.out.println("WARNING: document " + doc.getDocname()
+              + " has a link with a null event: " + link);
+        else if (!first.isBeforeInText(second)) {
+          removal.add(link);
+          TLink.Type invertedRelation = TLink
+              .invertRelation(link.getRelation());
+          TLink newlink = TLink.clone(link);
+          newlink.setId1(link.getId2());
+          newlink.setId2(link.getId1());
+          newlink.setRelation(invertedRelation);
+          addition.add(newlink);
+        }
+      }
+
+      // Time-Time links.
+      else if (link instanceof TimeTimeLink) {
+        Timex first = doc.getTimexByTid(link.getId1());
+        Timex second = doc.getTimexByTid(link.getId2());
+        boolean flip = false;
+        if (first == null || second == null)
+          System.out.println("WARNING: document " + doc.getDocname()
+              + " has a link with a null timex: " + link);
+        else if (first
+            .getDocumentFunction() == Timex.DocumentFunction.CREATION_TIME
+            && second
+                .getDocumentFunction() != Timex.DocumentFunction.CREATION_TIME) {
+          flip = true;
+        } else if (first
+            .getDocumentFunction() != Timex.DocumentFunction.CREATION_TIME
+            && second
+                .getDocumentFunction() != Timex.DocumentFunction.CREATION_TIME
+            && !first.isBeforeInText(second)) {
+          flip = true;
+        }
+
+        if (flip) {
+          removal.add(link);
+          TLink.Type invertedRelation = TLink
+              .invertRelation(link.getRelation());
+          TLink newlink = TLink.clone(link);
+          newlink.setId1(link.getId2());
+          newlink.setId2(link.getId1());
+          newlink.setRelation(invertedRelation);
+          addition.add(newlink);
         }
+      }
+
+      // Event-Time links.
+      else if (link instanceof EventTimeLink) {
+        TextEvent event;
+        Timex time;
+        boolean flip = false;
 
-        // Time-Time links.
-        else if (link instanceof TimeTimeLink) {
-          Timex first = doc.getTimexByTid(link.getId1());
-          Timex second = doc.getTimexByTid(link.getId2());
-          boolean flip = false;
-          if (first == null || second == null)
+        // event - time
+        if (link.getId1().startsWith("e")) {
+          event = doc.getEventByEiid(link.getId1());
+          time = doc.getTimexByTid(link.getId2());
+
+          if (event == null || time == null)
             System.out.println("WARNING: document " + doc.getDocname()
-                + " has a link with a null timex: " + link);
-          else if (first
-              .getDocumentFunction() == Timex.DocumentFunction.CREATION_TIME
-              && second
-                  .getDocumentFunction() != Timex.DocumentFunction.CREATION_TIME) {
-            flip = true;
-          } else if (first
-              .getDocumentFunction() != Timex.DocumentFunction.CREATION_TIME
-              && second
-                  .getDocumentFunction() != Timex.DocumentFunction.CREATION_TIME
-              && !first.isBeforeInText(second)) {
-            flip = true;
-          }
+                + " has a link with a null event or timex: " + link);
 
-          if (flip) {
-            removal.add(link);
-            TLink.Type invertedRelation = TLink
-                .invertRelation(link.getRelation());
-            TLink newlink = TLink.clone(link);
-            newlink.setId1(link.getId2());
-            newlink.setId2(link.getId1());
-            newlink.setRelation(invertedRelation);
-            addition.add(newlink);
-          }
+          else if (!time.isDCT() && (time.getSid() < event.getSid()
+              || (time.getSid() == event.getSid()
+                  && time.getTokenOffset() < event.getIndex())))
+            flip = true;
         }
+        // time - event
+        else {
+          event = doc.getEventByEiid(link.getId2());
+          time = doc.getTimexByTid(link.getId1());
 
-        // Event-Time links.
-        else if (link instanceof EventTimeLink) {
-          TextEvent event;
-          Timex time;
-          boolean flip = false;
-
-          // event - time
-          if (link.getId1().startsWith("e")) {
-            event = doc.getEventByEiid(link.getId1());
-            time = doc.getTimexByTid(link.getId2());
-
-            if (event == null || time == null)
-              System.out.println("WARNING: document " + doc.getDocname()
-                  + " has a link with a null event or timex: " + link);
-
-            else if (!time.isDCT() && (time.getSid() < event.getSid()
-                || (time.getSid() == event.getSid()
-                    && time.getTokenOffset() < event.getIndex())))
-              flip = true;
-          }
-          // time - event
-          else {
-            event = doc.getEventByEiid(link.getId2());
-            time = doc.getTimexByTid(link.getId1());
-
-            if (event == null || time == null)
-              System.out.println("WARNING: document " + doc.getDocname()
-                  + " has a link with a null event or timex: " + link);
-
-            else if (time.isDCT())
-              flip = true;
-            else if (event.getSid() < time.getSid()
-                || (event.getSid() == time.getSid()
-                    && event.getIndex() < time.getTokenOffset()))
-              flip = true;
-          }
+          if (event == null || time == null)
+            System.out.println("WARNING: document " + doc.getDocname()
+                + " has a link with a null event or timex: " + link);
 
-          if (flip) {
-            removal.add(link);
-            TLink.Type invertedRelation = TLink
-                .invertRelation(link.getRelation());
-            TLink newlink = TLink.clone(link);
-            newlink.setId1(link.getId2());
-            newlink.setId2(link.getId1());
-            newlink.setRelation(invertedRelation);
-            addition.add(newlink);
-          }
+          else if (time.isDCT())
+            flip = true;
+          else if (event.getSid() < time.getSid()
+              || (event.getSid() == time.getSid()
+                  && event.getIndex() < time.getTokenOffset()))
+            flip = true;
         }
 
-        else { // if( link instanceof TLink )
-          System.out.println(
-              "WARNING: a sieve is producing generic TLink instances. These must be specific! Evaluation is now unreliable.");
+        if (flip) {
+          removal.add(link);
+          TLink.Type invertedRelation = TLink
+              .invertRelation(link.getRelation());
+          TLink newlink = TLink.clone(link);
+          newlink.setId1(link.getId2());
+          newlink.setId2(link.getId1());
+          newlink.setRelation(invertedRelation);
+          addition.add(newlink);
         }
       }
 
-      for (TLink link : removal)
-        doc.removeTlink(link);
-      for (TLink link : addition)
-        doc.addTlink(link);
+      else { // if( link instanceof TLink )
+        System.out.println(
+            "WARNING: a sieve is producing generic TLink instances. These must be specific! Evaluation is now unreliable.");
+      }
     }
+
+    // One pass over the links instead of a List.remove() for each.
+    if (removal.size() > 0)
+      doc.getTlinks().removeAll(new HashSet<TLink>(removal));
+    for (TLink link : addition)
+      doc.addTlink(link);
   }
 
   private static String determineLinkType(TLink link) {
@@ -251,6 +281,33 @@ public class Evaluate {
      */
   }
 
+  /**
+   * One document's share of an evaluation, merged into the totals in document
+   * order.
+   */
+  private static class DocEvaluation {
+    int numCorrect = 0;
+    int numCorrectNonVague = 0;
+    int numIncorrect = 0;
+    int numIncorrectNonVague = 0;
+    int numMissed = 0;
+    int numMissedNonVague = 0;
+    ConfusionMatrix confusion = new ConfusionMatrix();
+    Counter<String> breakdownNumCorrect = new ClassicCounter<String>();
+    Counter<String> breakdownNumIncorrect = new ClassicCounter<String>();
+    // Sieve origin -> this document's links from it.
+    Map<String, SieveStats> sieveStats = new LinkedHashMap<String, SieveStats>();
+
+    SieveStats statsFor(String origin) {
+      SieveStats stats = sieveStats.get(origin);
+      if (stats == null) {
+        stats = new SieveStats(origin);
+        sieveStats.put(origin, stats);
+      }
+      return stats;
+    }
+  }
+
   /**
    * Full evaluation of guesses to gold links. This penalizes guesses for not
    * labeling everything. The goldDocs and guessedDocs should cover the same
@@ -269,8 +326,57 @@ public class Evaluate {
   public static void evaluate(SieveDocuments goldDocs,
       SieveDocuments guessedDocs, String[] sieveNames,
       Map<String, SieveStats> sieveStats) {
-    Counter<String> guessCounts = new ClassicCounter<String>();
-    Counter<TLink.Type> goldLabelCounts = new ClassicCounter<TLink.Type>();
+    evaluate(goldDocs, guessedDocs, sieveNames, sieveStats, 1);
+  }
+
+  /**
+   * Same as above, but evaluates the documents on a pool of the given number
+   * of threads. The results are the same for any number of threads.
+   */
+  public static void evaluate(SieveDocuments goldDocs,
+      final SieveDocuments guessedDocs, String[] sieveNames,
+      Map<String, SieveStats> sieveStats, int threads) {
+    if (goldDocs == null)
+      return;
+
+    final List<SieveDocument> docs = guessedDocs.getDocuments();
+    final List<SieveDocument> golds = new ArrayList<SieveDocument>();
+    for (SieveDocument guessedDoc : docs)
+      golds.add(goldDocs.getDocument(guessedDoc.getDocname()));
+    final DocEvaluation[] results = new DocEvaluation[docs.size()];
+
+    int numWorkers = Math.min(threads, docs.size());
+    if (numWorkers <= 1) {
+      for (int dd = 0; dd < docs.size(); dd++)
+        results[dd] = evaluateDocument(golds.get(dd), docs.get(dd));
+    } else {
+      final AtomicInteger nextDoc = new AtomicInteger(0);
+      ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int w = 0; w < numWorkers; w++) {
+        futures.add(pool.submit(new Runnable() {
+          public void run() {
+            int dd;
+            while ((dd = nextDoc.getAndIncrement()) < docs.size())
+              results[dd] = evaluateDocument(golds.get(dd), docs.get(dd));
+          }
+        }));
+      }
+      pool.shutdown();
+
+      try {
+        for (Future<?> future : futures)
+          future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(ex);
+      } catch (ExecutionException ex) {
+        throw new RuntimeException(ex.getCause());
+      }
+    }
+
+    // Merge in document order.
+    ConfusionMatrix confusion = new ConfusionMatrix();
     Counter<String> breakdownNumCorrect = new ClassicCounter<String>();
     Counter<String> breakdownNumIncorrect = new ClassicCounter<String>();
     int numCorrect = 0;
@@ -279,98 +385,20 @@ public class Evaluate {
     int numIncorrectNonVague = 0;
     int numMissed = 0;
     int numMissedNonVague = 0;
-
-    if (goldDocs == null)
-      return;
-
-    // Make sure all TLinks follow text order and invert relations that don't.
-    // normalizeAllTlinksByTextOrder(goldDocs);
-    normalizeAllTlinksByTextOrder(guessedDocs);
-
-    // Loop over documents.
-    for (SieveDocument guessedDoc : guessedDocs.getDocuments()) {
-      SieveDocument goldDoc = goldDocs.getDocument(guessedDoc.getDocname());
-      Set<String> seenGoldLinks = new HashSet<String>();
-
-      // System.out.println("evaluating " + guessedDoc.getDocname());
-      // System.out.println("\t-> " + guessedDoc.getTlinks().size() + " guessed
-      // links with " + goldDoc.getTlinks().size() + " gold links.");
-
-      // Gold links.
-      List<TLink> goldLinks = goldDoc.getTlinksNoClosures();
-      Map<String, TLink> goldPairLookup = new HashMap<String, TLink>();
-      for (TLink tlink : goldLinks) {
-        goldPairLookup.put(tlink.getId1() + "," + tlink.getId2(), tlink);
-        goldLabelCounts.incrementCount(tlink.getRelation());
-      }
-
-      // Run it.
-      List<TLink> proposed = guessedDoc.getTlinks();
-      // System.out.println("EVALUATE: proposed links in " +
-      // guessedDoc.getDocname() + " = " + proposed);
-
-      // Check proposed links.
-      for (TLink pp : proposed) {
-        TLink goldLink = goldPairLookup.get(pp.getId1() + "," + pp.getId2());
-
-        if (goldLink != null) {
-          guessCounts
-              .incrementCount(goldLink.getRelation() + " " + pp.getRelation());
-          seenGoldLinks.add(pp.getId1() + "," + pp.getId2());
-        }
-
-        // Guessed link is correct!
-        if (Evaluate.isLinkCorrect(pp, goldLinks)) {
-          numCorrect++;
-          breakdownNumCorrect
-              .incrementCount(pp.isFromClosure() ? "closed" : "notclosed");
-          breakdownNumCorrect.incrementCount(determineLinkType(pp));
-          if (!pp.getRelation().equals(TLink.Type.VAGUE)) {
-            numCorrectNonVague++;
-          }
-          if (pp.getOrigin() != null) {
-            sieveStats.get(pp.getOrigin()).addCorrect(pp);
-          } else
-            System.out.println("EVALUATE: unknown link origin: " + pp);
-        }
-        // Gold and guessed link disagree!
-        // Only mark relations wrong if there's a conflicting human annotation.
-        // (if there's no human annotation, we don't know if it's right or
-        // wrong)
-        else if (goldLink != null) {
-          numIncorrect++;
-          breakdownNumIncorrect
-              .incrementCount(pp.isFromClosure() ? "closed" : "notclosed");
-          breakdownNumIncorrect.incrementCount(determineLinkType(pp));
-          if (!goldLink.getRelation().equals(TLink.Type.VAGUE)) {
-            numIncorrectNonVague++;
-          }
-          if (pp.getOrigin() != null)
-            sieveStats.get(pp.getOrigin()).addIncorrect(pp, goldLink);
-          else
-            System.out.println("EVALUATE: unknown link origin: " + pp);
-        }
-        // No gold link. We don't penalize for guessed links that aren't in
-        // gold.
-        else {
-          sieveStats.get(pp.getOrigin()).addNoGold(pp);
-          // System.out.println("No gold link: " + pp);
-        }
-      }
-
-      // Check for gold links that were not predicted. Penalize for them being
-      // missed.
-      for (TLink gold : goldLinks) {
-        if (!seenGoldLinks.contains(gold.getId1() + "," + gold.getId2())) {
-          numMissed++;
-          if (!gold.getRelation().equals(TLink.Type.VAGUE)) {
-            numMissedNonVague++;
-          }
-          // System.out.println("Unlabeled gold: " + guessedDoc.getDocname() + "
-          // " + gold);
-        }
-      }
+    for (DocEvaluation result : results) {
+      numCorrect += result.numCorrect;
+      numCorrectNonVague += result.numCorrectNonVague;
+      numIncorrect += result.numIncorrect;
+      numIncorrectNonVague += result.numIncorrectNonVague;
+      numMissed += result.numMissed;
+      numMissedNonVague += result.numMissedNonVague;
+      confusion.merge(result.confusion);
+      Counters.addInPlace(breakdownNumCorrect, result.breakdownNumCorrect);
+      Counters.addInPlace(breakdownNumIncorrect, result.breakdownNumIncorrect);
+      for (Map.Entry<String, SieveStats> entry : result.sieveStats.entrySet())
+        sieveStats.get(entry.getKey()).merge(entry.getValue());
     }
+    Counter<TLink.Type> goldLabelCounts = confusion.goldCounter();
 
     // Print performance for each individual sieve.
     System.out.println("\nBrief Sieve Stats");
@@ -451,12 +479,92 @@ public class Evaluate {
 
     printBaseline(goldLabelCounts);
     printDatasetStats(goldLabelCounts);
-    printConfusionMatrix(guessCounts);
-    printPerRelationPRF(guessCounts, goldLabelCounts);
+    printConfusionMatrix(confusion, System.out);
+    printPerRelationPRF(confusion, System.out);
     System.out.println(
         "*********************************************************************\n");
   }
 
+  /**
+   * Normalize one document's guessed links to text order and score them
+   * against its gold links.
+   */
+  private static DocEvaluation evaluateDocument(SieveDocument goldDoc,
+      SieveDocument guessedDoc) {
+    DocEvaluation result = new DocEvaluation();
+    Set<TLink> seenGoldLinks = new HashSet<TLink>();
+
+    // Make sure all TLinks follow text order and invert relations that don't.
+    normalizeTlinksByTextOrder(guessedDoc);
+
+    // Gold links.
+    List<TLink> goldLinks = goldDoc.getTlinksNoClosures();
+    TLinkStore goldPairLookup = new TLinkStore(goldLinks);
+    for (TLink tlink : goldLinks)
+      result.confusion.addGold(tlink.getRelation());
+
+    // Check proposed links.
+    for (TLink pp : guessedDoc.getTlinks()) {
+      TLink goldLink = goldPairLookup.getDirected(pp.getId1(), pp.getId2());
+
+      if (goldLink != null) {
+        result.confusion.add(goldLink.getRelation(), pp.getRelation());
+        seenGoldLinks.add(goldLink);
+      }
+
+      // Guessed link is correct!
+      if (Evaluate.isLinkCorrect(pp, goldPairLookup)) {
+        result.numCorrect++;
+        result.breakdownNumCorrect
+            .incrementCount(pp.isFromClosure() ? "closed" : "notclosed");
+        result.breakdownNumCorrect.incrementCount(determineLinkType(pp));
+        if (!pp.getRelation().equals(TLink.Type.VAGUE)) {
+          result.numCorrectNonVague++;
+        }
+        if (pp.getOrigin() != null) {
+          result.statsFor(pp.getOrigin()).addCorrect(pp);
+        } else
+          System.out.println("EVALUATE: unknown link origin: " + pp);
+      }
+      // Gold and guessed link disagree!
+      // Only mark relations wrong if there's a conflicting human annotation.
+      // (if there's no human annotation, we don't know if it's right or
+      // wrong)
+      else if (goldLink != null) {
+        result.numIncorrect++;
+        result.breakdownNumIncorrect
+            .incrementCount(pp.isFromClosure() ? "closed" : "notclosed");
+        result.breakdownNumIncorrect.incrementCount(determineLinkType(pp));
+        if (!goldLink.getRelation().equals(TLink.Type.VAGUE)) {
+          result.numIncorrectNonVague++;
+        }
+        if (pp.getOrigin() != null)
+          result.statsFor(pp.getOrigin()).addIncorrect(pp, goldLink);
+        else
+          System.out.println("EVALUATE: unknown link origin: " + pp);
+      }
+      // No gold link. We don't penalize for guessed links that aren't in
+      // gold.
+      else {
+        result.statsFor(pp.getOrigin()).addNoGold(pp);
+      }
+    }
+
+    // Check for gold links that were not predicted. Penalize for them being
+    // missed.
+    for (TLink gold : goldLinks) {
+      // Seen if the gold link a guess was matched to covers this one.
+      if (!seenGoldLinks.contains(goldPairLookup.getDirected(gold.getId1(),
+          gold.getId2()))) {
+        result.numMissed++;
+        if (!gold.getRelation().equals(TLink.Type.VAGUE)) {
+          result.numMissedNonVague++;
+        }
+      }
+    }
+    return result;
+  }
+
   /**
    * Find the label with the most counts, and print the baseline if you always
    * guessed that one.
@@ -535,6 +643,22 @@ public class Evaluate {
     }
   }
 
+  public static void printConfusionMatrix(ConfusionMatrix confusion,
+      PrintStream printer) {
+    for (TLink.Type label2 : labels)
+      printer.print("\t" + label2.toString().substring(0,
+          Math.min(label2.toString().length(), 6)));
+    printer.println("\t(guesses)");
+
+    for (TLink.Type label1 : labels) {
+      printer.print(label1.toString().substring(0,
+          Math.min(label1.toString().length(), 6)) + "\t");
+      for (TLink.Type label2 : labels)
+        printer.print(confusion.getCount(label1, label2) + "\t");
+      printer.println();
+    }
+  }
+
   /**
    * Print the confusion matrix for the 6 label types. Each String key should be
    * a pair separated by a single space, representing a guess for a gold label:
@@ -579,6 +703,29 @@ public class Evaluate {
     }
   }
 
+  public static void printPerRelationPRF(ConfusionMatrix confusion,
+      PrintStream printer) {
+    printer.println("-------------------------------\nPer Relation P/R/F1");
+    for (TLink.Type label1 : labels) {
+      printer.print(label1.toString().substring(0,
+          Math.min(label1.toString().length(), 6)) + "\t");
+
+      double correct = confusion.getCount(label1, label1);
+      double totalPossible = confusion.getGoldCount(label1);
+      double totalGuessed = 0.0;
+      for (TLink.Type label2 : labels)
+        totalGuessed += confusion.getCount(label2, label1);
+
+      double precision = correct / totalGuessed;
+      double recall = correct / totalPossible;
+      double f1 = (precision + recall > 0
+          ? 2.0 * precision * recall / (precision + recall) : 0.0);
+      printer.println(String.format(
+          "p=%.2f\tr=%.2f\tf1=%.2f\tcorrect=%.0f\tguessed=%.0f\tpossible=%.0f",
+          precision, recall, f1, correct, totalGuessed, totalPossible));
+    }
+  }
+
   /**
    * @param args
    */
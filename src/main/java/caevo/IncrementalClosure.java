@@ -0,0 +1,266 @@
+package caevo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import caevo.tlink.TLink;
+import caevo.util.LongIntHashMap;
+
+/**
+ * Transitive closure over one document's growing list of TLinks. Uses the
+ * rules from a loaded Closure object, but keeps its state between calls so
+ * that each call only does the work for links added since the last call.
+ *
+ * Event and time ids are interned to ints, links are indexed by their two
+ * endpoints, and the relation already known for each ordered pair is kept in
+ * a primitive hash map. A new link is only compared with links that share one
+ * of its endpoints, rather than with every other link.
+ *
+ * The pairs are visited in the same order as Closure.computeClosure() (by
+ * earlier link, then later link, one round per batch of new links), so the
+ * same links are inferred and the same conflicts are rejected.
+ *
+ * Contract: the caller passes the same list every time, and appends the links
+ * returned by computeClosure() to the end of that list before adding anything
+ * else. This is what Main does with its current TLink list.
+ */
+public class IncrementalClosure {
+  private static final TLink.Type[] TYPES = TLink.Type.values();
+
+  private final Closure closure;
+
+  // Id interning.
+  private final Map<String, Integer> idToNode = new HashMap<String, Integer>();
+  private final List<String> nodeToId = new ArrayList<String>();
+
+  // All links seen so far, in list order, with their interned endpoints.
+  private final List<TLink> links = new ArrayList<TLink>();
+  private int[] linkNode1 = new int[64];
+  private int[] linkNode2 = new int[64];
+  private TLink.Type[] linkRel = new TLink.Type[64];
+
+  // For each node, the indices (ascending) of the links touching it.
+  private final List<int[]> nodeLinks = new ArrayList<int[]>();
+  private int[] nodeLinkCounts = new int[64];
+
+  // Relation (ordinal) known for each ordered node pair.
+  private final LongIntHashMap seen = new LongIntHashMap(256, -1);
+
+  // Number of entries of the caller's list already accounted for.
+  private int known = 0;
+
+  public IncrementalClosure(Closure closure) {
+    this.closure = closure;
+  }
+
+  /**
+   * Index any links appended to the given list since the last call, then run
+   * closure over them.
+   *
+   * @param relations
+   *          The document's current links. Only the tail added since the last
+   *          call is read.
+   * @return The new links inferred by closure, not yet in the given list.
+   */
+  public List<TLink> computeClosure(List<TLink> relations) {
+    List<TLink> newRelations = new ArrayList<TLink>();
+
+    // Start over if the caller didn't follow the contract.
+    if (relations.size() < known)
+      reset();
+
+    int firstNew = links.size();
+    for (int i = known; i < relations.size(); i++)
+      addLink(relations.get(i));
+    known = relations.size();
+
+    // One round per batch: pairs (i,j) with j in [oldsize,size) and i < j.
+    int oldsize = firstNew;
+    while (links.size() > oldsize) {
+      int size = links.size();
+      long[] pairs = candidatePairs(oldsize, size);
+      for (long pair : pairs) {
+        int i = (int) (pair >>> 32);
+        int j = (int) pair;
+        TLink created = closePair(i, j);
+        if (created != null)
+          newRelations.add(created);
+      }
+      oldsize = size;
+    }
+
+    // The caller will append these, so they're already accounted for.
+    known += newRelations.size();
+    return newRelations;
+  }
+
+  /**
+   * Forget all links and ids.
+   */
+  public void reset() {
+    idToNode.clear();
+    nodeToId.clear();
+    links.clear();
+    nodeLinks.clear();
+    seen.clear();
+    known = 0;
+  }
+
+  /**
+   * All pairs (i,j) of link indices that share an endpoint, with j in
+   * [from,to) and i < j, packed i<<32|j and sorted by i then j.
+   */
+  private long[] candidatePairs(int from, int to) {
+    long[] pairs = new long[16];
+    int num = 0;
+    for (int j = from; j < to; j++) {
+      int n1 = linkNode1[j];
+      int n2 = linkNode2[j];
+      int[] adj = nodeLinks.get(n1);
+      int count = nodeLinkCounts[n1];
+      for (int k = 0; k < count && adj[k] < j; k++) {
+        if (num == pairs.length)
+          pairs = Arrays.copyOf(pairs, num * 2);
+        pairs[num++] = LongIntHashMap.pack(adj[k], j);
+      }
+      if (n2 != n1) {
+        adj = nodeLinks.get(n2);
+        count = nodeLinkCounts[n2];
+        for (int k = 0; k < count && adj[k] < j; k++) {
+          if (num == pairs.length)
+            pairs = Arrays.copyOf(pairs, num * 2);
+          pairs[num++] = LongIntHashMap.pack(adj[k], j);
+        }
+      }
+    }
+    pairs = Arrays.copyOf(pairs, num);
+    Arrays.sort(pairs);
+
+    // Links sharing both endpoints show up twice.
+    int unique = 0;
+    for (int k = 0; k < num; k++)
+      if (k == 0 || pairs[k] != pairs[k - 1])
+        pairs[unique++] = pairs[k];
+    return Arrays.copyOf(pairs, unique);
+  }
+
+  /**
+   * Apply the closure rules to links i and j (i earlier), mirroring the match
+   * cases in Closure.computeClosure().
+   *
+   * @return The new link, or null if none was created.
+   */
+  private TLink closePair(int i, int j) {
+    int a1 = linkNode1[i], a2 = linkNode2[i];
+    int b1 = linkNode1[j], b2 = linkNode2[j];
+    TLink.Type rel1 = linkRel[i];
+    TLink.Type rel2 = linkRel[j];
+    int B = -1, C = -1, matchCase = -1;
+
+    // A-B-Rel, A-C-Rel
+    if (a1 == b1 && a2 != b2) {
+      matchCase = 0;
+      B = a2;
+      C = b2;
+    }
+    // A-B-Rel, C-A-Rel
+    else if (a1 == b2 && a2 != b1) {
+      matchCase = 1;
+      B = a2;
+      C = b1;
+    }
+    // B-A-Rel, A-C-Rel
+    else if (a2 == b1 && a1 != b2) {
+      matchCase = 2;
+      B = a1;
+      C = b2;
+    }
+    // B-A-Rel, C-A-Rel
+    else if (a2 == b2 && a1 != b1) {
+      matchCase = 3;
+      B = a1;
+      C = b1;
+    }
+
+    // Ignore closing trivial relations such as A-A-INCL, A-A-SIMUL
+    if (a1 == a2
+        && (rel1 == TLink.Type.SIMULTANEOUS || rel1 == TLink.Type.INCLUDES))
+      return null;
+    if (b1 == b2
+        && (rel2 == TLink.Type.SIMULTANEOUS || rel2 == TLink.Type.INCLUDES))
+      return null;
+    if (matchCase == -1)
+      return null;
+
+    TLink.Type newrel = closure.closeLinks(rel1, rel2, matchCase);
+    if (newrel == null || status(B, C, newrel) != 0)
+      return null;
+
+    TLink link = Closure.createClosedLink(nodeToId.get(B), nodeToId.get(C),
+        newrel);
+    addLink(link);
+    return link;
+  }
+
+  /**
+   * 0: no relation between B and C yet. 1: consistent with an existing one. 2:
+   * conflicts with an existing one.
+   */
+  private int status(int B, int C, TLink.Type rel) {
+    int current = seen.get(LongIntHashMap.pack(B, C));
+    if (current >= 0)
+      return Closure.sameOrderStatus(TYPES[current], rel);
+    int reverse = seen.get(LongIntHashMap.pack(C, B));
+    if (reverse >= 0)
+      return Closure.reverseOrderStatus(TYPES[reverse], rel);
+    return 0;
+  }
+
+  private int node(String id) {
+    Integer node = idToNode.get(id);
+    if (node == null) {
+      node = nodeToId.size();
+      idToNode.put(id, node);
+      nodeToId.add(id);
+      nodeLinks.add(new int[4]);
+      if (node == nodeLinkCounts.length)
+        nodeLinkCounts = Arrays.copyOf(nodeLinkCounts, node * 2);
+      nodeLinkCounts[node] = 0;
+    }
+    return node;
+  }
+
+  private void addToNode(int node, int linkIndex) {
+    int[] adj = nodeLinks.get(node);
+    int count = nodeLinkCounts[node];
+    if (count == adj.length) {
+      adj = Arrays.copyOf(adj, count * 2);
+      nodeLinks.set(node, adj);
+    }
+    adj[count] = linkIndex;
+    nodeLinkCounts[node] = count + 1;
+  }
+
+  private void addLink(TLink link) {
+    int index = links.size();
+    if (index == linkNode1.length) {
+      linkNode1 = Arrays.copyOf(linkNode1, index * 2);
+      linkNode2 = Arrays.copyOf(linkNode2, index * 2);
+      linkRel = Arrays.copyOf(linkRel, index * 2);
+    }
+    int n1 = node(link.getId1());
+    int n2 = node(link.getId2());
+    links.add(link);
+    linkNode1[index] = n1;
+    linkNode2[index] = n2;
+    linkRel[index] = link.getRelation();
+    addToNode(n1, index);
+    if (n2 != n1)
+      addToNode(n2, index);
+    if (link.getRelation() != null)
+      seen.put(LongIntHashMap.pack(n1, n2), link.getRelation().ordinal());
+  }
+}
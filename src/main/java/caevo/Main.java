@@ -1,6 +1,7 @@
 package caevo;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
@@ -8,24 +9,38 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import caevo.sieves.Sieve;
 import caevo.tlink.TLink;
+import caevo.tlink.TLinkStore;
 import caevo.tlink.TimeTimeLink;
 import caevo.util.DCTHeuristics;
+import caevo.util.DerivedCache;
 import caevo.util.Directory;
 import caevo.util.Ling;
+import caevo.util.Log;
+import caevo.util.ModelRegistry;
+import caevo.util.ParallelTrainer;
 import caevo.util.SieveStats;
+import caevo.util.Timings;
 import caevo.util.CaevoProperties;
 import caevo.util.Util;
 import caevo.util.WordNet;
 import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
 import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.stats.Counters;
 import edu.stanford.nlp.trees.GrammaticalStructureFactory;
 import edu.stanford.nlp.trees.PennTreebankLanguagePack;
 import edu.stanford.nlp.trees.TreebankLanguagePack;
@@ -53,23 +68,53 @@ import edu.stanford.nlp.util.StringUtils;
  * java Main <file-or-dir> raw - Takes a text file and runs the NLP pipeline,
  * then our event/timex/tlink extraction.
  *
+ * java Main <dir-or-filelist> batch - Loads the parser, WordNet, classifiers
+ * and sieves once, then runs the raw pipeline on every file in the directory
+ * (or every path listed in the file), writing <file>.info.xml for each.
+ *
+ * java Main <spool-dir> watch - Same as batch, but keeps running and polls
+ * the directory for new files every Main.watchSeconds seconds.
+ *
+ * java Main -info <filepath> [-set all|train|dev] stream - Same as the plain
+ * tlink sieve run, but reads and writes one document at a time so memory does
+ * not grow with the corpus. No evaluation.
+ *
+ * java Main -info <filepath> streamparsed - Same as parsed, one document at a
+ * time.
+ *
+ * Logging levels are set per component in the properties file (Log.level,
+ * Log.Main, Log.TimexClassifier, ...), and Log.file sends them to a file. See
+ * Log.
+ *
+ * With Main.timings=true, every run that writes an output file also writes
+ * <output>.timings.json and <output>.timings.csv: wall, CPU and allocation per
+ * stage (parse, events, timex, each sieve, closure, XML read/write), per
+ * document and for the whole run. See Timings.
+ *
  * @author chambers
  */
 public class Main {
   public static final String serializedGrammar = "edu/stanford/nlp/models/lexparser/englishPCFG.ser.gz";
+  private static final Log log = Log.getLog(Main.class);
 
   private TextEventClassifier eventClassifier;
   private TimexClassifier timexClassifier;
+  private LexicalizedParser parser;
+  private GrammaticalStructureFactory gsf;
+  private ParserPool parserPool;
   public static WordNet wordnet;
 
   SieveDocuments thedocs = null;
   SieveDocuments thedocsUnchanged = null; // for evaluating if TLinks are in the input
   Closure closure;
   String outpath = "sieve-output.xml";
-  boolean debug = true;
+  boolean debug = false;
   boolean useClosure = true;
   boolean force24hrDCT = true;
   String dctHeuristic = "none";
+  int watchSeconds = 5;
+  int threads = 1;
+  String streamInfoPath = null;
 
   // Which dataset do we load?
   public static enum DatasetType {
@@ -80,6 +125,8 @@ public class Main {
 
   // List the sieve class names in your desired order.
   private String[] sieveClasses;
+  private Sieve[] sieves;
+  private List<Sieve[]> workerSieves = new ArrayList<Sieve[]>();
 
   /**
    * Constructor: give it the command-line arguments.
@@ -95,6 +142,8 @@ public class Main {
       infopath = CaevoProperties.getString("Main.info", null);
       // Overwrite these globals if they are in the properties file.
       debug = CaevoProperties.getBoolean("Main.debug", debug);
+      if (debug && !log.isDebug())
+        log.setLevel(Log.Level.DEBUG);
       useClosure = CaevoProperties.getBoolean("Main.closure", useClosure);
       dataset = DatasetType.valueOf(CaevoProperties
           .getString("Main.dataset", dataset.toString()).toUpperCase());
@@ -102,6 +151,11 @@ public class Main {
           force24hrDCT);
       dctHeuristic = CaevoProperties.getString("Main.dctHeuristic",
           dctHeuristic);
+      watchSeconds = CaevoProperties.getInt("Main.watchSeconds", watchSeconds);
+      threads = CaevoProperties.getInt("Main.threads", threads);
+      ParallelTrainer.setThreads(threads);
+      Timings.setEnabled(CaevoProperties.getBoolean("Main.timings",
+          Timings.isEnabled()));
       System.out.println(dctHeuristic);
     } catch (IOException e) {
       e.printStackTrace();
@@ -111,6 +165,13 @@ public class Main {
     if (cmdlineProps.containsKey("info"))
       infopath = cmdlineProps.getProperty("info");
 
+    // Streaming modes read the infofile themselves, one document at a time.
+    if (infopath != null && args.length > 0
+        && args[args.length - 1].toLowerCase().startsWith("stream")) {
+      streamInfoPath = infopath;
+      infopath = null;
+    }
+
     if (infopath != null) {
       System.out.println("Checking for infofile at " + infopath);
       thedocs = new SieveDocuments(infopath);
@@ -131,6 +192,7 @@ public class Main {
     System.out.println("Dataset:\t" + dataset);
     System.out.println("Using Closure:\t" + useClosure);
     System.out.println("Debug:\t\t" + debug);
+    System.out.println("Threads:\t" + threads);
   }
 
   /**
@@ -225,6 +287,43 @@ public class Main {
     return sieves;
   }
 
+  /**
+   * Loads the parser and dependency factory on first use, and keeps them
+   * around so repeated raw-text markup doesn't reload the grammar.
+   */
+  private LexicalizedParser getParser() {
+    if (parser == null) {
+      parser = Ling.createParser(serializedGrammar);
+      if (parser == null) {
+        System.out.println("Failed to create parser from " + serializedGrammar);
+        System.exit(1);
+      }
+      TreebankLanguagePack tlp = new PennTreebankLanguagePack();
+      gsf = tlp.grammaticalStructureFactory();
+    }
+    return parser;
+  }
+
+  /**
+   * @return A pool of Main.threads parser queries over the one loaded grammar,
+   *         created on first use.
+   */
+  private ParserPool getParserPool() {
+    if (parserPool == null)
+      parserPool = new ParserPool(getParser(), gsf, threads);
+    return parserPool;
+  }
+
+  /**
+   * @return The sieve instances for the pipeline, created once and reused
+   *         across calls to runSieves().
+   */
+  private Sieve[] getSieves() {
+    if (sieves == null)
+      sieves = createAllSieves(sieveClasses);
+    return sieves;
+  }
+
   /**
    * Assumes the global SieveDocuments is initialized and loaded. Run all
    * sieves!! On all documents!!
@@ -234,97 +333,213 @@ public class Main {
   }
 
   /**
-   * Run the sieve pipeline on the given documents.
+   * Run the sieve pipeline on the given documents. With Main.threads > 1, the
+   * documents are spread over a pool of workers, each with its own sieve
+   * instances. Documents are independent, so output and evaluation are
+   * identical to the single-threaded run.
    */
   public void runSieves(SieveDocuments thedocs) {
     // Remove all TLinks because we will add our own.
     thedocs.removeAllTLinks();
 
-    // Start with zero links.
-    List<TLink> currentTLinks = new ArrayList<TLink>();
-    Map<String, TLink> currentTLinksHash = new HashMap<String, TLink>();
-
-    // Create all the sieves first.
-    Sieve sieves[] = createAllSieves(sieveClasses);
-
     // Statistics collection.
-    SieveStats stats[] = new SieveStats[sieveClasses.length];
+    SieveStats stats[] = createSieveStats();
     Map<String, SieveStats> sieveNameToStats = new HashMap<String, SieveStats>();
-    for (int i = 0; i < sieveClasses.length; i++) {
-      stats[i] = new SieveStats(sieveClasses[i]);
+    for (int i = 0; i < sieveClasses.length; i++)
       sieveNameToStats.put(sieveClasses[i], stats[i]);
-    }
 
     // Data
     SieveDocuments docs = getDataset(dataset, thedocs);
 
-    // Do each file independently.
-    for (SieveDocument doc : docs.getDocuments()) {
-      System.out.println("Processing " + doc.getDocname() + "...");
-      // System.out.println("Number of gold links: " +
-      // thedocsUnchanged.getDocument(doc.getDocname()).getTlinks().size());
-
-      // Loop over the sieves in order.
-      for (int xx = 0; xx < sieves.length; xx++) {
-        Sieve sieve = sieves[xx];
-        if (sieve == null)
-          continue;
-        System.out.println("\tSieve " + sieve.getClass().toString());
-
-        // Run this sieve
-        List<TLink> newLinks = sieve.annotate(doc, currentTLinks);
-        if (debug)
-          System.out.println("\t\t" + newLinks.size() + " new links.");
-        // if( debug ) System.out.println("\t\t" + newLinks);
-        stats[xx].addProposedCount(newLinks.size());
-
-        // Verify the links as non-conflicting.
-        int numRemoved = removeConflicts(currentTLinksHash, newLinks);
-        if (debug)
-          System.out.println("\t\tRemoved " + numRemoved + " proposed links.");
-        // if( debug ) System.out.println("\t\t" + newLinks);
-        stats[xx].addRemovedCount(numRemoved);
-
-        if (newLinks.size() > 0) {
-          // Add the good links to our current list.
-          addProposedToCurrentList(sieveClasses[xx], newLinks, currentTLinks,
-              currentTLinksHash);// currentTLinks.addAll(newLinks);
-
-          // Run Closure
-          if (useClosure) {
-            List<TLink> closedLinks = closureExpand(sieveClasses[xx],
-                currentTLinks, currentTLinksHash);
-            if (debug)
-              System.out.println(
-                  "\t\tClosure produced " + closedLinks.size() + " links.");
-            // if( debug ) System.out.println("\t\tclosed=" + closedLinks);
-            stats[xx].addClosureCount(closedLinks.size());
-          }
-        }
-        if (debug)
-          System.out
-              .println("\t\tDoc now has " + currentTLinks.size() + " links.");
-      }
+    if (threads > 1 && docs.getDocuments().size() > 1)
+      runSievesParallel(docs.getDocuments(), stats);
+    else {
+      // Create all the sieves first.
+      Sieve sieves[] = getSieves();
 
-      // Add links to InfoFile.
-      doc.addTlinks(currentTLinks);
-      // if( debug ) System.out.println("Adding links: " + currentTLinks);
-      currentTLinks.clear();
-      currentTLinksHash.clear();
+      // Do each file independently.
+      for (SieveDocument doc : docs.getDocuments())
+        runSieves(doc, sieves, stats);
     }
 
     System.out.println("Writing output: " + outpath);
     docs.writeToXML(new File(outpath));
+    if (debug)
+      System.out.println(wordnet.cacheStats());
+    if (Timings.isEnabled()) {
+      Timings.writeReport(outpath);
+      ModelRegistry.printReport(System.out);
+    }
 
     // Evaluate it if the input file had tlinks in it.
     if (thedocsUnchanged != null )
-      Evaluate.evaluate(thedocsUnchanged, docs, sieveClasses, sieveNameToStats);
+      Evaluate.evaluate(thedocsUnchanged, docs, sieveClasses, sieveNameToStats,
+          threads);
+  }
+
+  private SieveStats[] createSieveStats() {
+    SieveStats stats[] = new SieveStats[sieveClasses.length];
+    for (int i = 0; i < sieveClasses.length; i++)
+      stats[i] = new SieveStats(sieveClasses[i]);
+    return stats;
+  }
+
+  /**
+   * Build every sentence's parse tree, dependencies and their indexes before
+   * threads share the documents, so they read the same objects instead of
+   * racing to build them. That only holds under SieveSentence.cache=strong:
+   * soft and lru can drop these later, and then threads rebuild them, which is
+   * safe but can happen twice at once and doesn't give the same objects.
+   */
+  private static void buildDerived(List<SieveDocument> docs) {
+    if (DerivedCache.shared().getPolicy() != DerivedCache.Policy.STRONG)
+      System.out.println("WARNING: SieveSentence.cache="
+          + DerivedCache.shared().getPolicy().toString().toLowerCase()
+          + " can drop parse trees that threads share."
+          + " Use SieveSentence.cache=strong with threads > 1.");
+    for (SieveDocument doc : docs) {
+      for (SieveSentence sent : doc.getSentences()) {
+        sent.getIndex();
+        sent.getDependencyGraph();
+      }
+    }
+  }
+
+  /**
+   * @return Sieve instances for each of numWorkers workers, created once and
+   *         reused by later calls.
+   */
+  private List<Sieve[]> getWorkerSieves(int numWorkers) {
+    while (workerSieves.size() < numWorkers)
+      workerSieves.add(createAllSieves(sieveClasses));
+    return workerSieves;
+  }
+
+  /**
+   * Run the sieves over the documents with a pool of Main.threads workers.
+   * Each worker has its own sieve instances and statistics, which are merged
+   * into the given stats once all documents are done.
+   */
+  private void runSievesParallel(final List<SieveDocument> docs,
+      SieveStats[] stats) {
+    final int numWorkers = Math.min(threads, docs.size());
+    final AtomicInteger nextDoc = new AtomicInteger(0);
+    final SieveStats[][] workerStats = new SieveStats[numWorkers][];
+    final List<Sieve[]> allSieves = getWorkerSieves(numWorkers);
+    System.out.println("Running sieves with " + numWorkers + " threads.");
+
+    ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int w = 0; w < numWorkers; w++) {
+      final SieveStats[] myStats = createSieveStats();
+      final Sieve[] mySieves = allSieves.get(w);
+      workerStats[w] = myStats;
+      futures.add(pool.submit(new Runnable() {
+        public void run() {
+          int di;
+          while ((di = nextDoc.getAndIncrement()) < docs.size())
+            runSieves(docs.get(di), mySieves, myStats);
+        }
+      }));
+    }
+    pool.shutdown();
+
+    try {
+      for (Future<?> future : futures)
+        future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (ExecutionException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+
+    // Merge in worker order so the totals don't depend on scheduling.
+    for (SieveStats[] ws : workerStats)
+      for (int i = 0; i < stats.length; i++)
+        stats[i].merge(ws[i]);
+  }
+
+  /**
+   * Run all sieves in order on one document, and add the final links to it.
+   */
+  private void runSieves(SieveDocument doc, Sieve[] sieves, SieveStats[] stats) {
+    // Start with zero links.
+    TLinkStore currentTLinks = new TLinkStore();
+    IncrementalClosure docClosure = new IncrementalClosure(closure);
+
+    log.info("Processing " + doc.getDocname() + "...");
+    Timings.setDocument(doc.getDocname());
+    // System.out.println("Number of gold links: " +
+    // thedocsUnchanged.getDocument(doc.getDocname()).getTlinks().size());
+
+    // Loop over the sieves in order.
+    for (int xx = 0; xx < sieves.length; xx++) {
+      Sieve sieve = sieves[xx];
+      if (sieve == null)
+        continue;
+      if (log.isDebug())
+        log.debug("\tSieve " + sieve.getClass().toString());
+
+      // Run this sieve
+      Timings.Timer timer = Timings.start(Timings.sieveStage(sieveClasses[xx]));
+      List<TLink> newLinks = sieve.annotate(doc, currentTLinks.asList());
+      timer.stop(newLinks.size());
+      stats[xx].addTime(timer);
+      if (log.isDebug())
+        log.debug("\t\t" + newLinks.size() + " new links.");
+      // if( debug ) System.out.println("\t\t" + newLinks);
+      stats[xx].addProposedCount(newLinks.size());
+
+      // Verify the links as non-conflicting.
+      int numRemoved = removeConflicts(currentTLinks, newLinks);
+      if (log.isDebug())
+        log.debug("\t\tRemoved " + numRemoved + " proposed links.");
+      // if( debug ) System.out.println("\t\t" + newLinks);
+      stats[xx].addRemovedCount(numRemoved);
+
+      if (newLinks.size() > 0) {
+        // Add the good links to our current list.
+        addProposedToCurrentList(sieveClasses[xx], newLinks, currentTLinks);
+
+        // Run Closure
+        if (useClosure) {
+          List<TLink> closedLinks = closureExpand(sieveClasses[xx],
+              currentTLinks, docClosure);
+          if (log.isDebug())
+            log.debug("\t\tClosure produced " + closedLinks.size() + " links.");
+          // if( debug ) System.out.println("\t\tclosed=" + closedLinks);
+          stats[xx].addClosureCount(closedLinks.size());
+        }
+      }
+      if (log.isDebug())
+        log.debug("\t\tDoc now has " + currentTLinks.size() + " links.");
+    }
+
+    // Add links to InfoFile.
+    doc.addTlinks(currentTLinks);
+    Timings.setDocument(null);
+    // if( debug ) System.out.println("Adding links: " + currentTLinks);
+  }
+
+  /**
+   * One sieve's results on one document in the precision gauntlet.
+   */
+  private static class GauntletCounts {
+    int correct = 0;
+    int incorrect = 0;
+    int incorrectNonVague = 0;
+    Counter<TLink.Type> goldLabels = new ClassicCounter<TLink.Type>();
+    Counter<String> guesses = new ClassicCounter<String>();
+    // Printed when the results are merged, so output keeps document order.
+    StringBuilder output = new StringBuilder();
   }
 
   /**
    * Test each sieve's precision independently. Runs each sieve and evaluates
    * its proposed links against the input -info file. You must have loaded an
-   * -info file that has gold TLinks in it.
+   * -info file that has gold TLinks in it. With Main.threads > 1, the
+   * (document, sieve) pairs are spread over a pool of workers.
    */
   public void runPrecisionGauntlet() {
     if (thedocs == null) {
@@ -334,14 +549,31 @@ public class Main {
     }
     thedocs.removeAllTLinks(); // because we will be adding our own
 
-    // Create all the sieves first.
-    Sieve sieves[] = createAllSieves(sieveClasses);
-
     // Data
     SieveDocuments docs = getDataset(dataset, thedocs);
+    List<SieveDocument> docList = docs.getDocuments();
+
+    // Gold links, indexed by id pair.
+    TLinkStore[] golds = new TLinkStore[docList.size()];
+    for (int dd = 0; dd < golds.length; dd++)
+      golds[dd] = new TLinkStore(thedocsUnchanged
+          .getDocument(docList.get(dd).getDocname()).getTlinksNoClosures());
+
+    GauntletCounts[][] results = new GauntletCounts[docList.size()][];
+    if (threads > 1 && docList.size() * sieveClasses.length > 1)
+      runGauntletParallel(docList, golds, results);
+    else {
+      // Create all the sieves first.
+      Sieve sieves[] = createAllSieves(sieveClasses);
+      for (int dd = 0; dd < results.length; dd++) {
+        results[dd] = new GauntletCounts[sieveClasses.length];
+        for (int xx = 0; xx < sieveClasses.length; xx++)
+          results[dd][xx] = runGauntletSieve(sieveClasses[xx], sieves[xx],
+              docList.get(dd), golds[dd]);
+      }
+    }
 
-    // Empty TLink list and counts.
-    List<TLink> currentTLinks = new ArrayList<TLink>();
+    // Merge in document and sieve order.
     Counter<String> numCorrect = new ClassicCounter<String>();
     Counter<String> numIncorrect = new ClassicCounter<String>();
     Counter<String> numIncorrectNonVague = new ClassicCounter<String>();
@@ -353,95 +585,26 @@ public class Main {
       guessCounts.put(sc, new ClassicCounter<String>());
     int totalGoldLinks = 0;
 
-    // Loop over documents.
-    for (SieveDocument doc : docs.getDocuments()) {
-      // Set<String> seenGolds = new HashSet<String>();
-
-      System.out.println("doc: " + doc.getDocname());
-      List<SieveSentence> sents = doc.getSentences();
-      // Gold links.
-      List<TLink> goldLinks = thedocsUnchanged.getDocument(doc.getDocname())
-          .getTlinksNoClosures();
-      Map<String, TLink> goldOrderedIdPairs = new HashMap<String, TLink>();
-      for (TLink tlink : goldLinks) {
-        // System.out.println("adding gold: " + tlink + " order=" +
-        // TLink.orderedIdPair(tlink));
-        goldOrderedIdPairs.put(TLink.orderedIdPair(tlink), tlink);
-      }
-      totalGoldLinks += goldOrderedIdPairs.size();
+    for (int dd = 0; dd < results.length; dd++) {
+      System.out.println("doc: " + docList.get(dd).getDocname());
+      totalGoldLinks += golds[dd].numPairs();
       if (debug)
-        System.out.println("Gold links num=" + goldLinks.size() + " or num="
-            + goldOrderedIdPairs.size());
+        System.out.println("Gold links num=" + golds[dd].size() + " or num="
+            + golds[dd].numPairs());
 
-      // Loop over sieves.
       for (int xx = 0; xx < sieveClasses.length; xx++) {
+        GauntletCounts counts = results[dd][xx];
+        if (counts == null)
+          continue;
         String sieveName = sieveClasses[xx];
-        Sieve sieve = sieves[xx];
-        if (sieve != null) {
-
-          // Run it.
-          List<TLink> proposed = sieve.annotate(doc, currentTLinks);
-          if (debug)
-            System.out.println(
-                sieveName + " proposed " + proposed.size() + ": " + proposed);
-          removeDuplicatesAndInvalids(proposed);
-
-          // Check proposed links.
-          if (proposed != null) {
-            for (TLink pp : proposed) {
-              String orderedIdPair = TLink.orderedIdPair(pp);
-              // System.out.println("looking up gold for " + pp + " order=" +
-              // TLink.orderedIdPair(pp));
-              TLink goldLink = goldOrderedIdPairs.get(orderedIdPair);
-
-              if (goldLink != null) {
-                guessCounts.get(sieveName)
-                    .incrementCount(goldLink.getOrderedRelation() + " "
-                        + pp.getOrderedRelation());
-                goldLabelCounts.get(sieveName)
-                    .incrementCount(goldLink.getRelation());
-
-                // seenGolds.add(goldLink.getId1() + goldLink.getId2());
-                // seenGolds.add(goldLink.getId2() + goldLink.getId1());
-              }
-
-              // Guessed link is correct!
-              if (Evaluate.isLinkCorrect(pp, goldLinks)) {
-                numCorrect.incrementCount(sieveClasses[xx]);
-              }
-              // Gold and guessed link disagree!
-              // Only mark relations wrong if there's a conflicting human
-              // annotation.
-              // (if there's no human annotation, we don't know if it's right or
-              // wrong)
-              else if (goldLink != null) {
-                if (!goldLink.getRelation().equals(TLink.Type.VAGUE)) {
-                  numIncorrectNonVague.incrementCount(sieveClasses[xx]);
-                }
-                numIncorrect.incrementCount(sieveClasses[xx]);
-                if (debug) {
-                  System.out.printf(
-                      "%s: %s: Incorrect Link: expected %s, found %s\nDebug info: %s\n",
-                      sieveClasses[xx], doc.getDocname(),
-                      goldOrderedIdPairs.get(orderedIdPair), pp,
-                      getLinkDebugInfo(pp, sents, doc));
-                }
-              }
-              // No gold link.
-              else {
-                System.out.println("No gold link (" + sieveName + "): " + pp);
-              }
-            }
-          }
-        }
+        System.out.print(counts.output);
+        numCorrect.incrementCount(sieveName, counts.correct);
+        numIncorrect.incrementCount(sieveName, counts.incorrect);
+        numIncorrectNonVague.incrementCount(sieveName,
+            counts.incorrectNonVague);
+        Counters.addInPlace(goldLabelCounts.get(sieveName), counts.goldLabels);
+        Counters.addInPlace(guessCounts.get(sieveName), counts.guesses);
       }
-
-      // Check for missed golds.
-      // for (TLink tlink : goldLinks) {
-      // if( !seenGolds.contains(tlink.getId1() + tlink.getId2()) ) {
-      // System.out.println("ERROR: gold link not proposed: " + tlink);
-      // }
-      // }
     }
 
     // Calculate precision and output the sorted sieves.
@@ -479,7 +642,117 @@ public class Main {
   }
 
   /**
-   * Calls the train() function on all of the listed sieves.
+   * Run the gauntlet's (document, sieve) pairs on a pool of Main.threads
+   * workers, each with its own sieve instances.
+   */
+  private void runGauntletParallel(final List<SieveDocument> docs,
+      final TLinkStore[] golds, final GauntletCounts[][] results) {
+    final int numTasks = docs.size() * sieveClasses.length;
+    final int numWorkers = Math.min(threads, numTasks);
+    final AtomicInteger nextTask = new AtomicInteger(0);
+    final List<Sieve[]> allSieves = getWorkerSieves(numWorkers);
+    for (int dd = 0; dd < results.length; dd++)
+      results[dd] = new GauntletCounts[sieveClasses.length];
+    System.out.println("Running the gauntlet with " + numWorkers + " threads.");
+
+    // Sieves only read the documents, but sentences build their trees and
+    // dependencies on first use.
+    buildDerived(docs);
+
+    ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int w = 0; w < numWorkers; w++) {
+      final Sieve[] mySieves = allSieves.get(w);
+      futures.add(pool.submit(new Runnable() {
+        public void run() {
+          int task;
+          while ((task = nextTask.getAndIncrement()) < numTasks) {
+            int dd = task / sieveClasses.length;
+            int xx = task % sieveClasses.length;
+            results[dd][xx] = runGauntletSieve(sieveClasses[xx], mySieves[xx],
+                docs.get(dd), golds[dd]);
+          }
+        }
+      }));
+    }
+    pool.shutdown();
+
+    try {
+      for (Future<?> future : futures)
+        future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (ExecutionException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+  }
+
+  /**
+   * Run one sieve on one document and score its proposed links against the
+   * document's gold links.
+   * 
+   * @return The counts, or null if the sieve wasn't created.
+   */
+  private GauntletCounts runGauntletSieve(String sieveName, Sieve sieve,
+      SieveDocument doc, TLinkStore goldLinks) {
+    if (sieve == null)
+      return null;
+    GauntletCounts counts = new GauntletCounts();
+
+    // Run it.
+    List<TLink> proposed = sieve.annotate(doc, new ArrayList<TLink>());
+    if (debug)
+      counts.output.append(sieveName + " proposed " + proposed.size() + ": "
+          + proposed + "\n");
+    removeDuplicatesAndInvalids(proposed);
+
+    // Check proposed links.
+    if (proposed != null) {
+      for (TLink pp : proposed) {
+        TLink goldLink = goldLinks.get(pp.getId1(), pp.getId2());
+
+        if (goldLink != null) {
+          counts.guesses.incrementCount(goldLink.getOrderedRelation() + " "
+              + pp.getOrderedRelation());
+          counts.goldLabels.incrementCount(goldLink.getRelation());
+        }
+
+        // Guessed link is correct!
+        if (Evaluate.isLinkCorrect(pp, goldLinks)) {
+          counts.correct++;
+        }
+        // Gold and guessed link disagree!
+        // Only mark relations wrong if there's a conflicting human
+        // annotation.
+        // (if there's no human annotation, we don't know if it's right or
+        // wrong)
+        else if (goldLink != null) {
+          if (!goldLink.getRelation().equals(TLink.Type.VAGUE)) {
+            counts.incorrectNonVague++;
+          }
+          counts.incorrect++;
+          if (debug) {
+            counts.output.append(String.format(
+                "%s: %s: Incorrect Link: expected %s, found %s\nDebug info: %s\n",
+                sieveName, doc.getDocname(), goldLink, pp,
+                getLinkDebugInfo(pp, doc.getSentences(), doc)));
+          }
+        }
+        // No gold link.
+        else {
+          counts.output
+              .append("No gold link (" + sieveName + "): " + pp + "\n");
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Calls the train() function on all of the listed sieves. With Main.threads
+   * > 1, the sieves train at the same time, and so do the classifiers within
+   * a sieve that trains several (see ParallelTrainer).
    */
   public void trainSieves() {
     if (thedocs == null) {
@@ -492,14 +765,32 @@ public class Main {
     Sieve sieves[] = createAllSieves(sieveClasses);
 
     // Data
-    SieveDocuments docs = getDataset(dataset, thedocs);
+    final SieveDocuments docs = getDataset(dataset, thedocs);
+
+    // Sentences build their trees and dependencies on first use.
+    if (threads > 1)
+      buildDerived(docs.getDocuments());
 
     // Train them!
-    for (Sieve sieve : sieves) {
-      if (debug)
-        System.out.println("Training sieve: " + sieve.getClass().toString());
-      sieve.train(docs);
+    Map<String, Callable<Object>> jobs = new LinkedHashMap<String, Callable<Object>>();
+    for (int xx = 0; xx < sieves.length; xx++) {
+      final Sieve sieve = sieves[xx];
+      if (sieve == null)
+        continue;
+      String name = sieveClasses[xx];
+      if (jobs.containsKey(name))
+        name += "#" + xx;
+      jobs.put(name, new Callable<Object>() {
+        public Object call() {
+          if (debug)
+            System.out.println("Training sieve: "
+                + sieve.getClass().toString());
+          sieve.train(docs);
+          return null;
+        }
+      });
     }
+    ParallelTrainer.run(jobs);
   }
 
   private String getLinkDebugInfo(TLink link, List<SieveSentence> sents,
@@ -552,16 +843,12 @@ public class Main {
   }
 
   private void addProposedToCurrentList(String sieveName, List<TLink> proposed,
-      List<TLink> current, Map<String, TLink> currentHash) {
+      TLinkStore current) {
     for (TLink newlink : proposed) {
-      if (currentHash.containsKey(newlink.getId1() + newlink.getId2())) {
-        System.out.println("MAIN WARNING: overwriting "
-            + currentHash.get(newlink.getId1() + newlink.getId2()) + " with "
+      TLink old = current.add(newlink);
+      if (old != null)
+        System.out.println("MAIN WARNING: overwriting " + old + " with "
             + newlink);
-      }
-      current.add(newlink);
-      currentHash.put(newlink.getId1() + newlink.getId2(), newlink);
-      currentHash.put(newlink.getId2() + newlink.getId1(), newlink);
       newlink.setOrigin(sieveName);
     }
   }
@@ -579,35 +866,35 @@ public class Main {
     if (proposedLinks == null || proposedLinks.size() < 2)
       return 0;
 
-    List<TLink> removals = new ArrayList<TLink>();
-    Set<String> seenNew = new HashSet<String>();
+    List<TLink> keep = new ArrayList<TLink>(proposedLinks.size());
+    TLinkStore seenNew = new TLinkStore();
 
     for (TLink proposed : proposedLinks) {
       // Make sure we have a valid link with 2 events!
       if (proposed.getId1() == null || proposed.getId2() == null
           || proposed.getId1().length() == 0
           || proposed.getId2().length() == 0) {
-        removals.add(proposed);
         System.out.println("WARNING (proposed an invalid link): " + proposed);
       }
       // Remove any proposed links that are duplicates of already proposed
       // links.
-      else if (seenNew.contains(proposed.getId1() + proposed.getId2())) {
-        removals.add(proposed);
+      else if (seenNew.containsPair(proposed.getId1(), proposed.getId2())) {
         System.out
             .println("WARNING (proposed the same link twice): " + proposed);
       }
       // Normal link. Keep it.
       else {
-        seenNew.add(proposed.getId1() + proposed.getId2());
-        seenNew.add(proposed.getId2() + proposed.getId1());
+        seenNew.add(proposed);
+        keep.add(proposed);
       }
     }
 
-    for (TLink remove : removals)
-      proposedLinks.remove(remove);
-
-    return removals.size();
+    int removed = proposedLinks.size() - keep.size();
+    if (removed > 0) {
+      proposedLinks.clear();
+      proposedLinks.addAll(keep);
+    }
+    return removed;
   }
 
   /**
@@ -621,9 +908,8 @@ public class Main {
    *          The list of proposed new links.
    * @return The number of links removed.
    */
-  private int removeConflicts(Map<String, TLink> currentLinksHash,
+  private int removeConflicts(TLinkStore currentLinks,
       List<TLink> proposedLinks) {
-    List<TLink> removals = new ArrayList<TLink>();
 
     // Remove duplicates.
     int duplicates = removeDuplicatesAndInvalids(proposedLinks);
@@ -631,18 +917,18 @@ public class Main {
       System.out
           .println("\t\tRemoved " + duplicates + " duplicate proposed links.");
 
-    for (TLink proposed : proposedLinks) {
-      // Look for a current link that conflicts with this proposed link.
-      TLink current = currentLinksHash
-          .get(proposed.getId1() + proposed.getId2());
-      if (current != null && current.coversSamePair(proposed))
-        removals.add(proposed);
-    }
-
-    for (TLink remove : removals)
-      proposedLinks.remove(remove);
+    // Keep the proposed links with no current link between the same pair.
+    List<TLink> keep = new ArrayList<TLink>(proposedLinks.size());
+    for (TLink proposed : proposedLinks)
+      if (!currentLinks.containsPair(proposed.getId1(), proposed.getId2()))
+        keep.add(proposed);
 
-    return removals.size() + duplicates;
+    int removed = proposedLinks.size() - keep.size();
+    if (removed > 0) {
+      proposedLinks.clear();
+      proposedLinks.addAll(keep);
+    }
+    return removed + duplicates;
   }
 
   /**
@@ -651,13 +937,18 @@ public class Main {
    * 
    * @param links
    *          The list of TLinks to expand with transitive closure.
+   * @param docClosure
+   *          The closure state for this document's links. Only the links added
+   *          since its last call are closed against the rest.
    * @return The list of new links from closure (these are already added to the
    *         given lists)
    */
-  private List<TLink> closureExpand(String sieveName, List<TLink> links,
-      Map<String, TLink> linksHash) {
-    List<TLink> newlinks = closure.computeClosure(links, false);
-    addProposedToCurrentList(sieveName, newlinks, links, linksHash);
+  private List<TLink> closureExpand(String sieveName, TLinkStore links,
+      IncrementalClosure docClosure) {
+    Timings.Timer timer = Timings.start(Timings.CLOSURE);
+    List<TLink> newlinks = docClosure.computeClosure(links.asList());
+    timer.stop(newlinks.size());
+    addProposedToCurrentList(sieveName, newlinks, links);
     return newlinks;
   }
 
@@ -676,13 +967,7 @@ public class Main {
     SieveDocuments docs = new SieveDocuments();
 
     // Initialize the parser.
-    LexicalizedParser parser = Ling.createParser(serializedGrammar);
-    if (parser == null) {
-      System.out.println("Failed to create parser from " + serializedGrammar);
-      System.exit(1);
-    }
-    TreebankLanguagePack tlp = new PennTreebankLanguagePack();
-    GrammaticalStructureFactory gsf = tlp.grammaticalStructureFactory();
+    ParserPool parsers = getParserPool();
 
     // If a directory: parse a directory of XML files.
     if (Directory.isDirectory(path)) {
@@ -690,7 +975,7 @@ public class Main {
         String subpath = path + File.separator + file;
         try {
           SieveDocument doc = Tempeval3Parser.rawXMLtoSieveDocument(subpath,
-              parser, gsf);
+              parsers);
           docs.addDocument(doc);
         } catch (Exception ex) {
           System.out.println("ERROR while processing " + subpath);
@@ -701,8 +986,8 @@ public class Main {
     // If a single file: parse it.
     else {
       try {
-        SieveDocument doc = Tempeval3Parser.rawXMLtoSieveDocument(path, parser,
-            gsf);
+        SieveDocument doc = Tempeval3Parser.rawXMLtoSieveDocument(path,
+            parsers);
         docs.addDocument(doc);
       } catch (Exception ex) {
         System.out.println("ERROR while processing " + path);
@@ -734,27 +1019,21 @@ public class Main {
     SieveDocuments docs = new SieveDocuments();
 
     // Initialize the parser.
-    LexicalizedParser parser = Ling.createParser(serializedGrammar);
-    if (parser == null) {
-      System.out.println("Failed to create parser from " + serializedGrammar);
-      System.exit(1);
-    }
-    TreebankLanguagePack tlp = new PennTreebankLanguagePack();
-    GrammaticalStructureFactory gsf = tlp.grammaticalStructureFactory();
+    ParserPool parsers = getParserPool();
 
     // If a directory: parse a directory of XML files.
     if (Directory.isDirectory(path)) {
       for (String file : Directory.getFilesSorted(path)) {
         String subpath = path + File.separator + file;
-        SieveDocument doc = Tempeval3Parser.rawTextFileToParsed(subpath, parser,
-            gsf);
+        SieveDocument doc = Tempeval3Parser.rawTextFileToParsed(subpath,
+            parsers);
         docs.addDocument(doc);
       }
     }
     // If a single file: parse it.
     else {
-      SieveDocument doc = Tempeval3Parser.rawTextFileToParsed(path, parser,
-          gsf);
+      SieveDocument doc = Tempeval3Parser.rawTextFileToParsed(path,
+          parsers);
       docs.addDocument(doc);
     }
 
@@ -771,6 +1050,116 @@ public class Main {
     return docs;
   }
 
+  /**
+   * Runs the raw text pipeline on many files with a single load of the parser,
+   * WordNet, classifiers and sieves. Each input file gets its own
+   * <file>.info.xml next to it. Files that already have an .info.xml are
+   * skipped.
+   * 
+   * @param path
+   *          A directory of text files, or a file listing one path per line.
+   * @return The number of files processed.
+   */
+  public int markupBatch(String path) {
+    List<String> files = new ArrayList<String>();
+    if (Directory.isDirectory(path)) {
+      for (String file : Directory.getFilesSorted(path))
+        files.add(path + File.separator + file);
+    } else {
+      try {
+        BufferedReader reader = new BufferedReader(new FileReader(path));
+        String line;
+        while ((line = reader.readLine()) != null) {
+          line = line.trim();
+          if (line.length() > 0 && !line.startsWith("#"))
+            files.add(line);
+        }
+        reader.close();
+      } catch (IOException ex) {
+        System.out.println("ERROR: couldn't read file list " + path);
+        ex.printStackTrace();
+        return 0;
+      }
+    }
+
+    int processed = 0;
+    for (String file : files) {
+      if (isBatchInput(file) && markupBatchFile(file))
+        processed++;
+    }
+    System.out.println("Batch processed " + processed + " files.");
+    return processed;
+  }
+
+  /**
+   * Watches a spool directory forever, running the raw text pipeline on each
+   * new file as it appears. A file is only picked up once it hasn't been
+   * modified for a full polling interval, so half-written files are left
+   * alone.
+   * 
+   * @param dir
+   *          The spool directory to watch.
+   */
+  public void watchBatch(String dir) {
+    if (!Directory.isDirectory(dir)) {
+      System.out.println("ERROR: not a directory: " + dir);
+      System.exit(1);
+    }
+    System.out.println("Watching " + dir + " every " + watchSeconds + " seconds.");
+    Set<String> failed = new HashSet<String>();
+    while (true) {
+      long cutoff = System.currentTimeMillis() - watchSeconds * 1000L;
+      int processed = 0;
+      for (String file : Directory.getFilesSorted(dir)) {
+        String subpath = dir + File.separator + file;
+        if (isBatchInput(subpath) && !failed.contains(subpath)
+            && new File(subpath).lastModified() < cutoff) {
+          if (markupBatchFile(subpath))
+            processed++;
+          else
+            failed.add(subpath);
+        }
+      }
+      if (processed > 0)
+        System.out.println(DerivedCache.shared().stats());
+      try {
+        Thread.sleep(watchSeconds * 1000L);
+      } catch (InterruptedException ex) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return True if the path is a raw text file that the batch modes should
+   *         process: not our own output, and not already marked up.
+   */
+  private boolean isBatchInput(String path) {
+    if (path.endsWith(".xml") || path.endsWith("ents"))
+      return false;
+    if (Directory.isDirectory(path))
+      return false;
+    return !Directory.fileExists(path + ".info.xml");
+  }
+
+  /**
+   * Run the full raw text pipeline on a single file, catching any errors so a
+   * bad file doesn't bring down the whole batch.
+   * 
+   * @return True if the file was processed and its output written.
+   */
+  private boolean markupBatchFile(String path) {
+    System.out.println("Processing " + path + "...");
+    try {
+      markupRawText(path);
+      return true;
+    } catch (Exception ex) {
+      System.out.println("ERROR while processing " + path);
+      ex.printStackTrace();
+      return false;
+    }
+  }
+
   /**
    * Assumes the InfoFile has its text parsed.
    */
@@ -782,6 +1171,12 @@ public class Main {
     System.out.println("markupAll");
     markupEvents(docs);
     markupTimexes(docs);
+    applyDCTHeuristic(docs);
+    System.out.println("Running sieves.");
+    runSieves(docs);
+  }
+
+  private void applyDCTHeuristic(SieveDocuments docs) {
     // Try to determine DCT based on relevant property settings
     // TODO: use reflection method parallel to how sieves are chosen to choose
     // the right DCTHeuristic method
@@ -800,8 +1195,98 @@ public class Main {
         DCTHeuristics.setDCTFromDocname(doc);
       }
     }
-    System.out.println("Running sieves.");
-    runSieves(docs);
+  }
+
+  /**
+   * Runs the sieves over an infofile (XML or binary) one document at a time,
+   * appending each finished document to the output file, so memory does not
+   * grow with the corpus. With markup, events, times and DCTs are extracted
+   * first as in markupAll(). The gold links are never all in memory, so there
+   * is no evaluation.
+   */
+  public void streamSieves(String inpath, boolean markup) {
+    if (inpath == null) {
+      System.out.println("Streaming needs an -info <filepath> to read.");
+      return;
+    }
+    File infile = new File(inpath);
+    Closeable input = null;
+    SieveDocumentsWriter writer = null;
+    SieveStats stats[] = createSieveStats();
+    // Hand the workers a few documents each at a time.
+    int chunkSize = (threads > 1 ? threads * 4 : 1);
+
+    try {
+      Iterable<SieveDocument> docs;
+      if (SieveBinary.isBinary(infile)) {
+        SieveBinary.Reader reader = new SieveBinary.Reader(infile);
+        input = reader;
+        docs = reader;
+      } else {
+        SieveDocumentsReader reader = new SieveDocumentsReader(infile);
+        input = reader;
+        docs = reader;
+      }
+      writer = new SieveDocumentsWriter(outpath);
+      System.out.println("Streaming " + inpath + " to " + outpath);
+
+      List<SieveDocument> chunk = new ArrayList<SieveDocument>();
+      for (SieveDocument doc : docs) {
+        chunk.add(doc);
+        if (chunk.size() >= chunkSize) {
+          streamChunk(chunk, markup, stats, writer);
+          chunk.clear();
+        }
+      }
+      streamChunk(chunk, markup, stats, writer);
+      System.out.println("Wrote " + writer.size() + " documents.");
+      if (Timings.isEnabled()) {
+        Timings.writeReport(outpath);
+        ModelRegistry.printReport(System.out);
+      }
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    } finally {
+      try {
+        if (input != null)
+          input.close();
+        if (writer != null)
+          writer.close();
+      } catch (IOException ex) {
+        ex.printStackTrace();
+      }
+    }
+  }
+
+  private void streamChunk(List<SieveDocument> chunk, boolean markup,
+      SieveStats[] stats, SieveDocumentsWriter writer) throws IOException {
+    if (chunk.isEmpty())
+      return;
+    SieveDocuments docs = new SieveDocuments();
+    for (SieveDocument doc : chunk)
+      docs.addDocument(doc);
+
+    if (markup) {
+      markupEvents(docs);
+      markupTimexes(docs);
+      applyDCTHeuristic(docs);
+    }
+
+    // Same steps as runSieves(SieveDocuments).
+    docs.removeAllTLinks();
+    docs = getDataset(dataset, docs);
+    if (docs.getDocuments() == null)
+      return;
+    if (threads > 1 && docs.getDocuments().size() > 1)
+      runSievesParallel(docs.getDocuments(), stats);
+    else {
+      Sieve sieves[] = getSieves();
+      for (SieveDocument doc : docs.getDocuments())
+        runSieves(doc, sieves, stats);
+    }
+
+    for (SieveDocument doc : docs.getDocuments())
+      writer.write(doc);
   }
 
   /**
@@ -812,7 +1297,7 @@ public class Main {
       eventClassifier = new TextEventClassifier(info, wordnet);
       eventClassifier.loadClassifiers();
     }
-    eventClassifier.extractEvents();
+    eventClassifier.extractEvents(info);
   }
 
   /**
@@ -837,7 +1322,7 @@ public class Main {
   public void markupTimexes(SieveDocuments info) {
     if (timexClassifier == null)
       timexClassifier = new TimexClassifier(info);
-    timexClassifier.markupTimex3();
+    timexClassifier.markupTimex3(info);
   }
 
   public SieveDocuments getDataset(DatasetType type, SieveDocuments docs) {
@@ -901,6 +1386,21 @@ public class Main {
       main.markupRawText(args[args.length - 2]);
     }
 
+    // Give a directory of text files or a file list. Loads all models once and
+    // writes an .info.xml for each file.
+    else if (args.length > 1
+        && args[args.length - 1].equalsIgnoreCase("batch")) {
+      main.dataset = DatasetType.ALL;
+      main.markupBatch(args[args.length - 2]);
+    }
+
+    // Give a spool directory. Same as batch, but keeps polling for new files.
+    else if (args.length > 1
+        && args[args.length - 1].equalsIgnoreCase("watch")) {
+      main.dataset = DatasetType.ALL;
+      main.watchBatch(args[args.length - 2]);
+    }
+
     // Give an XML file or a directory of text files. Parses and marks it up.
     else if (args.length > 1
         && args[args.length - 1].equalsIgnoreCase("rawxml")) {
@@ -922,12 +1422,24 @@ public class Main {
       main.markupExistingEvents(args[args.length - 2]);
     }
 
+    // Same as above, but one document at a time.
+    else if (args.length > 0
+        && args[args.length - 1].equalsIgnoreCase("stream")) {
+      main.streamSieves(main.streamInfoPath, false);
+    }
+    else if (args.length > 0
+        && args[args.length - 1].equalsIgnoreCase("streamparsed")) {
+      main.streamSieves(main.streamInfoPath, true);
+    }
+
     // Run just the TLink Sieve pipeline. Events/Timexes already in the given
     // SieveDocuments.
     else {
       System.out.println("else!");
       main.runSieves();
     }
+
+    System.out.println(DerivedCache.shared().stats());
   }
 }
 
@@ -0,0 +1,125 @@
+package caevo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import caevo.util.Timings;
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParserQuery;
+import edu.stanford.nlp.trees.GrammaticalStructureFactory;
+import edu.stanford.nlp.util.Pair;
+
+/**
+ * Parses sentences in parallel with one shared grammar. The grammar in a
+ * LexicalizedParser is read-only once loaded; all of the per-parse state lives
+ * in a LexicalizedParserQuery, so each worker thread keeps its own query and
+ * reuses it from sentence to sentence.
+ *
+ * With one thread, sentences are parsed inline on the calling thread.
+ */
+public class ParserPool {
+  private final LexicalizedParser parser;
+  private final GrammaticalStructureFactory gsf;
+  private final int numThreads;
+  private ExecutorService executor = null;
+
+  private final ThreadLocal<LexicalizedParserQuery> queries = new ThreadLocal<LexicalizedParserQuery>() {
+    @Override
+    protected LexicalizedParserQuery initialValue() {
+      return parser.parserQuery();
+    }
+  };
+
+  public ParserPool(LexicalizedParser parser, GrammaticalStructureFactory gsf,
+      int numThreads) {
+    this.parser = parser;
+    this.gsf = gsf;
+    this.numThreads = Math.max(1, numThreads);
+    if (this.numThreads > 1)
+      executor = Executors.newFixedThreadPool(this.numThreads,
+          new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+              Thread thread = new Thread(r, "caevo-parser");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+  }
+
+  public int getNumThreads() {
+    return numThreads;
+  }
+
+  /**
+   * Parse a single sentence on the calling thread with this thread's query.
+   *
+   * @return A pair: (1) phrase tree, (2) dependency graph.
+   */
+  public Pair<String, String> parseDep(List<HasWord> sentence) {
+    return Tempeval3Parser.parseDep(sentence, queries.get(), gsf);
+  }
+
+  /**
+   * Queue all sentences for parsing. The returned futures are in sentence
+   * order, so the caller can consume each parse as soon as it and all of the
+   * sentences before it are done.
+   */
+  public List<Future<Pair<String, String>>> submitAll(
+      List<List<HasWord>> sentences) {
+    List<Future<Pair<String, String>>> futures = new ArrayList<Future<Pair<String, String>>>();
+    // Parse timings go to the caller's document, whichever thread parses.
+    final String docname = Timings.getDocument();
+    for (final List<HasWord> sentence : sentences) {
+      Callable<Pair<String, String>> task = new Callable<Pair<String, String>>() {
+        public Pair<String, String> call() {
+          String previous = Timings.getDocument();
+          Timings.setDocument(docname);
+          try {
+            return parseDep(sentence);
+          } finally {
+            Timings.setDocument(previous);
+          }
+        }
+      };
+      if (executor == null) {
+        FutureTask<Pair<String, String>> inline = new FutureTask<Pair<String, String>>(
+            task);
+        inline.run();
+        futures.add(inline);
+      } else
+        futures.add(executor.submit(task));
+    }
+    return futures;
+  }
+
+  /**
+   * Wait for one parse, turning any failure into a RuntimeException.
+   */
+  public static Pair<String, String> await(
+      Future<Pair<String, String>> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (ExecutionException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+  }
+
+  /**
+   * Stop the worker threads. The pool can't be used afterwards.
+   */
+  public void shutdown() {
+    if (executor != null)
+      executor.shutdown();
+  }
+}
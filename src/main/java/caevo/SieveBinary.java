@@ -0,0 +1,378 @@
+package caevo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+import caevo.tlink.TLink;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * A compact binary version of the .info.xml format. Holds exactly what the XML
+ * holds, so the two convert back and forth without loss.
+ *
+ * Layout (big-endian):
+ *
+ * <pre>
+ * "CAEVOBIN" version numDocs offset[numDocs] doc[numDocs]
+ * </pre>
+ *
+ * Each document is encoded on its own, so a Reader can memory-map the file and
+ * decode one document at a time. Parse trees and dependencies are kept as the
+ * same strings the XML stores, and are still only turned into Tree and
+ * TypedDependency objects on demand by SieveSentence. Events, timexes and
+ * tlinks are stored as the attribute lists of their XML elements, and rebuilt
+ * with their usual XML constructors.
+ */
+public class SieveBinary {
+  public static final byte[] MAGIC = "CAEVOBIN"
+      .getBytes(Charset.forName("US-ASCII"));
+  public static final int VERSION = 1;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * @return True if the file starts with the binary format's magic bytes.
+   */
+  public static boolean isBinary(File file) {
+    if (!file.isFile() || file.length() < MAGIC.length)
+      return false;
+    byte[] head = new byte[MAGIC.length];
+    try {
+      FileInputStream in = new FileInputStream(file);
+      try {
+        int read = 0;
+        while (read < head.length) {
+          int n = in.read(head, read, head.length - read);
+          if (n < 0)
+            return false;
+          read += n;
+        }
+      } finally {
+        in.close();
+      }
+    } catch (IOException ex) {
+      return false;
+    }
+    for (int ii = 0; ii < MAGIC.length; ii++)
+      if (head[ii] != MAGIC[ii])
+        return false;
+    return true;
+  }
+
+  /**
+   * Write all of the documents to the given file in the binary format.
+   */
+  public static void write(SieveDocuments docs, File file) throws IOException {
+    List<SieveDocument> documents = docs.getDocuments();
+    if (documents == null)
+      documents = new ArrayList<SieveDocument>();
+
+    // Encode each document on its own so we know the offsets up front.
+    List<byte[]> encoded = new ArrayList<byte[]>(documents.size());
+    for (SieveDocument doc : documents)
+      encoded.add(encodeDocument(doc));
+
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.write(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(encoded.size());
+      long offset = MAGIC.length + 4 + 4 + 8L * encoded.size();
+      for (byte[] bytes : encoded) {
+        out.writeLong(offset);
+        offset += bytes.length;
+      }
+      for (byte[] bytes : encoded)
+        out.write(bytes);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Read all of the documents from a binary file.
+   */
+  public static List<SieveDocument> readAll(File file) throws IOException {
+    Reader reader = new Reader(file);
+    try {
+      List<SieveDocument> docs = new ArrayList<SieveDocument>(reader.size());
+      for (SieveDocument doc : reader)
+        docs.add(doc);
+      return docs;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Decodes documents from a binary file on request. Only the document offsets
+   * are read when the Reader is created. Each document is memory-mapped on its
+   * own, so files can be larger than the 2GB a single mapping allows.
+   */
+  public static class Reader implements Iterable<SieveDocument>, Closeable {
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long[] offsets;
+    private long end;
+
+    public Reader(File file) throws IOException {
+      raf = new RandomAccessFile(file, "r");
+      channel = raf.getChannel();
+      end = channel.size();
+
+      ByteBuffer header = read(0, MAGIC.length + 4 + 4);
+      byte[] magic = new byte[MAGIC.length];
+      header.get(magic);
+      for (int ii = 0; ii < MAGIC.length; ii++)
+        if (magic[ii] != MAGIC[ii])
+          throw new IOException("Not a binary sieve document file: " + file);
+      int version = header.getInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported binary version " + version
+            + " in " + file);
+      offsets = new long[header.getInt()];
+      ByteBuffer table = read(header.limit(), 8L * offsets.length);
+      for (int ii = 0; ii < offsets.length; ii++)
+        offsets[ii] = table.getLong();
+    }
+
+    /**
+     * Read the given bytes of the file with positional reads.
+     */
+    private ByteBuffer read(long position, long length) throws IOException {
+      if (position + length > end)
+        throw new IOException("Truncated binary sieve document file.");
+      ByteBuffer buf = ByteBuffer.allocate((int) length);
+      while (buf.hasRemaining())
+        if (channel.read(buf, position + buf.position()) < 0)
+          throw new IOException("Truncated binary sieve document file.");
+      buf.flip();
+      return buf;
+    }
+
+    /**
+     * @return The number of documents in the file.
+     */
+    public int size() {
+      return offsets.length;
+    }
+
+    /**
+     * Decode the ith document in the file.
+     */
+    public SieveDocument getDocument(int ii) {
+      long start = offsets[ii];
+      long length = (ii + 1 < offsets.length ? offsets[ii + 1] : end) - start;
+      try {
+        return decodeDocument(
+            channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+
+    public Iterator<SieveDocument> iterator() {
+      return new Iterator<SieveDocument>() {
+        int next = 0;
+
+        public boolean hasNext() {
+          return next < offsets.length;
+        }
+
+        public SieveDocument next() {
+          if (!hasNext())
+            throw new NoSuchElementException();
+          return getDocument(next++);
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    public void close() throws IOException {
+      raf.close();
+    }
+  }
+
+  private static byte[] encodeDocument(SieveDocument doc) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    Namespace ns = Namespace.getNamespace(SieveDocuments.INFO_NS);
+
+    writeString(out, doc.getDocname());
+
+    List<SieveSentence> sentences = doc.getSentences();
+    out.writeInt(sentences.size());
+    for (SieveSentence sent : sentences) {
+      out.writeInt(sent.sid());
+      writeString(out, sent.sentence());
+      writeString(out, sent.getParseString());
+      writeString(out, sent.getDepsString());
+
+      List<CoreLabel> tokens = sent.tokens();
+      out.writeInt(tokens == null ? -1 : tokens.size());
+      if (tokens != null)
+        for (CoreLabel token : tokens) {
+          writeString(out,
+              token.getString(CoreAnnotations.BeforeAnnotation.class));
+          writeString(out,
+              token.getString(CoreAnnotations.OriginalTextAnnotation.class));
+          writeString(out,
+              token.getString(CoreAnnotations.AfterAnnotation.class));
+        }
+
+      List<TextEvent> events = sent.events();
+      out.writeInt(events == null ? 0 : events.size());
+      if (events != null)
+        for (TextEvent event : events)
+          writeElement(out, event.toElement(ns));
+
+      List<Timex> timexes = sent.timexes();
+      out.writeInt(timexes == null ? 0 : timexes.size());
+      if (timexes != null)
+        for (Timex timex : timexes)
+          writeElement(out, timex.toElement(ns));
+    }
+
+    List<TLink> tlinks = doc.getTlinks();
+    out.writeInt(tlinks == null ? 0 : tlinks.size());
+    if (tlinks != null)
+      for (TLink tlink : tlinks)
+        writeElement(out, tlink.toElement(ns));
+
+    List<Timex> dcts = doc.getDocstamp();
+    out.writeInt(dcts == null ? 0 : dcts.size());
+    if (dcts != null)
+      for (Timex dct : dcts)
+        writeElement(out, dct.toElement(ns));
+
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static SieveDocument decodeDocument(ByteBuffer buf) {
+    Namespace ns = Namespace.getNamespace(SieveDocuments.INFO_NS);
+    SieveDocument doc = new SieveDocument(readString(buf));
+
+    int numSentences = buf.getInt();
+    for (int ss = 0; ss < numSentences; ss++) {
+      int sid = buf.getInt();
+      String sentence = readString(buf);
+      String parse = readString(buf);
+      String deps = readString(buf);
+
+      List<CoreLabel> tokens = null;
+      int numTokens = buf.getInt();
+      if (numTokens >= 0) {
+        tokens = new ArrayList<CoreLabel>(numTokens);
+        for (int tt = 0; tt < numTokens; tt++) {
+          CoreLabel label = new CoreLabel();
+          label.set(CoreAnnotations.BeforeAnnotation.class, readString(buf));
+          label.set(CoreAnnotations.OriginalTextAnnotation.class,
+              readString(buf));
+          label.set(CoreAnnotations.AfterAnnotation.class, readString(buf));
+          tokens.add(label);
+        }
+      }
+
+      int numEvents = buf.getInt();
+      List<TextEvent> events = new ArrayList<TextEvent>(numEvents);
+      for (int ee = 0; ee < numEvents; ee++)
+        events.add(new TextEvent(sid,
+            readElement(buf, TextEvent.NAME_ELEM, ns)));
+
+      int numTimexes = buf.getInt();
+      List<Timex> timexes = new ArrayList<Timex>(numTimexes);
+      for (int tt = 0; tt < numTimexes; tt++) {
+        Timex timex = new Timex(readElement(buf, Timex.TIMEX_ELEM, ns));
+        timex.setSid(sid);
+        timexes.add(timex);
+      }
+
+      doc.addSentence(new SieveSentence(doc, sid, sentence, parse, deps,
+          tokens, events, timexes));
+    }
+
+    int numTlinks = buf.getInt();
+    for (int ll = 0; ll < numTlinks; ll++)
+      doc.addTlink(
+          SieveDocument.tlinkFromElement(readElement(buf, TLink.TLINK_ELEM, ns)));
+
+    int numDcts = buf.getInt();
+    for (int dd = 0; dd < numDcts; dd++)
+      doc.addCreationTime(new Timex(readElement(buf, Timex.TIMEX_ELEM, ns)));
+
+    return doc;
+  }
+
+  /**
+   * Elements are stored as their attribute name/value pairs. None of the
+   * elements we store have text or children.
+   */
+  private static void writeElement(DataOutputStream out, Element el)
+      throws IOException {
+    List<?> atts = el.getAttributes();
+    out.writeInt(atts.size());
+    for (Object obj : atts) {
+      Attribute att = (Attribute) obj;
+      writeString(out, att.getName());
+      writeString(out, att.getValue());
+    }
+  }
+
+  private static Element readElement(ByteBuffer buf, String name,
+      Namespace ns) {
+    Element el = new Element(name, ns);
+    int numAtts = buf.getInt();
+    for (int aa = 0; aa < numAtts; aa++) {
+      String att = readString(buf);
+      el.setAttribute(att, readString(buf));
+    }
+    return el;
+  }
+
+  /**
+   * Strings are a byte length and UTF-8 bytes. A length of -1 is null.
+   */
+  private static void writeString(DataOutputStream out, String str)
+      throws IOException {
+    if (str == null)
+      out.writeInt(-1);
+    else {
+      byte[] bytes = str.getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(ByteBuffer buf) {
+    int length = buf.getInt();
+    if (length < 0)
+      return null;
+    byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return new String(bytes, UTF8);
+  }
+}
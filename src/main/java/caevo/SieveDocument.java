@@ -19,6 +19,7 @@ import caevo.Timex.DocumentFunction;
 import caevo.tlink.EventEventLink;
 import caevo.tlink.EventTimeLink;
 import caevo.tlink.TLink;
+import caevo.tlink.TLinkStore;
 import caevo.tlink.TimeTimeLink;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
@@ -155,6 +156,13 @@ public class SieveDocument {
       tlink.setDocument(this);
   }
 
+  /**
+   * Adds the links in the store, in the order they were added to it.
+   */
+  public void addTlinks(TLinkStore newlinks) {
+    addTlinks(newlinks.asList());
+  }
+
   public void addTlink(TLink newlink) {
     if (tlinks == null)
       tlinks = new ArrayList<TLink>();
@@ -467,7 +475,7 @@ public class SieveDocument {
     return buf.toString();
   }
 
-  private static TLink tlinkFromElement(Element el) {
+  static TLink tlinkFromElement(Element el) {
     if (el.getAttributeValue(TLink.TLINK_TYPE_ATT)
         .equals(TLink.EVENT_EVENT_TYPE_VALUE))
       return new EventEventLink(el);
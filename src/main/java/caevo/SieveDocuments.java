@@ -16,6 +16,8 @@ import org.jdom.input.SAXBuilder;
 import org.jdom.output.Format;
 import org.jdom.output.XMLOutputter;
 
+import caevo.util.Timings;
+
 /**
  * Timebank Corpus file that stores in an easier to read format, all the
  * sentences and docs from the TimeBank corpus, as well as event information on
@@ -44,8 +46,15 @@ public class SieveDocuments {
   public SieveDocuments() {
   }
 
+  /**
+   * Load the documents from either an .info.xml file or its binary version.
+   */
   public SieveDocuments(String filepath) {
-    readFromXML(filepath);
+    File file = new File(filepath);
+    if (SieveBinary.isBinary(file))
+      readFromBinary(file);
+    else
+      readFromXML(file);
   }
 
   /**
@@ -95,6 +104,7 @@ public class SieveDocuments {
 
     // Read the XML file.
     SAXBuilder builder = new SAXBuilder();
+    Timings.Timer timer = Timings.start(Timings.XML_READ);
     try {
       Namespace ns = Namespace.getNamespace(INFO_NS);
       Document jdomDoc = builder.build(file);
@@ -110,6 +120,36 @@ public class SieveDocuments {
     } catch (Exception e) {
       e.printStackTrace();
     }
+    timer.stop();
+  }
+
+  public void readFromBinary(String path) {
+    readFromBinary(new File(path));
+  }
+
+  /**
+   * Read documents written by writeToBinary().
+   */
+  public void readFromBinary(File file) {
+    // Reset the documents list.
+    if (documents == null)
+      documents = new ArrayList<SieveDocument>();
+    else
+      documents.clear();
+    if (nameToDocument == null)
+      nameToDocument = new HashMap<String, SieveDocument>();
+    else
+      nameToDocument.clear();
+
+    try {
+      for (SieveDocument doc : SieveBinary.readAll(file)) {
+        documents.add(doc);
+        nameToDocument.put(doc.getDocname(), doc);
+      }
+      System.out.println("Got " + documents.size() + " binary documents.");
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
   }
 
   /**
@@ -143,6 +183,7 @@ public class SieveDocuments {
   }
 
   public void writeToXML(File file) {
+    Timings.Timer timer = Timings.start(Timings.XML_WRITE);
     try {
       FileOutputStream out = new FileOutputStream(file);
       XMLOutputter op = new XMLOutputter(Format.getPrettyFormat());
@@ -153,6 +194,22 @@ public class SieveDocuments {
     } catch (IOException e) {
       e.printStackTrace();
     }
+    timer.stop();
+  }
+
+  public void writeToBinary(String path) {
+    writeToBinary(new File(path));
+  }
+
+  /**
+   * Write the documents in the compact binary format. See SieveBinary.
+   */
+  public void writeToBinary(File file) {
+    try {
+      SieveBinary.write(this, file);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
   }
 
   public void outputMarkedUp(String dirpath) {
@@ -226,6 +283,20 @@ public class SieveDocuments {
       docs.writeToXML(args[1]);
     }
 
+    // InfoFile <info.xml> <info.bin> tobinary
+    else if (args[args.length - 1].equals("tobinary")) {
+      SieveDocuments docs = new SieveDocuments();
+      docs.readFromXML(args[0]);
+      docs.writeToBinary(args[1]);
+    }
+
+    // InfoFile <info.bin> <info.xml> toxml
+    else if (args[args.length - 1].equals("toxml")) {
+      SieveDocuments docs = new SieveDocuments();
+      docs.readFromBinary(args[0]);
+      docs.writeToXML(args[1]);
+    }
+
     // InfoFile <info> count
     else if (args[args.length - 1].equals("count")) {
       SieveDocuments docs = new SieveDocuments();
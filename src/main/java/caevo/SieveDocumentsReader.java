@@ -0,0 +1,134 @@
+package caevo;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+import caevo.util.Timings;
+
+/**
+ * Reads an .info.xml file one document at a time with StAX. Only the current
+ * <file> element is ever turned into JDOM, so memory stays flat no matter how
+ * many documents the file holds.
+ *
+ * Each document comes from SieveDocument.fromXML(), exactly as it would from
+ * SieveDocuments.readFromXML().
+ */
+public class SieveDocumentsReader implements Iterable<SieveDocument>,
+    Closeable {
+  private InputStream in;
+  private XMLStreamReader reader;
+  private SieveDocument nextDoc = null;
+
+  public SieveDocumentsReader(String path) throws IOException {
+    this(new File(path));
+  }
+
+  public SieveDocumentsReader(File file) throws IOException {
+    in = new BufferedInputStream(new FileInputStream(file));
+    try {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+      factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+      reader = factory.createXMLStreamReader(in);
+    } catch (XMLStreamException ex) {
+      in.close();
+      throw new IOException("Couldn't open " + file + ": " + ex.getMessage());
+    }
+  }
+
+  /**
+   * @return The next document in the file, or null if there are no more.
+   */
+  public SieveDocument nextDocument() {
+    if (nextDoc != null) {
+      SieveDocument doc = nextDoc;
+      nextDoc = null;
+      return doc;
+    }
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT
+            && reader.getLocalName().equals(SieveDocuments.FILE_ELEM)
+            && SieveDocuments.INFO_NS.equals(reader.getNamespaceURI())) {
+          Timings.Timer timer = Timings.start(Timings.XML_READ);
+          SieveDocument doc = SieveDocument.fromXML(readElement());
+          timer.stop();
+          return doc;
+        }
+      }
+    } catch (XMLStreamException ex) {
+      throw new RuntimeException(ex);
+    }
+    return null;
+  }
+
+  /**
+   * Build a JDOM Element for the element the reader is sitting on, consuming
+   * everything up to and including its end tag.
+   */
+  private Element readElement() throws XMLStreamException {
+    String prefix = reader.getPrefix();
+    String uri = reader.getNamespaceURI();
+    Element el = new Element(reader.getLocalName(), Namespace.getNamespace(
+        prefix == null ? "" : prefix, uri == null ? "" : uri));
+    for (int aa = 0; aa < reader.getAttributeCount(); aa++)
+      el.setAttribute(reader.getAttributeLocalName(aa),
+          reader.getAttributeValue(aa));
+
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT)
+        el.addContent(readElement());
+      else if (event == XMLStreamConstants.CHARACTERS
+          || event == XMLStreamConstants.CDATA
+          || event == XMLStreamConstants.SPACE)
+        el.addContent(reader.getText());
+      else if (event == XMLStreamConstants.END_ELEMENT)
+        break;
+    }
+    return el;
+  }
+
+  public Iterator<SieveDocument> iterator() {
+    return new Iterator<SieveDocument>() {
+      public boolean hasNext() {
+        if (nextDoc == null)
+          nextDoc = nextDocument();
+        return nextDoc != null;
+      }
+
+      public SieveDocument next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        return nextDocument();
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  public void close() throws IOException {
+    try {
+      reader.close();
+    } catch (XMLStreamException ex) {
+      // The input stream is closed below either way.
+    }
+    in.close();
+  }
+}
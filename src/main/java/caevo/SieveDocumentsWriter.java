@@ -0,0 +1,65 @@
+package caevo;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+import caevo.util.Timings;
+
+/**
+ * Writes an .info.xml file one document at a time, so finished documents can
+ * be dropped instead of held until the whole corpus is done. The output reads
+ * back the same as SieveDocuments.writeToXML() would have written it.
+ */
+public class SieveDocumentsWriter implements Closeable {
+  private Writer out;
+  private XMLOutputter outputter;
+  private int numWritten = 0;
+
+  public SieveDocumentsWriter(String path) throws IOException {
+    this(new File(path));
+  }
+
+  public SieveDocumentsWriter(File file) throws IOException {
+    Format format = Format.getPrettyFormat();
+    outputter = new XMLOutputter(format);
+    out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+        format.getEncoding()));
+    out.write("<?xml version=\"1.0\" encoding=\"" + format.getEncoding()
+        + "\"?>\n");
+    out.write("<root xmlns=\"" + SieveDocuments.INFO_NS + "\">\n");
+  }
+
+  /**
+   * Append one document to the file.
+   */
+  public void write(SieveDocument doc) throws IOException {
+    Timings.Timer timer = Timings.start(Timings.XML_WRITE, doc.getDocname());
+    outputter.output(doc.toXML(), out);
+    out.write('\n');
+    numWritten++;
+    timer.stop();
+  }
+
+  /**
+   * @return The number of documents written so far.
+   */
+  public int size() {
+    return numWritten;
+  }
+
+  /**
+   * Close the root element and the file.
+   */
+  public void close() throws IOException {
+    out.write("</root>\n");
+    out.close();
+  }
+}
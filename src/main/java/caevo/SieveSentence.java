@@ -6,6 +6,9 @@ import java.util.List;
 import org.jdom.Element;
 import org.jdom.Namespace;
 
+import caevo.util.DependencyGraph;
+import caevo.util.DerivedCache;
+import caevo.util.SentenceIndex;
 import caevo.util.TreeOperator;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
@@ -25,9 +28,24 @@ public class SieveSentence {
   private int sid;
   private String sentence;
   private String parseStr;
-  private Tree parseTree;
   private String depsStr;
-  private List<TypedDependency> deps;
+  // Built from the strings when asked for, and kept as long as the
+  // SieveSentence.cache policy allows.
+  private final DerivedCache.Slot<Tree> parseTree = DerivedCache.shared()
+      .newSlot();
+  private final DerivedCache.Slot<SentenceIndex> index = DerivedCache.shared()
+      .newSlot();
+  private final DerivedCache.Slot<List<TypedDependency>> deps = DerivedCache
+      .shared().newSlot();
+  private final DerivedCache.Slot<DependencyGraph> depGraph = DerivedCache
+      .shared().newSlot();
+
+  // Rough heap bytes per character of the stored strings, for the cache's
+  // budget.
+  private static final int TREE_BYTES_PER_CHAR = 48;
+  private static final int INDEX_BYTES_PER_CHAR = 16;
+  private static final int DEPS_BYTES_PER_CHAR = 24;
+  private static final int GRAPH_BYTES_PER_CHAR = 8;
   private List<CoreLabel> tokens;
   private List<TextEvent> events; // of TextEvent objects
   private List<Timex> timexes; // of Timex objects
@@ -204,17 +222,85 @@ public class SieveSentence {
   }
 
   public Tree getParseTree() {
-    if (parseTree == null) {
-      TreeFactory tf = new LabeledScoredTreeFactory();
-      parseTree = TreeOperator.stringToTree(parseStr, tf);
+    Tree tree = parseTree.get();
+    if (tree == null && parseStr != null) {
+      // The index may still hold the tree it was built over.
+      SentenceIndex cached = index.get();
+      if (cached != null)
+        tree = cached.getTree();
+      else {
+        TreeFactory tf = new LabeledScoredTreeFactory();
+        tree = TreeOperator.stringToTree(parseStr, tf);
+      }
+      parseTree.set(tree, (long) parseStr.length() * TREE_BYTES_PER_CHAR);
+    }
+    return tree;
+  }
+
+  /**
+   * @return Lookups over this sentence's parse tree: token preterminals,
+   *         parents, dominance and paths. Built the first time it's asked for.
+   */
+  public SentenceIndex getIndex() {
+    Tree tree = getParseTree();
+    if (tree == null)
+      return null;
+    SentenceIndex sindex = index.get();
+    if (sindex == null || sindex.getTree() != tree) {
+      sindex = new SentenceIndex(tree);
+      // The index holds the tree too, and keeps it alive when the tree's own
+      // slot is emptied.
+      index.set(sindex, (long) parseStr.length()
+          * (TREE_BYTES_PER_CHAR + INDEX_BYTES_PER_CHAR));
     }
-    return parseTree;
+    return sindex;
   }
 
   public List<TypedDependency> getDeps() {
-    if (deps == null)
-      deps = TreeOperator.stringToDependencies(depsStr);
-    return deps;
+    List<TypedDependency> list = deps.get();
+    if (list == null) {
+      // The graph may still hold the list it was built over.
+      DependencyGraph graph = depGraph.get();
+      if (graph != null)
+        list = graph.getDeps();
+      else
+        list = TreeOperator.stringToDependencies(depsStr);
+      deps.set(list, depsBytes(DEPS_BYTES_PER_CHAR));
+    }
+    return list;
+  }
+
+  /**
+   * @return This sentence's dependencies indexed by token: governors,
+   *         dependents and shortest paths. Built the first time it's asked for.
+   */
+  public DependencyGraph getDependencyGraph() {
+    List<TypedDependency> list = getDeps();
+    DependencyGraph graph = depGraph.get();
+    if (graph == null || graph.getDeps() != list) {
+      graph = new DependencyGraph(list);
+      // Likewise the graph holds the list.
+      depGraph.set(graph, depsBytes(DEPS_BYTES_PER_CHAR + GRAPH_BYTES_PER_CHAR));
+    }
+    return graph;
+  }
+
+  private long depsBytes(int perChar) {
+    return (depsStr == null ? 0 : (long) depsStr.length() * perChar);
+  }
+
+  /**
+   * @return The parse tree as it is stored in the .info file.
+   */
+  public String getParseString() {
+    return parseStr;
+  }
+
+  /**
+   * @return The dependencies as they are stored in the .info file.
+   */
+  public String getDepsString() {
+    return depsStr;
   }
 
   public void setParent(SieveDocument doc) {
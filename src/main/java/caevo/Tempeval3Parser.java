@@ -27,12 +27,14 @@ import caevo.util.HandleParameters;
 import caevo.util.Ling;
 import caevo.util.Pair;
 import caevo.util.TimebankUtil;
+import caevo.util.Timings;
 import caevo.util.TreeOperator;
 import caevo.util.Util;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.HasWord;
 import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParserQuery;
 import edu.stanford.nlp.pipeline.AnnotationPipeline;
 import edu.stanford.nlp.trees.GrammaticalStructure;
 import edu.stanford.nlp.trees.GrammaticalStructureFactory;
@@ -889,6 +891,14 @@ public class Tempeval3Parser {
    */
   public static SieveDocument rawXMLtoSieveDocument(String xmlFilePath,
       LexicalizedParser parser, GrammaticalStructureFactory gsf) {
+    return rawXMLtoSieveDocument(xmlFilePath, new ParserPool(parser, gsf, 1));
+  }
+
+  /**
+   * Same as above, but parses the sentences with the given pool of parsers.
+   */
+  public static SieveDocument rawXMLtoSieveDocument(String xmlFilePath,
+      ParserPool parsers) {
 
     // PARSE the input XML document of events
     Document doc = getXMLDocFromPath(xmlFilePath);
@@ -903,7 +913,7 @@ public class Tempeval3Parser {
 
     // Parse the text.
     SieveDocument sdoc = rawTextToParsed((new File(xmlFilePath)).getName(),
-        justtext, parser, gsf);
+        justtext, parsers);
 
     // Grab the DCT element.
     Element dctElement = null;
@@ -1364,17 +1374,25 @@ public class Tempeval3Parser {
 
   public static SieveDocument rawTextFileToParsed(String filepath,
       LexicalizedParser parser, GrammaticalStructureFactory gsf) {
+    return rawTextFileToParsed(filepath, new ParserPool(parser, gsf, 1));
+  }
+
+  /**
+   * Same as above, but parses the sentences with the given pool of parsers.
+   */
+  public static SieveDocument rawTextFileToParsed(String filepath,
+      ParserPool parsers) {
     List<String> lines = Util.readLinesFromFile(filepath);
-    String bigone = lines.get(0);
+    StringBuilder bigone = new StringBuilder(lines.get(0));
     for (int xx = 1; xx < lines.size(); xx++)
-      bigone += "\n" + lines.get(xx);
+      bigone.append('\n').append(lines.get(xx));
     // System.out.println("bigone=" + bigone);
 
-    return rawTextToParsed(filepath, bigone, parser, gsf);
+    return rawTextToParsed(filepath, bigone.toString(), parsers);
   }
 
   private static SieveDocument rawTextToParsed(String filename, String text,
-      LexicalizedParser parser, GrammaticalStructureFactory gsf) {
+      ParserPool parsers) {
     List<List<HasWord>> sentencesNormInvertible = new ArrayList<List<HasWord>>();
     sentencesNormInvertible
         .addAll(Ling.getSentencesFromTextNormInvertible(text));
@@ -1388,13 +1406,22 @@ public class Tempeval3Parser {
       cl.set(CoreAnnotations.AfterAnnotation.class, trailingWhite);
     }
 
+    // Don't bother parsing anything if a sentence is too long.
+    for (List<HasWord> sent : sentencesNormInvertible)
+      if (sent.size() > 100)
+        return null;
+
     SieveDocument sdoc = new SieveDocument((new File(filename)).getName());
+    Timings.setDocument(sdoc.getDocname());
 
+    // Parses run ahead on the pool; sentences are added in their original
+    // order as each one finishes.
+    List<Future<Pair<String, String>>> parses = parsers
+        .submitAll(sentencesNormInvertible);
     int sid = 0;
     for (List<HasWord> sent : sentencesNormInvertible) {
-      if(sent.size() > 100){ return null;}
       // System.out.println("* " + sent);
-      Pair<String, String> parseDep = parseDep(sent, parser, gsf);
+      Pair<String, String> parseDep = ParserPool.await(parses.get(sid));
       List<CoreLabel> cls = new ArrayList<CoreLabel>();
       for (HasWord word : sent)
         cls.add((CoreLabel) word);
@@ -1402,6 +1429,7 @@ public class Tempeval3Parser {
           parseDep.second(), null, null);
       sid++;
     }
+    Timings.setDocument(null);
 
     return sdoc;
   }
@@ -1419,9 +1447,21 @@ public class Tempeval3Parser {
    */
   public static Pair<String, String> parseDep(List<HasWord> sentence,
       LexicalizedParser parser, GrammaticalStructureFactory gsf) {
+    return parseDep(sentence, parser.parserQuery(), gsf);
+  }
+
+  /**
+   * Parse a given list of words with the given parser query. A query is not
+   * thread-safe, but can be reused for sentence after sentence.
+   * 
+   * @return A pair: (1) phrase tree, (2) dependency graph.
+   */
+  public static Pair<String, String> parseDep(List<HasWord> sentence,
+      LexicalizedParserQuery query, GrammaticalStructureFactory gsf) {
     // PARSE the sentence
     if (sentence != null) {
-      Tree ansTree = parser.parseTree(sentence);
+      Timings.Timer timer = Timings.start(Timings.PARSE);
+      Tree ansTree = query.parse(sentence) ? query.getBestParse() : null;
       if (ansTree == null) {
         System.out.println("Sentence failed to parse: " + sentence);
         System.exit(-1);
@@ -1456,6 +1496,7 @@ public class Tempeval3Parser {
 
       // DEP PARSE the sentence - CAUTION: DESTRUCTIVE to parse tree
       String depString = lexParseToDeps(ansTree, gsf);
+      timer.stop();
 
       // System.out.println(" - deps: " + depString);
 
@@ -1469,7 +1510,7 @@ public class Tempeval3Parser {
    */
   private static String lexParseToDeps(Tree lexTree,
       GrammaticalStructureFactory gsf) {
-    String depString = "";
+    StringBuilder depString = new StringBuilder();
     if (lexTree != null && lexTree.size() > 1) {
       try {
         GrammaticalStructure gs = gsf.newGrammaticalStructure(lexTree);
@@ -1478,7 +1519,7 @@ public class Tempeval3Parser {
               .typedDependenciesCCprocessed(true);
           if (localdeps != null)
             for (TypedDependency dep : localdeps)
-              depString += dep + "\n";
+              depString.append(dep).append('\n');
         }
       } catch (Exception ex) {
         System.out.println("ERROR: dependency tree creation failed...");
@@ -1486,7 +1527,7 @@ public class Tempeval3Parser {
         System.exit(-1);
       }
     }
-    return depString;
+    return depString.toString();
   }
 
   /**
@@ -6,7 +6,7 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import caevo.util.TreeOperator;
+import caevo.util.DependencyGraph;
 import edu.stanford.nlp.trees.TypedDependency;
 
 /**
@@ -124,21 +124,21 @@ public class TemporalContext {
     int numSents = depsBySentId.size();
 
     for (int sid = 0; sid < numSents; sid++) {
+      DependencyGraph graph = DependencyGraph.of(depsBySentId.get(sid));
       for (TextEvent event : eventsBySentId.get(sid)) {
         // First check if the event governs a timex.
         // put them all into a list called timexesGovernedByEvent
         List<Timex> timexesGovernedByEvent = new ArrayList<Timex>();
         for (Timex timex : timexesBySentId.get(sid)) {
           // First try to add timexes in the sentences that event governs...
-          for (TypedDependency td : depsBySentId.get(sid)) {
-            if (event.getIndex() == td.gov().index()
-                && timex.getTokenOffset() == td.dep().index()) {
-              timexesGovernedByEvent.add(timex);
-              if (this.debug) {
-                System.out.printf("%s(%s) governs %s(%s)\n%s\n",
-                    event.getString(), event.getId(), timex.getText(),
-                    timex.getTid(), sentsById.get(sid).sentence());
-              }
+          int governs = graph.getDeps(event.getIndex(),
+              timex.getTokenOffset()).size();
+          for (int ii = 0; ii < governs; ii++) {
+            timexesGovernedByEvent.add(timex);
+            if (this.debug) {
+              System.out.printf("%s(%s) governs %s(%s)\n%s\n",
+                  event.getString(), event.getId(), timex.getText(),
+                  timex.getTid(), sentsById.get(sid).sentence());
             }
           }
         }
@@ -189,10 +189,10 @@ public class TemporalContext {
         HashMap<Timex, int[]> timexToCounts = new HashMap<Timex, int[]>();
         for (Timex timex : timexesBySentId.get(sid)) {
           // Get the shortest path from event to timex:
-          List<TypedDependency> deps = depsBySentId.get(sid);
+          DependencyGraph graph = DependencyGraph.of(depsBySentId.get(sid));
           int start = event.getIndex();
           int end = timex.getTokenOffset();
-          String shortestPath = TreeOperator.dependencyPath(start, end, deps);
+          String shortestPath = graph.path(start, end);
           // to be continued?
         }
       }
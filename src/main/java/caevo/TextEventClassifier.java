@@ -12,11 +12,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import caevo.util.CompiledLinearClassifier;
 import caevo.util.Directory;
+import caevo.util.FeatureVector;
 import caevo.util.HandleParameters;
 import caevo.util.Ling;
+import caevo.util.ModelRegistry;
+import caevo.util.SentenceIndex;
+import caevo.util.Timings;
 import caevo.util.TreeOperator;
-import caevo.util.Util;
 import caevo.util.WordNet;
 import edu.stanford.nlp.classify.Classifier;
 import edu.stanford.nlp.classify.LinearClassifierFactory;
@@ -26,7 +30,6 @@ import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.ling.RVFDatum;
 import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
-import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
 import edu.stanford.nlp.trees.GrammaticalStructureFactory;
 import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
@@ -68,6 +71,9 @@ public class TextEventClassifier {
   Classifier<String, String> tenseClassifier = null;
   Classifier<String, String> aspectClassifier = null;
   Classifier<String, String> classClassifier = null;
+  // The compiled form of each classifier above, or null if it isn't linear.
+  CompiledLinearClassifier eventCompiled, tenseCompiled, aspectCompiled,
+      classCompiled;
 
   public TextEventClassifier(String[] args) {
     HandleParameters params = new HandleParameters(args);
@@ -126,27 +132,28 @@ public class TextEventClassifier {
   /**
    * Find the path from the current word, up to the first seen S node.
    * 
-   * @param tree
+   * @param index
+   *          The sentence's parse tree index.
    * @param wordIndex
    * @return
    */
-  private String pathToSTag(Tree tree, int wordIndex) {
-    Tree subtree = TreeOperator.indexToSubtree(tree, wordIndex);
+  private String pathToSTag(SentenceIndex index, int wordIndex) {
+    Tree subtree = index.preterminal(wordIndex);
     if (subtree == null) {
       System.out.println("ERROR: couldn't find subtree for word index "
-          + wordIndex + " in tree: " + tree);
+          + wordIndex + " in tree: " + index.getTree());
       return null;
     }
     List<String> tags = new ArrayList<String>();
     tags.add(subtree.label().value());
 
-    Tree parentTree = subtree.parent(tree);
+    Tree parentTree = index.parent(subtree);
     String tag = "";
     while (parentTree != null && !tag.equalsIgnoreCase("S")
         && !tag.equalsIgnoreCase("SBAR")) {
       tag = parentTree.label().value();
       tags.add(tag);
-      parentTree = parentTree.parent(tree);
+      parentTree = index.parent(parentTree);
     }
 
     // Built the feature string by reversing the list.
@@ -161,15 +168,19 @@ public class TextEventClassifier {
    * Extract features for a single token in a sentence in order to identify
    * whether or not it is an event.
    * 
+   * @param features
+   *          The vector to add the features to.
    * @param sentence
    *          The sentence data structure with all parse information filled in.
+   * @param tree
+   *          The sentence's parse tree.
+   * @param deps
+   *          The sentence's typed dependencies.
    * @param wordIndex
    *          Starting from 1.
-   * @return
    */
-  private Counter<String> getEventFeatures(SieveSentence sentence, Tree tree,
-      List<TypedDependency> deps, int wordIndex) {
-    Counter<String> features = new ClassicCounter<String>();
+  void addEventFeatures(FeatureVector features, SieveSentence sentence,
+      Tree tree, List<TypedDependency> deps, int wordIndex) {
     List<CoreLabel> tokens = sentence.tokens();// sentence.sentence().toLowerCase().split("\\s+");
     int size = tokens.size();
 
@@ -197,48 +208,55 @@ public class TextEventClassifier {
           .toLowerCase();
 
     // N-grams.
-    features.incrementCount(token);
-    features.incrementCount(tokenPre1 + "-" + token);
-    features.incrementCount(tokenPre2 + "-" + tokenPre1 + "-" + token);
+    features.add(token);
+    features.start(tokenPre1).append('-').append(token).add();
+    features.start(tokenPre2).append('-').append(tokenPre1).append('-')
+        .append(token).add();
 
     // N-grams before the target token.
-    features.incrementCount("PRE-" + tokenPre1);
-    features.incrementCount("PRE-" + tokenPre2 + "-" + tokenPre1);
+    features.start("PRE-").append(tokenPre1).add();
+    features.start("PRE-").append(tokenPre2).append('-').append(tokenPre1)
+        .add();
 
     // N-grams following the target token.
-    features.incrementCount("POST-" + tokenPost1);
-    features.incrementCount("POST-" + tokenPost1 + "-" + tokenPost2);
+    features.start("POST-").append(tokenPost1).add();
+    features.start("POST-").append(tokenPost1).append('-').append(tokenPost2)
+        .add();
 
     // POS n-grams. (1, 2, 3-gram)
-    String pos = TreeOperator.indexToPOSTag(tree, wordIndex);
+    SentenceIndex index = sentence.getIndex();
+    if (index == null || index.getTree() != tree)
+      index = SentenceIndex.of(tree);
+    String pos = index.posTag(wordIndex);
     String posPre1 = "<s>";
     String posPre2 = "<s>";
     if (wordIndex > 1)
-      posPre1 = TreeOperator.indexToPOSTag(tree, wordIndex - 1);
+      posPre1 = index.posTag(wordIndex - 1);
     if (wordIndex > 2)
-      posPre2 = TreeOperator.indexToPOSTag(tree, wordIndex - 2);
-    features.incrementCount(pos);
-    features.incrementCount(posPre1 + "-" + pos);
-    features.incrementCount(posPre2 + "-" + posPre1 + "-" + pos);
+      posPre2 = index.posTag(wordIndex - 2);
+    features.add(pos);
+    features.start(posPre1).append('-').append(pos).add();
+    features.start(posPre2).append('-').append(posPre1).append('-')
+        .append(pos).add();
 
     // WordNet lookup
-    features.incrementCount("LEM-" + wordnet.lemmatizeTaggedWord(token, pos));
+    features.start("LEM-").append(wordnet.lemmatizeTaggedWord(token, pos))
+        .add();
     if (pos != null && pos.startsWith("NN"))
-      features.incrementCount("IS-WORDNET-EV-" + wordnet.isNounEvent(token));
+      features.start("IS-WORDNET-EV-").append(wordnet.isNounEvent(token))
+          .add();
 
     // Parse path to Sentence node.
-    String path = pathToSTag(tree, wordIndex);
-    features.incrementCount("PATH-" + path);
+    String path = pathToSTag(index, wordIndex);
+    features.start("PATH-").append(path).add();
 
     // Typed Dependency triples with which this word is involved.
     for (TypedDependency dep : deps) {
       if (dep.gov().index() == wordIndex)
-        features.incrementCount("DEPG-" + dep.reln());
+        features.start("DEPG-").append(dep.reln()).add();
       else if (dep.dep().index() == wordIndex)
-        features.incrementCount("DEPD-" + dep.reln());
+        features.start("DEPD-").append(dep.reln()).add();
     }
-
-    return features;
   }
 
   public Classifier<String, String> train(Set<String> docnames) {
@@ -261,6 +279,7 @@ public class TextEventClassifier {
     RVFDataset<String, String> aspectDataset = new RVFDataset<String, String>();
     RVFDataset<String, String> classDataset = new RVFDataset<String, String>();
 
+    FeatureVector vector = new FeatureVector();
     for (SieveDocument doc : docs.getDocuments()) {
       if (docnames == null || docnames.contains(doc.getDocname())) {
         System.out.println("train docname: " + doc.getDocname());
@@ -281,8 +300,9 @@ public class TextEventClassifier {
 
           // Create the dataset!
           for (int xx = 1; xx <= tokens.size(); xx++) {
-            Counter<String> features = getEventFeatures(sentence, tree,
-                alldeps.get(sid), xx);
+            vector.clear();
+            addEventFeatures(vector, sentence, tree, alldeps.get(sid), xx);
+            Counter<String> features = vector.toCounter();
             RVFDatum<String, String> datum = new RVFDatum<String, String>(
                 features, (index.containsKey(xx) ? "event" : "notevent"));
             eventDataset.add(datum);
@@ -331,6 +351,7 @@ public class TextEventClassifier {
     tenseClassifier = linearFactory.trainClassifier(tenseDataset);
     aspectClassifier = linearFactory.trainClassifier(aspectDataset);
     classClassifier = linearFactory.trainClassifier(classDataset);
+    compileClassifiers();
 
     return null;
   }
@@ -370,6 +391,20 @@ public class TextEventClassifier {
   public boolean isEvent(Classifier<String, String> classifier,
       SieveSentence sentence, Tree tree, List<TypedDependency> deps,
       int wordi) {
+    CompiledLinearClassifier compiled = (classifier == eventClassifier
+        ? eventCompiled : CompiledLinearClassifier.forClassifier(classifier));
+    return isEvent(classifier, compiled, sentence, tree, deps, wordi,
+        new FeatureVector());
+  }
+
+  /**
+   * Same as above, but leaves the token's features in the given vector when it
+   * is an event, so its attributes can be classified without featurizing it
+   * again.
+   */
+  private boolean isEvent(Classifier<String, String> classifier,
+      CompiledLinearClassifier compiled, SieveSentence sentence, Tree tree, List<TypedDependency> deps, int wordi,
+      FeatureVector features) {
     String postag = TreeOperator.indexToPOSTag(tree, wordi);
 
     // Only consider tokens with specific POS tags.
@@ -379,21 +414,35 @@ public class TextEventClassifier {
         postag.equalsIgnoreCase("IN") ||
         // "the lights are out*"
         postag.equalsIgnoreCase("RP")) {
-      Counter<String> features = getEventFeatures(sentence, tree, deps, wordi);
-      RVFDatum<String, String> datum = new RVFDatum<String, String>(features,
-          null);
-      String guess = classifier.classOf(datum);
+      features.clear();
+      addEventFeatures(features, sentence, tree, deps, wordi);
+      String guess = classOf(classifier, compiled, features);
       return guess.equals("event");
     } else
       return false;
   }
 
-  private RVFDatum<String, String> wordToDatum(SieveSentence sentence,
-      Tree tree, List<TypedDependency> deps, int wordi) {
-    Counter<String> features = getEventFeatures(sentence, tree, deps, wordi);
-    RVFDatum<String, String> datum = new RVFDatum<String, String>(features,
-        null);
-    return datum;
+  /**
+   * Classify with the compiled form of the model when it's linear, which
+   * skips building a Counter of scores for every token.
+   */
+  private static String classOf(Classifier<String, String> classifier,
+      CompiledLinearClassifier compiled, FeatureVector features) {
+    if (compiled != null)
+      return compiled.classOf(features);
+    return classifier
+        .classOf(new RVFDatum<String, String>(features.toCounter(), null));
+  }
+
+  /**
+   * Resolve each classifier's compiled form once, so classifying a token
+   * doesn't have to look it up.
+   */
+  private void compileClassifiers() {
+    eventCompiled = CompiledLinearClassifier.forClassifier(eventClassifier);
+    tenseCompiled = CompiledLinearClassifier.forClassifier(tenseClassifier);
+    aspectCompiled = CompiledLinearClassifier.forClassifier(aspectClassifier);
+    classCompiled = CompiledLinearClassifier.forClassifier(classClassifier);
   }
 
   /**
@@ -475,8 +524,10 @@ public class TextEventClassifier {
    */
   public void extractEvents(SieveDocuments docs, Collection<String> docnames,
       boolean useDeterministic) {
+    FeatureVector features = new FeatureVector();
     for (SieveDocument doc : docs.getDocuments()) {
       if (docnames == null || docnames.contains(doc.getDocname())) {
+        Timings.Timer timer = Timings.start(Timings.EVENTS, doc.getDocname());
         System.out.println("doc = " + doc.getDocname());
         List<SieveSentence> sentences = doc.getSentences();
         int eventi = 1;
@@ -512,26 +563,24 @@ public class TextEventClassifier {
                   eventi++;
                 }
 
-                if (!useDeterministic && isEvent(eventClassifier, sent, tree,
-                    alldeps.get(sid), wordi)) {
+                if (!useDeterministic && isEvent(eventClassifier,
+                    eventCompiled, sent, tree, alldeps.get(sid), wordi,
+                    features)) {
                   String tokenStr = token
                       .getString(CoreAnnotations.OriginalTextAnnotation.class);
                   TextEvent event = new TextEvent(tokenStr, "e" + eventi, sid,
                       wordi);
                   event.addEiid("ei" + eventi);
 
-                  // Set the event attributes.
-                  RVFDatum<String, String> datum = wordToDatum(sent, tree,
-                      alldeps.get(sid), wordi);
-                  // System.out.println("datum: " + datum);
-                  // System.out.println("\taspect: " +
-                  // aspectClassifier.classOf(datum));
-                  event.setTense(
-                      TextEvent.Tense.valueOf(tenseClassifier.classOf(datum)));
-                  event.setAspect(TextEvent.Aspect
-                      .valueOf(aspectClassifier.classOf(datum)));
-                  event.setTheClass(
-                      TextEvent.Class.valueOf(classClassifier.classOf(datum)));
+                  // Set the event attributes, from the features isEvent()
+                  // left in the vector.
+                  // System.out.println("features: " + features);
+                  event.setTense(TextEvent.Tense.valueOf(
+                      classOf(tenseClassifier, tenseCompiled, features)));
+                  event.setAspect(TextEvent.Aspect.valueOf(
+                      classOf(aspectClassifier, aspectCompiled, features)));
+                  event.setTheClass(TextEvent.Class.valueOf(
+                      classOf(classClassifier, classCompiled, features)));
 
                   newevents.add(event);
                   // System.out.println("Created event: " + event);
@@ -546,6 +595,7 @@ public class TextEventClassifier {
             doc.addEvents(sid, newevents);
           sid++;
         }
+        timer.stop();
       }
     }
   }
@@ -567,6 +617,7 @@ public class TextEventClassifier {
    */
   public void labelEventAttributes(SieveDocuments docs,
       Collection<String> docnames) {
+    FeatureVector features = new FeatureVector();
     for (SieveDocument doc : docs.getDocuments()) {
       if (docnames == null || docnames.contains(doc.getDocname())) {
         List<SieveSentence> sentences = doc.getSentences();
@@ -583,15 +634,16 @@ public class TextEventClassifier {
           if (theEvents != null && tree != null && tree.size() > 1) {
             for (TextEvent event : theEvents) {
               // Set the event attributes.
-              RVFDatum<String, String> datum = wordToDatum(sent, tree,
-                  alldeps.get(sid), event.getIndex());
-              // System.out.println("datum: " + datum);
-              event.setTense(
-                  TextEvent.Tense.valueOf(tenseClassifier.classOf(datum)));
-              event.setAspect(
-                  TextEvent.Aspect.valueOf(aspectClassifier.classOf(datum)));
-              event.setTheClass(
-                  TextEvent.Class.valueOf(classClassifier.classOf(datum)));
+              features.clear();
+              addEventFeatures(features, sent, tree, alldeps.get(sid),
+                  event.getIndex());
+              // System.out.println("features: " + features);
+              event.setTense(TextEvent.Tense.valueOf(
+                  classOf(tenseClassifier, tenseCompiled, features)));
+              event.setAspect(TextEvent.Aspect.valueOf(
+                  classOf(aspectClassifier, aspectCompiled, features)));
+              event.setTheClass(TextEvent.Class.valueOf(
+                  classOf(classClassifier, classCompiled, features)));
             }
           }
 
@@ -640,32 +692,28 @@ public class TextEventClassifier {
   }
 
   /**
-   * Read all serialized classifiers into memory.
+   * Read all serialized classifiers into memory. They are shared with every
+   * other TextEventClassifier through the ModelRegistry.
    */
   public void loadClassifiers() {
     String base = "/models/" + baseModelName;
-    eventClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(base));
-    tenseClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(base + "-tense"));
-    aspectClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(base + "-aspect"));
-    classClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(base + "-class"));
+    eventClassifier = ModelRegistry.getClassifier(base);
+    tenseClassifier = ModelRegistry.getClassifier(base + "-tense");
+    aspectClassifier = ModelRegistry.getClassifier(base + "-aspect");
+    classClassifier = ModelRegistry.getClassifier(base + "-class");
+    compileClassifiers();
   }
 
   public void readClassifiersFromDirectory(String dir) {
     if (!(new File(dir)).isDirectory())
       System.out.println("Not a directory: " + dir);
     else {
-      eventClassifier = Util
-          .readClassifierFromFile(dir + File.separator + baseModelName);
-      tenseClassifier = Util.readClassifierFromFile(
-          dir + File.separator + baseModelName + "-tense");
-      aspectClassifier = Util.readClassifierFromFile(
-          dir + File.separator + baseModelName + "-aspect");
-      classClassifier = Util.readClassifierFromFile(
-          dir + File.separator + baseModelName + "-class");
+      String base = dir + File.separator + baseModelName;
+      eventClassifier = ModelRegistry.getClassifier(base);
+      tenseClassifier = ModelRegistry.getClassifier(base + "-tense");
+      aspectClassifier = ModelRegistry.getClassifier(base + "-aspect");
+      classClassifier = ModelRegistry.getClassifier(base + "-class");
+      compileClassifiers();
     }
   }
 
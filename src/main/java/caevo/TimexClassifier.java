@@ -1,9 +1,15 @@
 package caevo;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
+import caevo.util.CaevoProperties;
+import caevo.util.Log;
+import caevo.util.Timings;
+import caevo.util.TreeOperator;
+
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
@@ -15,6 +21,8 @@ import edu.stanford.nlp.time.Options.RelativeHeuristicLevel;
 import edu.stanford.nlp.time.SUTimeMain;
 import edu.stanford.nlp.time.TimeAnnotations;
 import edu.stanford.nlp.time.TimeAnnotator;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.util.ArrayCoreMap;
 import edu.stanford.nlp.util.CoreMap;
 
 /**
@@ -25,6 +33,7 @@ import edu.stanford.nlp.util.CoreMap;
  * @author chambers
  */
 public class TimexClassifier {
+  private static final Log log = Log.getLog(TimexClassifier.class);
   String posTaggerData = "edu/stanford/nlp/models/pos-tagger/english-left3words/english-left3words-distsim.tagger";
   // String _serializedGrammar =
   // "edu/stanford/nlp/models/lexparser/englishPCFG.ser.gz";
@@ -32,12 +41,22 @@ public class TimexClassifier {
   // "edu/stanford/nlp/models/ner/english.all.3class.distsim.crf.ser.gz";
 
   boolean debug = false;
+  // Hand SUTime our own tokens and the parser's POS tags, one annotation per
+  // document, instead of re-tokenizing and re-tagging each sentence.
+  boolean pretagged = false;
 
   AnnotationPipeline timexPipeline = null;
+  AnnotationPipeline pretaggedPipeline = null;
   SieveDocuments thedocs;
 
   public TimexClassifier(SieveDocuments docs) {
     this.thedocs = docs;
+    try {
+      pretagged = CaevoProperties.getBoolean("TimexClassifier.pretagged",
+          pretagged);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
   }
 
   /**
@@ -90,7 +109,15 @@ public class TimexClassifier {
    * expressions.
    */
   public void markupTimex3() {
-    for (SieveDocument doc : thedocs.getDocuments()) {
+    markupTimex3(thedocs);
+  }
+
+  /**
+   * Destructively mark up the given documents for time expressions.
+   */
+  public void markupTimex3(SieveDocuments docs) {
+    for (SieveDocument doc : docs.getDocuments()) {
+      Timings.Timer timer = Timings.start(Timings.TIMEX, doc.getDocname());
       if (debug)
         System.out.println("doc = " + doc.getDocname());
       List<SieveSentence> sentences = doc.getSentences();
@@ -106,15 +133,27 @@ public class TimexClassifier {
       // System.out.println(sentences.size() + " sentences.");
       int tid = 1;
 
+      // Run SUTime over the whole document at once if it is already tagged.
+      List<List<Timex>> docTimexes = null;
+      if (pretagged)
+        docTimexes = markupTimex3Pretagged(sentences, docDate);
+
       // Loop over each sentence and get TLinks.
       int sid = 0;
       for (SieveSentence sent : sentences) {
 
         // List<CoreLabel> theTokens = preprocessTokens(sent.tokens());
 
-        System.out
-            .println("TimexClassifier markupTimex3 tokens = " + sent.tokens());
-        List<Timex> stanfordTimex = markupTimex3(sent.tokens(), tid, docDate);
+        if (log.isDebug())
+          log.debug("TimexClassifier markupTimex3 tokens = " + sent.tokens());
+        List<Timex> stanfordTimex;
+        if (docTimexes != null) {
+          stanfordTimex = docTimexes.get(sid);
+          int nextid = tid;
+          for (Timex timex : stanfordTimex)
+            timex.setTid("t" + nextid++);
+        } else
+          stanfordTimex = markupTimex3(sent.tokens(), tid, docDate);
         myRevisedTimex3(stanfordTimex, docDate);
         tid += stanfordTimex.size();
 
@@ -125,6 +164,7 @@ public class TimexClassifier {
         doc.addTimexes(sid, stanfordTimex);
         sid++;
       }
+      timer.stop();
     }
   }
 
@@ -260,46 +300,131 @@ public class TimexClassifier {
     List<Timex> newtimexes = new ArrayList<Timex>();
     for (CoreMap label : annotation
         .get(TimeAnnotations.TimexAnnotations.class)) {
-      edu.stanford.nlp.time.Timex stanfordTimex = label
-          .get(TimeAnnotations.TimexAnnotation.class);
-      org.w3c.dom.Element stanfordElement = stanfordTimex.toXmlElement();
-      Timex newtimex = new Timex();
-      newtimex
-          .setType(Timex.Type.valueOf(stanfordElement.getAttribute("type")));
-      newtimex.setValue(stanfordElement.getAttribute("value"));
+      Timex newtimex = fromStanfordTimex(label);
       newtimex.setTid("t" + idcounter++);
-      newtimex.setText(stanfordElement.getTextContent());
-      String docFnStr = stanfordElement.getAttribute("functionInDocument");
-      if (docFnStr != null && !docFnStr.isEmpty())
-        newtimex.setDocumentFunction(Timex.DocumentFunction.valueOf(docFnStr));
-      // Stanford Timex starts at index 0 in the sentence, not index 1.
-      newtimex.setSpan(
-          label.get(CoreAnnotations.TokenBeginAnnotation.class) + 1,
-          label.get(CoreAnnotations.TokenEndAnnotation.class) + 1);
-      if (debug)
-        System.out.println("NEW SUTIME TIMEX: " + newtimex);
       newtimexes.add(newtimex);
     }
     return newtimexes;
   }
 
   /**
-   * Adapted this from javanlp's SUTimeMain.java. We could better integrate this
-   * with the parsing of the sentences, rather than starting from scratch again.
-   * Performance gains would basically just avoid tokenizing and POS tagging.
+   * Run SUTime once over a whole document, using the tokens we already have
+   * and the POS tags from each sentence's parse tree. This skips the second
+   * tokenize and POS tagging pass of markupTimex3(List, int, String).
+   * 
+   * @param sentences
+   *          The document's parsed sentences.
+   * @param docDate
+   *          A string version of the document's creation time.
+   * @return One list of Timex objects per sentence, without TIDs, or null if
+   *         some sentence's parse doesn't line up with its tokens.
+   */
+  private List<List<Timex>> markupTimex3Pretagged(
+      List<SieveSentence> sentences, String docDate) {
+    if (pretaggedPipeline == null) {
+      pretaggedPipeline = new AnnotationPipeline();
+      pretaggedPipeline.addAnnotator(
+          new TimeAnnotator("sutime", getSUTimeProperties()));
+    }
+
+    // Build the pre-annotated document: one CoreMap per sentence, tokens
+    // space-delimited just like buildStringFromCoreLabels() would give.
+    StringBuilder docText = new StringBuilder();
+    List<CoreMap> sentenceMaps = new ArrayList<CoreMap>();
+    for (SieveSentence sent : sentences) {
+      List<CoreLabel> words = sent.tokens();
+      Tree tree = sent.getParseTree();
+      List<String> tags = (tree == null || tree.isLeaf())
+          ? new ArrayList<String>() : TreeOperator.posTagsFromTree(tree);
+      if (tags.size() != words.size()) {
+        if (debug)
+          System.out.println("markupTimex3Pretagged: " + tags.size()
+              + " tags for " + words.size() + " tokens, falling back.");
+        return null;
+      }
+
+      if (docText.length() > 0)
+        docText.append('\n');
+      int sentBegin = docText.length();
+      List<CoreLabel> tokens = new ArrayList<CoreLabel>(words.size());
+      for (int xx = 0; xx < words.size(); xx++) {
+        if (xx > 0)
+          docText.append(' ');
+        String word = words.get(xx)
+            .getString(CoreAnnotations.OriginalTextAnnotation.class);
+        CoreLabel token = new CoreLabel();
+        token.setWord(word);
+        token.setValue(word);
+        token.set(CoreAnnotations.OriginalTextAnnotation.class, word);
+        token.setTag(tags.get(xx));
+        token.setBeginPosition(docText.length());
+        docText.append(word);
+        token.setEndPosition(docText.length());
+        tokens.add(token);
+      }
+
+      CoreMap sentMap = new ArrayCoreMap();
+      sentMap.set(CoreAnnotations.TextAnnotation.class,
+          docText.substring(sentBegin));
+      sentMap.set(CoreAnnotations.CharacterOffsetBeginAnnotation.class,
+          sentBegin);
+      sentMap.set(CoreAnnotations.CharacterOffsetEndAnnotation.class,
+          docText.length());
+      sentMap.set(CoreAnnotations.TokensAnnotation.class, tokens);
+      sentenceMaps.add(sentMap);
+    }
+
+    Annotation annotation = new Annotation(docText.toString());
+    annotation.set(CoreAnnotations.SentencesAnnotation.class, sentenceMaps);
+    if (docDate != null)
+      annotation.set(CoreAnnotations.DocDateAnnotation.class, docDate);
+    pretaggedPipeline.annotate(annotation);
+
+    // SUTime leaves each sentence's timexes on the sentence itself, with
+    // token offsets relative to that sentence.
+    List<List<Timex>> timexes = new ArrayList<List<Timex>>();
+    for (CoreMap sentMap : sentenceMaps) {
+      List<Timex> newtimexes = new ArrayList<Timex>();
+      List<CoreMap> labels = sentMap
+          .get(TimeAnnotations.TimexAnnotations.class);
+      if (labels != null)
+        for (CoreMap label : labels)
+          newtimexes.add(fromStanfordTimex(label));
+      timexes.add(newtimexes);
+    }
+    return timexes;
+  }
+
+  /**
+   * Create one of our Timex objects from a SUTime timex annotation. The TID is
+   * left for the caller to set.
+   */
+  private Timex fromStanfordTimex(CoreMap label) {
+    edu.stanford.nlp.time.Timex stanfordTimex = label
+        .get(TimeAnnotations.TimexAnnotation.class);
+    org.w3c.dom.Element stanfordElement = stanfordTimex.toXmlElement();
+    Timex newtimex = new Timex();
+    newtimex.setType(Timex.Type.valueOf(stanfordElement.getAttribute("type")));
+    newtimex.setValue(stanfordElement.getAttribute("value"));
+    newtimex.setText(stanfordElement.getTextContent());
+    String docFnStr = stanfordElement.getAttribute("functionInDocument");
+    if (docFnStr != null && !docFnStr.isEmpty())
+      newtimex.setDocumentFunction(Timex.DocumentFunction.valueOf(docFnStr));
+    // Stanford Timex starts at index 0 in the sentence, not index 1.
+    newtimex.setSpan(label.get(CoreAnnotations.TokenBeginAnnotation.class) + 1,
+        label.get(CoreAnnotations.TokenEndAnnotation.class) + 1);
+    if (debug)
+      System.out.println("NEW SUTIME TIMEX: " + newtimex);
+    return newtimex;
+  }
+
+  /**
+   * Adapted this from javanlp's SUTimeMain.java. This starts from scratch
+   * again on the raw sentence text; set TimexClassifier.pretagged to reuse the
+   * parsed sentences and avoid tokenizing and POS tagging.
    */
   private AnnotationPipeline getPipeline(boolean tokenize) {
-    Properties props = new Properties();
-    props.setProperty("sutime.includeRange", "true");
-    props.setProperty("sutime.markTimeRanges", "true");
-    props.setProperty("sutime.includeNested", "false");
-    props.setProperty("sutime.restrictToTimex3", "true");
-    props.setProperty("sutime.teRelHeurLevel",
-        RelativeHeuristicLevel.BASIC.name());
-    // props.setProperty("sutime.rules",
-    // "edu/stanford/nlp/time/rules/defs.sutime.txt,edu/stanford/nlp/time/rules/english.sutime.txt,edu/stanford/nlp/time/rules/english.holidays.sutime.txt");
-    props.setProperty("sutime.rules",
-        "edu/stanford/nlp/models/sutime/defs.sutime.txt,edu/stanford/nlp/models/sutime/english.sutime.txt,edu/stanford/nlp/models/sutime/english.holidays.sutime.txt");
+    Properties props = getSUTimeProperties();
     System.setProperty("pos.model", posTaggerData);
 
     AnnotationPipeline pipeline = new AnnotationPipeline();
@@ -313,6 +438,21 @@ public class TimexClassifier {
     return pipeline;
   }
 
+  private Properties getSUTimeProperties() {
+    Properties props = new Properties();
+    props.setProperty("sutime.includeRange", "true");
+    props.setProperty("sutime.markTimeRanges", "true");
+    props.setProperty("sutime.includeNested", "false");
+    props.setProperty("sutime.restrictToTimex3", "true");
+    props.setProperty("sutime.teRelHeurLevel",
+        RelativeHeuristicLevel.BASIC.name());
+    // props.setProperty("sutime.rules",
+    // "edu/stanford/nlp/time/rules/defs.sutime.txt,edu/stanford/nlp/time/rules/english.sutime.txt,edu/stanford/nlp/time/rules/english.holidays.sutime.txt");
+    props.setProperty("sutime.rules",
+        "edu/stanford/nlp/models/sutime/defs.sutime.txt,edu/stanford/nlp/models/sutime/english.sutime.txt,edu/stanford/nlp/models/sutime/english.holidays.sutime.txt");
+    return props;
+  }
+
   /**
    * @param args
    */
@@ -1,6 +1,5 @@
 package caevo.sieves;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -13,7 +12,8 @@ import caevo.TextEvent;
 import caevo.Timex;
 import caevo.tlink.EventTimeLink;
 import caevo.tlink.TLink;
-import caevo.util.CaevoProperties;
+import caevo.util.DependencyGraph;
+import caevo.util.SieveConfig;
 import caevo.util.TreeOperator;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.trees.GrammaticalRelation;
@@ -57,11 +57,28 @@ import edu.stanford.nlp.trees.TypedDependency;
 public class AdjacentVerbTimex implements Sieve {
 
   public boolean debug = false;
-  private boolean EVENT_BEFORE_TIMEX = true;
-  private boolean TIMEX_BEFORE_EVENT = true;
-  private boolean EVENT_GOVERNS_TIMEX = true;
-  private boolean TIMEX_GOVERNS_EVENT = true;
-  private int numInterWords = 0;
+  private final boolean EVENT_BEFORE_TIMEX;
+  private final boolean TIMEX_BEFORE_EVENT;
+  private final boolean EVENT_GOVERNS_TIMEX;
+  private final boolean TIMEX_GOVERNS_EVENT;
+  private final int numInterWords;
+
+  public AdjacentVerbTimex() {
+    this(SieveConfig.load("AdjacentVerbTimex"));
+  }
+
+  /**
+   * Settings are read once, here, from the AdjacentVerbTimex.* properties.
+   */
+  public AdjacentVerbTimex(SieveConfig config) {
+    config.checkKeys("EVENT_BEFORE_TIMEX", "TIMEX_BEFORE_EVENT",
+        "EVENT_GOVERNS_TIMEX", "TIMEX_GOVERNS_EVENT", "numInterWords");
+    EVENT_BEFORE_TIMEX = config.getBoolean("EVENT_BEFORE_TIMEX", true);
+    TIMEX_BEFORE_EVENT = config.getBoolean("TIMEX_BEFORE_EVENT", true);
+    EVENT_GOVERNS_TIMEX = config.getBoolean("EVENT_GOVERNS_TIMEX", true);
+    TIMEX_GOVERNS_EVENT = config.getBoolean("TIMEX_GOVERNS_EVENT", true);
+    numInterWords = config.getInt("numInterWords", 0);
+  }
 
   // Exclude timex that refer to "quarters" using this regex to be
   // applied to timex.value, since such a timex usually modifies an
@@ -74,22 +91,6 @@ public class AdjacentVerbTimex implements Sieve {
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Parameter Value Code
-    try {
-      EVENT_BEFORE_TIMEX = CaevoProperties
-          .getBoolean("AdjacentVerbTimex.EVENT_BEFORE_TIMEX", true);
-      TIMEX_BEFORE_EVENT = CaevoProperties
-          .getBoolean("AdjacentVerbTimex.TIMEX_BEFORE_EVENT", true);
-      EVENT_GOVERNS_TIMEX = CaevoProperties
-          .getBoolean("AdjacentVerbTimex.EVENT_GOVERNS_TIMEX", true);
-      TIMEX_GOVERNS_EVENT = CaevoProperties
-          .getBoolean("AdjacentVerbTimex.TIMEX_GOVERNS_EVENT", true);
-      numInterWords = CaevoProperties.getInt("AdjacentVerbTimex.numInterWords",
-          0);
-    } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
-    }
     // SIEVE CODE
     // List of proposed links
     // List of sentences in doc
@@ -100,7 +101,7 @@ public class AdjacentVerbTimex implements Sieve {
     for (SieveSentence sent : sentList) {
       // Get a list of all dependencies in the sentence
       // We'll need the parse tree from each sentence to calculate a word's POS
-      List<TypedDependency> deps = sent.getDeps();
+      DependencyGraph graph = sent.getDependencyGraph();
       Tree tree = null; // initialize to null so we don't end up loading it
                         // unless timexes are in the sentence
 
@@ -143,7 +144,7 @@ public class AdjacentVerbTimex implements Sieve {
           // Update above booleans
           // Check if event governs timex, and if so save the dependency
           // relation depRel
-          eventTimeDep = getDepSentIndexPair(deps, event.getIndex(),
+          eventTimeDep = getDepSentIndexPair(graph, event.getIndex(),
               timex.getTokenOffset());
           if (eventTimeDep != null) {
             depRel = eventTimeDep.reln();
@@ -152,7 +153,7 @@ public class AdjacentVerbTimex implements Sieve {
           // If not, check if timex governs event, and if so save the dependency
           // relation depRel
           else {
-            eventTimeDep = getDepSentIndexPair(deps, timex.getTokenOffset(),
+            eventTimeDep = getDepSentIndexPair(graph, timex.getTokenOffset(),
                 event.getIndex());
             if (eventTimeDep != null) {
               depRel = eventTimeDep.reln();
@@ -390,22 +391,19 @@ public class AdjacentVerbTimex implements Sieve {
 
   /**
    * 
-   * @param deps
+   * @param graph
    * @param sentIndex1
    * @param sentIndex2
    * @return null unless there is a dependency in which the item at sentIndex1
    *         governs the item at sentIndex2
    */
-  private TypedDependency getDepSentIndexPair(List<TypedDependency> deps,
+  private TypedDependency getDepSentIndexPair(DependencyGraph graph,
       int sentIndex1, int sentIndex2) {
     // sentIndex_i conforms to the convention that index starts at 1!
-    TypedDependency foundDep = null;
-    for (TypedDependency dep : deps) {
-      if (sentIndex1 == dep.gov().index() && sentIndex2 == dep.dep().index()) {
-        foundDep = dep;
-      }
-    }
-    return foundDep;
+    List<TypedDependency> found = graph.getDeps(sentIndex1, sentIndex2);
+    if (found.isEmpty())
+      return null;
+    return found.get(found.size() - 1);
   }
 
   // validateTime ensures that timex value meets criteria
@@ -17,8 +17,9 @@ import caevo.tlink.TLinkFeaturizer;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
 import caevo.util.TimebankUtil;
-import caevo.util.Util;
+import caevo.util.ModelRegistry;
 import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.io.IOUtils;
 
 /**
@@ -30,6 +31,8 @@ public class MLEventDCT implements Sieve {
   Classifier<String, String> eDCTClassifier = null; // event-DCT links.
   Classifier<String, String> eDCTExistsClassifier = null; // binary, is there a
                                                           // link or not?
+  // Set once readClassifiers() has run, so a missing model is looked for once.
+  boolean classifiersRead = false;
   TLinkFeaturizer featurizer;
 
   String eDCTName = "tlink.edct.classifier";
@@ -66,15 +69,16 @@ public class MLEventDCT implements Sieve {
       minFeatOccurrence = CaevoProperties.getInt("MLEventDCT.minFeatCount", 2);
     } catch (IOException ex) {
     }
-
-    readClassifiers();
   }
 
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Classifier loading must have failed in init()
+    // Load the model the first time it's needed.
+    if (eDCTClassifier == null && !classifiersRead)
+      readClassifiers();
+    // Classifier loading must have failed.
     if (eDCTClassifier == null)
       return null;
 
@@ -102,20 +106,28 @@ public class MLEventDCT implements Sieve {
     // Loop over sentences and get TLinks that cross sentence boundaries between
     // events and times.
     if (dct != null) {
+      List<TextEvent> events = new ArrayList<TextEvent>();
+      List<TLinkDatum> datums = new ArrayList<TLinkDatum>();
       for (SieveSentence sent : doc.getSentences()) {
         if (sent.events() != null) {
           for (TextEvent event : sent.events()) {
-            TLinkDatum datum = featurizer.createEventDocumentTimeDatum(doc,
-                event, dct, null);
-            Pair<String, Double> labelProb = TLinkClassifier
-                .getLabelProb(eDCTClassifier, datum.createRVFDatum());
-            TLink link = new EventTimeLink(event.getEiid(), dct.getTid(),
-                TLink.Type.valueOf(labelProb.first()));
-            link.setRelationConfidence(labelProb.second());
-            tlinks.add(link);
+            events.add(event);
+            datums.add(featurizer.createEventDocumentTimeDatum(doc, event, dct,
+                null));
           }
         }
       }
+
+      // Classify all of the document's events at once.
+      List<Pair<String, Double>> labelProbs = TLinkClassifier
+          .getLabelProbs(eDCTClassifier, datums);
+      for (int ii = 0; ii < events.size(); ii++) {
+        Pair<String, Double> labelProb = labelProbs.get(ii);
+        TLink link = new EventTimeLink(events.get(ii).getEiid(), dct.getTid(),
+            TLink.Type.valueOf(labelProb.first()));
+        link.setRelationConfidence(labelProb.second());
+        tlinks.add(link);
+      }
     }
     if (debug)
       System.out.println("Returning e-dct tlinks: " + tlinks);
@@ -123,10 +135,13 @@ public class MLEventDCT implements Sieve {
   }
 
   private void readClassifiers() {
+    classifiersRead = true;
     String path = "/models/tlinks/" + eDCTName;
     System.out.println("Loading edct from " + path);
-    eDCTClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(path));
+    eDCTClassifier = ModelRegistry.getClassifier(path);
+    if (eDCTClassifier == null)
+      System.out.println(
+          "ERROR: MLEventDCT could not read its classifier at: " + path);
   }
 
   /**
@@ -134,17 +149,18 @@ public class MLEventDCT implements Sieve {
    */
   public void train(SieveDocuments docs) {
     featurizer.debug = true;
-    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, null);
-    System.out.println("Final training data size: " + data.size());
+    RVFDataset<String, String> dataset = featurizer.infoToDataset(docs, null);
+    System.out.println("Final training data size: " + dataset.size());
 
     if (debug) {
-      for (TLinkDatum dd : data) {
+      // The cached dataset has no TLinks to show, so featurize again.
+      for (TLinkDatum dd : featurizer.infoToTLinkFeatures(docs, null)) {
         System.out.println("** " + dd._originalTLink);
         System.out.println(dd);
       }
     }
 
-    eDCTClassifier = TLinkClassifier.train(data, minFeatOccurrence);
+    eDCTClassifier = TLinkClassifier.train(dataset, minFeatOccurrence);
 
     try {
       IOUtils.writeObjectToFile(eDCTClassifier, eDCTName);
@@ -15,10 +15,11 @@ import caevo.tlink.TLinkDatum;
 import caevo.tlink.TLinkFeaturizer;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
-import caevo.util.Util;
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.ModelRegistry;
 import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.io.IOUtils;
-import edu.stanford.nlp.ling.RVFDatum;
 
 /**
  * Machine learned event-event pairs inter-sentence (one sentence away).
@@ -34,6 +35,9 @@ public class MLEventEventDiffSent implements Sieve {
   Classifier<String, String> eeDiffSentExistsClassifier = null; // binary, is
                                                                 // there a link
                                                                 // or not?
+  CompiledLinearClassifier eeDiffSentCompiled = null; // null if not linear
+  // Set once readClassifiers() has run, so a missing model is looked for once.
+  boolean classifiersRead = false;
   TLinkFeaturizer featurizer;
 
   String eeDiffSentName = "tlink.ee.diffsent.classifier";
@@ -66,15 +70,16 @@ public class MLEventEventDiffSent implements Sieve {
       debug = CaevoProperties.getBoolean("MLEventEventDiffSent.debug", false);
     } catch (IOException ex) {
     }
-
-    readClassifiers();
   }
 
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Classifier loading must have failed in init()
+    // Load the model the first time it's needed.
+    if (eeDiffSentClassifier == null && !classifiersRead)
+      readClassifiers();
+    // Classifier loading must have failed.
     if (eeDiffSentClassifier == null)
       return null;
 
@@ -121,9 +126,8 @@ public class MLEventEventDiffSent implements Sieve {
     // Get the best label and its probability.
     TLinkDatum datum = featurizer.createEventEventDatum(doc, event1, event2,
         null);
-    RVFDatum<String, String> rvf = datum.createRVFDatum();
     Pair<String, Double> labelProb = TLinkClassifier
-        .getLabelProb(targetClassifier, rvf);
+        .getLabelProb(targetClassifier, eeDiffSentCompiled, datum);
     String label = labelProb.first();
 
     // Create the actual link with the classified label.
@@ -134,9 +138,15 @@ public class MLEventEventDiffSent implements Sieve {
   }
 
   private void readClassifiers() {
+    classifiersRead = true;
     String path = "/models/tlinks/" + eeDiffSentName;
-    eeDiffSentClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(path));
+    eeDiffSentClassifier = ModelRegistry.getClassifier(path);
+    eeDiffSentCompiled = CompiledLinearClassifier
+        .forClassifier(eeDiffSentClassifier);
+    if (eeDiffSentClassifier == null)
+      System.out.println(
+          "ERROR: MLEventEventDiffSent could not read its classifier at: "
+              + path);
   }
 
   /**
@@ -144,17 +154,20 @@ public class MLEventEventDiffSent implements Sieve {
    */
   public void train(SieveDocuments docs) {
     // featurizer.debug = true;
-    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, null);
-    System.out.println("Final training data size: " + data.size());
+    RVFDataset<String, String> dataset = featurizer.infoToDataset(docs, null);
+    System.out.println("Final training data size: " + dataset.size());
 
     if (debug) {
-      for (TLinkDatum dd : data) {
+      // The cached dataset has no TLinks to show, so featurize again.
+      for (TLinkDatum dd : featurizer.infoToTLinkFeatures(docs, null)) {
         System.out.println("** " + dd._originalTLink);
         System.out.println(dd);
       }
     }
 
-    eeDiffSentClassifier = TLinkClassifier.train(data, featMinOccurrence);
+    eeDiffSentClassifier = TLinkClassifier.train(dataset, featMinOccurrence);
+    eeDiffSentCompiled = CompiledLinearClassifier
+        .forClassifier(eeDiffSentClassifier);
 
     try {
       IOUtils.writeObjectToFile(eeDiffSentClassifier, eeDiffSentName);
@@ -19,10 +19,11 @@ import caevo.tlink.TLinkFeaturizer;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
 import caevo.util.TimebankUtil;
-import caevo.util.Util;
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.ModelRegistry;
 import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.io.IOUtils;
-import edu.stanford.nlp.ling.RVFDatum;
 import edu.stanford.nlp.trees.Tree;
 
 /**
@@ -42,6 +43,10 @@ public class MLEventEventDominates extends MLEventEventSameSent {
                                                                    // event-event
                                                                    // syntactically
                                                                    // dominates
+  CompiledLinearClassifier eeSameSentDominatesCompiled = null; // null if not
+                                                               // linear
+  // Set once readClassifiers() has run, so a missing model is looked for once.
+  boolean classifiersRead = false;
   String modelName = "tlink.ee.dominates.classifier";
 
   int featMinOccurrence = 2;
@@ -70,15 +75,16 @@ public class MLEventEventDominates extends MLEventEventSameSent {
       debug = CaevoProperties.getBoolean("MLEventEventDominates.debug", false);
     } catch (IOException ex) {
     }
-
-    readClassifiers();
   }
 
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Classifier loading must have failed in init()
+    // Load the model the first time it's needed.
+    if (eeSameSentDominatesClassifier == null && !classifiersRead)
+      readClassifiers();
+    // Classifier loading must have failed.
     if (eeSameSentDominatesClassifier == null)
       return null;
 
@@ -150,9 +156,8 @@ public class MLEventEventDominates extends MLEventEventSameSent {
     // Get the best label and its probability.
     TLinkDatum datum = featurizer.createEventEventDatum(doc, event1, event2,
         null);
-    RVFDatum<String, String> rvf = datum.createRVFDatum();
     Pair<String, Double> labelProb = TLinkClassifier
-        .getLabelProb(targetClassifier, rvf);
+        .getLabelProb(targetClassifier, eeSameSentDominatesCompiled, datum);
     String label = labelProb.first();
 
     // Create the actual link with the classified label.
@@ -168,9 +173,11 @@ public class MLEventEventDominates extends MLEventEventSameSent {
    * Load the previously trained classifiers from our model directory.
    */
   private void readClassifiers() {
+    classifiersRead = true;
     String path = modelDir + File.separator + modelName;
-    eeSameSentDominatesClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(path));
+    eeSameSentDominatesClassifier = ModelRegistry.getClassifier(path);
+    eeSameSentDominatesCompiled = CompiledLinearClassifier
+        .forClassifier(eeSameSentDominatesClassifier);
     if (eeSameSentDominatesClassifier == null)
       System.out.println(
           "ERROR: MLEventEventDominates could not read its classifier at: "
@@ -193,12 +200,14 @@ public class MLEventEventDominates extends MLEventEventSameSent {
    */
   public void train(SieveDocuments docs) {
     // featurizer.debug = true;
-    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, null);
-    System.out.println("Final training data size: " + data.size());
+    RVFDataset<String, String> dataset = featurizer.infoToDataset(docs, null);
+    System.out.println("Final training data size: " + dataset.size());
 
     // Train the multi-class classifier.
-    eeSameSentDominatesClassifier = TLinkClassifier.train(data,
+    eeSameSentDominatesClassifier = TLinkClassifier.train(dataset,
         featMinOccurrence);
+    eeSameSentDominatesCompiled = CompiledLinearClassifier
+        .forClassifier(eeSameSentDominatesClassifier);
     writeClassifier(eeSameSentDominatesClassifier, modelName);
   }
 
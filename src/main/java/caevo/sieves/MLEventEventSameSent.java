@@ -5,9 +5,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import caevo.SieveDocument;
 import caevo.SieveDocuments;
@@ -21,10 +23,12 @@ import caevo.tlink.TLinkFeaturizer;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
 import caevo.util.TimebankUtil;
-import caevo.util.Util;
+import caevo.util.ModelRegistry;
+import caevo.util.ParallelTrainer;
 import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.GeneralDataset;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.io.IOUtils;
-import edu.stanford.nlp.ling.RVFDatum;
 import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
 import edu.stanford.nlp.trees.Tree;
@@ -43,7 +47,9 @@ import edu.stanford.nlp.trees.Tree;
 public class MLEventEventSameSent implements Sieve {
   Classifier<String, String> eeSameSentClassifier = null; // intra-sentence
                                                           // event-event links.
-  Map<TLink.Type, Classifier<String, String>> binaryLabelClassifiers;
+  Map<TLink.Type, Classifier<String, String>> binaryLabelClassifiers = new HashMap<TLink.Type, Classifier<String, String>>();
+  // Set once readClassifiers() has run, so a missing model is looked for once.
+  boolean classifiersRead = false;
 
   Classifier<String, String> eeSameSentExistsClassifier = null; // binary, is
                                                                 // there a link
@@ -90,8 +96,6 @@ public class MLEventEventSameSent implements Sieve {
           .getString("MLEventEventSameSent.binaryLabel", null);
     } catch (IOException ex) {
     }
-
-    readClassifiers();
   }
 
   public void printLabelStats(List<TLink> links) {
@@ -107,8 +111,8 @@ public class MLEventEventSameSent implements Sieve {
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Classifier loading must have failed in init()
-    if (eeSameSentClassifier == null)
+    // Classifier loading must have failed in readClassifiers()
+    if (getTargetClassifier() == null)
       return null;
 
     List<TLink> labeled = extractSameSentenceEventEventLinks(doc);
@@ -146,8 +150,11 @@ public class MLEventEventSameSent implements Sieve {
     if (debug)
       System.out.println(sentences.size() + " sentences.");
     List<TLink> tlinks = new ArrayList<TLink>();
+    List<TextEvent> firsts = new ArrayList<TextEvent>();
+    List<TextEvent> seconds = new ArrayList<TextEvent>();
+    List<TLinkDatum> datums = new ArrayList<TLinkDatum>();
 
-    // Loop over each sentence and get TLinks.
+    // Loop over each sentence and featurize its event pairs.
     for (SieveSentence sent : sentences) {
       List<TextEvent> events = sent.events();
 
@@ -158,25 +165,17 @@ public class MLEventEventSameSent implements Sieve {
 
         for (int jj = ii + 1; jj < events.size(); jj++) {
           TextEvent event2 = events.get(jj);
-          TLink link = createIntraSentenceEELink(doc, event1, event2);
-          tlinks.add(link);
+          firsts.add(event1);
+          seconds.add(event2);
+          datums.add(featurizer.createEventEventDatum(doc, event1, event2,
+              null));
         }
       }
     }
-    if (debug)
-      System.out.println("Returning same e-e tlinks: " + tlinks);
-    return tlinks;
-  }
-
-  private EventEventLink createIntraSentenceEELink(SieveDocument doc,
-      TextEvent event1, TextEvent event2) {
-    // Normal, 1 classifier for all event-event links.
-    Classifier<String, String> targetClassifier = eeSameSentClassifier;
 
-    // We are doing a binary classification on one link type.
-    if (doBinaryLabel != null)
-      targetClassifier = binaryLabelClassifiers
-          .get(TLink.Type.valueOf(doBinaryLabel));
+    // Normal, 1 classifier for all event-event links. With binaryLabel set,
+    // we are doing a binary classification on one link type.
+    Classifier<String, String> targetClassifier = getTargetClassifier();
 
     // Use 2 classifiers for event-event links. One for syntactic dominance, the
     // other for general.
@@ -190,12 +189,23 @@ public class MLEventEventSameSent implements Sieve {
     // targetClassifier = eeSameSentNoDominatesClassifier;
     // }
 
-    // Get the best label and its probability.
-    TLinkDatum datum = featurizer.createEventEventDatum(doc, event1, event2,
-        null);
-    RVFDatum<String, String> rvf = datum.createRVFDatum();
-    Pair<String, Double> labelProb = TLinkClassifier
-        .getLabelProb(targetClassifier, rvf);
+    // Classify all of the document's pairs at once.
+    List<Pair<String, Double>> labelProbs = TLinkClassifier
+        .getLabelProbs(targetClassifier, datums);
+    for (int ii = 0; ii < datums.size(); ii++)
+      tlinks.add(createIntraSentenceEELink(firsts.get(ii), seconds.get(ii),
+          labelProbs.get(ii)));
+
+    if (debug)
+      System.out.println("Returning same e-e tlinks: " + tlinks);
+    return tlinks;
+  }
+
+  /**
+   * Create the link for a classified pair.
+   */
+  private EventEventLink createIntraSentenceEELink(TextEvent event1,
+      TextEvent event2, Pair<String, Double> labelProb) {
     String label = labelProb.first();
 
     // Create the actual link with the classified label.
@@ -208,26 +218,45 @@ public class MLEventEventSameSent implements Sieve {
   }
 
   /**
-   * Load the previously trained classifiers from our model directory.
+   * @return The classifier annotate() uses, loading it the first time.
+   */
+  private Classifier<String, String> getTargetClassifier() {
+    if (doBinaryLabel == null) {
+      if (eeSameSentClassifier == null && !classifiersRead)
+        readClassifiers();
+      return eeSameSentClassifier;
+    }
+    TLink.Type label = TLink.Type.valueOf(doBinaryLabel);
+    if (binaryLabelClassifiers.get(label) == null && !classifiersRead)
+      readClassifiers();
+    return binaryLabelClassifiers.get(label);
+  }
+
+  /**
+   * Load the previously trained classifier from our model directory. Only the
+   * one annotate() will use: the multi-class classifier, or with binaryLabel
+   * set, that label's binary classifier.
    */
   private void readClassifiers() {
+    classifiersRead = true;
+    if (doBinaryLabel != null) {
+      TLink.Type label = TLink.Type.valueOf(doBinaryLabel);
+      String mpath = "/models/tlinks/tlink.ee.samesent." + label.toString()
+          + ".classifier";
+      binaryLabelClassifiers.put(label, ModelRegistry.getClassifier(mpath));
+      if (binaryLabelClassifiers.get(label) == null)
+        System.out.println(
+            "ERROR: MLEventEventSameSent could not read its classifier at: "
+                + mpath);
+      return;
+    }
+
     String path = modelDir + File.separator + eeSameSentName;
-    eeSameSentClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(path));
+    eeSameSentClassifier = ModelRegistry.getClassifier(path);
     if (eeSameSentClassifier == null)
       System.out.println(
           "ERROR: MLEventEventSameSent could not read its classifier at: "
               + path);
-
-    // Read the binary classifiers, one for each label type.
-    binaryLabelClassifiers = new HashMap<TLink.Type, Classifier<String, String>>();
-    for (TLink.Type label : labels) {
-      String mpath = "/models/tlinks/tlink.ee.samesent." + label.toString()
-          + ".classifier";
-      Classifier<String, String> classifier = Util
-          .readClassifierFromFile(this.getClass().getResource(mpath));
-      binaryLabelClassifiers.put(label, classifier);
-    }
   }
 
   private void writeClassifier(Classifier<String, String> classifier,
@@ -241,40 +270,46 @@ public class MLEventEventSameSent implements Sieve {
     }
   }
 
-  private List<TLinkDatum> createBinaryData(TLink.Type targetLabel,
-      List<TLinkDatum> links) {
-    List<TLinkDatum> binaryData = new ArrayList<TLinkDatum>();
-    for (TLinkDatum datum : links) {
-      TLinkDatum newd = new TLinkDatum();
-      newd.setLabel(
-          (datum.getLabel() == targetLabel) ? targetLabel : TLink.Type.NONE);
-      newd.addFeatures(datum.getFeatures());
-      binaryData.add(newd);
-    }
-    return binaryData;
+  /**
+   * A job that trains a classifier on the given dataset.
+   */
+  private Callable<Classifier<String, String>> trainJob(
+      final GeneralDataset<String, String> dataset) {
+    return new Callable<Classifier<String, String>>() {
+      public Classifier<String, String> call() {
+        return TLinkClassifier.train(dataset);
+      }
+    };
   }
 
   /**
-   * Train on the documents.
+   * Train on the documents. The multi-class classifier and each label's binary
+   * classifier train on the same features, so they share one dataset and are
+   * fit at the same time.
    */
   public void train(SieveDocuments docs) {
 
     // featurizer.debug = true;
-    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, null);
-    System.out.println("Final training data size: " + data.size());
+    RVFDataset<String, String> dataset = featurizer.infoToDataset(docs, null);
+    System.out.println("Final training data size: " + dataset.size());
+    TLinkClassifier.threshold(dataset, featMinOccurrence);
 
-    // Train the multi-class classifier.
-    eeSameSentClassifier = TLinkClassifier.train(data, featMinOccurrence);
-    writeClassifier(eeSameSentClassifier, eeSameSentName);
-
-    // Train binary classifiers for each label.
+    // The multi-class classifier, and binary classifiers for each label.
+    Map<String, Callable<Classifier<String, String>>> jobs = new LinkedHashMap<String, Callable<Classifier<String, String>>>();
+    jobs.put(eeSameSentName, trainJob(dataset));
     for (TLink.Type target : labels) {
-      List<TLinkDatum> binarydata = createBinaryData(target, data);
       String modelName = "tlink.ee.samesent." + target.toString()
           + ".classifier";
-      writeClassifier(TLinkClassifier.train(binarydata, featMinOccurrence),
-          modelName);
+      jobs.put(modelName, trainJob(TLinkClassifier.binaryDataset(dataset,
+          target.toString(), TLink.Type.NONE.toString())));
     }
+
+    Map<String, Classifier<String, String>> trained = ParallelTrainer
+        .run(jobs);
+    eeSameSentClassifier = trained.get(eeSameSentName);
+    for (Map.Entry<String, Classifier<String, String>> model : trained
+        .entrySet())
+      writeClassifier(model.getValue(), model.getKey());
   }
 
 }
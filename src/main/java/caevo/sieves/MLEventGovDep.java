@@ -16,6 +16,7 @@ import caevo.SieveSentence;
 import caevo.TextEvent;
 import caevo.tlink.EventEventLink;
 import caevo.tlink.TLink;
+import caevo.util.CompiledLinearClassifier;
 import edu.stanford.nlp.classify.Classifier;
 import edu.stanford.nlp.classify.LinearClassifierFactory;
 import edu.stanford.nlp.classify.RVFDataset;
@@ -57,11 +58,17 @@ public class MLEventGovDep implements Sieve {
     }
 
     // use the classifier to predict a TLink type for each event pair
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .forClassifier(this.classifier);
     List<TLink> tlinks = new ArrayList<TLink>();
     for (Pair<Pair<TextEvent, TextEvent>, Counter<String>> pair : this
         .getEventPairFeatures(doc)) {
-      TLink.Type relation = this.classifier
-          .classOf(new RVFDatum<TLink.Type, String>(pair.second));
+      TLink.Type relation;
+      if (compiled != null)
+        relation = TLink.Type.valueOf(compiled.classOf(pair.second));
+      else
+        relation = this.classifier
+            .classOf(new RVFDatum<TLink.Type, String>(pair.second));
       tlinks.add(new EventEventLink(pair.first.first.getEiid(),
           pair.first.second.getEiid(), relation));
     }
@@ -16,10 +16,11 @@ import caevo.tlink.TLinkDatum;
 import caevo.tlink.TLinkFeaturizer;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
-import caevo.util.Util;
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.ModelRegistry;
 import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.io.IOUtils;
-import edu.stanford.nlp.ling.RVFDatum;
 
 /**
  * Machine learned event-time pairs inter-sentence.
@@ -35,6 +36,9 @@ public class MLEventTimeDiffSent implements Sieve {
   Classifier<String, String> etDiffSentExistsClassifier = null; // binary, is
                                                                 // there a link
                                                                 // or not?
+  CompiledLinearClassifier etDiffSentCompiled = null; // null if not linear
+  // Set once readClassifiers() has run, so a missing model is looked for once.
+  boolean classifiersRead = false;
   TLinkFeaturizer featurizer;
 
   String etDiffSentName = "tlink.et.diffsent.classifier";
@@ -67,15 +71,16 @@ public class MLEventTimeDiffSent implements Sieve {
       debug = CaevoProperties.getBoolean("MLEventTimeDiffSent.debug", false);
     } catch (IOException ex) {
     }
-
-    readClassifiers();
   }
 
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Classifier loading must have failed in init()
+    // Load the model the first time it's needed.
+    if (etDiffSentClassifier == null && !classifiersRead)
+      readClassifiers();
+    // Classifier loading must have failed.
     if (etDiffSentClassifier == null)
       return null;
 
@@ -107,9 +112,8 @@ public class MLEventTimeDiffSent implements Sieve {
           for (Timex timex : timexesNext) {
             TLinkDatum datum = featurizer.createEventTimeDatum(doc, event,
                 timex, null);
-            RVFDatum<String, String> rvf = datum.createRVFDatum();
             Pair<String, Double> labelProb = TLinkClassifier
-                .getLabelProb(etDiffSentClassifier, rvf);
+                .getLabelProb(etDiffSentClassifier, etDiffSentCompiled, datum);
             TLink link = new EventTimeLink(event.getEiid(), timex.getTid(),
                 TLink.Type.valueOf(labelProb.first()));
             link.setRelationConfidence(labelProb.second());
@@ -122,9 +126,8 @@ public class MLEventTimeDiffSent implements Sieve {
           for (TextEvent event : eventsNext) {
             TLinkDatum datum = featurizer.createEventTimeDatum(doc, event,
                 timex, null);
-            RVFDatum<String, String> rvf = datum.createRVFDatum();
             Pair<String, Double> labelProb = TLinkClassifier
-                .getLabelProb(etDiffSentClassifier, rvf);
+                .getLabelProb(etDiffSentClassifier, etDiffSentCompiled, datum);
             TLink link = new EventTimeLink(event.getEiid(), timex.getTid(),
                 TLink.Type.valueOf(labelProb.first()));
             link.setRelationConfidence(labelProb.second());
@@ -139,10 +142,16 @@ public class MLEventTimeDiffSent implements Sieve {
   }
 
   private void readClassifiers() {
+    classifiersRead = true;
     String path = "/models/tlinks/" + etDiffSentName;
     System.out.println("Loading et diffsent from " + path);
-    etDiffSentClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(path));
+    etDiffSentClassifier = ModelRegistry.getClassifier(path);
+    etDiffSentCompiled = CompiledLinearClassifier
+        .forClassifier(etDiffSentClassifier);
+    if (etDiffSentClassifier == null)
+      System.out.println(
+          "ERROR: MLEventTimeDiffSent could not read its classifier at: "
+              + path);
   }
 
   /**
@@ -150,17 +159,20 @@ public class MLEventTimeDiffSent implements Sieve {
    */
   public void train(SieveDocuments docs) {
     featurizer.debug = true;
-    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, null);
-    System.out.println("Final training data size: " + data.size());
+    RVFDataset<String, String> dataset = featurizer.infoToDataset(docs, null);
+    System.out.println("Final training data size: " + dataset.size());
 
     if (debug) {
-      for (TLinkDatum dd : data) {
+      // The cached dataset has no TLinks to show, so featurize again.
+      for (TLinkDatum dd : featurizer.infoToTLinkFeatures(docs, null)) {
         System.out.println("** " + dd._originalTLink);
         System.out.println(dd);
       }
     }
 
-    etDiffSentClassifier = TLinkClassifier.train(data, featMinOccurrence);
+    etDiffSentClassifier = TLinkClassifier.train(dataset, featMinOccurrence);
+    etDiffSentCompiled = CompiledLinearClassifier
+        .forClassifier(etDiffSentClassifier);
 
     try {
       IOUtils.writeObjectToFile(etDiffSentClassifier, etDiffSentName);
@@ -16,10 +16,10 @@ import caevo.tlink.TLinkDatum;
 import caevo.tlink.TLinkFeaturizer;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
-import caevo.util.Util;
+import caevo.util.ModelRegistry;
 import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.io.IOUtils;
-import edu.stanford.nlp.ling.RVFDatum;
 
 /**
  * Machine learned event-time pairs intra-sentence.
@@ -38,6 +38,8 @@ public class MLEventTimeSameSent implements Sieve {
   Classifier<String, String> etSameSentExistsClassifier = null; // binary, is
                                                                 // there a link
                                                                 // or not?
+  // Set once readClassifiers() has run, so a missing model is looked for once.
+  boolean classifiersRead = false;
   TLinkFeaturizer featurizer;
 
   String etSameSentName = "tlink.et.samesent.classifier";
@@ -69,15 +71,16 @@ public class MLEventTimeSameSent implements Sieve {
       debug = CaevoProperties.getBoolean("MLEventTimeSameSent.debug", false);
     } catch (IOException ex) {
     }
-
-    readClassifiers();
   }
 
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Classifier loading must have failed in init()
+    // Load the model the first time it's needed.
+    if (etSameSentClassifier == null && !classifiersRead)
+      readClassifiers();
+    // Classifier loading must have failed.
     if (etSameSentClassifier == null)
       return null;
 
@@ -93,8 +96,11 @@ public class MLEventTimeSameSent implements Sieve {
     if (debug)
       System.out.println(sentences.size() + " sentences.");
     List<TLink> tlinks = new ArrayList<TLink>();
+    List<TextEvent> pairEvents = new ArrayList<TextEvent>();
+    List<Timex> pairTimexes = new ArrayList<Timex>();
+    List<TLinkDatum> datums = new ArrayList<TLinkDatum>();
 
-    // Loop over each sentence and get TLinks.
+    // Loop over each sentence and featurize its pairs.
     for (SieveSentence sent : sentences) {
       List<TextEvent> events = sent.events();
       List<Timex> timexes = sent.timexes();
@@ -103,29 +109,39 @@ public class MLEventTimeSameSent implements Sieve {
           && timexes.size() > 0) {
         for (Timex timex : timexes) {
           for (TextEvent event : events) {
-            TLinkDatum datum = featurizer.createEventTimeDatum(doc, event,
-                timex, null);
-            RVFDatum<String, String> rvf = datum.createRVFDatum();
-            Pair<String, Double> labelProb = TLinkClassifier
-                .getLabelProb(etSameSentClassifier, rvf);
-            TLink link = new EventTimeLink(event.getEiid(), timex.getTid(),
-                TLink.Type.valueOf(labelProb.first()));
-            link.setRelationConfidence(labelProb.second());
-            tlinks.add(link);
+            pairEvents.add(event);
+            pairTimexes.add(timex);
+            datums.add(featurizer.createEventTimeDatum(doc, event, timex,
+                null));
           }
         }
       }
     }
+
+    // Classify all of the document's pairs at once.
+    List<Pair<String, Double>> labelProbs = TLinkClassifier
+        .getLabelProbs(etSameSentClassifier, datums);
+    for (int ii = 0; ii < datums.size(); ii++) {
+      Pair<String, Double> labelProb = labelProbs.get(ii);
+      TLink link = new EventTimeLink(pairEvents.get(ii).getEiid(),
+          pairTimexes.get(ii).getTid(), TLink.Type.valueOf(labelProb.first()));
+      link.setRelationConfidence(labelProb.second());
+      tlinks.add(link);
+    }
     if (debug)
       System.out.println("Returning same e-e tlinks: " + tlinks);
     return tlinks;
   }
 
   private void readClassifiers() {
+    classifiersRead = true;
     String path = "/models/tlinks/" + etSameSentName;
     System.out.println("Loading et samesent from " + path);
-    etSameSentClassifier = Util
-        .readClassifierFromFile(this.getClass().getResource(path));
+    etSameSentClassifier = ModelRegistry.getClassifier(path);
+    if (etSameSentClassifier == null)
+      System.out.println(
+          "ERROR: MLEventTimeSameSent could not read its classifier at: "
+              + path);
   }
 
   /**
@@ -133,17 +149,18 @@ public class MLEventTimeSameSent implements Sieve {
    */
   public void train(SieveDocuments docs) {
     // featurizer.debug = true;
-    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, null);
-    System.out.println("Final training data size: " + data.size());
+    RVFDataset<String, String> dataset = featurizer.infoToDataset(docs, null);
+    System.out.println("Final training data size: " + dataset.size());
 
     if (debug) {
-      for (TLinkDatum dd : data) {
+      // The cached dataset has no TLinks to show, so featurize again.
+      for (TLinkDatum dd : featurizer.infoToTLinkFeatures(docs, null)) {
         System.out.println("** " + dd._originalTLink);
         System.out.println(dd);
       }
     }
 
-    etSameSentClassifier = TLinkClassifier.train(data, featMinOccurrence);
+    etSameSentClassifier = TLinkClassifier.train(dataset, featMinOccurrence);
 
     try {
       IOUtils.writeObjectToFile(etSameSentClassifier, etSameSentName);
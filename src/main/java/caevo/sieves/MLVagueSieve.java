@@ -16,10 +16,10 @@ import caevo.tlink.TLinkClassifier;
 import caevo.tlink.TLinkDatum;
 import caevo.util.Pair;
 import caevo.util.CaevoProperties;
-import caevo.util.Util;
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.ModelRegistry;
 import edu.stanford.nlp.classify.Classifier;
 import edu.stanford.nlp.io.IOUtils;
-import edu.stanford.nlp.ling.RVFDatum;
 
 /**
  * MLVagueSieve learns a maximum entropy model which uses features representing
@@ -92,6 +92,7 @@ public class MLVagueSieve implements Sieve {
   /* TLink types to classify (everything else is NONE) */
   private HashSet<TLink.Type> includeTypes = new HashSet<TLink.Type>();
   private Classifier<String, String> model;
+  private CompiledLinearClassifier compiledModel; // null if not linear
 
   public MLVagueSieve() {
     try {
@@ -102,10 +103,6 @@ public class MLVagueSieve implements Sieve {
           .getInt("MLVagueSieve.minFeatureOccurrence", 80);
       this.minConfidence = CaevoProperties
           .getDouble("MLVagueSieve.minConfidence", 0.7);
-
-      File f = new File(this.modelSavePath);
-      if (f.exists())
-        this.model = Util.readClassifierFromFile(this.modelSavePath);
     } catch (IOException e) {
       // TODO Auto-generated catch block
       e.printStackTrace();
@@ -134,6 +131,11 @@ public class MLVagueSieve implements Sieve {
     List<List<TextEvent>> sentenceEvents = doc.getEventsBySentence();
     List<TLink> proposed = new ArrayList<TLink>();
 
+    // Load the model the first time it's needed.
+    if (this.model == null && new File(this.modelSavePath).exists()) {
+      this.model = ModelRegistry.getClassifier(this.modelSavePath);
+      this.compiledModel = CompiledLinearClassifier.forClassifier(this.model);
+    }
     if (this.model == null)
       return proposed;
 
@@ -161,10 +163,8 @@ public class MLVagueSieve implements Sieve {
 
   private TLink orderEvents(TextEvent event1, TextEvent event2) {
     TLinkDatum datum = textEventsToUnlabelledDatum(event1, event2);
-    RVFDatum<String, String> rvf = datum.createRVFDatum();
-
     Pair<String, Double> labelProb = TLinkClassifier.getLabelProb(this.model,
-        rvf);
+        this.compiledModel, datum);
     TLink.Type linkType = TLink.Type.valueOf(labelProb.first());
 
     if (linkType != TLink.Type.NONE
@@ -231,6 +231,7 @@ public class MLVagueSieve implements Sieve {
     }
 
     this.model = TLinkClassifier.train(data, this.minFeatureOccurrence);
+    this.compiledModel = CompiledLinearClassifier.forClassifier(this.model);
 
     try {
       IOUtils.writeObjectToFile(this.model, this.modelSavePath);
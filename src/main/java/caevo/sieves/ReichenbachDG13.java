@@ -1,6 +1,5 @@
 package caevo.sieves;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -15,7 +14,7 @@ import caevo.tlink.EventEventLink;
 import caevo.tlink.TLink;
 import caevo.tlink.TLink.Type;
 import caevo.util.Pair;
-import caevo.util.CaevoProperties;
+import caevo.util.SieveConfig;
 import caevo.util.TimebankUtil;
 import caevo.util.TreeOperator;
 import edu.stanford.nlp.trees.Tree;
@@ -32,46 +31,44 @@ import edu.stanford.nlp.trees.TypedDependency;
 public class ReichenbachDG13 implements Sieve {
   private static final boolean analysis = false;
   public boolean debug = false;
-  private int sentWindow = 0;
-  private boolean sameSentence = true;
-  private String contextType = "naive";
-  private String contextCompare = "none";
-  private boolean sameTense = false;
-  private boolean simplifyPast = true;
-  private boolean simplifyPresent = true;
-  private boolean simplifyAspect = true;
-  private boolean useExtendedTense = true;
-  private boolean useExtendedTenseAcrossSentence = true;
+  private final int sentWindow;
+  private final boolean sameSentence;
+  private final String contextType;
+  private final String contextCompare;
+  private final boolean sameTense;
+  private final boolean simplifyPast;
+  private final boolean simplifyPresent;
+  private final boolean simplifyAspect;
+  private final boolean useExtendedTense;
+  private final boolean useExtendedTenseAcrossSentence;
+
+  public ReichenbachDG13() {
+    this(SieveConfig.load("ReichenbachDG13"));
+  }
 
-  public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Get property values from the config file
-    try {
-      sentWindow = CaevoProperties.getInt("ReichenbachDG13.sentWindow", 0);
-      contextType = CaevoProperties.getString("ReichenbachDG13.contextType",
-          "naive"); // naive, temporalDep, closestTimexPath
-      contextCompare = CaevoProperties
-          .getString("ReichenbachDG13.contextCompare", "none"); // equals,
-                                                                // equalsValue,
-                                                                // all
-      sameTense = CaevoProperties.getBoolean("ReichenbachDG13.sameTense",
-          false);
-      sameSentence = CaevoProperties.getBoolean("ReichenbachDG13.sameSentence",
-          false);
-      simplifyPast = CaevoProperties.getBoolean("ReichenbachDG13.simplifyPast",
-          true);
-      simplifyPresent = CaevoProperties
-          .getBoolean("ReichenbachDG13.simplifyPresent", true);
-      simplifyAspect = CaevoProperties
-          .getBoolean("ReichenbachDG13.simplifyAspect", true);
-      useExtendedTense = CaevoProperties
-          .getBoolean("ReichenbachDG13.useExtendedTense", true);
-      useExtendedTenseAcrossSentence = CaevoProperties
-          .getBoolean("ReichenbachDG13.useExtendedTenseAcrossSentence", true);
-    } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
-    }
+  /**
+   * Settings are read once, here, from the ReichenbachDG13.* properties.
+   */
+  public ReichenbachDG13(SieveConfig config) {
+    config.checkKeys("sentWindow", "contextType", "contextCompare", "sameTense",
+        "sameSentence", "simplifyPast", "simplifyPresent", "simplifyAspect",
+        "useExtendedTense", "useExtendedTenseAcrossSentence");
+    sentWindow = config.getInt("sentWindow", 0);
+    // naive, temporalDep, closestTimexPath
+    contextType = config.getString("contextType", "naive");
+    // equals, equalsValue, all
+    contextCompare = config.getString("contextCompare", "none");
+    sameTense = config.getBoolean("sameTense", false);
+    sameSentence = config.getBoolean("sameSentence", false);
+    simplifyPast = config.getBoolean("simplifyPast", true);
+    simplifyPresent = config.getBoolean("simplifyPresent", true);
+    simplifyAspect = config.getBoolean("simplifyAspect", true);
+    useExtendedTense = config.getBoolean("useExtendedTense", true);
+    useExtendedTenseAcrossSentence = config
+        .getBoolean("useExtendedTenseAcrossSentence", true);
+  }
 
+  public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
     // proposed will hold all TLinks proposed by the sieve
     List<TLink> proposed = new ArrayList<TLink>();
 
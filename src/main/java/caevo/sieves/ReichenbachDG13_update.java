@@ -1,6 +1,5 @@
 package caevo.sieves;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -12,7 +11,7 @@ import caevo.TemporalContext;
 import caevo.TextEvent;
 import caevo.tlink.EventEventLink;
 import caevo.tlink.TLink;
-import caevo.util.CaevoProperties;
+import caevo.util.SieveConfig;
 import caevo.util.TimebankUtil;
 import caevo.util.TreeOperator;
 import edu.stanford.nlp.trees.Tree;
@@ -98,35 +97,37 @@ import edu.stanford.nlp.trees.Tree;
  */
 public class ReichenbachDG13_update implements Sieve {
   public boolean debug = false;
-  private int sentWindow = 0;
-  private boolean sameTense = false;
-  private boolean simplifyPast = true;
-  private boolean simplifyPresent = true;
-  private boolean simplifyAspect = true;
-  private boolean useExtendedTense = true;
-  private boolean useExtendedTenseAcrossSentence = true;
+  private final int sentWindow;
+  private final boolean sameTense;
+  private final boolean simplifyPast;
+  private final boolean simplifyPresent;
+  private final boolean simplifyAspect;
+  private final boolean useExtendedTense;
+  private final boolean useExtendedTenseAcrossSentence;
 
-  public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Get property values from the config file
-    try {
-      sentWindow = CaevoProperties.getInt("ReichenbachDG13.sentWindow", 0);
-      sameTense = CaevoProperties.getBoolean("ReichenbachDG13.sameTense",
-          false);
-      simplifyPast = CaevoProperties.getBoolean("ReichenbachDG13.simplifyPast",
-          true);
-      simplifyPresent = CaevoProperties
-          .getBoolean("ReichenbachDG13.simplifyPresent", true);
-      simplifyAspect = CaevoProperties
-          .getBoolean("ReichenbachDG13.simplifyAspect", true);
-      useExtendedTense = CaevoProperties
-          .getBoolean("ReichenbachDG13.useExtendedTense", true);
-      useExtendedTenseAcrossSentence = CaevoProperties
-          .getBoolean("ReichenbachDG13.useExtendedTenseAcrossSentence", true);
-    } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
-    }
+  public ReichenbachDG13_update() {
+    this(SieveConfig.load("ReichenbachDG13"));
+  }
 
+  /**
+   * Settings are read once, here, from the ReichenbachDG13.* properties.
+   */
+  public ReichenbachDG13_update(SieveConfig config) {
+    config.checkKeys("sentWindow", "sameTense", "simplifyPast",
+        "simplifyPresent", "simplifyAspect", "useExtendedTense",
+        "useExtendedTenseAcrossSentence", "contextType", "contextCompare",
+        "sameSentence");
+    sentWindow = config.getInt("sentWindow", 0);
+    sameTense = config.getBoolean("sameTense", false);
+    simplifyPast = config.getBoolean("simplifyPast", true);
+    simplifyPresent = config.getBoolean("simplifyPresent", true);
+    simplifyAspect = config.getBoolean("simplifyAspect", true);
+    useExtendedTense = config.getBoolean("useExtendedTense", true);
+    useExtendedTenseAcrossSentence = config
+        .getBoolean("useExtendedTenseAcrossSentence", true);
+  }
+
+  public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
     // proposed will hold all TLinks proposed by the sieve
     List<TLink> proposed = new ArrayList<TLink>();
 
@@ -1,6 +1,5 @@
 package caevo.sieves;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -12,7 +11,7 @@ import caevo.TextEvent;
 import caevo.Timex;
 import caevo.tlink.EventTimeLink;
 import caevo.tlink.TLink;
-import caevo.util.CaevoProperties;
+import caevo.util.SieveConfig;
 
 /**
  * This sieve returns IS_INCLUDED for an event/timex pair of the form
@@ -35,32 +34,34 @@ import caevo.util.CaevoProperties;
  */
 public class RepCreationDay implements Sieve {
   public boolean debug = false;
-  private int leftSentWindow = 0;
-  private int rightSentWindow = 0;
-  private boolean considerTA = true;
-  private boolean includePresentRef = false;
+  private final int leftSentWindow;
+  private final int rightSentWindow;
+  private final boolean considerTA;
+  private final boolean includePresentRef;
   private static String creationTimeRegex = "(\\d{4}-\\d{2}-\\d{2}).*";
   private static Pattern creationTimePattern = Pattern
       .compile(creationTimeRegex);
 
+  public RepCreationDay() {
+    this(SieveConfig.load("RepCreationDay"));
+  }
+
+  /**
+   * Settings are read once, here, from the RepCreationDay.* properties.
+   */
+  public RepCreationDay(SieveConfig config) {
+    config.checkKeys("leftSentWindow", "rightSentWindow", "considerTA",
+        "includePresentRef");
+    leftSentWindow = config.getInt("leftSentWindow", 0);
+    rightSentWindow = config.getInt("rightSentWindow", 0);
+    considerTA = config.getBoolean("considerTA", true);
+    includePresentRef = config.getBoolean("includePresentRef", false);
+  }
+
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    try {
-      leftSentWindow = CaevoProperties.getInt("RepCreationDay.leftSentWindow",
-          0);
-      rightSentWindow = CaevoProperties.getInt("RepCreationDay.rightSentWindow",
-          0);
-      considerTA = CaevoProperties.getBoolean("RepCreationDay.considerTA",
-          true);
-      includePresentRef = CaevoProperties
-          .getBoolean("RepCreationDay.includePresentRef", false);
-    } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
-    }
-
     // Sieve Code
 
     // Get list of events and timexes by sid; list of sentences
@@ -14,6 +14,7 @@ import caevo.TextEvent.Tense;
 import caevo.tlink.EventEventLink;
 import caevo.tlink.TLink;
 import caevo.tlink.TLink.Type;
+import caevo.util.DependencyGraph;
 import caevo.util.Ling;
 import edu.stanford.nlp.trees.TypedDependency;
 
@@ -32,7 +33,7 @@ public class RepEventGovEvent implements Sieve {
     List<TLink> proposed = new ArrayList<TLink>();
     for (SieveSentence sent : doc.getSentences()) {
       List<TextEvent> events = sent.events();
-      List<TypedDependency> deps = sent.getDeps();
+      DependencyGraph graph = sent.getDependencyGraph();
 
       Map<Integer, TextEvent> indexToEvent = new HashMap<Integer, TextEvent>();
       for (TextEvent event : events) {
@@ -41,11 +42,11 @@ public class RepEventGovEvent implements Sieve {
 
       // Find all event-event pairs with a typed dependency where one is
       // governor of the other.
-      for (TypedDependency dep : deps) {
-        TextEvent govEvent = indexToEvent.get(dep.gov().index());
-        TextEvent depEvent = indexToEvent.get(dep.dep().index());
-        if (govEvent != null && depEvent != null) {
-          if (govEvent.getTheClass().equals(TextEvent.Class.REPORTING)) {
+      for (TextEvent govEvent : events) {
+        for (TypedDependency dep : graph.getDependents(govEvent.getIndex())) {
+          TextEvent depEvent = indexToEvent.get(dep.dep().index());
+          if (depEvent != null
+              && govEvent.getTheClass().equals(TextEvent.Class.REPORTING)) {
             Type relation = null;
             if (depEvent.getTheClass().equals(TextEvent.Class.REPORTING)) {
               // no clear pattern for relations between speech events;
@@ -1,6 +1,5 @@
 package caevo.sieves;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,7 +13,7 @@ import caevo.Timex;
 import caevo.tlink.EventEventLink;
 import caevo.tlink.TLink;
 import caevo.tlink.TimeTimeLink;
-import caevo.util.CaevoProperties;
+import caevo.util.SieveConfig;
 import caevo.util.TreeOperator;
 import net.didion.jwnl.data.POS;
 import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
@@ -74,14 +73,35 @@ import edu.stanford.nlp.trees.TreeFactory;
 public class WordNet209 implements Sieve {
   public boolean debug = false;
   private static TreeFactory tf = new LabeledScoredTreeFactory();
-  private int sentWindow = 1;
-  private boolean checkSiblings = false;
-  private boolean checkLemmas = false;
-  private boolean ignoreReporting = false;
-  private boolean ignoreIAction = false;
-  private boolean ignoreSameSentence = false;
-  private boolean eePairs = true;
-  private boolean ttPairs = true;
+  private final int sentWindow;
+  private final boolean checkSiblings;
+  private final boolean checkLemmas;
+  private final boolean ignoreReporting;
+  private final boolean ignoreIAction;
+  private final boolean ignoreSameSentence;
+  private final boolean eePairs;
+  private final boolean ttPairs;
+
+  public WordNet209() {
+    this(SieveConfig.load("Wordnet209"));
+  }
+
+  /**
+   * Settings are read once, here, from the Wordnet209.* properties.
+   */
+  public WordNet209(SieveConfig config) {
+    config.checkKeys("sentWindow", "checkSiblings", "checkLemmas",
+        "ignoreReporting", "ignoreIAction", "ignoreSameSentence", "eePairs",
+        "ttPairs");
+    sentWindow = config.getInt("sentWindow", 1);
+    checkSiblings = config.getBoolean("checkSiblings", true);
+    checkLemmas = config.getBoolean("checkLemmas", true);
+    ignoreReporting = config.getBoolean("ignoreReporting", true);
+    ignoreIAction = config.getBoolean("ignoreIAction", true);
+    ignoreSameSentence = config.getBoolean("ignoreSameSentence", true);
+    eePairs = config.getBoolean("eePairs", true);
+    ttPairs = config.getBoolean("ttPairs", true);
+  }
 
   private static final Map<String, POS> postagSimpleToPOS;
   static {
@@ -102,25 +122,6 @@ public class WordNet209 implements Sieve {
    * java.util.List)
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    // Get property values from the config file
-    try {
-      sentWindow = CaevoProperties.getInt("Wordnet209.sentWindow", 1);
-      checkSiblings = CaevoProperties.getBoolean("Wordnet209.checkSiblings",
-          true);
-      checkLemmas = CaevoProperties.getBoolean("Wordnet209.checkLemmas", true);
-      ignoreReporting = CaevoProperties.getBoolean("Wordnet209.ignoreReporting",
-          true);
-      ignoreIAction = CaevoProperties.getBoolean("Wordnet209.ignoreIAction",
-          true);
-      ignoreSameSentence = CaevoProperties
-          .getBoolean("Wordnet209.ignoreSameSentence", true);
-      eePairs = CaevoProperties.getBoolean("Wordnet209.eePairs", true);
-      ttPairs = CaevoProperties.getBoolean("Wordnet209.ttPairs", true);
-    } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
-    }
-
     // proposed will hold all TLinks proposed by the sieve
     List<TLink> proposed = new ArrayList<TLink>();
 
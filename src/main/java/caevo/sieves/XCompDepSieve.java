@@ -1,6 +1,5 @@
 package caevo.sieves;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,7 +9,8 @@ import caevo.SieveSentence;
 import caevo.TextEvent;
 import caevo.tlink.EventEventLink;
 import caevo.tlink.TLink;
-import caevo.util.CaevoProperties;
+import caevo.util.DependencyGraph;
+import caevo.util.SieveConfig;
 import caevo.util.TimebankUtil;
 import caevo.util.TreeOperator;
 import edu.stanford.nlp.trees.Tree;
@@ -55,21 +55,24 @@ import edu.stanford.nlp.trees.TypedDependency;
  */
 public class XCompDepSieve implements Sieve {
   public boolean debug = false;
-  private boolean useExtendedTense = true;
+  private final boolean useExtendedTense;
+
+  public XCompDepSieve() {
+    this(SieveConfig.load("XCompDepSieve"));
+  }
+
+  /**
+   * Settings are read once, here, from the XCompDepSieve.* properties.
+   */
+  public XCompDepSieve(SieveConfig config) {
+    config.checkKeys("useExtendedTense");
+    useExtendedTense = config.getBoolean("useExtendedTense", true);
+  }
 
   /**
    * The main function. All sieves must have this.
    */
   public List<TLink> annotate(SieveDocument doc, List<TLink> currentTLinks) {
-    try {
-      useExtendedTense = CaevoProperties
-          .getBoolean("XCompDepSieve.useExtendedTense", true);
-    } catch (IOException e) {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
-    }
-    // End properties code
-
     // Sieve Code
 
     // Fill this with our new proposed TLinks.
@@ -87,7 +90,7 @@ public class XCompDepSieve implements Sieve {
     for (SieveSentence sent : sents) {
       // Get the list of events and list of deps for the sentence
       List<TextEvent> events = sent.events();
-      List<TypedDependency> deps = sent.getDeps();
+      DependencyGraph graph = sent.getDependencyGraph();
       // Iterate over event pairs and determine if one governs the other;
       // if so, try to classify the pair.
       for (int xx = 0; xx < events.size(); xx++) {
@@ -96,7 +99,8 @@ public class XCompDepSieve implements Sieve {
           TextEvent e2 = events.get(yy);
           // check if the two events are in a dependency relation and label them
           // accordingly.
-          for (TypedDependency td : deps) {
+          for (TypedDependency td : graph.getDepsBetween(e1.getIndex(),
+              e2.getIndex())) {
             // if e1 governs e2 (or vice versa)
             TextEvent eGov = null;
             TextEvent eDep = null;
@@ -112,7 +116,7 @@ public class XCompDepSieve implements Sieve {
               eGov = e2;
               eDep = e1;
             }
-            // If neither event governs the other, keep iterating.
+            // Neither event governs the other (never happens here).
             else {
               continue;
             }
@@ -128,7 +132,7 @@ public class XCompDepSieve implements Sieve {
             }
             if (relType.equals("ccomp")) {
               // p=0.71 70 of 99 Non-VAGUE: p=0.85 70 of 82
-              tlink = classifyEventPair_ccomp(eGov, eDep, sent, deps);
+              tlink = classifyEventPair_ccomp(eGov, eDep, sent, graph);
             }
             if (relType.equals("conj_and")) {
               // p=0.69 24 of 35 Non-VAGUE: p=0.69 24 of 35
@@ -140,19 +144,19 @@ public class XCompDepSieve implements Sieve {
             }
             if (relType.equals("advcl")) {
               // p=0.65 15 of 23 Non-VAGUE: p=0.71 15 of 21
-              tlink = classifyEventPair_advcl(eGov, eDep, sent, deps);
+              tlink = classifyEventPair_advcl(eGov, eDep, sent, graph);
             }
             if (relType.equals("conj_but")) {
               // p=0.50 7 of 14 Non-VAGUE: p=0.78 7 of 9
-              tlink = classifyEventPair_conj_but(eGov, eDep, sent, deps);
+              tlink = classifyEventPair_conj_but(eGov, eDep, sent, graph);
             }
             if (relType.equals("conj_or")) {
               // p=0.67 2 of 3 Non-VAGUE: p=0.67 2 of 3
-              tlink = classifyEventPair_conj_or(eGov, eDep, sent, deps);
+              tlink = classifyEventPair_conj_or(eGov, eDep, sent, graph);
             }
             if (relType.equals("dobj")) {
               // p=0.75 9 of 12 Non-VAGUE: p=1.00 9 of 9
-              tlink = classifyEventPair_dobj(eGov, eDep, sent, deps);
+              tlink = classifyEventPair_dobj(eGov, eDep, sent, graph);
             }
 
             if (tlink != null) {
@@ -186,12 +190,12 @@ public class XCompDepSieve implements Sieve {
   }
 
   private EventEventLink classifyEventPair_conj_or(TextEvent eGov,
-      TextEvent eDep, SieveSentence sent, List<TypedDependency> deps) {
+      TextEvent eDep, SieveSentence sent, DependencyGraph graph) {
     return new EventEventLink(eGov.getEiid(), eDep.getEiid(), TLink.Type.VAGUE);
   }
 
   private EventEventLink classifyEventPair_dobj(TextEvent eGov, TextEvent eDep,
-      SieveSentence sent, List<TypedDependency> deps) {
+      SieveSentence sent, DependencyGraph graph) {
     TextEvent.Class eGovClass = eGov.getTheClass();
     TextEvent.Tense eDepTense = eDep.getTense();
     TextEvent.Aspect eDepAspect = eDep.getAspect();
@@ -201,9 +205,8 @@ public class XCompDepSieve implements Sieve {
           TLink.Type.IS_INCLUDED);
     } else if (eDepTense == TextEvent.Tense.NONE
         && eDepAspect == TextEvent.Aspect.NONE) {
-      for (TypedDependency td : deps) {
-        if (td.gov().index() == eDep.getIndex()
-            && td.reln().toString().toLowerCase().equals("det")) {
+      for (TypedDependency td : graph.getDependents(eDep.getIndex())) {
+        if (td.reln().toString().toLowerCase().equals("det")) {
           if (td.dep().toString("value").toLowerCase().equals("a")) {
             return new EventEventLink(eGov.getEiid(), eDep.getEiid(),
                 TLink.Type.BEFORE);
@@ -223,37 +226,33 @@ public class XCompDepSieve implements Sieve {
   }
 
   private EventEventLink classifyEventPair_conj_but(TextEvent eGov,
-      TextEvent eDep, SieveSentence sent, List<TypedDependency> deps) {
+      TextEvent eDep, SieveSentence sent, DependencyGraph graph) {
     return new EventEventLink(eGov.getEiid(), eDep.getEiid(),
         TLink.Type.BEFORE);
   }
 
   private EventEventLink classifyEventPair_advcl(TextEvent eGov, TextEvent eDep,
-      SieveSentence sent, List<TypedDependency> deps) {
+      SieveSentence sent, DependencyGraph graph) {
     // Find the "marker" (i.e. the word that introduces the adverbial clause
     // complement (i.e. the dependent)).
     String mark = null;
-    for (TypedDependency td : deps) {
+    for (TypedDependency td : graph.getDependents(eDep.getIndex())) {
       String rel = td.reln().toString();
-      if (td.gov().index() == eDep.getIndex()) {
-        if (rel.equals("mark")) { // sometimes advmod plays role of mark
-          mark = td.dep().toString("value");
-          if (debug)
-            System.out.printf("\ngov:%s dep:%s mark:%s\n%s\n", eGov.getString(),
-                eDep.getString(), mark, sent.sentence());
-        }
+      if (rel.equals("mark")) { // sometimes advmod plays role of mark
+        mark = td.dep().toString("value");
+        if (debug)
+          System.out.printf("\ngov:%s dep:%s mark:%s\n%s\n", eGov.getString(),
+              eDep.getString(), mark, sent.sentence());
       }
     }
     if (mark == null) {
-      for (TypedDependency td : deps) {
+      for (TypedDependency td : graph.getDependents(eDep.getIndex())) {
         String rel = td.reln().toString();
-        if (td.gov().index() == eDep.getIndex()) {
-          if (rel.equals("advmod")) { // sometimes advmod plays role of mark
-            mark = td.dep().toString("value");
-            if (debug)
-              System.out.printf("\ngov:%s dep:%s mark:%s\n%s\n",
-                  eGov.getString(), eDep.getString(), mark, sent.sentence());
-          }
+        if (rel.equals("advmod")) { // sometimes advmod plays role of mark
+          mark = td.dep().toString("value");
+          if (debug)
+            System.out.printf("\ngov:%s dep:%s mark:%s\n%s\n",
+                eGov.getString(), eDep.getString(), mark, sent.sentence());
         }
       }
     }
@@ -341,12 +340,12 @@ public class XCompDepSieve implements Sieve {
   }
 
   private EventEventLink classifyEventPair_ccomp(TextEvent eGov, TextEvent eDep,
-      SieveSentence sent, List<TypedDependency> deps) {
+      SieveSentence sent, DependencyGraph graph) {
     TextEvent.Tense eDepTense = null;
     TextEvent.Tense eGovTense = null;
     if (useExtendedTense == true) {
-      eGovTense = TimebankUtil.pseudoTense(sent, deps, eGov);
-      eDepTense = TimebankUtil.pseudoTense(sent, deps, eDep);
+      eGovTense = TimebankUtil.pseudoTense(sent, graph.getDeps(), eGov);
+      eDepTense = TimebankUtil.pseudoTense(sent, graph.getDeps(), eDep);
     } else {
       eGovTense = eGov.getTense();
       eDepTense = eDep.getTense();
@@ -0,0 +1,279 @@
+package caevo.tlink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.jdom.output.XMLOutputter;
+
+import caevo.SieveDocument;
+import caevo.SieveDocuments;
+import caevo.util.CaevoProperties;
+import edu.stanford.nlp.classify.RVFDataset;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * Keeps featurized training data on disk, so that retraining on the same
+ * documents with the same featurizer settings reads the training dataset back
+ * instead of featurizing the corpus again. Only things like the feature count
+ * cutoff can then change between runs without paying for featurization.
+ *
+ * A cache file is named by a hash of the documents' XML (sentences, parses,
+ * dependencies, events, timexes and tlinks), the featurizer's settings, its
+ * WordNet's source (see WordNet.getSource()) and the document names asked
+ * for. Each document's XML is hashed once per SieveDocument object and
+ * remembered, so a document must not be changed after its first key. It
+ * holds the dataset exactly as
+ * TLinkClassifier.toDataset() builds it, before any threshold: the label and
+ * feature indices in order, then each datum's label, feature ids and values.
+ *
+ * The directory is TLinkFeaturizer.cacheDir; empty turns the cache off. The
+ * hash doesn't cover the featurizer's code or the WordNet dictionary files
+ * themselves, so bump VERSION when features change (or clear the
+ * directory).
+ */
+public class FeatureCache {
+  public static final int VERSION = 1;
+  private static final int MAGIC = 0xCAE0FEA7;
+  public static final String DEFAULT_DIR = "featurecache";
+
+  // SieveDocument doesn't override equals(), so this is keyed by identity.
+  private static final Map<SieveDocument, byte[]> docDigests = new WeakHashMap<SieveDocument, byte[]>();
+
+  /**
+   * @return The directory to keep cache files in, or null if the cache is off.
+   */
+  public static File getDirectory() {
+    String dir = DEFAULT_DIR;
+    try {
+      dir = CaevoProperties.getString("TLinkFeaturizer.cacheDir", dir);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    if (dir == null || dir.trim().length() == 0)
+      return null;
+    return new File(dir.trim());
+  }
+
+  /**
+   * Featurize the documents' tlinks into a training dataset, or read the
+   * dataset from the cache if it has them.
+   */
+  public static RVFDataset<String, String> featurize(
+      TLinkFeaturizer featurizer, SieveDocuments docs, Set<String> docnames) {
+    File dir = getDirectory();
+    File file = null;
+    if (dir != null) {
+      file = new File(dir, key(featurizer, docs, docnames) + ".features");
+      if (file.exists()) {
+        try {
+          RVFDataset<String, String> dataset = read(file);
+          System.out.println("Read featurized data from " + file);
+          return dataset;
+        } catch (IOException ex) {
+          System.out.println("ERROR: couldn't read feature cache " + file
+              + ", featurizing again.");
+          ex.printStackTrace();
+        }
+      }
+    }
+
+    List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, docnames);
+    RVFDataset<String, String> dataset = TLinkClassifier.toDataset(data, 0);
+    if (file != null) {
+      try {
+        dir.mkdirs();
+        write(dataset, file);
+      } catch (IOException ex) {
+        System.out.println("ERROR: couldn't write feature cache " + file);
+        ex.printStackTrace();
+      }
+    }
+    return dataset;
+  }
+
+  /**
+   * @return Hex digest of the documents, the featurizer's settings and
+   *         WordNet, and the document names.
+   */
+  public static String key(TLinkFeaturizer featurizer, SieveDocuments docs,
+      Set<String> docnames) {
+    MessageDigest digest = sha1();
+    try {
+      DataOutputStream header = new DataOutputStream(new DigestOutputStream(
+          nowhere(), digest));
+      header.writeInt(VERSION);
+      header.writeUTF(featurizer.settings());
+      header.writeUTF(featurizer._wordnet == null ? "no wordnet"
+          : featurizer._wordnet.getSource());
+      if (docnames == null)
+        header.writeUTF("*");
+      else {
+        List<String> names = new ArrayList<String>(docnames);
+        Collections.sort(names);
+        for (String name : names)
+          header.writeUTF(name);
+      }
+      header.flush();
+    } catch (IOException ex) {
+      // Nothing is really written anywhere.
+      throw new RuntimeException(ex);
+    }
+
+    for (SieveDocument doc : docs.getDocuments())
+      if (docnames == null || docnames.contains(doc.getDocname()))
+        digest.update(digest(doc));
+
+    StringBuilder hex = new StringBuilder();
+    for (byte bb : digest.digest())
+      hex.append(String.format("%02x", bb));
+    return hex.toString();
+  }
+
+  /**
+   * @return Digest of the document's XML, computed the first time it is asked
+   *         for.
+   */
+  private static byte[] digest(SieveDocument doc) {
+    synchronized (docDigests) {
+      byte[] bytes = docDigests.get(doc);
+      if (bytes != null)
+        return bytes;
+    }
+
+    MessageDigest digest = sha1();
+    try {
+      new XMLOutputter().output(doc.toXML(), new DigestOutputStream(nowhere(),
+          digest));
+    } catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+    byte[] bytes = digest.digest();
+    synchronized (docDigests) {
+      docDigests.put(doc, bytes);
+    }
+    return bytes;
+  }
+
+  private static MessageDigest sha1() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private static OutputStream nowhere() {
+    return new OutputStream() {
+      public void write(int b) {
+      }
+    };
+  }
+
+  /**
+   * Write the dataset to a temporary file and move it into place, so a run
+   * that dies part way, or another thread writing the same file, never leaves
+   * a truncated cache file.
+   */
+  public static void write(RVFDataset<String, String> dataset, File file)
+      throws IOException {
+    File temp = File.createTempFile(file.getName(), ".tmp",
+        file.getAbsoluteFile().getParentFile());
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(temp), 1 << 16));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeIndex(out, dataset.labelIndex());
+      writeIndex(out, dataset.featureIndex());
+
+      int[][] features = dataset.getDataArray();
+      double[][] values = dataset.getValuesArray();
+      int[] labels = dataset.getLabelsArray();
+      out.writeInt(labels.length);
+      for (int ii = 0; ii < labels.length; ii++) {
+        out.writeInt(labels[ii]);
+        out.writeInt(features[ii].length);
+        for (int ff = 0; ff < features[ii].length; ff++) {
+          out.writeInt(features[ii][ff]);
+          out.writeDouble(values[ii][ff]);
+        }
+      }
+    } finally {
+      out.close();
+    }
+    if (!temp.renameTo(file)) {
+      // Windows won't rename over a file another writer already put there.
+      temp.delete();
+      if (!file.exists())
+        throw new IOException("Can't move " + temp + " to " + file);
+    }
+  }
+
+  private static void writeIndex(DataOutputStream out, Index<String> index)
+      throws IOException {
+    out.writeInt(index.size());
+    for (int ii = 0; ii < index.size(); ii++)
+      out.writeUTF(index.get(ii));
+  }
+
+  /**
+   * Read a dataset written by write(), straight into the arrays the dataset
+   * trains from.
+   */
+  public static RVFDataset<String, String> read(File file) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(file), 1 << 16));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION)
+        throw new IOException("Not a version " + VERSION
+            + " feature cache file: " + file);
+      Index<String> labelIndex = readIndex(in);
+      Index<String> featureIndex = readIndex(in);
+
+      int size = in.readInt();
+      int[] labels = new int[size];
+      int[][] features = new int[size][];
+      double[][] values = new double[size][];
+      for (int ii = 0; ii < size; ii++) {
+        labels[ii] = in.readInt();
+        int length = in.readInt();
+        features[ii] = new int[length];
+        values[ii] = new double[length];
+        for (int ff = 0; ff < length; ff++) {
+          features[ii][ff] = in.readInt();
+          values[ii][ff] = in.readDouble();
+        }
+      }
+      return new RVFDataset<String, String>(labelIndex, labels, featureIndex,
+          features, values);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static Index<String> readIndex(DataInputStream in)
+      throws IOException {
+    int size = in.readInt();
+    Index<String> index = new HashIndex<String>();
+    for (int ii = 0; ii < size; ii++)
+      index.add(in.readUTF());
+    return index;
+  }
+}
@@ -20,6 +20,8 @@ import caevo.Tester;
 import caevo.TextEvent;
 import caevo.Timex;
 import caevo.util.ClassifiedDatum;
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.FeatureVector;
 import caevo.util.HandleParameters;
 import caevo.util.Pair;
 import caevo.util.TimebankUtil;
@@ -37,6 +39,8 @@ import edu.stanford.nlp.stats.Counters;
 import edu.stanford.nlp.stats.PrecisionRecallStats;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TypedDependency;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
 import edu.stanford.nlp.util.StringUtils;
 
 /**
@@ -102,6 +106,11 @@ public class TLinkClassifier {
                                                          // link or not?
   Classifier<String, String> etDCTClassifier; // event-docstamp links.
   Classifier<String, String> etDCTExistsClassifier; // event-docstamp links.
+  // The compiled form of each classifier above, or null if it isn't linear.
+  CompiledLinearClassifier eeSameSentCompiled, eeSameSentExistsCompiled,
+      eeSameSentDominatesCompiled, eeSameSentNoDominatesCompiled,
+      eeDiffSentCompiled, etSameSentCompiled, etDiffSentCompiled,
+      etSameSentExistsCompiled, etDCTCompiled, etDCTExistsCompiled;
   String modelDir = "tlinkmodels";
   int _featMinOccurrence = 2;
   double _tlinkProbabilityCutoff = 0.3;
@@ -174,11 +183,13 @@ public class TLinkClassifier {
       if (props.containsKey("bethard"))
         featurizer._doBethard = true;
       // System.out.println("BETHARD FEATURIZER = " + featurizer._doBethard);
-      List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, docnames);
-      System.out.println("Final training data size: " + data.size());
-      eeSameSentClassifier = train(data, _featMinOccurrence);
+      RVFDataset<String, String> dataset = featurizer.infoToDataset(docs,
+          docnames);
+      System.out.println("Final training data size: " + dataset.size());
+      eeSameSentClassifier = train(dataset, _featMinOccurrence);
       // Event-event all pairs: classify if a link exists or not.
-      data = createDatasetEventEventSameSentExists(docs, docnames);
+      List<TLinkDatum> data = createDatasetEventEventSameSentExists(docs,
+          docnames);
       System.out.println(
           "Final event-event exists training data size: " + data.size());
       eeSameSentExistsClassifier = train(data, _featMinOccurrence);
@@ -188,21 +199,21 @@ public class TLinkClassifier {
         featurizer._eventEventDominates = true;
         if (props.containsKey("bethard"))
           featurizer._doBethard = true;
-        data = featurizer.infoToTLinkFeatures(docs, docnames);
-        System.out.println(
-            "Final event-event dominates training data size: " + data.size());
-        eeSameSentDominatesClassifier = train(data, _featMinOccurrence);
+        dataset = featurizer.infoToDataset(docs, docnames);
+        System.out.println("Final event-event dominates training data size: "
+            + dataset.size());
+        eeSameSentDominatesClassifier = train(dataset, _featMinOccurrence);
         featurizer._eventEventDominates = false;
         featurizer._eventEventNoDominates = true;
         if (props.containsKey("bethard"))
           featurizer._doBethard = true; // will skip most of these, but some
                                         // errors might still have Bethard gold
                                         // labels
-        data = featurizer.infoToTLinkFeatures(docs, docnames);
+        dataset = featurizer.infoToDataset(docs, docnames);
         System.out
             .println("Final event-event doesn't dominate training data size: "
-                + data.size());
-        eeSameSentNoDominatesClassifier = train(data, _featMinOccurrence);
+                + dataset.size());
+        eeSameSentNoDominatesClassifier = train(dataset, _featMinOccurrence);
       }
     }
 
@@ -214,9 +225,10 @@ public class TLinkClassifier {
       featurizer._sameSentenceOnly = false;
       featurizer._diffSentenceOnly = true;
       featurizer._doBethard = false;
-      List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, docnames);
-      System.out.println("Final training data size: " + data.size());
-      eeDiffSentClassifier = train(data, _featMinOccurrence);
+      RVFDataset<String, String> dataset = featurizer.infoToDataset(docs,
+          docnames);
+      System.out.println("Final training data size: " + dataset.size());
+      eeDiffSentClassifier = train(dataset, _featMinOccurrence);
     }
 
     // Event-Time links in the same sentence.
@@ -228,11 +240,13 @@ public class TLinkClassifier {
       featurizer._sameSentenceOnly = true;
       featurizer._ignoreSameSentence = false;
       featurizer._diffSentenceOnly = false;
-      List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, docnames);
-      System.out.println("Final training data size: " + data.size());
-      etSameSentClassifier = train(data, _featMinOccurrence);
+      RVFDataset<String, String> dataset = featurizer.infoToDataset(docs,
+          docnames);
+      System.out.println("Final training data size: " + dataset.size());
+      etSameSentClassifier = train(dataset, _featMinOccurrence);
       // Event-time all pairs: classify if a link exists or not.
-      data = createDatasetEventTimeSameSentExists(docs, docnames);
+      List<TLinkDatum> data = createDatasetEventTimeSameSentExists(docs,
+          docnames);
       etSameSentExistsClassifier = train(data, _featMinOccurrence);
     }
 
@@ -248,9 +262,10 @@ public class TLinkClassifier {
       featurizer._diffSentenceOnly = true;
       // featurizer._neighborSentenceOnly = true;
       featurizer._noEventTimeDiff = false;
-      List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, docnames);
-      System.out.println("Final training data size: " + data.size());
-      etDiffSentClassifier = train(data, _featMinOccurrence);
+      RVFDataset<String, String> dataset = featurizer.infoToDataset(docs,
+          docnames);
+      System.out.println("Final training data size: " + dataset.size());
+      etDiffSentClassifier = train(dataset, _featMinOccurrence);
     }
 
     // Event-DCT links.
@@ -264,13 +279,41 @@ public class TLinkClassifier {
       featurizer._ignoreSameSentence = false;
       featurizer._diffSentenceOnly = false;
       featurizer._neighborSentenceOnly = false;
-      List<TLinkDatum> data = featurizer.infoToTLinkFeatures(docs, docnames);
-      System.out.println("Final training data size: " + data.size());
-      etDCTClassifier = train(data, _featMinOccurrence);
+      RVFDataset<String, String> dataset = featurizer.infoToDataset(docs,
+          docnames);
+      System.out.println("Final training data size: " + dataset.size());
+      etDCTClassifier = train(dataset, _featMinOccurrence);
       // Event-DCT all events: classify if a link exists or not.
-      data = createDatasetEventDCTExists(docs, docnames);
+      List<TLinkDatum> data = createDatasetEventDCTExists(docs, docnames);
       etDCTExistsClassifier = train(data, _featMinOccurrence);
     }
+    compileClassifiers();
+  }
+
+  /**
+   * Resolve each classifier's compiled form once, so classifying a datum
+   * doesn't have to look it up.
+   */
+  private void compileClassifiers() {
+    eeSameSentCompiled = CompiledLinearClassifier
+        .forClassifier(eeSameSentClassifier);
+    eeSameSentExistsCompiled = CompiledLinearClassifier
+        .forClassifier(eeSameSentExistsClassifier);
+    eeSameSentDominatesCompiled = CompiledLinearClassifier
+        .forClassifier(eeSameSentDominatesClassifier);
+    eeSameSentNoDominatesCompiled = CompiledLinearClassifier
+        .forClassifier(eeSameSentNoDominatesClassifier);
+    eeDiffSentCompiled = CompiledLinearClassifier
+        .forClassifier(eeDiffSentClassifier);
+    etSameSentCompiled = CompiledLinearClassifier
+        .forClassifier(etSameSentClassifier);
+    etDiffSentCompiled = CompiledLinearClassifier
+        .forClassifier(etDiffSentClassifier);
+    etSameSentExistsCompiled = CompiledLinearClassifier
+        .forClassifier(etSameSentExistsClassifier);
+    etDCTCompiled = CompiledLinearClassifier.forClassifier(etDCTClassifier);
+    etDCTExistsCompiled = CompiledLinearClassifier
+        .forClassifier(etDCTExistsClassifier);
   }
 
   public Classifier<String, String> trainFeats(String featuresPath) {
@@ -300,23 +343,78 @@ public class TLinkClassifier {
    */
   public static Classifier<String, String> train(List<TLinkDatum> data,
       int minFeatCutoff) {
-    // Convert to the JavaNLP data structure.
+    return train(toDataset(data, minFeatCutoff));
+  }
+
+  /**
+   * Convert the datums to the JavaNLP data structure, and drop features seen
+   * fewer than minFeatCutoff times.
+   */
+  public static RVFDataset<String, String> toDataset(List<TLinkDatum> data,
+      int minFeatCutoff) {
     System.out.println("Converting to RVFDataset...");
-    GeneralDataset<String, String> rvfdataset = listToDataset(data);
+    RVFDataset<String, String> rvfdataset = new RVFDataset<String, String>();
+    for (TLinkDatum datum : data)
+      rvfdataset.add(datum.createRVFDatum());
+    threshold(rvfdataset, minFeatCutoff);
+    return rvfdataset;
+  }
 
-    // Threshold it
+  /**
+   * Drop features seen fewer than minFeatCutoff times from the dataset.
+   */
+  public static void threshold(GeneralDataset<String, String> dataset,
+      int minFeatCutoff) {
     if (minFeatCutoff > 1) {
       System.out.println("Removing sparse features < " + minFeatCutoff);
-      rvfdataset.applyFeatureCountThreshold(minFeatCutoff);
+      dataset.applyFeatureCountThreshold(minFeatCutoff);
     }
+  }
 
-    // Create the classifier.
+  /**
+   * Threshold the dataset's features, then train a classifier on it.
+   */
+  public static Classifier<String, String> train(
+      GeneralDataset<String, String> dataset, int minFeatCutoff) {
+    threshold(dataset, minFeatCutoff);
+    return train(dataset);
+  }
+
+  /**
+   * Train a classifier on a dataset. Doesn't change the dataset, so several
+   * can be trained at once on datasets that share features.
+   */
+  public static Classifier<String, String> train(
+      GeneralDataset<String, String> dataset) {
     System.out.println("Training the classifier...");
     LinearClassifierFactory<String, String> linearFactory = new LinearClassifierFactory<String, String>();
-    Classifier<String, String> classifier = linearFactory
-        .trainClassifier(rvfdataset);
+    return linearFactory.trainClassifier(dataset);
+  }
 
-    return classifier;
+  /**
+   * A view of the dataset for a binary classifier: datums labeled target keep
+   * it, and all others are labeled other. The view shares the dataset's
+   * feature index and feature arrays, and only has its own labels, so a
+   * binary view per label costs one int per datum instead of a copy of every
+   * datum's features.
+   */
+  public static RVFDataset<String, String> binaryDataset(
+      RVFDataset<String, String> dataset, String target, String other) {
+    int[][] features = dataset.getDataArray();
+    double[][] values = dataset.getValuesArray();
+    int[] labels = dataset.getLabelsArray();
+    Index<String> labelIndex = dataset.labelIndex();
+
+    // Labels get their ids in the order they first appear, like add() does.
+    Index<String> binaryIndex = new HashIndex<String>();
+    int[] binaryLabels = new int[labels.length];
+    for (int ii = 0; ii < labels.length; ii++) {
+      String label = labelIndex.get(labels[ii]);
+      binaryLabels[ii] = binaryIndex.indexOf(
+          label.equals(target) ? target : other, true);
+    }
+    return new RVFDataset<String, String>(binaryIndex, binaryLabels,
+        dataset.featureIndex(), features, values);
   }
 
   /**
@@ -335,11 +433,14 @@ public class TLinkClassifier {
     }
 
     // Create classified datums.
+    CompiledLinearClassifier fast = CompiledLinearClassifier
+        .forClassifier(classifier);
     ClassifiedDatum results[] = new ClassifiedDatum[testData.size()];
     int ii = 0;
     for (TLinkDatum datum : testData) {
       RVFDatum<String, String> rvf = datum.createRVFDatum();
-      String predicted = classifier.classOf(rvf);
+      String predicted = (fast == null ? classifier.classOf(rvf)
+          : fast.classOf(rvf.asFeaturesCounter()));
       results[ii++] = new ClassifiedDatum(rvf, predicted);
     }
 
@@ -609,12 +710,12 @@ public class TLinkClassifier {
           for (TextEvent event : events) {
             TLinkDatum datum = featurizer.createEventDocumentTimeDatum(doc,
                 event, dcts.get(0), null);
-            RVFDatum<String, String> rvf = datum.createRVFDatum();
             String label = null;
 
             // Label e-dct links if our classifier says so.
             if (!_onlyDCTSaid)
-              label = etDCTExistsClassifier.classOf(rvf);
+              label = classOf(etDCTExistsClassifier, etDCTExistsCompiled,
+                  datum);
 
             // Only label "said" verbs.
             if ((_onlyDCTSaid && event.getString().equalsIgnoreCase("said"))
@@ -624,7 +725,7 @@ public class TLinkClassifier {
               // Get winning label and its probability.
               // label = etDCTClassifier.classOf(rvf);
               Pair<String, Double> labelProb = getLabelProb(etDCTClassifier,
-                  rvf);
+                  etDCTCompiled, datum);
               label = labelProb.first();
               TLink link = new EventTimeLink(event.getEiid(),
                   dcts.get(0).getTid(), TLink.Type.valueOf(label));
@@ -672,11 +773,11 @@ public class TLinkClassifier {
             for (TextEvent event : events) {
               TLinkDatum datum = featurizer.createEventTimeDatum(doc, event,
                   timex, null);
-              RVFDatum<String, String> rvf = datum.createRVFDatum();
-              String label = eeSameSentExistsClassifier.classOf(rvf);
+              String label = classOf(eeSameSentExistsClassifier,
+                  eeSameSentExistsCompiled, datum);
               if (TLink.Type.valueOf(label) == TLink.Type.OVERLAP) {
                 Pair<String, Double> labelProb = getLabelProb(
-                    etSameSentClassifier, rvf);
+                    etSameSentClassifier, etSameSentCompiled, datum);
                 TLink link = new EventTimeLink(event.getEiid(), timex.getTid(),
                     TLink.Type.valueOf(labelProb.first()));
                 link.setRelationConfidence(labelProb.second());
@@ -708,7 +809,7 @@ public class TLinkClassifier {
               // String label =
               // etSameSentClassifier.classOf(datum.createRVFDatum());
               Pair<String, Double> labelProb = getLabelProb(
-                  etSameSentClassifier, datum.createRVFDatum());
+                  etSameSentClassifier, etSameSentCompiled, datum);
               TLink link = new EventTimeLink(best.getEiid(), timex.getTid(),
                   TLink.Type.valueOf(labelProb.first()));
               link.setRelationConfidence(labelProb.second());
@@ -734,7 +835,7 @@ public class TLinkClassifier {
               // String label =
               // etSameSentClassifier.classOf(datum.createRVFDatum());
               Pair<String, Double> labelProb = getLabelProb(
-                  etSameSentClassifier, datum.createRVFDatum());
+                  etSameSentClassifier, etSameSentCompiled, datum);
               TLink link = new EventTimeLink(best.getEiid(), timex.getTid(),
                   TLink.Type.valueOf(labelProb.first()));
               link.setRelationConfidence(labelProb.second());
@@ -779,11 +880,11 @@ public class TLinkClassifier {
             TLinkDatum datum = featurizer.createEventEventDatum(doc, event1,
                 event2, null);
             // System.out.println("datum=" + datum);
-            RVFDatum<String, String> rvf = datum.createRVFDatum();
 
             // Check if this event-event pair should receive *any* label at all.
             String label = TLink.Type.OVERLAP.toString();
-            label = eeSameSentExistsClassifier.classOf(rvf);
+            label = classOf(eeSameSentExistsClassifier,
+                eeSameSentExistsCompiled, datum);
 
             // Label it with a temporal relation.
             if (TLink.Type.valueOf(label) == TLink.Type.OVERLAP) {
@@ -848,21 +949,26 @@ public class TLinkClassifier {
       TextEvent event1, TextEvent event2) {
     // Normal, 1 classifier for all event-event links.
     Classifier<String, String> targetClassifier = eeSameSentClassifier;
+    CompiledLinearClassifier targetCompiled = eeSameSentCompiled;
 
     // Use 2 classifiers for event-event links. One for syntactic dominance, the
     // other for general.
     if (props.containsKey("eesplit")) {
-      if (featurizer.oneEventDominates(event1, event2, doc.getAllParseTrees()))
+      if (featurizer.oneEventDominates(event1, event2,
+          doc.getAllParseTrees())) {
         targetClassifier = eeSameSentDominatesClassifier;
-      else
+        targetCompiled = eeSameSentDominatesCompiled;
+      } else {
         targetClassifier = eeSameSentNoDominatesClassifier;
+        targetCompiled = eeSameSentNoDominatesCompiled;
+      }
     }
 
     // Get the best label and its probability.
     TLinkDatum datum = featurizer.createEventEventDatum(doc, event1, event2,
         null);
-    RVFDatum<String, String> rvf = datum.createRVFDatum();
-    Pair<String, Double> labelProb = getLabelProb(targetClassifier, rvf);
+    Pair<String, Double> labelProb = getLabelProb(targetClassifier,
+        targetCompiled, datum);
     String label = labelProb.first();
 
     // Create the actual link with the classified label.
@@ -941,7 +1047,7 @@ public class TLinkClassifier {
         System.out.println("e-e datum=" + datum);
         // String label = eeDiffSentClassifier.classOf(datum.createRVFDatum());
         Pair<String, Double> labelProb = getLabelProb(eeDiffSentClassifier,
-            datum.createRVFDatum());
+            eeDiffSentCompiled, datum);
         TLink link = new EventEventLink(mainevents[xx].getEiid(),
             mainevents[xx + 1].getEiid(),
             TLink.Type.valueOf(labelProb.first()));
@@ -1096,7 +1202,7 @@ public class TLinkClassifier {
                   : idToEvent.get(link.getId2()));
               TLinkDatum datum = featurizer.createEventDocumentTimeDatum(doc,
                   e1, doc.getDocstamp().get(0), null);
-              newLabel = etDCTClassifier.classOf(datum.createRVFDatum());
+              newLabel = classOf(etDCTClassifier, etDCTCompiled, datum);
               edct++;
             }
             // event-time
@@ -1111,12 +1217,14 @@ public class TLinkClassifier {
               if (e1.getSid() == timex.getSid()) {
                 TLinkDatum datum = featurizer.createEventTimeDatum(doc, e1,
                     timex, null);
-                newLabel = etSameSentClassifier.classOf(datum.createRVFDatum());
+                newLabel = classOf(etSameSentClassifier, etSameSentCompiled,
+                    datum);
                 etsame++;
               } else {
                 TLinkDatum datum = featurizer.createEventTimeDatum(doc, e1,
                     timex, null);
-                newLabel = etDiffSentClassifier.classOf(datum.createRVFDatum());
+                newLabel = classOf(etDiffSentClassifier, etDiffSentCompiled,
+                    datum);
                 etdiff++;
               }
             }
@@ -1140,7 +1248,8 @@ public class TLinkClassifier {
             else if (e1.getSid() == e2.getSid()) {
               TLinkDatum datum = featurizer.createEventEventDatum(doc, e1, e2,
                   null);
-              newLabel = eeSameSentClassifier.classOf(datum.createRVFDatum());
+              newLabel = classOf(eeSameSentClassifier, eeSameSentCompiled,
+                  datum);
               eesame++;
             }
             // event-event neighbor sentence
@@ -1151,7 +1260,8 @@ public class TLinkClassifier {
                 eediff++;
               TLinkDatum datum = featurizer.createEventEventDatum(doc, e1, e2,
                   null);
-              newLabel = eeDiffSentClassifier.classOf(datum.createRVFDatum());
+              newLabel = classOf(eeDiffSentClassifier, eeDiffSentCompiled,
+                  datum);
 
               // DEBUG
               if (e1.getString().toLowerCase().equals("said")
@@ -1223,6 +1333,19 @@ public class TLinkClassifier {
    */
   public static Pair<String, Double> getLabelProb(
       Classifier<String, String> classifier, RVFDatum<String, String> rvf) {
+    // Linear models (all of ours) score without building Counters.
+    CompiledLinearClassifier fast = CompiledLinearClassifier
+        .forClassifier(classifier);
+    if (fast != null)
+      return fast.labelProb(rvf.asFeaturesCounter());
+    return scoreLabelProb(classifier, rvf);
+  }
+
+  /**
+   * getLabelProb() with the classifier itself, for models that aren't linear.
+   */
+  private static Pair<String, Double> scoreLabelProb(
+      Classifier<String, String> classifier, RVFDatum<String, String> rvf) {
     Counter<String> scores = classifier.scoresOf(rvf);
     Counters.logNormalizeInPlace(scores);
     for (String label : scores.keySet())
@@ -1234,6 +1357,100 @@ public class TLinkClassifier {
     return new Pair<String, Double>(label, scores.getCount(label));
   }
 
+  /**
+   * Same as above, but scores the datum's FeatureVector directly when it has
+   * one, so no Counter of feature strings is built.
+   */
+  public static Pair<String, Double> getLabelProb(
+      Classifier<String, String> classifier, TLinkDatum datum) {
+    return getLabelProb(classifier,
+        CompiledLinearClassifier.forClassifier(classifier), datum);
+  }
+
+  /**
+   * Same as above, with the classifier's compiled form already looked up by
+   * the caller, who holds it next to the classifier. Null if the classifier
+   * isn't linear.
+   */
+  public static Pair<String, Double> getLabelProb(
+      Classifier<String, String> classifier, CompiledLinearClassifier fast,
+      TLinkDatum datum) {
+    if (fast == null)
+      return scoreLabelProb(classifier, datum.createRVFDatum());
+    FeatureVector feats = datum.getFeatureVector();
+    if (feats != null)
+      return fast.labelProb(feats);
+    return fast.labelProb(datum.createRVFDatum().asFeaturesCounter());
+  }
+
+  /**
+   * @return The top label for the datum, scoring its FeatureVector directly
+   *         when it has one and the classifier is linear.
+   */
+  public static String classOf(Classifier<String, String> classifier,
+      TLinkDatum datum) {
+    return classOf(classifier,
+        CompiledLinearClassifier.forClassifier(classifier), datum);
+  }
+
+  /**
+   * Same as above, with the classifier's compiled form (or null) from the
+   * caller.
+   */
+  public static String classOf(Classifier<String, String> classifier,
+      CompiledLinearClassifier fast, TLinkDatum datum) {
+    if (fast == null)
+      return classifier.classOf(datum.createRVFDatum());
+    FeatureVector feats = datum.getFeatureVector();
+    if (feats != null)
+      return fast.classOf(feats);
+    return fast.classOf(datum.createRVFDatum().asFeaturesCounter());
+  }
+
+  /**
+   * Classify a whole batch of datums with one classifier, such as every
+   * candidate pair in a document. Linear models score the batch in one pass;
+   * other classifiers fall back to one datum at a time.
+   *
+   * @return One pair per datum, in order: (1) the top label, (2) the
+   *         probability of the top label
+   */
+  public static List<Pair<String, Double>> getLabelProbs(
+      Classifier<String, String> classifier, List<TLinkDatum> datums) {
+    return getLabelProbs(classifier,
+        CompiledLinearClassifier.forClassifier(classifier), datums);
+  }
+
+  /**
+   * Same as above, with the classifier's compiled form (or null) from the
+   * caller.
+   */
+  public static List<Pair<String, Double>> getLabelProbs(
+      Classifier<String, String> classifier, CompiledLinearClassifier fast,
+      List<TLinkDatum> datums) {
+    if (fast == null) {
+      List<Pair<String, Double>> results = new ArrayList<Pair<String, Double>>(
+          datums.size());
+      for (TLinkDatum datum : datums)
+        results.add(scoreLabelProb(classifier, datum.createRVFDatum()));
+      return results;
+    }
+
+    List<FeatureVector> batch = new ArrayList<FeatureVector>(datums.size());
+    for (TLinkDatum datum : datums) {
+      FeatureVector feats = datum.getFeatureVector();
+      // Datums built from strings, e.g. read from a file.
+      if (feats == null) {
+        feats = new FeatureVector();
+        if (datum.getFeatures() != null)
+          for (String feat : datum.getFeatureKeys())
+            feats.add(feat, datum.getCount(feat));
+      }
+      batch.add(feats);
+    }
+    return fast.labelProbs(batch);
+  }
+
   /**
    * Get all of the class labels used in the dataset, return them as a set.
    */
@@ -1275,6 +1492,7 @@ public class TLinkClassifier {
       etDCTExistsClassifier = (Classifier<String, String>) IOUtils
           .readObjectFromFile(
               dirpath + File.separator + "tlink.et.dct.exists.classifier-all");
+      compileClassifiers();
     } catch (Exception ex) {
       System.out.println("Had fatal trouble loading " + dirpath);
       ex.printStackTrace();
@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import caevo.util.FeatureVector;
 import edu.stanford.nlp.ling.BasicDatum;
 import edu.stanford.nlp.ling.RVFDatum;
 import edu.stanford.nlp.stats.ClassicCounter;
@@ -25,6 +26,8 @@ public class TLinkDatum {
   TLink.Type _relation;
   String _docSource = null;
   Counter<String> _featureCounts = null;
+  // Features from a featurizer, turned into _featureCounts only when needed.
+  FeatureVector _featureVector = null;
   public TLink _originalTLink = null; // for debugging
 
   public TLinkDatum() {
@@ -53,7 +56,28 @@ public class TLinkDatum {
     this._relation = label;
   }
 
+  /**
+   * Move the featurizer's vector into the Counter, for callers that want
+   * strings.
+   */
+  private void materialize() {
+    if (_featureVector != null) {
+      Counter<String> feats = _featureVector.toCounter();
+      _featureVector = null;
+      addFeatures(feats);
+    }
+  }
+
+  /**
+   * @return The features as the featurizer built them, or null if this datum
+   *         was built from strings (or has been changed since).
+   */
+  public FeatureVector getFeatureVector() {
+    return _featureVector;
+  }
+
   public Set<String> getFeatureKeys() {
+    materialize();
     if (_featureCounts == null)
       return null;
     else
@@ -61,14 +85,17 @@ public class TLinkDatum {
   }
 
   public Counter<String> getFeatures() {
+    materialize();
     return _featureCounts;
   }
 
   public double getCount(String feat) {
+    materialize();
     return _featureCounts.getCount(feat);
   }
 
   public double totalCount() {
+    materialize();
     if (_featureCounts == null)
       return 0.0;
     else
@@ -76,6 +103,7 @@ public class TLinkDatum {
   }
 
   public void addFeature(String feat) {
+    materialize();
     if (_featureCounts == null)
       _featureCounts = new ClassicCounter<String>();
     if (feat != null)
@@ -83,6 +111,7 @@ public class TLinkDatum {
   }
 
   public void addFeature(String feat, double count) {
+    materialize();
     if (_featureCounts == null)
       _featureCounts = new ClassicCounter<String>();
     if (feat != null)
@@ -90,6 +119,7 @@ public class TLinkDatum {
   }
 
   public void addFeatures(Collection<String> feats) {
+    materialize();
     if (_featureCounts == null)
       _featureCounts = new ClassicCounter<String>();
     if (feats != null) {
@@ -99,6 +129,7 @@ public class TLinkDatum {
   }
 
   public void addFeatures(Counter<String> feats) {
+    materialize();
     if (feats != null) {
       if (_featureCounts == null)
         _featureCounts = new ClassicCounter<String>();
@@ -106,7 +137,22 @@ public class TLinkDatum {
     }
   }
 
+  /**
+   * Take the featurizer's vector as this datum's features. The vector is kept
+   * as is, so scoring it needs no Strings; it becomes a Counter the first time
+   * something asks for one.
+   */
+  public void addFeatures(FeatureVector feats) {
+    if (feats != null) {
+      if (_featureVector == null && _featureCounts == null)
+        _featureVector = feats;
+      else
+        addFeatures(feats.toCounter());
+    }
+  }
+
   public void removeFeature(String feat) {
+    materialize();
     if (_featureCounts != null)
       _featureCounts.remove(feat);
   }
@@ -117,6 +163,7 @@ public class TLinkDatum {
    * @return An RVFDatum object for classification/training.
    */
   public RVFDatum<String, String> createRVFDatum() {
+    materialize();
     if (_featureCounts == null)
       return new RVFDatum<String, String>(new ClassicCounter<String>(),
           (_relation == null ? "null" : _relation.toString()));
@@ -126,6 +173,7 @@ public class TLinkDatum {
   }
 
   public BasicDatum<String, String> createBasicDatum() {
+    materialize();
     if (_featureCounts == null)
       return new BasicDatum<String, String>(new HashSet<String>(),
           (_relation == null ? "null" : _relation.toString()));
@@ -193,6 +241,7 @@ public class TLinkDatum {
     _relation = TLink.Type.valueOf(parts[0]);
     if (parts.length > 1) {
       _featureCounts = null;
+      _featureVector = null;
       for (int i = 1; i < parts.length; i += 2) {
         try {
           if (keepFeats == null || keepFeats.contains(parts[i]))
@@ -238,6 +287,7 @@ public class TLinkDatum {
    * Write the features in text order.
    */
   public String toStringSorted() {
+    materialize();
     StringBuffer sb = new StringBuffer(
         _docSource + "\t" + _relation.toString());
 
@@ -254,6 +304,7 @@ public class TLinkDatum {
   }
 
   public String toString() {
+    materialize();
     StringBuffer sb = new StringBuffer(_docSource + "\t"
         + (_relation != null ? _relation.toString() : "null"));
     sb.append('\t');
@@ -16,14 +16,17 @@ import caevo.SieveDocuments;
 import caevo.SieveSentence;
 import caevo.TextEvent;
 import caevo.Timex;
+import caevo.util.DependencyGraph;
+import caevo.util.FeatureVector;
 import caevo.util.HandleParameters;
+import caevo.util.Log;
+import caevo.util.SentenceIndex;
 import caevo.util.TimebankUtil;
 import caevo.util.TreeOperator;
 import caevo.util.WordNet;
 import net.didion.jwnl.data.POS;
 import net.didion.jwnl.data.Synset;
-import edu.stanford.nlp.stats.ClassicCounter;
-import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.classify.RVFDataset;
 import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TreeFactory;
@@ -46,6 +49,7 @@ import edu.stanford.nlp.trees.TypedDependency;
  * [-tempeval] [-tempevalE] [-tempevalF]
  */
 public class TLinkFeaturizer {
+  private static final Log log = Log.getLog(TLinkFeaturizer.class);
   SieveDocuments _infoDocs;
   String _infoPath;
   WordNet _wordnet;
@@ -165,6 +169,40 @@ public class TLinkFeaturizer {
     }
   }
 
+  /**
+   * @return The flags that choose which TLinks become datums and which
+   *         features they get, as one string.
+   */
+  public String settings() {
+    return "bethard=" + _doBethard + " turk=" + _doTurk + " tempeval="
+        + _doTempeval + " happened=" + _doHappened + " closed=" + _doClosed
+        + " noEventFeats=" + _noEventFeats + " ignoreSameSentence="
+        + _ignoreSameSentence + " sameSentenceOnly=" + _sameSentenceOnly
+        + " diffSentenceOnly=" + _diffSentenceOnly + " neighborSentenceOnly="
+        + _neighborSentenceOnly + " eventEventOnly=" + _eventEventOnly
+        + " eventEventDominates=" + _eventEventDominates
+        + " eventEventNoDominates=" + _eventEventNoDominates
+        + " eventTimeOnly=" + _eventTimeOnly + " noEventTimeDiff="
+        + _noEventTimeDiff + " eventDCTOnly=" + _eventDCTOnly + " noEventDCT="
+        + _noEventDCT + " noTimeTime=" + _noTimeTime + " timebankMaxSpan="
+        + _timebankMaxSentenceSpan + " turkMaxSpan=" + _turkMaxSentenceSpan
+        + " tempevalE=" + tempevalTaskE + " tempevalF=" + tempevalTaskF
+        + " tempeval2=" + _tempeval2Mode;
+  }
+
+  /**
+   * The datums infoToTLinkFeatures() would create, as a training dataset with
+   * no feature threshold applied yet. Read from the FeatureCache if these
+   * documents were featurized with the same settings before.
+   * 
+   * @param docnames
+   *          List of documents you want featurized, or null for all of them.
+   */
+  public RVFDataset<String, String> infoToDataset(SieveDocuments infoDocs,
+      Set<String> docnames) {
+    return FeatureCache.featurize(this, infoDocs, docnames);
+  }
+
   /**
    * Create a datum for each TLink in the given InfoFile. Chooses TLinks to
    * include based on a series of global flags.
@@ -269,7 +307,8 @@ public class TLinkFeaturizer {
                   && link.getRelation() != TLink.Type.OVERLAP) {
                 int sentenceSpan = (isdctlink ? -1 : sentenceSpan(doc, link));
 
-                System.out.println("link: " + link + "\tspan=" + sentenceSpan);
+                if (log.isDebug())
+                  log.debug("link: " + link + "\tspan=" + sentenceSpan);
 
                 if (_eventDCTOnly && !isdctlink) {
                   if (debug)
@@ -489,7 +528,7 @@ public class TLinkFeaturizer {
    */
   public TLinkDatum createEventTimeDatum(SieveDocument doc, TextEvent event,
       Timex time, TLink.Type label) {
-    Counter<String> feats = new ClassicCounter<String>();
+    FeatureVector feats = new FeatureVector();
     List<Tree> trees = doc.getAllParseTrees();
 
     // Sanity check
@@ -499,23 +538,23 @@ public class TLinkFeaturizer {
 
     // Textual order.
     if (TimebankUtil.isBeforeInText(event, time))
-      feats.incrementCount("event-first");
+      feats.add("event-first");
     else
-      feats.incrementCount("time-first");
-
-    feats.addAll(getSingleEventPOSFeatures("pos1", event, trees));
-    feats.addAll(getSingleEventFeatures(event, trees)); // tense, modality, etc.
-    feats.addAll(getSingleEventTokenFeatures(1, event, trees)); // token, lemma,
-                                                                // wordnet
-    feats.addAll(getTimexFeatures(time, trees));
-    feats.addAll(getEventTimeBigram(event, time, trees));
-    feats.addAll(getEventTimeTokenPathFeature(event, time, trees));
-    feats.addAll(getParsePathFeatures(event, time, trees));
-    feats.addAll(getDepsPathFeatures(event, time,
-        doc.getSentences().get(event.getSid()).getDeps()));
-    feats.addAll(getDominanceFeatures(event, time, trees)); // always based on
-                                                            // the event's
-                                                            // dominance or not
+      feats.add("time-first");
+
+    addSingleEventPOSFeatures(feats, "pos1", event, trees);
+    addSingleEventFeatures(feats, event, trees); // tense, modality, etc.
+    addSingleEventTokenFeatures(feats, 1, event, trees); // token, lemma,
+                                                         // wordnet
+    addTimexFeatures(feats, time, trees);
+    addEventTimeBigram(feats, event, time, trees);
+    addEventTimeTokenPathFeature(feats, event, time, trees);
+    addParsePathFeatures(feats, event, time, trees);
+    addDepsPathFeatures(feats, event, time,
+        doc.getSentences().get(event.getSid()).getDependencyGraph());
+    addDominanceFeatures(feats, event, time, trees); // always based on the
+                                                     // event's dominance or
+                                                     // not
 
     TLinkDatum datum = new TLinkDatum(label);
     datum.addFeatures(feats);
@@ -530,7 +569,7 @@ public class TLinkFeaturizer {
 
   public TLinkDatum createEventDocumentTimeDatum(SieveDocument doc,
       TextEvent event, Timex time, TLink.Type label) {
-    Counter<String> feats = new ClassicCounter<String>();
+    FeatureVector feats = new FeatureVector();
     List<Tree> trees = doc.getAllParseTrees();
 
     // Sanity check
@@ -538,14 +577,12 @@ public class TLinkFeaturizer {
       System.out.println("Null event in createEventDocumentTimeDatum(): "
           + event + " and " + time);
 
-    feats.addAll(getSingleEventPOSFeatures("pos1", event, trees));
-    feats.addAll(getSingleEventFeatures(event, trees)); // tense, modality, etc.
-    feats.addAll(getSingleEventTokenFeatures(1, event, trees)); // token, lemma,
-                                                                // wordnet
-    feats.addAll(getSingleEventNearbyBOWFeatures(event, trees)); // +.01
-                                                                 // accuracy,
-                                                                 // very
-                                                                 // minimal.
+    addSingleEventPOSFeatures(feats, "pos1", event, trees);
+    addSingleEventFeatures(feats, event, trees); // tense, modality, etc.
+    addSingleEventTokenFeatures(feats, 1, event, trees); // token, lemma,
+                                                         // wordnet
+    addSingleEventNearbyBOWFeatures(feats, event, trees); // +.01 accuracy,
+                                                          // very minimal.
 
     TLinkDatum datum = new TLinkDatum(label);
     datum.addFeatures(feats);
@@ -575,7 +612,7 @@ public class TLinkFeaturizer {
    */
   public TLinkDatum createEventEventDatum(SieveDocument doc, TextEvent event1,
       TextEvent event2, TLink.Type label) {
-    Counter<String> feats = new ClassicCounter<String>();
+    FeatureVector feats = new FeatureVector();
     List<Tree> trees = doc.getAllParseTrees();
     List<TextEvent> events = doc.getEvents();
 
@@ -593,19 +630,17 @@ public class TLinkFeaturizer {
         label = TLink.invertRelation(label);
     }
 
-    feats.addAll(getPOSFeatures(event1, event2, trees));
-    feats.addAll(getEventFeatures(event1, event2, trees)); // tense, modality,
-                                                           // etc.
-    feats.addAll(getTokenFeatures(event1, event2, trees, events)); // token,
-                                                                   // lemma,
-                                                                   // wordnet
-    feats.addAll(getSyntacticFeatures(event1, event2, trees)); // prep phrases?
-    feats.addAll(getDominanceFeatures(event1, event2, trees));
-    feats.addAll(getTextOrderFeatures(event1, event2, trees));
-    feats.addAll(getEventInterferenceFeatures(event1, event2, events));
-    feats.addAll(getParsePathFeatures(event1, event2, trees));
-    feats.addAll(getDepsPathFeatures(event1, event2,
-        doc.getSentences().get(event1.getSid()).getDeps()));
+    addPOSFeatures(feats, event1, event2, trees);
+    addEventFeatures(feats, event1, event2, trees); // tense, modality, etc.
+    addTokenFeatures(feats, event1, event2, trees, events); // token, lemma,
+                                                            // wordnet
+    addSyntacticFeatures(feats, event1, event2, trees); // prep phrases?
+    addDominanceFeatures(feats, event1, event2, trees);
+    addTextOrderFeatures(feats, event1, event2, trees);
+    addEventInterferenceFeatures(feats, event1, event2, events);
+    addParsePathFeatures(feats, event1, event2, trees);
+    addDepsPathFeatures(feats, event1, event2,
+        doc.getSentences().get(event1.getSid()).getDependencyGraph());
 
     TLinkDatum datum = new TLinkDatum(label);
     datum.addFeatures(feats);
@@ -625,10 +660,8 @@ public class TLinkFeaturizer {
   /**
    * Event features using just its event POS tags.
    */
-  private Counter<String> getSingleEventPOSFeatures(String featprefix,
-      TextEvent event1, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addSingleEventPOSFeatures(FeatureVector feats,
+      String featprefix, TextEvent event1, List<Tree> trees) {
     Tree tree1 = trees.get(event1.getSid());
 
     String pos10 = TreeOperator.indexToPOSTag(tree1, event1.getIndex());
@@ -640,64 +673,53 @@ public class TLinkFeaturizer {
       pos11 = "<s>";
       pos12 = "<pre-s>";
     }
-    feats.incrementCount(featprefix + "-0-" + pos10);
-    feats.incrementCount(featprefix + "-1-" + pos11);
-    feats.incrementCount(featprefix + "-2-" + pos12);
-    feats.incrementCount(featprefix + "-bi-" + pos11 + "-" + pos10);
-
-    return feats;
+    feats.start(featprefix).append("-0-").append(pos10).add();
+    feats.start(featprefix).append("-1-").append(pos11).add();
+    feats.start(featprefix).append("-2-").append(pos12).add();
+    feats.start(featprefix).append("-bi-").append(pos11).append('-')
+        .append(pos10).add();
   }
 
   /**
    * All features using just the event POS tags.
    */
-  private Counter<String> getPOSFeatures(TextEvent event1, TextEvent event2,
-      List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
-    feats.addAll(getSingleEventPOSFeatures("pos1", event1, trees));
-    feats.addAll(getSingleEventPOSFeatures("pos2", event2, trees));
+  private void addPOSFeatures(FeatureVector feats, TextEvent event1,
+      TextEvent event2, List<Tree> trees) {
+    addSingleEventPOSFeatures(feats, "pos1", event1, trees);
+    addSingleEventPOSFeatures(feats, "pos2", event2, trees);
 
     // bigram
     Tree tree1 = trees.get(event1.getSid());
     Tree tree2 = trees.get(event2.getSid());
     String pos10 = TreeOperator.indexToPOSTag(tree1, event1.getIndex());
     String pos20 = TreeOperator.indexToPOSTag(tree2, event2.getIndex());
-    feats.incrementCount("posBi-" + pos10 + "-" + pos20);
-
-    return feats;
+    feats.start("posBi-").append(pos10).append('-').append(pos20).add();
   }
 
   /**
    * Create features around each event's labeled attributes (tense, aspect, etc)
    */
-  private Counter<String> getSingleEventFeatures(TextEvent event,
+  private void addSingleEventFeatures(FeatureVector feats, TextEvent event,
       List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
     if (!_noEventFeats) {
-      feats.incrementCount("ev1Tense-" + event.getTense());
-      feats.incrementCount("ev1Aspect-" + event.getAspect());
+      feats.start("ev1Tense-").append(event.getTense()).add();
+      feats.start("ev1Aspect-").append(event.getAspect()).add();
       if (event.getModality() != null)
-        feats.incrementCount("ev1Modality-" + event.getModality());
-      feats.incrementCount("ev1Class-" + event.getTheClass());
+        feats.start("ev1Modality-").append(event.getModality()).add();
+      feats.start("ev1Class-").append(event.getTheClass()).add();
       if (event.getPolarity() != null)
-        feats.incrementCount("ev1Polarity-" + event.getPolarity());
+        feats.start("ev1Polarity-").append(event.getPolarity()).add();
     }
 
     // These are from Turker experiments. Will include if the .info file has
     // them!
     if (_doHappened && event.getHappened() != null) {
-      feats.incrementCount("ev1Happened-" + event.getHappened());
+      feats.start("ev1Happened-").append(event.getHappened()).add();
     }
-
-    return feats;
   }
 
-  private Counter<String> getEventTimeTokenPathFeature(TextEvent event,
-      Timex time, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addEventTimeTokenPathFeature(FeatureVector feats,
+      TextEvent event, Timex time, List<Tree> trees) {
     if (event.getSid() == time.getSid()) {
       // If they are near each other, grab the intervening n-gram.
       if (Math.abs(event.getIndex() - time.getTokenOffset()) < 5
@@ -726,84 +748,78 @@ public class TLinkFeaturizer {
         end--;
 
         // Build the intervening string.
+        feats.start("tokenpath-").append(ngram);
         for (int xx = start + 1; xx < end; xx++)
-          ngram += "_" + tokens.get(xx);
-        ngram += "_" + tail;
-        feats.incrementCount("tokenpath-" + ngram);
+          feats.append('_').append(tokens.get(xx));
+        feats.append('_').append(tail).add();
       }
     }
-
-    return feats;
   }
 
   /**
    * Create features around each event's labeled attributes (tense, aspect, etc)
    */
-  private Counter<String> getEventFeatures(TextEvent event1, TextEvent event2,
-      List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addEventFeatures(FeatureVector feats, TextEvent event1,
+      TextEvent event2, List<Tree> trees) {
     if (!_noEventFeats) {
-      feats.incrementCount("ev1Tense-" + event1.getTense());
-      feats.incrementCount("ev2Tense-" + event2.getTense());
-      feats.incrementCount(
-          "tenses-" + event1.getTense() + "-" + event2.getTense());
+      feats.start("ev1Tense-").append(event1.getTense()).add();
+      feats.start("ev2Tense-").append(event2.getTense()).add();
+      feats.start("tenses-").append(event1.getTense()).append('-')
+          .append(event2.getTense()).add();
       if (event1.getTense() == event2.getTense())
-        feats.incrementCount("tensematch-YES");
+        feats.add("tensematch-YES");
       else
-        feats.incrementCount("tensematch-NO");
+        feats.add("tensematch-NO");
 
-      feats.incrementCount("ev1Aspect-" + event1.getAspect());
-      feats.incrementCount("ev2Aspect-" + event2.getAspect());
-      feats.incrementCount(
-          "aspects-" + event1.getAspect() + "-" + event2.getAspect());
+      feats.start("ev1Aspect-").append(event1.getAspect()).add();
+      feats.start("ev2Aspect-").append(event2.getAspect()).add();
+      feats.start("aspects-").append(event1.getAspect()).append('-')
+          .append(event2.getAspect()).add();
       if (event1.getAspect() == event2.getAspect())
-        feats.incrementCount("aspectmatch-YES");
+        feats.add("aspectmatch-YES");
       else
-        feats.incrementCount("aspectmatch-NO");
+        feats.add("aspectmatch-NO");
 
-      feats.incrementCount("ev1Modality-" + event1.getModality());
-      feats.incrementCount("ev2Modality-" + event2.getModality());
-      feats.incrementCount(
-          "modalities-" + event1.getModality() + "-" + event2.getModality());
+      feats.start("ev1Modality-").append(event1.getModality()).add();
+      feats.start("ev2Modality-").append(event2.getModality()).add();
+      feats.start("modalities-").append(event1.getModality()).append('-')
+          .append(event2.getModality()).add();
       if (event1.getModality().equalsIgnoreCase(event2.getModality()))
-        feats.incrementCount("modalmatch-YES");
+        feats.add("modalmatch-YES");
       else
-        feats.incrementCount("modalmatch-NO");
+        feats.add("modalmatch-NO");
 
-      feats.incrementCount("ev1Class-" + event1.getTheClass());
-      feats.incrementCount("ev2Class-" + event2.getTheClass());
-      feats.incrementCount(
-          "classes-" + event1.getTheClass() + "-" + event2.getTheClass());
+      feats.start("ev1Class-").append(event1.getTheClass()).add();
+      feats.start("ev2Class-").append(event2.getTheClass()).add();
+      feats.start("classes-").append(event1.getTheClass()).append('-')
+          .append(event2.getTheClass()).add();
       if (event1.getTheClass() == event2.getTheClass())
-        feats.incrementCount("classmatch-YES");
+        feats.add("classmatch-YES");
       else
-        feats.incrementCount("classmatch-NO");
+        feats.add("classmatch-NO");
 
-      feats.incrementCount("ev1Polarity-" + event1.getPolarity());
-      feats.incrementCount("ev2Polarity-" + event2.getPolarity());
-      feats.incrementCount(
-          "polarities-" + event1.getPolarity() + "-" + event2.getPolarity());
+      feats.start("ev1Polarity-").append(event1.getPolarity()).add();
+      feats.start("ev2Polarity-").append(event2.getPolarity()).add();
+      feats.start("polarities-").append(event1.getPolarity()).append('-')
+          .append(event2.getPolarity()).add();
       if (event1.getPolarity() == event2.getPolarity())
-        feats.incrementCount("polaritymatch-YES");
+        feats.add("polaritymatch-YES");
       else
-        feats.incrementCount("polaritymatch-NO");
+        feats.add("polaritymatch-NO");
     }
 
     // These are from Turker experiments. Will include if the .info file has
     // them!
     if (_doHappened && event1.getHappened() != null) {
-      feats.incrementCount("ev1Happened-" + event1.getHappened());
-      feats.incrementCount("ev2Happened-" + event2.getHappened());
-      feats.incrementCount(
-          "happeneds-" + event1.getHappened() + "-" + event2.getHappened());
+      feats.start("ev1Happened-").append(event1.getHappened()).add();
+      feats.start("ev2Happened-").append(event2.getHappened()).add();
+      feats.start("happeneds-").append(event1.getHappened()).append('-')
+          .append(event2.getHappened()).add();
       if (event1.getHappened().equalsIgnoreCase(event2.getHappened()))
-        feats.incrementCount("happenedmatch-YES");
+        feats.add("happenedmatch-YES");
       else
-        feats.incrementCount("happenedmatch-NO");
+        feats.add("happenedmatch-NO");
     }
-
-    return feats;
   }
 
   /**
@@ -814,9 +830,8 @@ public class TLinkFeaturizer {
    * @param trees
    *          All the parse trees of the entire document.
    */
-  private Counter<String> getSingleEventNearbyBOWFeatures(TextEvent event,
-      List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
+  private void addSingleEventNearbyBOWFeatures(FeatureVector feats,
+      TextEvent event, List<Tree> trees) {
     Tree tree = trees.get(event.getSid());
     List<String> tokens = TreeOperator.stringLeavesFromTree(tree);
 
@@ -826,12 +841,10 @@ public class TLinkFeaturizer {
 
     for (int xx = 0; xx < window; xx++) {
       if (start + xx < event.getIndex() - 1)
-        feats.incrementCount("bow-" + tokens.get(start + xx).toLowerCase());
+        feats.start("bow-").append(tokens.get(start + xx).toLowerCase()).add();
       if (end - xx > event.getIndex() - 1)
-        feats.incrementCount("bow-" + tokens.get(end - xx).toLowerCase());
+        feats.start("bow-").append(tokens.get(end - xx).toLowerCase()).add();
     }
-
-    return feats;
   }
 
   /**
@@ -841,18 +854,16 @@ public class TLinkFeaturizer {
    *          Either 1 or 2, the first or second event in your link. This
    *          differentiates the feature names.
    */
-  private Counter<String> getSingleEventTokenFeatures(int eventIndex,
-      TextEvent event1, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addSingleEventTokenFeatures(FeatureVector feats,
+      int eventIndex, TextEvent event1, List<Tree> trees) {
     String token = event1.getString();
     String postag = TreeOperator.indexToPOSTag(trees.get(event1.getSid()),
         event1.getIndex());
     String lemma = _wordnet.lemmatizeTaggedWord(token, postag);
 
     // Token and Lemma
-    feats.incrementCount("token" + eventIndex + "-" + token);
-    feats.incrementCount("lemma" + eventIndex + "-" + lemma);
+    feats.start("token").append(eventIndex).append('-').append(token).add();
+    feats.start("lemma").append(eventIndex).append('-').append(lemma).add();
 
     // WordNet synset
     Synset[] synsets = null;
@@ -861,16 +872,14 @@ public class TLinkFeaturizer {
     else if (postag.startsWith("NN"))
       synsets = _wordnet.synsetsOf(token, POS.NOUN);
     if (synsets != null && synsets.length > 0)
-      feats
-          .incrementCount("synset" + eventIndex + "-" + synsets[0].getOffset());
-
-    return feats;
+      feats.start("synset").append(eventIndex).append('-')
+          .append(synsets[0].getOffset()).add();
   }
 
-  private Counter<String> getEventEventBigram(TextEvent event1,
+  private void addEventEventBigram(FeatureVector feats, TextEvent event1,
       TextEvent event2, List<TextEvent> events) {
-    Counter<String> feats = new ClassicCounter<String>();
-    feats.incrementCount("BI-" + event1.getString() + "_" + event2.getString());
+    feats.start("BI-").append(event1.getString()).append('_')
+        .append(event2.getString()).add();
 
     // Bigram with generic "event" tokens between them, based on how many other
     // events separate them.
@@ -881,26 +890,20 @@ public class TLinkFeaturizer {
         str += "_EVENT";
       str += "_" + event2.getString();
     }
-
-    return feats;
   }
 
   /**
    * Create token/lemma/synset features with the events.
    */
-  private Counter<String> getTokenFeatures(TextEvent event1, TextEvent event2,
-      List<Tree> trees, List<TextEvent> events) {
-    Counter<String> feats = new ClassicCounter<String>();
-
-    feats.addAll(getSingleEventTokenFeatures(1, event1, trees));
-    feats.addAll(getSingleEventTokenFeatures(2, event2, trees));
-    feats.addAll(getEventEventBigram(event1, event2, events));
-
-    return feats;
+  private void addTokenFeatures(FeatureVector feats, TextEvent event1,
+      TextEvent event2, List<Tree> trees, List<TextEvent> events) {
+    addSingleEventTokenFeatures(feats, 1, event1, trees);
+    addSingleEventTokenFeatures(feats, 2, event2, trees);
+    addEventEventBigram(feats, event1, event2, events);
   }
 
-  private Counter<String> getTimexFeatures(Timex timex, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
+  private void addTimexFeatures(FeatureVector feats, Timex timex,
+      List<Tree> trees) {
     List<String> tokens = TreeOperator
         .stringLeavesFromTree(trees.get(timex.getSid()));
     int start = timex.getTokenOffset() - 1;
@@ -908,32 +911,29 @@ public class TLinkFeaturizer {
 
     // Leftmost token in the time phrase.
     if (TimebankUtil.isDayOfWeek(tokens.get(end)))
-      feats.incrementCount("timetoken-DAYOFWEEK");
+      feats.add("timetoken-DAYOFWEEK");
     else
-      feats.incrementCount("timetoken-" + tokens.get(end));
+      feats.start("timetoken-").append(tokens.get(end)).add();
 
     // Entire time phrase.
     if (timex.getTokenLength() > 1) {
-      String phrase = tokens.get(start);
+      feats.start("timephrase-").append(tokens.get(start));
       for (int xx = 1; xx < timex.getTokenLength(); xx++)
-        phrase += "_" + tokens.get(start + xx);
-      feats.incrementCount("timephrase-" + phrase);
+        feats.append('_').append(tokens.get(start + xx));
+      feats.add();
     }
 
     // Is the timex the last phrase in the sentence?
     if (tokens.size() - 1 == end)
-      feats.incrementCount("timeEOS");
-
-    return feats;
+      feats.add("timeEOS");
   }
 
   /**
    * Create one feature string, the bigram of the event word and the rightmost
    * token in the timex phrase. The bigram is ordered by text order.
    */
-  private Counter<String> getEventTimeBigram(TextEvent event, Timex timex,
-      List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
+  private void addEventTimeBigram(FeatureVector feats, TextEvent event,
+      Timex timex, List<Tree> trees) {
     List<String> tokens = TreeOperator
         .stringLeavesFromTree(trees.get(timex.getSid()));
     String timeToken = tokens.get(timex.getTokenOffset() - 1);
@@ -942,25 +942,23 @@ public class TLinkFeaturizer {
 
     if (event.getSid() == timex.getSid()
         && event.getIndex() < timex.getTokenOffset())
-      feats.incrementCount(
-          "bi-" + tokens.get(event.getIndex() - 1) + "_" + timeToken);
+      feats.start("bi-").append(tokens.get(event.getIndex() - 1)).append('_')
+          .append(timeToken).add();
     else if (event.getSid() == timex.getSid())
-      feats.incrementCount(
-          "bi-" + timeToken + "_" + tokens.get(event.getIndex() - 1));
+      feats.start("bi-").append(timeToken).append('_')
+          .append(tokens.get(event.getIndex() - 1)).add();
 
     // In different sentences.
     else {
       List<String> eventTokens = TreeOperator
           .stringLeavesFromTree(trees.get(event.getSid()));
       if (event.getSid() < timex.getSid())
-        feats.incrementCount(
-            "bi-" + eventTokens.get(event.getIndex() - 1) + "_" + timeToken);
+        feats.start("bi-").append(eventTokens.get(event.getIndex() - 1))
+            .append('_').append(timeToken).add();
       else
-        feats.incrementCount(
-            "bi-" + timeToken + "_" + eventTokens.get(event.getIndex() - 1));
+        feats.start("bi-").append(timeToken).append('_')
+            .append(eventTokens.get(event.getIndex() - 1)).add();
     }
-
-    return feats;
   }
 
   /**
@@ -1010,10 +1008,8 @@ public class TLinkFeaturizer {
    * Features about one event syntactically dominating the other, and sentence
    * distance.
    */
-  private Counter<String> getDominanceFeatures(TextEvent event1,
+  private void addDominanceFeatures(FeatureVector feats, TextEvent event1,
       TextEvent event2, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
     // Must be in the same sentence.
     if (event1.getSid() == event2.getSid()) {
       Tree tree = trees.get(event1.getSid());
@@ -1022,22 +1018,18 @@ public class TLinkFeaturizer {
 
       // Dominance
       if (treeDominates(tree1, tree2, tree))
-        feats.incrementCount("dominates");
+        feats.add("dominates");
       else if (treeDominates(tree2, tree1, tree))
-        feats.incrementCount("isDominated");
+        feats.add("isDominated");
     }
-
-    return feats;
   }
 
   /**
    * Features about one event syntactically dominating the other, and sentence
    * distance.
    */
-  private Counter<String> getDominanceFeatures(TextEvent event, Timex timex,
-      List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addDominanceFeatures(FeatureVector feats, TextEvent event,
+      Timex timex, List<Tree> trees) {
     // Must be in the same sentence.
     if (event.getSid() == timex.getSid()) {
       Tree tree = trees.get(event.getSid());
@@ -1046,83 +1038,72 @@ public class TLinkFeaturizer {
 
       // Dominance
       if (treeDominates(tree1, tree2, tree))
-        feats.incrementCount("dominates");
+        feats.add("dominates");
       else if (treeDominates(tree2, tree1, tree))
-        feats.incrementCount("isDominated");
+        feats.add("isDominated");
     }
-
-    return feats;
   }
 
-  private Counter<String> getParsePathFeatures(TextEvent event, Timex timex,
-      List<Tree> trees) {
+  private void addParsePathFeatures(FeatureVector feats, TextEvent event,
+      Timex timex, List<Tree> trees) {
     // Only works for same-sentence.
     if (event.getSid() == timex.getSid()) {
       if (event.getIndex() < timex.getTokenOffset())
-        return getParsePathFeatures(event.getIndex(),
+        addParsePathFeatures(feats, event.getIndex(),
             timex.getTokenOffset() + timex.getTokenLength() - 1, "EVENT",
             "TIME", trees.get(event.getSid()));
       else
-        return getParsePathFeatures(
+        addParsePathFeatures(feats,
             timex.getTokenOffset() + timex.getTokenLength() - 1,
             event.getIndex(), "TIME", "EVENT", trees.get(event.getSid()));
-    } else
-      return new ClassicCounter<String>();
+    }
   }
 
-  private Counter<String> getParsePathFeatures(TextEvent event1,
+  private void addParsePathFeatures(FeatureVector feats, TextEvent event1,
       TextEvent event2, List<Tree> trees) {
     // Only works for same-sentence.
     if (event1.getSid() == event2.getSid())
-      return getParsePathFeatures(event1.getIndex(), event2.getIndex(), null,
+      addParsePathFeatures(feats, event1.getIndex(), event2.getIndex(), null,
           null, trees.get(event1.getSid()));
-    else
-      return new ClassicCounter<String>();
   }
 
-  private Counter<String> getParsePathFeatures(int index1, int index2,
-      String pre1, String pre2, Tree tree) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addParsePathFeatures(FeatureVector feats, int index1,
+      int index2, String pre1, String pre2, Tree tree) {
     Tree tree1 = TreeOperator.indexToSubtree(tree, index1);
     Tree tree2 = TreeOperator.indexToSubtree(tree, index2);
 
     String path = TreeOperator.pathNodeToNode(tree, tree1, tree2, false);
     if (pre1 != null)
-      path = pre1 + "_" + path + "_" + pre2;
-    feats.incrementCount("pathfull-" + path);
+      feats.start("pathfull-").append(pre1).append('_').append(path)
+          .append('_').append(pre2).add();
+    else
+      feats.start("pathfull-").append(path).add();
     path = TreeOperator.pathNodeToNode(tree, tree1, tree2, true);
     if (pre1 != null)
-      path = pre1 + "_" + path + "_" + pre2;
-    feats.incrementCount("pathnopos-" + path);
-
-    return feats;
+      feats.start("pathnopos-").append(pre1).append('_').append(path)
+          .append('_').append(pre2).add();
+    else
+      feats.start("pathnopos-").append(path).add();
   }
 
-  private Counter<String> getDepsPathFeatures(TextEvent event, Timex time,
-      List<TypedDependency> deps) {
+  private void addDepsPathFeatures(FeatureVector feats, TextEvent event,
+      Timex time, DependencyGraph graph) {
     if (event.getSid() == time.getSid())
-      return getDepsPathFeatures(event.getIndex(),
-          time.getTokenOffset() + time.getTokenLength() - 1, deps);
-    else
-      return new ClassicCounter<String>();
+      addDepsPathFeatures(feats, event.getIndex(),
+          time.getTokenOffset() + time.getTokenLength() - 1, graph);
   }
 
-  private Counter<String> getDepsPathFeatures(TextEvent event1,
-      TextEvent event2, List<TypedDependency> deps) {
+  private void addDepsPathFeatures(FeatureVector feats, TextEvent event1,
+      TextEvent event2, DependencyGraph graph) {
     if (event1.getSid() == event2.getSid())
-      return getDepsPathFeatures(event1.getIndex(), event2.getIndex(), deps);
-    else
-      return new ClassicCounter<String>();
+      addDepsPathFeatures(feats, event1.getIndex(), event2.getIndex(), graph);
   }
 
-  private Counter<String> getDepsPathFeatures(int index1, int index2,
-      List<TypedDependency> deps) {
-    Counter<String> feats = new ClassicCounter<String>();
-
-    String path = TreeOperator.dependencyPath(index1, index2, deps);
+  private void addDepsPathFeatures(FeatureVector feats, int index1, int index2,
+      DependencyGraph graph) {
+    String path = graph.path(index1, index2);
     if (path != null) {
-      feats.incrementCount(path);
+      feats.add(path);
 
       // If the path is long, make a short version:
       // ccomp->dobj->prep_of->nsubj<-dobj-> BECOMES ccomp->...dobj->
@@ -1135,66 +1116,56 @@ public class TLinkFeaturizer {
        * path.length()-3), path.lastIndexOf("<-", path.length()-3)); // This
        * should never be false. Sanity check. if( first != -1 && last != -1 ) {
        * String abbr = path.substring(0, first+2) + "..." +
-       * path.substring(last+2); feats.incrementCount(abbr); } }
+       * path.substring(last+2); feats.add(abbr); } }
        */
     }
-
-    return feats;
   }
 
   /**
    * Prepositional phrases features.
    */
-  private Counter<String> getSyntacticFeatures(TextEvent event1,
+  private void addSyntacticFeatures(FeatureVector feats, TextEvent event1,
       TextEvent event2, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
     Tree tree = trees.get(event1.getSid());
     Tree subtree = TreeOperator.indexToSubtree(tree, event1.getIndex());
     String prep = isPrepClause(tree, subtree);
     if (prep != null)
-      feats.incrementCount("prep1-" + prep);
+      feats.start("prep1-").append(prep).add();
 
     tree = trees.get(event2.getSid());
     subtree = TreeOperator.indexToSubtree(tree, event2.getIndex());
     prep = isPrepClause(tree, subtree);
     if (prep != null)
-      feats.incrementCount("prep2-" + prep);
-
-    return feats;
+      feats.start("prep2-").append(prep).add();
   }
 
   /**
    * Prepositional phrases features.
    */
-  private Counter<String> getTextOrderFeatures(TextEvent event1,
+  private void addTextOrderFeatures(FeatureVector feats, TextEvent event1,
       TextEvent event2, List<Tree> trees) {
-    Counter<String> feats = new ClassicCounter<String>();
-
     // Same sentence
     if (event1.getSid() == event2.getSid()) {
-      feats.incrementCount("order-sameSent");
+      feats.add("order-sameSent");
       if (event1.getIndex() < event2.getIndex()) {
-        feats.incrementCount("order-before");
-        feats.incrementCount("order-sameSent-before");
+        feats.add("order-before");
+        feats.add("order-sameSent-before");
       } else {
-        feats.incrementCount("order-after");
-        feats.incrementCount("order-sameSent-after");
+        feats.add("order-after");
+        feats.add("order-sameSent-after");
       }
     }
     // Different sentence
     else {
-      feats.incrementCount("order-diffSent");
+      feats.add("order-diffSent");
       if (event1.getSid() < event2.getSid()) {
-        feats.incrementCount("order-before");
-        feats.incrementCount("order-diffSent-before");
+        feats.add("order-before");
+        feats.add("order-diffSent-before");
       } else {
-        feats.incrementCount("order-after");
-        feats.incrementCount("order-diffSent-after");
+        feats.add("order-after");
+        feats.add("order-diffSent-after");
       }
     }
-
-    return feats;
   }
 
   /**
@@ -1206,20 +1177,16 @@ public class TLinkFeaturizer {
    *          events are in. Null is ok if the two key events are in different
    *          sentences.
    */
-  private Counter<String> getEventInterferenceFeatures(TextEvent event1,
-      TextEvent event2, List<TextEvent> events) {
-    Counter<String> feats = new ClassicCounter<String>();
-
+  private void addEventInterferenceFeatures(FeatureVector feats,
+      TextEvent event1, TextEvent event2, List<TextEvent> events) {
     if (event1.getSid() == event2.getSid()) {
       int numInterlopers = countInterlopers(event1, event2, events);
 
       if (numInterlopers > 0)
-        feats.incrementCount("notsequential");
+        feats.add("notsequential");
       else
-        feats.incrementCount("sequential");
+        feats.add("sequential");
     }
-
-    return feats;
   }
 
   /**
@@ -1254,7 +1221,8 @@ public class TLinkFeaturizer {
   public static String isPrepClause(Tree root, Tree tree) {
     // System.out.println("isPrepClause: subtree=" + tree);
     if (tree != null) {
-      Tree p = tree.parent(root).parent(root);
+      SentenceIndex index = SentenceIndex.of(root);
+      Tree p = index.parent(index.parent(tree));
       // System.out.println("parent=" + p);
       String pos = p.label().value();
       // System.out.println("parent pos=" + pos);
@@ -1262,12 +1230,12 @@ public class TLinkFeaturizer {
       if (!pos.equals("PP")) {
         // Keep moving up the tree till we hit a new type of POS
         while (p != null && p.label().toString().equals(pos))
-          p = p.parent(root);
+          p = index.parent(p);
       }
 
       // We can hit one sentence, but the S must be the PP clause
       if (p != null && p.label().value().equals("S")) {
-        p = p.parent(root);
+        p = index.parent(p);
         if (p == null || !p.label().value().equals("PP"))
           return null;
       }
@@ -1298,8 +1266,9 @@ public class TLinkFeaturizer {
   private boolean treeDominates(Tree tree1, Tree tree2, Tree tree) {
     if (tree1 != null && tree2 != null) {
       // Find parent tree of event1, check dominance
-      Tree p = tree1.parent(tree); // parent is POS tag
-      if (p.dominates(tree2))
+      SentenceIndex index = SentenceIndex.of(tree);
+      Tree p = index.parent(tree1); // parent is POS tag
+      if (p != null && index.dominates(p, tree2))
         return true;
     } else
       System.out.println("WARNING: no tree1 or no tree2");
@@ -0,0 +1,252 @@
+package caevo.tlink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import caevo.util.LongIntHashMap;
+
+/**
+ * A document's TLinks, in insertion order, indexed by the unordered pair of
+ * ids they link. Ids are interned to ints and a pair is one packed long, so
+ * adding, looking up and removing a link builds no Strings and costs O(1).
+ *
+ * More than one link can cover the same pair (A-B and B-A, or a link and the
+ * one that later overwrote it). All of them stay in the store; get() returns
+ * the most recently added, and getAll() returns every one, newest first.
+ *
+ * Removed links leave a hole that iteration skips; asList() squeezes the holes
+ * out before handing back the list.
+ */
+public class TLinkStore implements Iterable<TLink> {
+  private final Map<String, Integer> idToInt = new HashMap<String, Integer>();
+
+  // Links by insertion, null where one was removed.
+  private final List<TLink> links = new ArrayList<TLink>();
+  private final List<TLink> view = Collections.unmodifiableList(links);
+  // For each link, the index of the next older link on the same pair, or -1.
+  private int[] older = new int[64];
+  private int numRemoved = 0;
+
+  // Pair -> index of the newest link on it.
+  private final LongIntHashMap newest = new LongIntHashMap(64, -1);
+
+  public TLinkStore() {
+  }
+
+  public TLinkStore(Iterable<TLink> tlinks) {
+    addAll(tlinks);
+  }
+
+  private int intern(String id) {
+    Integer num = idToInt.get(id);
+    if (num == null) {
+      num = idToInt.size();
+      idToInt.put(id, num);
+    }
+    return num;
+  }
+
+  /**
+   * @return The pair key, or -1 if either id has never been added.
+   */
+  private long key(String id1, String id2) {
+    Integer a = idToInt.get(id1);
+    Integer b = idToInt.get(id2);
+    if (a == null || b == null)
+      return -1;
+    return LongIntHashMap.packUnordered(a, b);
+  }
+
+  /**
+   * Add a link at the end. Both ids must be non-null.
+   *
+   * @return The newest link already on the same pair, or null.
+   */
+  public TLink add(TLink link) {
+    long key = LongIntHashMap.packUnordered(intern(link.getId1()),
+        intern(link.getId2()));
+    int index = links.size();
+    links.add(link);
+    if (index == older.length)
+      older = Arrays.copyOf(older, index * 2);
+    int previous = newest.put(key, index);
+    older[index] = previous;
+    return (previous < 0 ? null : links.get(previous));
+  }
+
+  public void addAll(Iterable<TLink> tlinks) {
+    for (TLink link : tlinks)
+      add(link);
+  }
+
+  public boolean containsPair(String id1, String id2) {
+    long key = key(id1, id2);
+    return key >= 0 && newest.containsKey(key);
+  }
+
+  /**
+   * @return The newest link between the two ids, in either direction, or
+   *         null.
+   */
+  public TLink get(String id1, String id2) {
+    long key = key(id1, id2);
+    if (key < 0)
+      return null;
+    int index = newest.get(key);
+    return (index < 0 ? null : links.get(index));
+  }
+
+  /**
+   * @return The newest link from id1 to id2 in that direction, or null.
+   */
+  public TLink getDirected(String id1, String id2) {
+    long key = key(id1, id2);
+    if (key < 0)
+      return null;
+    for (int ii = newest.get(key); ii >= 0; ii = older[ii]) {
+      TLink link = links.get(ii);
+      if (link.getId1().equals(id1) && link.getId2().equals(id2))
+        return link;
+    }
+    return null;
+  }
+
+  /**
+   * @return Every link between the two ids, in either direction, newest first.
+   */
+  public List<TLink> getAll(String id1, String id2) {
+    long key = key(id1, id2);
+    if (key < 0)
+      return Collections.emptyList();
+    List<TLink> all = new ArrayList<TLink>(2);
+    for (int ii = newest.get(key); ii >= 0; ii = older[ii])
+      all.add(links.get(ii));
+    return all;
+  }
+
+  /**
+   * Remove this link object.
+   *
+   * @return True if it was in the store.
+   */
+  public boolean remove(TLink link) {
+    long key = key(link.getId1(), link.getId2());
+    if (key < 0)
+      return false;
+    int newer = -1;
+    for (int ii = newest.get(key); ii >= 0; ii = older[ii]) {
+      if (links.get(ii) == link) {
+        // Unlink it from its pair's chain.
+        if (newer >= 0)
+          older[newer] = older[ii];
+        else if (older[ii] >= 0)
+          newest.put(key, older[ii]);
+        else
+          newest.remove(key);
+        links.set(ii, null);
+        numRemoved++;
+        return true;
+      }
+      newer = ii;
+    }
+    return false;
+  }
+
+  /**
+   * Remove every link between the two ids.
+   *
+   * @return The number of links removed.
+   */
+  public int removePair(String id1, String id2) {
+    long key = key(id1, id2);
+    if (key < 0)
+      return 0;
+    int count = 0;
+    for (int ii = newest.remove(key); ii >= 0; ii = older[ii]) {
+      links.set(ii, null);
+      count++;
+    }
+    numRemoved += count;
+    return count;
+  }
+
+  public int size() {
+    return links.size() - numRemoved;
+  }
+
+  /**
+   * @return The number of distinct id pairs with at least one link.
+   */
+  public int numPairs() {
+    return newest.size();
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public void clear() {
+    idToInt.clear();
+    links.clear();
+    newest.clear();
+    numRemoved = 0;
+  }
+
+  /**
+   * @return A read-only list of the links in insertion order. It stays current
+   *         as links are added, but call asList() again after a remove.
+   */
+  public List<TLink> asList() {
+    if (numRemoved > 0)
+      compact();
+    return view;
+  }
+
+  public Iterator<TLink> iterator() {
+    return new Iterator<TLink>() {
+      private int next = advance(0);
+
+      private int advance(int from) {
+        while (from < links.size() && links.get(from) == null)
+          from++;
+        return from;
+      }
+
+      public boolean hasNext() {
+        return next < links.size();
+      }
+
+      public TLink next() {
+        if (!hasNext())
+          throw new java.util.NoSuchElementException();
+        TLink link = links.get(next);
+        next = advance(next + 1);
+        return link;
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Drop the holes left by removals and rebuild the pair chains.
+   */
+  private void compact() {
+    List<TLink> live = new ArrayList<TLink>(size());
+    for (TLink link : links)
+      if (link != null)
+        live.add(link);
+    links.clear();
+    newest.clear();
+    numRemoved = 0;
+    for (TLink link : live)
+      add(link);
+  }
+}
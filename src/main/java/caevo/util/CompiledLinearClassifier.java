@@ -0,0 +1,520 @@
+package caevo.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.LinearClassifier;
+import edu.stanford.nlp.ling.RVFDatum;
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.util.Index;
+
+/**
+ * A trained LinearClassifier flattened for fast scoring: the labels on a dense
+ * axis, an open-addressing hash from feature name to weight row, and the
+ * weights as one float array, row by row. Scoring a datum walks its features
+ * once and keeps the per-label sums in a reused array, so it builds no
+ * Counters.
+ *
+ * Compiling interns the classifier's features into the shared
+ * FeatureDictionary and keeps an array from dictionary id to weight row, so a
+ * FeatureVector is scored by indexing that array with its ids, without looking
+ * up any Strings. Only the features the dictionary didn't know when the vector
+ * was built are looked up by name.
+ *
+ * Get one for a loaded classifier with forClassifier(), which compiles each
+ * classifier once and returns null for classifiers that aren't linear. The
+ * compiled form is only kept while its classifier is reachable, so the
+ * classifiers that cross-validation trains and drops are still freed. The
+ * main() method writes the compact format to a file, and read() loads it.
+ *
+ * Labels are kept as strings. For classifiers with other label types, such as
+ * TLink.Type, the labels are their toString().
+ *
+ * The weights are floats, so probabilities can differ from the original
+ * classifier's in the 7th digit or so.
+ */
+public final class CompiledLinearClassifier {
+  private static final int MAGIC = 0x43414556; // "CAEV"
+  private static final int VERSION = 1;
+
+  // Compiled versions of the classifiers seen so far, keyed on identity and
+  // only weakly, so a compiled classifier goes when its classifier does.
+  private static final Map<IdentityKey, CompiledLinearClassifier> compiled = new ConcurrentHashMap<IdentityKey, CompiledLinearClassifier>();
+  private static final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+  private static final CompiledLinearClassifier NOT_LINEAR = new CompiledLinearClassifier(
+      new String[0], new String[0], new float[0], new float[0]);
+
+  private final String[] labels;
+  private final float[] bias;
+  private final float[] weights; // [row * labels.length + label]
+  // Open addressing: slot -> feature and its row, or null.
+  private final String[] slotFeatures;
+  private final int[] slotRows;
+  private final int mask;
+  // The row of the null feature, which Counters allow, or -1.
+  private final int nullRow;
+  // Shared dictionary id -> weight row, or -1.
+  private final int[] idRows;
+
+  private final ThreadLocal<double[]> scratch = new ThreadLocal<double[]>() {
+    protected double[] initialValue() {
+      return new double[labels.length];
+    }
+  };
+
+  private CompiledLinearClassifier(String[] labels, String[] features,
+      float[] weights, float[] bias) {
+    this.labels = labels;
+    this.weights = weights;
+    this.bias = bias;
+    int capacity = 16;
+    while (capacity < features.length * 2)
+      capacity <<= 1;
+    slotFeatures = new String[capacity];
+    slotRows = new int[capacity];
+    mask = capacity - 1;
+    int[] ids = FeatureDictionary.shared().internAll(features);
+    int numIds = 0;
+    int nullRow = -1;
+    for (int row = 0; row < features.length; row++) {
+      if (features[row] == null) {
+        nullRow = row;
+        continue;
+      }
+      int slot = hash(features[row]) & mask;
+      while (slotFeatures[slot] != null)
+        slot = (slot + 1) & mask;
+      slotFeatures[slot] = features[row];
+      slotRows[slot] = row;
+      numIds = Math.max(numIds, ids[row] + 1);
+    }
+    this.nullRow = nullRow;
+    idRows = new int[numIds];
+    Arrays.fill(idRows, -1);
+    for (int row = 0; row < features.length; row++)
+      if (ids[row] >= 0)
+        idRows[ids[row]] = row;
+  }
+
+  private static int hash(String feature) {
+    int hh = feature.hashCode();
+    return hh ^ (hh >>> 16);
+  }
+
+  /**
+   * A weak reference that is equal to any other key for the same object.
+   */
+  private static final class IdentityKey extends WeakReference<Object> {
+    private final int hash;
+
+    IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      hash = System.identityHashCode(referent);
+    }
+
+    public int hashCode() {
+      return hash;
+    }
+
+    public boolean equals(Object other) {
+      if (other == this)
+        return true;
+      if (!(other instanceof IdentityKey))
+        return false;
+      Object referent = get();
+      return referent != null && referent == ((IdentityKey) other).get();
+    }
+  }
+
+  /**
+   * Flatten a LinearClassifier.
+   */
+  public static <L> CompiledLinearClassifier compile(
+      LinearClassifier<L, String> classifier) {
+    Index<L> labelIndex = classifier.labelIndex();
+    Index<String> featureIndex = classifier.featureIndex();
+    double[][] dweights = classifier.weights();
+    int numLabels = labelIndex.size();
+
+    String[] labels = new String[numLabels];
+    for (int ll = 0; ll < numLabels; ll++)
+      labels[ll] = labelIndex.get(ll).toString();
+    String[] features = new String[featureIndex.size()];
+    float[] weights = new float[features.length * numLabels];
+    for (int ff = 0; ff < features.length; ff++) {
+      features[ff] = featureIndex.get(ff);
+      for (int ll = 0; ll < numLabels; ll++)
+        weights[ff * numLabels + ll] = (float) dweights[ff][ll];
+    }
+
+    // Whatever the classifier adds with no features at all (its thresholds).
+    Counter<L> empty = classifier.scoresOf(
+        new RVFDatum<L, String>(new ClassicCounter<String>(), null));
+    float[] bias = new float[numLabels];
+    for (int ll = 0; ll < numLabels; ll++)
+      bias[ll] = (float) empty.getCount(labelIndex.get(ll));
+
+    return new CompiledLinearClassifier(labels, features, weights, bias);
+  }
+
+  /**
+   * Code that scores many datums with one classifier should call this once
+   * and keep the result next to the classifier, as the ML sieves do; the
+   * lookup here is for classifiers nobody holds a compiled form for.
+   * 
+   * @return The compiled form of the classifier, made on the first call, or
+   *         null if it isn't a LinearClassifier (or is null).
+   */
+  @SuppressWarnings("unchecked")
+  public static CompiledLinearClassifier forClassifier(
+      Classifier<?, String> classifier) {
+    if (classifier == null)
+      return null;
+    CompiledLinearClassifier result = compiled
+        .get(new IdentityKey(classifier, null));
+    if (result == null) {
+      if (classifier instanceof LinearClassifier)
+        result = compile((LinearClassifier<Object, String>) classifier);
+      else
+        result = NOT_LINEAR;
+      expungeCollected();
+      compiled.put(new IdentityKey(classifier, collected), result);
+    }
+    return (result == NOT_LINEAR ? null : result);
+  }
+
+  /**
+   * Drop the compiled forms of classifiers that have been collected.
+   */
+  private static void expungeCollected() {
+    Reference<?> ref;
+    while ((ref = collected.poll()) != null)
+      compiled.remove(ref);
+  }
+
+  public int numLabels() {
+    return labels.length;
+  }
+
+  public int numFeatures() {
+    return weights.length / Math.max(1, labels.length);
+  }
+
+  public String getLabel(int index) {
+    return labels[index];
+  }
+
+  /**
+   * @return The feature's weight row, or -1 if the classifier never saw it.
+   */
+  public int featureRow(String feature) {
+    if (feature == null)
+      return nullRow;
+    int slot = hash(feature) & mask;
+    String key;
+    while ((key = slotFeatures[slot]) != null) {
+      if (key.equals(feature))
+        return slotRows[slot];
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * @return The weight row of the vector's feature at index, or -1.
+   */
+  private int featureRow(FeatureVector features, int index, boolean shared) {
+    int id = features.getId(index);
+    if (id >= 0 && shared)
+      return (id < idRows.length ? idRows[id] : -1);
+    return featureRow(features.getFeature(index));
+  }
+
+  /**
+   * Put each label's raw score in scores, which must have numLabels() slots.
+   *
+   * @return The index of the best label.
+   */
+  public int score(Counter<String> features, double[] scores) {
+    int numLabels = labels.length;
+    for (int ll = 0; ll < numLabels; ll++)
+      scores[ll] = bias[ll];
+    for (String feature : features.keySet()) {
+      int row = featureRow(feature);
+      if (row >= 0) {
+        double value = features.getCount(feature);
+        int base = row * numLabels;
+        for (int ll = 0; ll < numLabels; ll++)
+          scores[ll] += weights[base + ll] * value;
+      }
+    }
+    return argmax(scores);
+  }
+
+  /**
+   * Same as above for a sparse vector given as parallel arrays.
+   */
+  public int score(String[] features, double[] values, int numFeatures,
+      double[] scores) {
+    int numLabels = labels.length;
+    for (int ll = 0; ll < numLabels; ll++)
+      scores[ll] = bias[ll];
+    for (int ff = 0; ff < numFeatures; ff++) {
+      int row = featureRow(features[ff]);
+      if (row >= 0) {
+        int base = row * numLabels;
+        for (int ll = 0; ll < numLabels; ll++)
+          scores[ll] += weights[base + ll] * values[ff];
+      }
+    }
+    return argmax(scores);
+  }
+
+  /**
+   * Same as above for a FeatureVector, which needs no Strings built at all.
+   */
+  public int score(FeatureVector features, double[] scores) {
+    int numLabels = labels.length;
+    for (int ll = 0; ll < numLabels; ll++)
+      scores[ll] = bias[ll];
+    boolean shared = (features.getDictionary() == FeatureDictionary.shared());
+    for (int ff = 0; ff < features.size(); ff++) {
+      int row = featureRow(features, ff, shared);
+      if (row >= 0) {
+        double value = features.getValue(ff);
+        int base = row * numLabels;
+        for (int ll = 0; ll < numLabels; ll++)
+          scores[ll] += weights[base + ll] * value;
+      }
+    }
+    return argmax(scores);
+  }
+
+  /**
+   * Score a batch of vectors, like all the candidate pairs of one document.
+   * The batch's features are first resolved to weight rows in one shared
+   * sparse matrix, and then every datum is scored in a single pass over it.
+   *
+   * @return One pair per vector, in order: (1) the top label, (2) the
+   *         probability of the top label
+   */
+  public List<Pair<String, Double>> labelProbs(List<FeatureVector> batch) {
+    int size = batch.size();
+    int numLabels = labels.length;
+
+    // The shared matrix, one datum after another: rows[starts[dd]] up to
+    // rows[starts[dd+1]] are datum dd's known features.
+    int nonzero = 0;
+    for (FeatureVector features : batch)
+      nonzero += features.size();
+    int[] starts = new int[size + 1];
+    int[] rows = new int[nonzero];
+    double[] values = new double[nonzero];
+    int kk = 0;
+    for (int dd = 0; dd < size; dd++) {
+      FeatureVector features = batch.get(dd);
+      boolean shared = (features.getDictionary() == FeatureDictionary.shared());
+      starts[dd] = kk;
+      for (int ff = 0; ff < features.size(); ff++) {
+        int row = featureRow(features, ff, shared);
+        if (row >= 0) {
+          rows[kk] = row * numLabels;
+          values[kk] = features.getValue(ff);
+          kk++;
+        }
+      }
+    }
+    starts[size] = kk;
+
+    double[] scores = new double[size * numLabels];
+    for (int dd = 0; dd < size; dd++) {
+      int base = dd * numLabels;
+      for (int ll = 0; ll < numLabels; ll++)
+        scores[base + ll] = bias[ll];
+      for (kk = starts[dd]; kk < starts[dd + 1]; kk++) {
+        int row = rows[kk];
+        double value = values[kk];
+        for (int ll = 0; ll < numLabels; ll++)
+          scores[base + ll] += weights[row + ll] * value;
+      }
+    }
+
+    List<Pair<String, Double>> results = new ArrayList<Pair<String, Double>>(
+        size);
+    for (int dd = 0; dd < size; dd++) {
+      int base = dd * numLabels;
+      int best = argmax(scores, base);
+      results.add(new Pair<String, Double>(labels[best],
+          probability(scores, base, best)));
+    }
+    return results;
+  }
+
+  private int argmax(double[] scores) {
+    return argmax(scores, 0);
+  }
+
+  private int argmax(double[] scores, int base) {
+    int best = 0;
+    for (int ll = 1; ll < labels.length; ll++)
+      if (scores[base + ll] > scores[base + best])
+        best = ll;
+    return best;
+  }
+
+  /**
+   * @return The softmax probability of the best label, given the raw scores
+   *         from score().
+   */
+  public double probability(double[] scores, int best) {
+    return probability(scores, 0, best);
+  }
+
+  private double probability(double[] scores, int base, int best) {
+    double sum = 0.0;
+    for (int ll = 0; ll < labels.length; ll++)
+      sum += Math.exp(scores[base + ll] - scores[base + best]);
+    return 1.0 / sum;
+  }
+
+  public String classOf(Counter<String> features) {
+    return labels[score(features, scratch.get())];
+  }
+
+  public String classOf(FeatureVector features) {
+    return labels[score(features, scratch.get())];
+  }
+
+  /**
+   * @return A pair: (1) the top label, (2) the probability of the top label
+   */
+  public Pair<String, Double> labelProb(Counter<String> features) {
+    double[] scores = scratch.get();
+    int best = score(features, scores);
+    return new Pair<String, Double>(labels[best], probability(scores, best));
+  }
+
+  public Pair<String, Double> labelProb(FeatureVector features) {
+    double[] scores = scratch.get();
+    int best = score(features, scores);
+    return new Pair<String, Double>(labels[best], probability(scores, best));
+  }
+
+  /**
+   * classOf() with the compiled form when the classifier is linear, and the
+   * classifier itself otherwise.
+   */
+  public static String classOf(Classifier<String, String> classifier,
+      RVFDatum<String, String> datum) {
+    CompiledLinearClassifier fast = forClassifier(classifier);
+    if (fast == null)
+      return classifier.classOf(datum);
+    return fast.classOf(datum.asFeaturesCounter());
+  }
+
+  public static String classOf(Classifier<String, String> classifier,
+      FeatureVector features) {
+    CompiledLinearClassifier fast = forClassifier(classifier);
+    if (fast == null)
+      return classifier.classOf(
+          new RVFDatum<String, String>(features.toCounter(), null));
+    return fast.classOf(features);
+  }
+
+  public void write(String path) throws IOException {
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(path)));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(labels.length);
+    for (int ll = 0; ll < labels.length; ll++) {
+      out.writeUTF(labels[ll]);
+      out.writeFloat(bias[ll]);
+    }
+    int numFeatures = numFeatures();
+    String[] features = new String[numFeatures];
+    for (int slot = 0; slot < slotFeatures.length; slot++)
+      if (slotFeatures[slot] != null)
+        features[slotRows[slot]] = slotFeatures[slot];
+    out.writeInt(numFeatures);
+    out.writeInt(nullRow);
+    for (int ff = 0; ff < numFeatures; ff++) {
+      out.writeUTF(ff == nullRow ? "" : features[ff]);
+      for (int ll = 0; ll < labels.length; ll++)
+        out.writeFloat(weights[ff * labels.length + ll]);
+    }
+    out.close();
+  }
+
+  public static CompiledLinearClassifier read(String path) throws IOException {
+    DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(path)));
+    try {
+      if (in.readInt() != MAGIC)
+        throw new IOException("Not a compiled classifier: " + path);
+      int version = in.readInt();
+      if (version != VERSION)
+        throw new IOException("Unknown compiled classifier version " + version
+            + ": " + path);
+      int numLabels = in.readInt();
+      String[] labels = new String[numLabels];
+      float[] bias = new float[numLabels];
+      for (int ll = 0; ll < numLabels; ll++) {
+        labels[ll] = in.readUTF();
+        bias[ll] = in.readFloat();
+      }
+      int numFeatures = in.readInt();
+      int nullRow = in.readInt();
+      String[] features = new String[numFeatures];
+      float[] weights = new float[numFeatures * numLabels];
+      for (int ff = 0; ff < numFeatures; ff++) {
+        features[ff] = in.readUTF();
+        for (int ll = 0; ll < numLabels; ll++)
+          weights[ff * numLabels + ll] = in.readFloat();
+      }
+      if (nullRow >= 0)
+        features[nullRow] = null;
+      return new CompiledLinearClassifier(labels, features, weights, bias);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Compile a serialized classifier: CompiledLinearClassifier <classifier>
+   * <output>
+   */
+  @SuppressWarnings("unchecked")
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println(
+          "CompiledLinearClassifier <serialized-classifier> <output-path>");
+      System.exit(1);
+    }
+    Classifier<String, String> classifier = Util.readClassifierFromFile(args[0]);
+    if (!(classifier instanceof LinearClassifier)) {
+      System.out.println("Not a LinearClassifier: " + args[0]);
+      System.exit(1);
+    }
+    CompiledLinearClassifier result = compile(
+        (LinearClassifier<String, String>) classifier);
+    result.write(args[1]);
+    System.out.println("Wrote " + result.numLabels() + " labels and "
+        + result.numFeatures() + " features to " + args[1]);
+  }
+}
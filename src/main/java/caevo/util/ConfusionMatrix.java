@@ -0,0 +1,85 @@
+package caevo.util;
+
+import caevo.tlink.TLink;
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+
+/**
+ * Counts of guessed relations against gold relations, indexed by the
+ * TLink.Type ordinals, plus how many gold links have each relation. Counting a
+ * link is two array increments, with no String keys built.
+ */
+public class ConfusionMatrix {
+  private static final int NUM_TYPES = TLink.Type.values().length;
+
+  // [gold][guess]
+  private final long[][] counts = new long[NUM_TYPES][NUM_TYPES];
+  private final long[] goldCounts = new long[NUM_TYPES];
+
+  /**
+   * Count one guess for a gold link. Null relations are not counted.
+   */
+  public void add(TLink.Type gold, TLink.Type guess) {
+    if (gold != null && guess != null)
+      counts[gold.ordinal()][guess.ordinal()]++;
+  }
+
+  /**
+   * Count one gold link.
+   */
+  public void addGold(TLink.Type gold) {
+    if (gold != null)
+      goldCounts[gold.ordinal()]++;
+  }
+
+  public long getCount(TLink.Type gold, TLink.Type guess) {
+    return counts[gold.ordinal()][guess.ordinal()];
+  }
+
+  public long getGoldCount(TLink.Type gold) {
+    return goldCounts[gold.ordinal()];
+  }
+
+  /**
+   * @return The number of guesses with this relation, over all gold relations.
+   */
+  public long getGuessCount(TLink.Type guess) {
+    long total = 0;
+    for (int gg = 0; gg < NUM_TYPES; gg++)
+      total += counts[gg][guess.ordinal()];
+    return total;
+  }
+
+  public void merge(ConfusionMatrix other) {
+    for (int gg = 0; gg < NUM_TYPES; gg++) {
+      goldCounts[gg] += other.goldCounts[gg];
+      for (int uu = 0; uu < NUM_TYPES; uu++)
+        counts[gg][uu] += other.counts[gg][uu];
+    }
+  }
+
+  /**
+   * @return The guess counts keyed "GOLD GUESS", as Evaluate's Counter-based
+   *         printing expects.
+   */
+  public Counter<String> toCounter() {
+    Counter<String> counter = new ClassicCounter<String>();
+    TLink.Type[] types = TLink.Type.values();
+    for (int gg = 0; gg < NUM_TYPES; gg++)
+      for (int uu = 0; uu < NUM_TYPES; uu++)
+        if (counts[gg][uu] > 0)
+          counter.incrementCount(types[gg] + " " + types[uu], counts[gg][uu]);
+    return counter;
+  }
+
+  /**
+   * @return The gold relation counts, for the relations seen at least once.
+   */
+  public Counter<TLink.Type> goldCounter() {
+    Counter<TLink.Type> counter = new ClassicCounter<TLink.Type>();
+    for (TLink.Type type : TLink.Type.values())
+      if (goldCounts[type.ordinal()] > 0)
+        counter.incrementCount(type, goldCounts[type.ordinal()]);
+    return counter;
+  }
+}
@@ -0,0 +1,225 @@
+package caevo.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.nlp.trees.TypedDependency;
+
+/**
+ * One sentence's typed dependencies, indexed by the tokens they connect, so
+ * that finding a token's governors and dependents or a path between two tokens
+ * doesn't scan the whole dependency list for every pair.
+ *
+ * Token indices start at 1, like TypedDependency's. Each token's lists keep
+ * the dependencies in their original order, so code that took the first (or
+ * last) match while scanning the list gets the same one here.
+ *
+ * Paths between tokens are found by breadth first search and remembered, in
+ * the same string form that TreeOperator.dependencyPath() has always used:
+ * "nsubj<-ccomp->" is up an nsubj edge to its governor, then down a ccomp edge
+ * to its dependent.
+ *
+ * SieveSentence.getDependencyGraph() keeps one per sentence. Code that only
+ * has the list can use of(), which remembers the last few lists each thread
+ * asked about. Either way the list must not change after it is indexed.
+ */
+public class DependencyGraph {
+  private static final int RECENT = 4;
+  private static final ThreadLocal<DependencyGraph[]> recent = new ThreadLocal<DependencyGraph[]>() {
+    protected DependencyGraph[] initialValue() {
+      return new DependencyGraph[RECENT];
+    }
+  };
+
+  private final List<TypedDependency> deps;
+  private final Map<Integer, List<TypedDependency>> byToken = new HashMap<Integer, List<TypedDependency>>();
+  private final Map<Integer, List<TypedDependency>> byGovernor = new HashMap<Integer, List<TypedDependency>>();
+  private final Map<Integer, List<TypedDependency>> byDependent = new HashMap<Integer, List<TypedDependency>>();
+  private final Map<Long, String> paths = new HashMap<Long, String>();
+
+  public DependencyGraph(List<TypedDependency> deps) {
+    this.deps = deps;
+    if (deps != null) {
+      for (TypedDependency dep : deps) {
+        if (dep != null) {
+          int gov = dep.gov().index();
+          int child = dep.dep().index();
+          add(byGovernor, gov, dep);
+          add(byDependent, child, dep);
+          add(byToken, gov, dep);
+          if (child != gov)
+            add(byToken, child, dep);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The graph of the list, reusing the one built for it last time if
+   *         this thread asked about it recently.
+   */
+  public static DependencyGraph of(List<TypedDependency> deps) {
+    DependencyGraph[] cache = recent.get();
+    for (DependencyGraph graph : cache)
+      if (graph != null && graph.deps == deps)
+        return graph;
+    DependencyGraph graph = new DependencyGraph(deps);
+    System.arraycopy(cache, 0, cache, 1, RECENT - 1);
+    cache[0] = graph;
+    return graph;
+  }
+
+  private static void add(Map<Integer, List<TypedDependency>> map, int index,
+      TypedDependency dep) {
+    List<TypedDependency> list = map.get(index);
+    if (list == null) {
+      list = new ArrayList<TypedDependency>(2);
+      map.put(index, list);
+    }
+    list.add(dep);
+  }
+
+  private static List<TypedDependency> get(
+      Map<Integer, List<TypedDependency>> map, int index) {
+    List<TypedDependency> list = map.get(index);
+    if (list == null)
+      return Collections.emptyList();
+    return Collections.unmodifiableList(list);
+  }
+
+  /**
+   * @return The dependency list this graph was built from.
+   */
+  public List<TypedDependency> getDeps() {
+    return deps;
+  }
+
+  /**
+   * @return All dependencies the token takes part in, as governor or
+   *         dependent.
+   */
+  public List<TypedDependency> getDeps(int index) {
+    return get(byToken, index);
+  }
+
+  /**
+   * @return The dependencies where the token is the governor.
+   */
+  public List<TypedDependency> getDependents(int gov) {
+    return get(byGovernor, gov);
+  }
+
+  /**
+   * @return The dependencies where the token is the dependent.
+   */
+  public List<TypedDependency> getGovernors(int dep) {
+    return get(byDependent, dep);
+  }
+
+  /**
+   * @return The dependencies from governor gov to dependent dep.
+   */
+  public List<TypedDependency> getDeps(int gov, int dep) {
+    List<TypedDependency> found = null;
+    for (TypedDependency td : get(byGovernor, gov)) {
+      if (td.dep().index() == dep) {
+        if (found == null)
+          found = new ArrayList<TypedDependency>(1);
+        found.add(td);
+      }
+    }
+    if (found == null)
+      return Collections.emptyList();
+    return found;
+  }
+
+  /**
+   * @return The dependencies between the two tokens, in either direction.
+   */
+  public List<TypedDependency> getDepsBetween(int index1, int index2) {
+    List<TypedDependency> found = null;
+    for (TypedDependency td : get(byToken, index1)) {
+      int gov = td.gov().index();
+      int dep = td.dep().index();
+      if ((gov == index1 && dep == index2) || (gov == index2 && dep == index1)) {
+        if (found == null)
+          found = new ArrayList<TypedDependency>(1);
+        found.add(td);
+      }
+    }
+    if (found == null)
+      return Collections.emptyList();
+    return found;
+  }
+
+  /**
+   * Find a shortest dependency path from token index start to end. Ties go to
+   * the path through the dependencies that come first in the list.
+   *
+   * @return The path as a string, "" if start and end are the same token, or
+   *         null if they aren't connected.
+   */
+  public synchronized String path(int start, int end) {
+    if (start == end)
+      return "";
+    Long key = ((long) start << 32) | (end & 0xffffffffL);
+    if (paths.containsKey(key))
+      return paths.get(key);
+    String path = search(start, end);
+    paths.put(key, path);
+    return path;
+  }
+
+  private String search(int start, int end) {
+    // Token -> the dependency that first reached it.
+    Map<Integer, TypedDependency> reachedBy = new HashMap<Integer, TypedDependency>();
+    Map<Integer, Integer> previous = new HashMap<Integer, Integer>();
+    ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+    previous.put(start, null);
+    queue.add(start);
+
+    while (!queue.isEmpty()) {
+      int current = queue.poll();
+      for (TypedDependency dep : get(byToken, current)) {
+        int gov = dep.gov().index();
+        int child = dep.dep().index();
+        if (gov == current && !previous.containsKey(child)) {
+          previous.put(child, current);
+          reachedBy.put(child, dep);
+          if (child == end)
+            return pathString(start, end, previous, reachedBy);
+          queue.add(child);
+        }
+        if (child == current && !previous.containsKey(gov)) {
+          previous.put(gov, current);
+          reachedBy.put(gov, dep);
+          if (gov == end)
+            return pathString(start, end, previous, reachedBy);
+          queue.add(gov);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static String pathString(int start, int end,
+      Map<Integer, Integer> previous, Map<Integer, TypedDependency> reachedBy) {
+    List<String> steps = new ArrayList<String>();
+    int current = end;
+    while (current != start) {
+      TypedDependency dep = reachedBy.get(current);
+      // Reached the dependent from its governor: down the edge.
+      String arrow = (dep.dep().index() == current ? "->" : "<-");
+      steps.add(dep.reln() + arrow);
+      current = previous.get(current);
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int ii = steps.size() - 1; ii >= 0; ii--)
+      sb.append(steps.get(ii));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,262 @@
+package caevo.util;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds structures that are derived from stored strings and can be rebuilt
+ * from them at any time, like a sentence's parse Tree and typed dependencies.
+ * Each owner keeps one Slot per structure, and the cache's policy decides how
+ * long the slot keeps what is put in it:
+ *
+ * strong: until the owner is gone. Fastest, but a whole corpus of parse trees
+ * stays on the heap once every sentence has been asked for its tree.
+ *
+ * soft: until the garbage collector needs the memory.
+ *
+ * lru: until the total estimated size of everything cached passes the byte
+ * budget, when the least recently used slots are emptied.
+ *
+ * An emptied slot's get() returns null and its owner rebuilds the value. A
+ * value that holds another slot's value (an index over a tree) is charged for
+ * both, so the lru estimate errs high when both are cached.
+ * SieveSentence uses shared(), set by the SieveSentence.cache property
+ * (strong, soft or lru) and SieveSentence.cacheMB, the lru budget.
+ */
+public class DerivedCache {
+  public enum Policy {
+    STRONG, SOFT, LRU
+  }
+
+  public static final int DEFAULT_MB = 512;
+  private static DerivedCache shared;
+
+  private final String name;
+  private final Policy policy;
+  private final long budget;
+
+  // LRU only: access-ordered slots and their estimated sizes.
+  private final LinkedHashMap<Slot<?>, Long> recent = new LinkedHashMap<Slot<?>, Long>(
+      64, 0.75f, true);
+  private long bytes = 0;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * One derived value. A value set by one thread is seen by the others, but
+   * two threads that both find a slot empty both build and set it; the last
+   * set wins.
+   */
+  public static class Slot<V> {
+    private final DerivedCache cache;
+    private volatile Object ref; // the value, or a SoftReference to it
+
+    private Slot(DerivedCache cache) {
+      this.cache = cache;
+    }
+
+    /**
+     * @return The value, or null if it was never set or has been dropped.
+     */
+    public V get() {
+      return cache.get(this);
+    }
+
+    /**
+     * @param bytes
+     *          Rough heap size of the value, counted against the lru budget.
+     */
+    public void set(V value, long bytes) {
+      cache.set(this, value, bytes);
+    }
+  }
+
+  /**
+   * @param name
+   *          Name shown in stats().
+   * @param budget
+   *          The most estimated bytes to keep under the lru policy.
+   */
+  public DerivedCache(String name, Policy policy, long budget) {
+    this.name = name;
+    this.policy = policy;
+    this.budget = budget;
+  }
+
+  /**
+   * @return The cache for SieveSentence's parse trees and dependencies, set up
+   *         from the properties the first time it's asked for.
+   */
+  public static synchronized DerivedCache shared() {
+    if (shared == null) {
+      String policy = "strong";
+      int mb = DEFAULT_MB;
+      try {
+        policy = CaevoProperties.getString("SieveSentence.cache", policy);
+        mb = CaevoProperties.getInt("SieveSentence.cacheMB", mb);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      shared = new DerivedCache("SieveSentence", parsePolicy(policy),
+          mb * 1024L * 1024L);
+    }
+    return shared;
+  }
+
+  public static Policy parsePolicy(String policy) {
+    try {
+      return Policy.valueOf(policy.trim().toUpperCase());
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unknown cache policy " + policy
+          + ", expected strong, soft or lru");
+    }
+  }
+
+  public <V> Slot<V> newSlot() {
+    return new Slot<V>(this);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <V> V get(Slot<V> slot) {
+    if (policy == Policy.STRONG) {
+      // A set value is never dropped, so only misses say anything.
+      V value = (V) slot.ref;
+      if (value == null)
+        misses.incrementAndGet();
+      return value;
+    }
+
+    V value;
+    Object ref = slot.ref;
+    switch (policy) {
+    case SOFT:
+      value = (ref == null ? null : ((SoftReference<V>) ref).get());
+      if (value == null && ref != null) {
+        // Unless another thread has set a new value since.
+        synchronized (slot) {
+          if (slot.ref == ref)
+            slot.ref = null;
+        }
+        evictions.incrementAndGet();
+      }
+      break;
+    default: // LRU
+      synchronized (this) {
+        value = (V) slot.ref;
+        if (value != null)
+          recent.get(slot); // mark as just used
+      }
+    }
+
+    if (value == null)
+      misses.incrementAndGet();
+    else
+      hits.incrementAndGet();
+    return value;
+  }
+
+  private <V> void set(Slot<V> slot, V value, long size) {
+    switch (policy) {
+    case SOFT:
+      synchronized (slot) {
+        slot.ref = (value == null ? null : new SoftReference<V>(value));
+      }
+      break;
+    case LRU:
+      synchronized (this) {
+        Long old = recent.remove(slot);
+        if (old != null)
+          bytes -= old;
+        slot.ref = value;
+        if (value != null) {
+          recent.put(slot, size);
+          bytes += size;
+          evict();
+        }
+      }
+      break;
+    default:
+      slot.ref = value;
+    }
+  }
+
+  /**
+   * Empty the least recently used slots until under budget, always keeping the
+   * one just set.
+   */
+  private void evict() {
+    Iterator<Map.Entry<Slot<?>, Long>> iter = recent.entrySet().iterator();
+    while (bytes > budget && recent.size() > 1) {
+      Map.Entry<Slot<?>, Long> eldest = iter.next();
+      eldest.getKey().ref = null;
+      bytes -= eldest.getValue();
+      iter.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * @return Estimated bytes held under the lru policy, 0 under the others.
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return get() calls that found their value. Not counted under strong,
+   *         where it would only cost every reader a shared counter.
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return Values dropped by the lru budget or by the garbage collector.
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * @return The fraction of get() calls that found their value, 0 if none or
+   *         under strong.
+   */
+  public double getHitRate() {
+    long hh = hits.get();
+    long total = hh + misses.get();
+    return (total == 0 ? 0.0 : (double) hh / total);
+  }
+
+  /**
+   * @return A one line summary: name, policy, lru size/budget, hits, misses,
+   *         evictions and hit rate.
+   */
+  public String stats() {
+    String str = name + " cache " + policy.toString().toLowerCase();
+    if (policy == Policy.LRU)
+      str += " " + (getBytes() >> 20) + "/" + (budget >> 20) + "MB";
+    if (policy == Policy.STRONG)
+      return str + " misses=" + misses.get();
+    return str + " hits=" + hits.get() + " misses=" + misses.get()
+        + " evictions=" + evictions.get()
+        + String.format(" hitRate=%.3f", getHitRate());
+  }
+}
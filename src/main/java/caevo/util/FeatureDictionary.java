@@ -0,0 +1,169 @@
+package caevo.util;
+
+import java.util.Arrays;
+
+/**
+ * Maps feature strings to dense int ids and back. Features are looked up by
+ * their characters, so a feature built in a StringBuilder is only turned into
+ * a String the first time it is seen; after that the dictionary's own copy is
+ * used.
+ *
+ * Featurizers only look features up. The shared dictionary grows when a
+ * classifier is compiled (see CompiledLinearClassifier), so it holds the
+ * features of the models compiled in this process and no more, however many
+ * documents are featurized. A feature no model knows stays a String in its
+ * FeatureVector.
+ *
+ * Lookups take no lock: they read an immutable snapshot of the table. intern()
+ * builds a new snapshot and publishes it, so interning is slow and meant to be
+ * done in batches, once per compiled model.
+ */
+public class FeatureDictionary {
+  private static final FeatureDictionary shared = new FeatureDictionary();
+
+  /**
+   * One published state of the dictionary. Never changed once published,
+   * except that ids past size may be filled in features.
+   */
+  private static class Table {
+    // Open addressing: slot -> feature and its id, or null.
+    final String[] slotFeatures;
+    final int[] slotIds;
+    final String[] features;
+    final int size;
+
+    Table(String[] slotFeatures, int[] slotIds, String[] features, int size) {
+      this.slotFeatures = slotFeatures;
+      this.slotIds = slotIds;
+      this.features = features;
+      this.size = size;
+    }
+  }
+
+  private volatile Table table = new Table(new String[1024], new int[1024],
+      new String[512], 0);
+
+  /**
+   * @return The dictionary that FeatureVectors use unless given another one.
+   */
+  public static FeatureDictionary shared() {
+    return shared;
+  }
+
+  /**
+   * @return The id of the feature, or -1 if it isn't in the dictionary.
+   */
+  public int lookup(CharSequence feature) {
+    Table current = table;
+    int slot = find(current.slotFeatures, feature, hashCode(feature));
+    return (current.slotFeatures[slot] == null ? -1 : current.slotIds[slot]);
+  }
+
+  /**
+   * @return The id of the feature, added to the dictionary if it is new.
+   */
+  public int intern(CharSequence feature) {
+    return internAll(new CharSequence[] { feature })[0];
+  }
+
+  /**
+   * Adds all new features at once, publishing one new table.
+   * 
+   * @return The id of each feature, or -1 for a null feature.
+   */
+  public synchronized int[] internAll(CharSequence[] newFeatures) {
+    Table current = table;
+    int size = current.size;
+    int capacity = current.slotFeatures.length;
+    while ((size + newFeatures.length) * 2 > capacity)
+      capacity <<= 1;
+    String[] slotFeatures = new String[capacity];
+    int[] slotIds = new int[capacity];
+    for (int ii = 0; ii < current.slotFeatures.length; ii++) {
+      String key = current.slotFeatures[ii];
+      if (key != null) {
+        int slot = find(slotFeatures, key, key.hashCode());
+        slotFeatures[slot] = key;
+        slotIds[slot] = current.slotIds[ii];
+      }
+    }
+
+    String[] features = current.features;
+    int[] ids = new int[newFeatures.length];
+    for (int ii = 0; ii < newFeatures.length; ii++) {
+      CharSequence feature = newFeatures[ii];
+      if (feature == null) {
+        ids[ii] = -1;
+        continue;
+      }
+      int slot = find(slotFeatures, feature, hashCode(feature));
+      if (slotFeatures[slot] == null) {
+        String str = feature.toString();
+        if (size == features.length)
+          features = Arrays.copyOf(features, size * 2);
+        // Readers of the old table never look past its size.
+        features[size] = str;
+        slotFeatures[slot] = str;
+        slotIds[slot] = size++;
+      }
+      ids[ii] = slotIds[slot];
+    }
+    table = new Table(slotFeatures, slotIds, features, size);
+    return ids;
+  }
+
+  /**
+   * @return The feature with the given id. Ids are only valid if they came
+   *         from intern() on this dictionary.
+   */
+  public String get(int id) {
+    return table.features[id];
+  }
+
+  public int size() {
+    return table.size;
+  }
+
+  /**
+   * @return The feature's slot, or the empty slot where it would go.
+   */
+  private static int find(String[] slotFeatures, CharSequence feature,
+      int hh) {
+    int mask = slotFeatures.length - 1;
+    int slot = mix(hh) & mask;
+    String key;
+    while ((key = slotFeatures[slot]) != null) {
+      if (key.hashCode() == hh && contentEquals(key, feature))
+        return slot;
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Same value as String.hashCode(), without making the String.
+   */
+  private static int hashCode(CharSequence chars) {
+    if (chars instanceof String)
+      return chars.hashCode();
+    int hh = 0;
+    for (int ii = 0; ii < chars.length(); ii++)
+      hh = 31 * hh + chars.charAt(ii);
+    return hh;
+  }
+
+  private static int mix(int hh) {
+    return hh ^ (hh >>> 16);
+  }
+
+  private static boolean contentEquals(String key, CharSequence chars) {
+    if (key == chars)
+      return true;
+    if (key.length() != chars.length())
+      return false;
+    for (int ii = 0; ii < key.length(); ii++)
+      if (key.charAt(ii) != chars.charAt(ii))
+        return false;
+    return true;
+  }
+}
@@ -0,0 +1,204 @@
+package caevo.util;
+
+import java.util.Arrays;
+
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+
+/**
+ * A sparse feature vector of dictionary ids and values, for featurizers that
+ * would otherwise concatenate a new String and Counter entry for every feature
+ * of every datum. Each feature is built from its template and parts in a
+ * reused buffer, and doesn't become a String at all if the dictionary already
+ * knows it:
+ *
+ * <pre>
+ * feats.start("ev1Tense-").append(event.getTense()).add();
+ * </pre>
+ *
+ * makes the same feature as feats.incrementCount("ev1Tense-" +
+ * event.getTense()). Parts are appended the way String concatenation would, so
+ * null parts render as "null".
+ *
+ * Features the dictionary doesn't know are only looked up, never added to it:
+ * they are kept as Strings in the vector itself, with negative ids, so the
+ * dictionary doesn't grow with every new document. A classifier has never seen
+ * them either, so scoring skips them. A null feature, which add(String) allows
+ * like incrementCount(null) did, is kept the same way.
+ *
+ * toCounter() renders the original feature strings, for training, debugging,
+ * and anything else that wants a Counter. A feature added twice is stored
+ * twice, and toCounter() sums them like incrementCount() would.
+ *
+ * Call clear() to reuse a vector. Not thread-safe; the dictionary is.
+ */
+public class FeatureVector {
+  private final FeatureDictionary dictionary;
+  private final StringBuilder key = new StringBuilder(64);
+  private int[] ids;
+  private double[] values;
+  private int size = 0;
+  // Features not in the dictionary, by -(id + 1).
+  private String[] unknown = new String[8];
+  private int numUnknown = 0;
+
+  public FeatureVector() {
+    this(FeatureDictionary.shared());
+  }
+
+  public FeatureVector(FeatureDictionary dictionary) {
+    this.dictionary = dictionary;
+    ids = new int[32];
+    values = new double[32];
+  }
+
+  /**
+   * Begin a new feature with its template, e.g. "ev1Tense-". Finish it with
+   * add().
+   */
+  public FeatureVector start(String template) {
+    key.setLength(0);
+    key.append(template);
+    return this;
+  }
+
+  public FeatureVector append(String part) {
+    key.append(part);
+    return this;
+  }
+
+  public FeatureVector append(Object part) {
+    key.append(part);
+    return this;
+  }
+
+  public FeatureVector append(char part) {
+    key.append(part);
+    return this;
+  }
+
+  public FeatureVector append(boolean part) {
+    key.append(part);
+    return this;
+  }
+
+  public FeatureVector append(int part) {
+    key.append(part);
+    return this;
+  }
+
+  public FeatureVector append(long part) {
+    key.append(part);
+    return this;
+  }
+
+  /**
+   * Add the feature begun with start(), with a count of one.
+   */
+  public void add() {
+    add(1.0);
+  }
+
+  public void add(double value) {
+    int id = dictionary.lookup(key);
+    if (id < 0)
+      id = unknown(key.toString());
+    push(id, value);
+  }
+
+  /**
+   * Add a feature that is already a whole String.
+   */
+  public void add(String feature) {
+    add(feature, 1.0);
+  }
+
+  public void add(String feature, double value) {
+    int id = (feature == null ? -1 : dictionary.lookup(feature));
+    if (id < 0)
+      id = unknown(feature);
+    push(id, value);
+  }
+
+  public void addAll(FeatureVector other) {
+    for (int ii = 0; ii < other.size; ii++) {
+      if (other.dictionary == dictionary && other.ids[ii] >= 0)
+        push(other.ids[ii], other.values[ii]);
+      else
+        add(other.getFeature(ii), other.values[ii]);
+    }
+  }
+
+  /**
+   * @return The negative id of a feature the dictionary doesn't know.
+   */
+  private int unknown(String feature) {
+    if (numUnknown == unknown.length)
+      unknown = Arrays.copyOf(unknown, numUnknown * 2);
+    unknown[numUnknown++] = feature;
+    return -numUnknown;
+  }
+
+  private void push(int id, double value) {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    ids[size] = id;
+    values[size] = value;
+    size++;
+  }
+
+  public void clear() {
+    size = 0;
+    Arrays.fill(unknown, 0, numUnknown, null);
+    numUnknown = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return The feature's dictionary id, or a negative number if the
+   *         dictionary doesn't know it.
+   */
+  public int getId(int index) {
+    return ids[index];
+  }
+
+  public double getValue(int index) {
+    return values[index];
+  }
+
+  /**
+   * @return The feature string at the given position.
+   */
+  public String getFeature(int index) {
+    int id = ids[index];
+    return (id >= 0 ? dictionary.get(id) : unknown[-id - 1]);
+  }
+
+  public FeatureDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * @return The features as strings, the way the featurizers built them before
+   *         they used FeatureVectors.
+   */
+  public Counter<String> toCounter() {
+    Counter<String> counter = new ClassicCounter<String>();
+    for (int ii = 0; ii < size; ii++)
+      counter.incrementCount(getFeature(ii), values[ii]);
+    return counter;
+  }
+
+  public String toString() {
+    return toCounter().toString();
+  }
+}
@@ -0,0 +1,291 @@
+package caevo.util;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Leveled logging for the pipeline, one Log per component (usually the simple
+ * class name). Levels come from the properties file:
+ *
+ * <pre>
+ * Log.level=INFO              default for every component
+ * Log.TimexClassifier=DEBUG   one component
+ * Log.file=caevo.log          write to this file instead of stdout
+ * </pre>
+ *
+ * Levels are OFF, ERROR, WARN, INFO, DEBUG and TRACE. Hot loops should guard
+ * on isDebug()/isTrace() before building a message, or use the format
+ * versions, which do nothing if the level is off.
+ *
+ * With Log.file set, messages are handed to a background thread that does the
+ * file I/O, so the calling thread never waits on the disk.
+ */
+public class Log {
+  public enum Level {
+    OFF, ERROR, WARN, INFO, DEBUG, TRACE
+  }
+
+  private static final Map<String, Log> logs = new HashMap<String, Log>();
+  private static Appender appender = null;
+
+  private final String component;
+  private volatile Level level;
+
+  private Log(String component, Level level) {
+    this.component = component;
+    this.level = level;
+  }
+
+  public static Log getLog(Class<?> theclass) {
+    return getLog(theclass.getSimpleName());
+  }
+
+  public static synchronized Log getLog(String component) {
+    Log log = logs.get(component);
+    if (log == null) {
+      log = new Log(component, configuredLevel(component));
+      logs.put(component, log);
+    }
+    return log;
+  }
+
+  /**
+   * The level for a component from Log.<component>, then Log.level, then INFO.
+   */
+  private static Level configuredLevel(String component) {
+    try {
+      String name = CaevoProperties.getString("Log." + component,
+          CaevoProperties.getString("Log.level", Level.INFO.toString()));
+      return Level.valueOf(name.trim().toUpperCase());
+    } catch (IllegalArgumentException ex) {
+      System.err.println("Unknown log level for " + component + ": "
+          + ex.getMessage());
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    }
+    return Level.INFO;
+  }
+
+  public String getComponent() {
+    return component;
+  }
+
+  public Level getLevel() {
+    return level;
+  }
+
+  public void setLevel(Level level) {
+    this.level = level;
+  }
+
+  public boolean isEnabled(Level atLevel) {
+    return atLevel != Level.OFF && atLevel.ordinal() <= level.ordinal();
+  }
+
+  public boolean isError() {
+    return isEnabled(Level.ERROR);
+  }
+
+  public boolean isWarn() {
+    return isEnabled(Level.WARN);
+  }
+
+  public boolean isInfo() {
+    return isEnabled(Level.INFO);
+  }
+
+  public boolean isDebug() {
+    return isEnabled(Level.DEBUG);
+  }
+
+  public boolean isTrace() {
+    return isEnabled(Level.TRACE);
+  }
+
+  public void error(String message) {
+    if (isError())
+      write(Level.ERROR, message);
+  }
+
+  public void warn(String message) {
+    if (isWarn())
+      write(Level.WARN, message);
+  }
+
+  public void info(String message) {
+    if (isInfo())
+      write(Level.INFO, message);
+  }
+
+  public void debug(String message) {
+    if (isDebug())
+      write(Level.DEBUG, message);
+  }
+
+  public void trace(String message) {
+    if (isTrace())
+      write(Level.TRACE, message);
+  }
+
+  /**
+   * The format versions only call String.format() if the level is on.
+   */
+  public void info(String format, Object... args) {
+    if (isInfo())
+      write(Level.INFO, String.format(format, args));
+  }
+
+  public void debug(String format, Object... args) {
+    if (isDebug())
+      write(Level.DEBUG, String.format(format, args));
+  }
+
+  public void trace(String format, Object... args) {
+    if (isTrace())
+      write(Level.TRACE, String.format(format, args));
+  }
+
+  private void write(Level atLevel, String message) {
+    Appender out = getAppender();
+    if (out == null) {
+      // Errors and warnings go where they always have.
+      if (atLevel == Level.ERROR || atLevel == Level.WARN)
+        System.err.println(message);
+      else
+        System.out.println(message);
+    } else
+      out.append(atLevel + " " + component + ": " + message);
+  }
+
+  private static synchronized Appender getAppender() {
+    if (appender == null) {
+      String path = null;
+      try {
+        path = CaevoProperties.getString("Log.file", null);
+      } catch (IOException ex) {
+        ex.printStackTrace();
+      }
+      if (path == null || path.trim().length() == 0)
+        return null;
+      try {
+        appender = new Appender(path.trim());
+      } catch (IOException ex) {
+        System.err.println("Couldn't open log file " + path);
+        ex.printStackTrace();
+        return null;
+      }
+    }
+    return appender;
+  }
+
+  /**
+   * Write out everything logged so far. Only needed with Log.file; a shutdown
+   * hook also does this at exit.
+   */
+  public static void flush() {
+    Appender out;
+    synchronized (Log.class) {
+      out = appender;
+    }
+    if (out != null)
+      out.flush();
+  }
+
+  /**
+   * Queues lines for a daemon thread that writes them to the log file.
+   */
+  private static class Appender implements Runnable {
+    private static final int QUEUE_SIZE = 1 << 16;
+    private static final String FLUSH = new String("");
+
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<String>(
+        QUEUE_SIZE);
+    private final Writer writer;
+    private final Object flushed = new Object();
+    private long numFlushes = 0;
+
+    Appender(String path) throws IOException {
+      writer = new BufferedWriter(new OutputStreamWriter(
+          new FileOutputStream(path, true), "UTF-8"));
+      Thread thread = new Thread(this, "caevo-log");
+      thread.setDaemon(true);
+      thread.start();
+      Runtime.getRuntime().addShutdownHook(new Thread() {
+        public void run() {
+          Appender.this.flush();
+        }
+      });
+    }
+
+    void append(String line) {
+      try {
+        // Blocks if the writer falls a whole queue behind, rather than
+        // dropping lines.
+        queue.put(line);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * Wait until every line queued before this call is on disk.
+     */
+    void flush() {
+      synchronized (flushed) {
+        long target = numFlushes + 1;
+        append(FLUSH);
+        while (numFlushes < target) {
+          try {
+            flushed.wait(1000);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+
+    public void run() {
+      List<String> batch = new ArrayList<String>();
+      while (true) {
+        try {
+          batch.add(queue.take());
+          queue.drainTo(batch);
+          boolean flushRequested = false;
+          for (String line : batch) {
+            if (line == FLUSH)
+              flushRequested = true;
+            else {
+              writer.write(line);
+              writer.write('\n');
+            }
+          }
+          batch.clear();
+          // Nothing else waiting: push it to disk.
+          if (flushRequested || queue.isEmpty())
+            writer.flush();
+          if (flushRequested) {
+            synchronized (flushed) {
+              numFlushes++;
+              flushed.notifyAll();
+            }
+          }
+        } catch (InterruptedException ex) {
+          return;
+        } catch (IOException ex) {
+          ex.printStackTrace();
+          batch.clear();
+        }
+      }
+    }
+  }
+}
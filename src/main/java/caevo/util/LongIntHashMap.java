@@ -0,0 +1,154 @@
+package caevo.util;
+
+import java.util.Arrays;
+
+/**
+ * A small open-addressing hash map from primitive long keys to primitive int
+ * values. Used where we would otherwise build a String key (e.g., id1+id2) for
+ * every lookup, such as TLink pair bookkeeping.
+ *
+ * Removal uses backward-shift deletion, so there are no tombstones and lookups
+ * stay fast after many removals.
+ */
+public class LongIntHashMap {
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private long[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size = 0;
+  private int mask;
+  private final int missingValue;
+
+  public LongIntHashMap() {
+    this(16, -1);
+  }
+
+  /**
+   * @param capacity
+   *          Expected number of entries.
+   * @param missingValue
+   *          The value get() returns when a key is not in the map.
+   */
+  public LongIntHashMap(int capacity, int missingValue) {
+    int cap = 16;
+    while (cap * LOAD_FACTOR < capacity)
+      cap <<= 1;
+    allocate(cap);
+    this.missingValue = missingValue;
+  }
+
+  private void allocate(int cap) {
+    keys = new long[cap];
+    values = new int[cap];
+    used = new boolean[cap];
+    mask = cap - 1;
+  }
+
+  /**
+   * Packs two non-negative ints into one long, first int in the high bits.
+   */
+  public static long pack(int a, int b) {
+    return ((long) a << 32) | (b & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Packs an unordered pair, so pack(a,b) == pack(b,a).
+   */
+  public static long packUnordered(int a, int b) {
+    return a < b ? pack(a, b) : pack(b, a);
+  }
+
+  private static int hash(long key) {
+    key ^= (key >>> 33);
+    key *= 0xff51afd7ed558ccdL;
+    key ^= (key >>> 33);
+    return (int) key;
+  }
+
+  private int slot(long key) {
+    int i = hash(key) & mask;
+    while (used[i] && keys[i] != key)
+      i = (i + 1) & mask;
+    return i;
+  }
+
+  public int get(long key) {
+    int i = slot(key);
+    return used[i] ? values[i] : missingValue;
+  }
+
+  public boolean containsKey(long key) {
+    return used[slot(key)];
+  }
+
+  /**
+   * @return The previous value for the key, or the missing value if none.
+   */
+  public int put(long key, int value) {
+    int i = slot(key);
+    if (used[i]) {
+      int old = values[i];
+      values[i] = value;
+      return old;
+    }
+    used[i] = true;
+    keys[i] = key;
+    values[i] = value;
+    size++;
+    if (size > keys.length * LOAD_FACTOR)
+      rehash(keys.length << 1);
+    return missingValue;
+  }
+
+  /**
+   * @return The removed value, or the missing value if the key wasn't present.
+   */
+  public int remove(long key) {
+    int i = slot(key);
+    if (!used[i])
+      return missingValue;
+    int old = values[i];
+    // Shift back any following entries that probed past this slot.
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (!used[j])
+        break;
+      int home = hash(keys[j]) & mask;
+      // Move entry j into the hole at i if its home slot isn't in (i, j].
+      if ((j > i && (home <= i || home > j)) || (j < i && (home <= i && home > j))) {
+        keys[i] = keys[j];
+        values[i] = values[j];
+        i = j;
+      }
+    }
+    used[i] = false;
+    size--;
+    return old;
+  }
+
+  private void rehash(int newCap) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+    allocate(newCap);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldUsed[i]) {
+        int s = slot(oldKeys[i]);
+        used[s] = true;
+        keys[s] = oldKeys[i];
+        values[s] = oldValues[i];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    Arrays.fill(used, false);
+    size = 0;
+  }
+}
@@ -0,0 +1,139 @@
+package caevo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded, thread-safe LRU cache. Keys are spread over a fixed number
+ * of segments, each an access-ordered LinkedHashMap behind its own lock, so
+ * threads looking up different words rarely wait on each other. When a segment
+ * is full, its least recently used entry is evicted.
+ *
+ * Null values can't be stored: get() returns null for a miss.
+ */
+public class LookupCache<K, V> {
+  private static final int NUM_SEGMENTS = 16;
+
+  private final String name;
+  private final int capacity;
+  private final Segment<K, V>[] segments;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * One lock and one LRU map per segment.
+   */
+  private static class Segment<SK, SV> extends LinkedHashMap<SK, SV> {
+    private static final long serialVersionUID = 1L;
+    private final int maxSize;
+    private final AtomicLong evictions;
+
+    Segment(int maxSize, AtomicLong evictions) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+      this.evictions = evictions;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<SK, SV> eldest) {
+      if (size() > maxSize) {
+        evictions.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * @param name
+   *          Name shown in stats().
+   * @param capacity
+   *          The most entries to keep. Spread evenly over the segments.
+   */
+  @SuppressWarnings("unchecked")
+  public LookupCache(String name, int capacity) {
+    this.name = name;
+    this.capacity = Math.max(1, capacity);
+    int numSegments = Math.min(NUM_SEGMENTS, this.capacity);
+    int perSegment = (this.capacity + numSegments - 1) / numSegments;
+    segments = new Segment[numSegments];
+    for (int ii = 0; ii < numSegments; ii++)
+      segments[ii] = new Segment<K, V>(perSegment, evictions);
+  }
+
+  private Segment<K, V> segmentFor(Object key) {
+    int hash = key.hashCode();
+    hash ^= (hash >>> 16);
+    return segments[(hash & 0x7fffffff) % segments.length];
+  }
+
+  /**
+   * @return The cached value, or null if the key isn't cached.
+   */
+  public V get(K key) {
+    Segment<K, V> segment = segmentFor(key);
+    V value;
+    synchronized (segment) {
+      value = segment.get(key);
+    }
+    if (value == null)
+      misses.incrementAndGet();
+    else
+      hits.incrementAndGet();
+    return value;
+  }
+
+  public void put(K key, V value) {
+    Segment<K, V> segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(key, value);
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<K, V> segment : segments)
+      synchronized (segment) {
+        size += segment.size();
+      }
+    return size;
+  }
+
+  public void clear() {
+    for (Segment<K, V> segment : segments)
+      synchronized (segment) {
+        segment.clear();
+      }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * @return A one line summary: name, size/capacity, hits, misses, evictions.
+   */
+  public String stats() {
+    return name + " " + size() + "/" + capacity + " hits=" + hits.get()
+        + " misses=" + misses.get() + " evictions=" + evictions.get();
+  }
+}
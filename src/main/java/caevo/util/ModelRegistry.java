@@ -0,0 +1,282 @@
+package caevo.util;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.stanford.nlp.classify.Classifier;
+
+/**
+ * One copy of each trained classifier for the whole process. Sieves ask for a
+ * model when they first need it, instead of deserializing their own copies in
+ * their constructors, so only the models of the sieves that actually run get
+ * loaded, and every sieve instance and thread shares the same read-only copy.
+ *
+ * <pre>
+ * Classifier&lt;String, String&gt; classifier = ModelRegistry
+ *     .getClassifier("/models/tlinks/tlink.edct.classifier");
+ * </pre>
+ *
+ * Each model is loaded once even if several threads ask for it at the same
+ * time. printReport() lists every loaded model with its load time and an
+ * estimate of the heap it retains.
+ */
+public class ModelRegistry {
+  private static final Log log = Log.getLog(ModelRegistry.class);
+
+  private static final ConcurrentMap<String, Model> models = new ConcurrentHashMap<String, Model>();
+  private static int numLoaded = 0;
+
+  /**
+   * One model, loaded on the first call to get().
+   */
+  public static class Model {
+    private final String name;
+    private final URL url;
+    private final String path;
+    private boolean loaded = false;
+    private Classifier<String, String> classifier = null;
+    private int loadOrder = -1;
+    private long loadNanos = 0;
+    private long allocBytes = 0;
+    private long retainedBytes = -1;
+
+    Model(String name, URL url, String path) {
+      this.name = name;
+      this.url = url;
+      this.path = path;
+    }
+
+    synchronized Classifier<String, String> get() {
+      if (!loaded) {
+        Timings.Timer timer = Timings.startDetailed("model:" + name, null);
+        if (url != null)
+          classifier = Util.readClassifierFromFile(url);
+        else if (path != null)
+          classifier = Util.readClassifierFromFile(path);
+        else
+          log.error("Model not found: " + name);
+        loadNanos = timer.stop();
+        allocBytes = timer.getAllocBytes();
+        loaded = true;
+        synchronized (ModelRegistry.class) {
+          loadOrder = numLoaded++;
+        }
+        if (classifier != null)
+          log.info(String.format(Locale.US, "Loaded model %s in %.1f ms", name,
+              loadNanos / 1e6));
+      }
+      return classifier;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public synchronized boolean isLoaded() {
+      return loaded;
+    }
+
+    public synchronized long getLoadNanos() {
+      return loadNanos;
+    }
+
+    /**
+     * @return Bytes allocated while deserializing, if the JVM can measure it.
+     */
+    public synchronized long getAllocBytes() {
+      return allocBytes;
+    }
+
+    /**
+     * @return An estimate of the heap the loaded model holds on to. Computed on
+     *         the first call, by walking the model's object graph.
+     */
+    public synchronized long getRetainedBytes() {
+      if (classifier == null)
+        return 0;
+      if (retainedBytes < 0)
+        retainedBytes = estimateSize(classifier);
+      return retainedBytes;
+    }
+  }
+
+  /**
+   * @param resource
+   *          A classpath resource, like /models/tlinks/tlink.edct.classifier
+   * @return The shared classifier, loading it if this is the first request.
+   *         Null if it couldn't be found.
+   */
+  public static Classifier<String, String> getClassifier(String resource) {
+    Model model = models.get(resource);
+    if (model == null) {
+      URL url = ModelRegistry.class.getResource(resource);
+      // Not on the classpath: try it as a file path.
+      String path = null;
+      if (url == null && new File(resource).exists())
+        path = resource;
+      Model created = new Model(resource, url, path);
+      model = models.putIfAbsent(resource, created);
+      if (model == null)
+        model = created;
+    }
+    return model.get();
+  }
+
+  public static boolean isLoaded(String name) {
+    Model model = models.get(name);
+    return model != null && model.isLoaded();
+  }
+
+  /**
+   * @return The loaded models, in the order they were loaded.
+   */
+  public static List<Model> getModels() {
+    List<Model> loaded = new ArrayList<Model>();
+    for (Model model : models.values())
+      if (model.isLoaded())
+        loaded.add(model);
+    Collections.sort(loaded, new Comparator<Model>() {
+      public int compare(Model m1, Model m2) {
+        return m1.loadOrder - m2.loadOrder;
+      }
+    });
+    return loaded;
+  }
+
+  /**
+   * Forget every model. Sieves still holding one keep their copy.
+   */
+  public static synchronized void clear() {
+    models.clear();
+    numLoaded = 0;
+  }
+
+  public static void printReport(PrintStream out) {
+    List<Model> loaded = getModels();
+    out.println("Models loaded: " + loaded.size());
+    long totalNanos = 0, totalBytes = 0;
+    for (Model model : loaded) {
+      long retained = model.getRetainedBytes();
+      totalNanos += model.getLoadNanos();
+      totalBytes += retained;
+      out.printf(Locale.US, "  %-50s %9.1f ms %10.1f MB retained%n",
+          model.getName(), model.getLoadNanos() / 1e6, retained / 1048576.0);
+    }
+    out.printf(Locale.US, "  %-50s %9.1f ms %10.1f MB retained%n", "total",
+        totalNanos / 1e6, totalBytes / 1048576.0);
+  }
+
+  // Field lists by class, for estimateSize().
+  private static final Map<Class<?>, Field[]> fieldCache = new HashMap<Class<?>, Field[]>();
+
+  /**
+   * Estimate the bytes reachable from root, assuming a 64-bit JVM with
+   * compressed references: 12-byte object headers, 16-byte array headers,
+   * 4-byte references and 8-byte alignment. Fields that can't be read are
+   * counted as references only, so this can undercount; on Java 9 and later,
+   * the JDK collections inside a model need
+   * --add-opens java.base/java.util=ALL-UNNAMED to be walked.
+   */
+  static long estimateSize(Object root) {
+    IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+    Deque<Object> stack = new ArrayDeque<Object>();
+    stack.push(root);
+    seen.put(root, Boolean.TRUE);
+    long total = 0;
+
+    while (!stack.isEmpty()) {
+      Object obj = stack.pop();
+      Class<?> cls = obj.getClass();
+
+      if (cls.isArray()) {
+        Class<?> component = cls.getComponentType();
+        int length = Array.getLength(obj);
+        total += align(16 + (long) length * sizeOf(component));
+        if (!component.isPrimitive()) {
+          for (int ii = 0; ii < length; ii++)
+            visit(Array.get(obj, ii), seen, stack);
+        }
+        continue;
+      }
+
+      long shallow = 12;
+      for (Field field : fields(cls)) {
+        shallow += sizeOf(field.getType());
+        if (!field.getType().isPrimitive()) {
+          try {
+            visit(field.get(obj), seen, stack);
+          } catch (IllegalAccessException ex) {
+            // Counted shallowly.
+          }
+        }
+      }
+      total += align(shallow);
+    }
+    return total;
+  }
+
+  private static void visit(Object obj, IdentityHashMap<Object, Boolean> seen,
+      Deque<Object> stack) {
+    // Classes are shared with the rest of the JVM.
+    if (obj != null && !(obj instanceof Class) && !seen.containsKey(obj)) {
+      seen.put(obj, Boolean.TRUE);
+      stack.push(obj);
+    }
+  }
+
+  private static synchronized Field[] fields(Class<?> cls) {
+    Field[] cached = fieldCache.get(cls);
+    if (cached == null) {
+      List<Field> list = new ArrayList<Field>();
+      for (Class<?> cc = cls; cc != null; cc = cc.getSuperclass()) {
+        for (Field field : cc.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()))
+            continue;
+          try {
+            field.setAccessible(true);
+            list.add(field);
+          } catch (RuntimeException ex) {
+            // A JDK internal we aren't allowed to read. Its size still
+            // counts, as a reference.
+            list.add(field);
+          }
+        }
+      }
+      cached = list.toArray(new Field[list.size()]);
+      fieldCache.put(cls, cached);
+    }
+    return cached;
+  }
+
+  private static int sizeOf(Class<?> type) {
+    if (type == long.class || type == double.class)
+      return 8;
+    if (type == int.class || type == float.class)
+      return 4;
+    if (type == short.class || type == char.class)
+      return 2;
+    if (type == byte.class || type == boolean.class)
+      return 1;
+    return 4;
+  }
+
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+}
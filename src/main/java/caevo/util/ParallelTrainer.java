@@ -0,0 +1,99 @@
+package caevo.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent training jobs, like fitting several classifiers over the
+ * same data or training several sieves, up to getThreads() at a time. Each
+ * job is timed under Timings.trainStage(name), and its time printed when it
+ * finishes.
+ *
+ * With one thread (the default) the jobs run in order on the calling thread,
+ * exactly as a plain loop would. Main sets the thread count from
+ * Main.threads. A job may itself call run(), like a sieve that fits several
+ * classifiers; its jobs then run in order on the job's own thread, so there
+ * are never more than getThreads() training threads in all, and nested jobs
+ * never wait on a pool their parent is holding.
+ */
+public class ParallelTrainer {
+  private static volatile int threads = 1;
+
+  // True on the pool's worker threads.
+  private static final ThreadLocal<Boolean> inWorker = new ThreadLocal<Boolean>();
+
+  public static void setThreads(int numThreads) {
+    threads = Math.max(1, numThreads);
+  }
+
+  public static int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Run the named jobs and wait for all of them.
+   *
+   * @return Job name -> result, in the order the jobs were given.
+   */
+  public static <T> Map<String, T> run(Map<String, Callable<T>> jobs) {
+    Map<String, T> results = new LinkedHashMap<String, T>();
+    int numWorkers = Math.min(threads, jobs.size());
+    if (numWorkers <= 1 || inWorker.get() != null) {
+      for (Map.Entry<String, Callable<T>> job : jobs.entrySet())
+        results.put(job.getKey(), timed(job.getKey(), job.getValue()));
+      return results;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+    List<Future<T>> futures = new ArrayList<Future<T>>();
+    for (final Map.Entry<String, Callable<T>> job : jobs.entrySet()) {
+      futures.add(pool.submit(new Callable<T>() {
+        public T call() throws Exception {
+          inWorker.set(Boolean.TRUE);
+          return timed(job.getKey(), job.getValue());
+        }
+      }));
+    }
+    pool.shutdown();
+
+    try {
+      int ii = 0;
+      for (String name : jobs.keySet())
+        results.put(name, futures.get(ii++).get());
+    } catch (InterruptedException ex) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    } catch (ExecutionException ex) {
+      pool.shutdownNow();
+      throw new RuntimeException(ex.getCause());
+    }
+    return results;
+  }
+
+  private static <T> T timed(String name, Callable<T> job) {
+    Timings.Timer timer = Timings.startDetailed(Timings.trainStage(name),
+        null);
+    T result;
+    try {
+      result = job.call();
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new RuntimeException(ex);
+    } finally {
+      timer.stop();
+    }
+    long nanos = timer.getWallNanos();
+    System.out.printf("Trained %s in %.1f seconds (%.1f cpu)\n", name,
+        nanos / 1e9, timer.getCpuNanos() / 1e9);
+    return result;
+  }
+}
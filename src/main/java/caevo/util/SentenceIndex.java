@@ -0,0 +1,223 @@
+package caevo.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.nlp.trees.Tree;
+
+/**
+ * Flat arrays over one parse tree, built in a single walk, so that finding a
+ * token's preterminal, a node's parent, dominance and tree paths don't search
+ * the tree from the root every time.
+ *
+ * Nodes are numbered in preorder. A node dominates exactly the nodes numbered
+ * after it up to its subtree's end. Token indices start at 1, like
+ * TreeOperator.indexToSubtree(), and count the same preterminals: nodes whose
+ * first child is a leaf.
+ *
+ * SieveSentence.getIndex() keeps one per sentence. Code that only has a Tree
+ * can use of(), which remembers the last few trees each thread asked about.
+ * Either way the tree must not change after it is indexed.
+ */
+public class SentenceIndex {
+  private static final int RECENT = 4;
+  private static final ThreadLocal<SentenceIndex[]> recent = new ThreadLocal<SentenceIndex[]>() {
+    protected SentenceIndex[] initialValue() {
+      return new SentenceIndex[RECENT];
+    }
+  };
+
+  private final Tree root;
+  private final Tree[] nodes;
+  private final int[] parents; // -1 for the root
+  private final int[] depths; // 0 for the root
+  private final int[] ends; // last node in each node's subtree
+  private final int[] firstTokens; // token span of each node, inclusive
+  private final int[] lastTokens;
+  private final Tree[] preterminals; // token index - 1 -> preterminal
+  private final Map<Tree, Integer> ids = new IdentityHashMap<Tree, Integer>();
+
+  private int numNodes = 0;
+  private List<Tree> tokenTrees = new ArrayList<Tree>();
+
+  public SentenceIndex(Tree root) {
+    this.root = root;
+    int size = countNodes(root);
+    nodes = new Tree[size];
+    parents = new int[size];
+    depths = new int[size];
+    ends = new int[size];
+    firstTokens = new int[size];
+    lastTokens = new int[size];
+    visit(root, -1, 0, false);
+    preterminals = tokenTrees.toArray(new Tree[tokenTrees.size()]);
+    tokenTrees = null;
+  }
+
+  /**
+   * @return The index of the tree, reusing the one built for it last time if
+   *         this thread asked about it recently.
+   */
+  public static SentenceIndex of(Tree tree) {
+    SentenceIndex[] cache = recent.get();
+    for (SentenceIndex index : cache)
+      if (index != null && index.root == tree)
+        return index;
+    SentenceIndex index = new SentenceIndex(tree);
+    System.arraycopy(cache, 0, cache, 1, RECENT - 1);
+    cache[0] = index;
+    return index;
+  }
+
+  private static int countNodes(Tree tree) {
+    int count = 1;
+    for (Tree child : tree.children())
+      count += countNodes(child);
+    return count;
+  }
+
+  private void visit(Tree node, int parent, int depth, boolean inPreterminal) {
+    int id = numNodes++;
+    nodes[id] = node;
+    parents[id] = parent;
+    depths[id] = depth;
+    ids.put(node, id);
+
+    Tree first = node.firstChild();
+    boolean preterminal = !inPreterminal && first != null && first.isLeaf();
+    if (preterminal)
+      tokenTrees.add(node);
+    firstTokens[id] = (preterminal ? tokenTrees.size()
+        : tokenTrees.size() + 1);
+
+    for (Tree child : node.children())
+      visit(child, id, depth + 1, inPreterminal || preterminal);
+
+    lastTokens[id] = tokenTrees.size();
+    ends[id] = numNodes - 1;
+  }
+
+  public Tree getTree() {
+    return root;
+  }
+
+  /**
+   * @return The number of tokens.
+   */
+  public int size() {
+    return preterminals.length;
+  }
+
+  /**
+   * @param index
+   *          Token index, starting from 1.
+   * @return The token's POS subtree, e.g. (NNP June), or null if there is no
+   *         such token.
+   */
+  public Tree preterminal(int index) {
+    if (index < 1 || index > preterminals.length)
+      return null;
+    return preterminals[index - 1];
+  }
+
+  public String posTag(int index) {
+    Tree tree = preterminal(index);
+    return (tree == null ? null : tree.label().value());
+  }
+
+  public String token(int index) {
+    Tree tree = preterminal(index);
+    return (tree == null ? null : tree.children()[0].nodeString());
+  }
+
+  /**
+   * @return True if the node is in this tree.
+   */
+  public boolean contains(Tree node) {
+    return ids.containsKey(node);
+  }
+
+  private int id(Tree node) {
+    Integer id = ids.get(node);
+    return (id == null ? -1 : id);
+  }
+
+  /**
+   * @return The node's parent, or null for the root and for nodes not in this
+   *         tree. Same as node.parent(root).
+   */
+  public Tree parent(Tree node) {
+    int id = id(node);
+    if (id <= 0)
+      return null;
+    return nodes[parents[id]];
+  }
+
+  /**
+   * @return The number of steps from the root down to the node, or -1 if it
+   *         is not in this tree.
+   */
+  public int depth(Tree node) {
+    int id = id(node);
+    return (id < 0 ? -1 : depths[id]);
+  }
+
+  /**
+   * @return True if ancestor is above node in the tree (not the node itself).
+   *         Same as ancestor.dominates(node).
+   */
+  public boolean dominates(Tree ancestor, Tree node) {
+    int aa = id(ancestor);
+    int nn = id(node);
+    return aa >= 0 && nn > aa && nn <= ends[aa];
+  }
+
+  /**
+   * @return The index of the node's first token, or -1 if it is not in this
+   *         tree. Greater than lastToken() if the node covers no tokens.
+   */
+  public int firstToken(Tree node) {
+    int id = id(node);
+    return (id < 0 ? -1 : firstTokens[id]);
+  }
+
+  public int lastToken(Tree node) {
+    int id = id(node);
+    return (id < 0 ? -1 : lastTokens[id]);
+  }
+
+  /**
+   * @return The nodes from one node up to the lowest node over both and down
+   *         to the other, inclusive. Same as root.pathNodeToNode(from, to),
+   *         which it falls back to for nodes not in this tree.
+   */
+  public List<Tree> path(Tree from, Tree to) {
+    int id1 = id(from);
+    int id2 = id(to);
+    if (id1 < 0 || id2 < 0)
+      return root.pathNodeToNode(from, to);
+
+    List<Tree> up = new ArrayList<Tree>();
+    List<Tree> down = new ArrayList<Tree>();
+    while (depths[id1] > depths[id2]) {
+      up.add(nodes[id1]);
+      id1 = parents[id1];
+    }
+    while (depths[id2] > depths[id1]) {
+      down.add(nodes[id2]);
+      id2 = parents[id2];
+    }
+    while (id1 != id2) {
+      up.add(nodes[id1]);
+      down.add(nodes[id2]);
+      id1 = parents[id1];
+      id2 = parents[id2];
+    }
+    up.add(nodes[id1]);
+    for (int ii = down.size() - 1; ii >= 0; ii--)
+      up.add(down.get(ii));
+    return up;
+  }
+}
@@ -0,0 +1,153 @@
+package caevo.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable snapshot of one sieve's settings: every property named
+ * <prefix>.<key>, read and resolved once. Sieves build one in their
+ * constructor and copy what they need into final fields, so annotate() never
+ * goes back to CaevoProperties.
+ *
+ * Because a SieveConfig is a value, two pipelines can run side by side with
+ * differently configured instances of the same sieve:
+ *
+ * <pre>
+ * new ReichenbachDG13(SieveConfig.load("ReichenbachDG13").with("sentWindow", "2"))
+ * </pre>
+ */
+public final class SieveConfig {
+  private static final Log log = Log.getLog(SieveConfig.class);
+
+  private final String prefix;
+  private final Map<String, String> values;
+
+  private SieveConfig(String prefix, Map<String, String> values) {
+    this.prefix = prefix;
+    this.values = Collections.unmodifiableMap(values);
+  }
+
+  /**
+   * Read the <prefix>.* settings from CaevoProperties: system properties first,
+   * then the loaded properties file.
+   */
+  public static SieveConfig load(String prefix) {
+    Map<String, String> values = new TreeMap<String, String>();
+    try {
+      Set<String> keys = new HashSet<String>();
+      if (!CaevoProperties.isLoaded)
+        CaevoProperties.load();
+      if (CaevoProperties.properties != null)
+        keys.addAll(CaevoProperties.properties.stringPropertyNames());
+      keys.addAll(System.getProperties().stringPropertyNames());
+      for (String key : keys) {
+        if (key.startsWith(prefix + ".")) {
+          String value = CaevoProperties.getString(key, null);
+          if (value != null)
+            values.put(key.substring(prefix.length() + 1), value.trim());
+        }
+      }
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    }
+    return new SieveConfig(prefix, values);
+  }
+
+  /**
+   * Read the <prefix>.* settings from the given properties only.
+   */
+  public static SieveConfig fromProperties(String prefix, Properties props) {
+    Map<String, String> values = new TreeMap<String, String>();
+    for (String key : props.stringPropertyNames())
+      if (key.startsWith(prefix + "."))
+        values.put(key.substring(prefix.length() + 1),
+            props.getProperty(key).trim());
+    return new SieveConfig(prefix, values);
+  }
+
+  /**
+   * @return A copy of this config with one setting changed.
+   */
+  public SieveConfig with(String key, String value) {
+    Map<String, String> copy = new TreeMap<String, String>(values);
+    copy.put(key, value);
+    return new SieveConfig(prefix, copy);
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public Set<String> keys() {
+    return values.keySet();
+  }
+
+  public boolean has(String key) {
+    return values.containsKey(key);
+  }
+
+  public String getString(String key, String defaultValue) {
+    String value = values.get(key);
+    return (value == null ? defaultValue : value);
+  }
+
+  public boolean getBoolean(String key, boolean defaultValue) {
+    String value = values.get(key);
+    if (value == null)
+      return defaultValue;
+    if (value.equalsIgnoreCase("true"))
+      return true;
+    if (value.equalsIgnoreCase("false"))
+      return false;
+    throw new IllegalArgumentException(
+        prefix + "." + key + " is not a boolean: " + value);
+  }
+
+  public int getInt(String key, int defaultValue) {
+    String value = values.get(key);
+    if (value == null)
+      return defaultValue;
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(
+          prefix + "." + key + " is not an integer: " + value);
+    }
+  }
+
+  public double getDouble(String key, double defaultValue) {
+    String value = values.get(key);
+    if (value == null)
+      return defaultValue;
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(
+          prefix + "." + key + " is not a number: " + value);
+    }
+  }
+
+  /**
+   * Warn about settings the sieve doesn't know, which are usually typos.
+   *
+   * @return The unknown keys.
+   */
+  public Set<String> checkKeys(String... known) {
+    Set<String> unknown = new HashSet<String>(values.keySet());
+    unknown.removeAll(Arrays.asList(known));
+    for (String key : unknown)
+      log.warn("Unknown setting " + prefix + "." + key + " (known: "
+          + Arrays.toString(known) + ")");
+    return unknown;
+  }
+
+  public String toString() {
+    return prefix + values;
+  }
+}
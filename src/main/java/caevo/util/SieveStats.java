@@ -1,9 +1,11 @@
 package caevo.util;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import caevo.Evaluate;
 import caevo.tlink.EventEventLink;
@@ -12,6 +14,7 @@ import caevo.tlink.TLink;
 import caevo.tlink.TimeTimeLink;
 import edu.stanford.nlp.stats.ClassicCounter;
 import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.stats.Counters;
 
 /**
  * Class to hold all links that are guessed by a specific sieve, as well as
@@ -27,6 +30,9 @@ public class SieveStats {
   List<TLink> lonelyLinks = new ArrayList<TLink>();
   Counter<String> guessCounts = new ClassicCounter<String>();
   int numProposed = 0, numRemoved = 0, numFromClosure = 0;
+  // Time spent in this sieve's annotate() calls, over all documents.
+  int numCalls = 0;
+  long wallNanos = 0, cpuNanos = 0, allocBytes = 0;
 
   String statsOutputDir = "sievestats";
 
@@ -57,6 +63,41 @@ public class SieveStats {
     numFromClosure += num;
   }
 
+  /**
+   * Add the time of one annotate() call.
+   */
+  public void addTime(Timings.Timer timer) {
+    numCalls++;
+    wallNanos += timer.getWallNanos();
+    cpuNanos += timer.getCpuNanos();
+    allocBytes += timer.getAllocBytes();
+  }
+
+  /**
+   * @return Links proposed per second of annotate() wall time.
+   */
+  public double linksPerSecond() {
+    return (wallNanos == 0 ? 0.0 : numProposed / (wallNanos / 1e9));
+  }
+
+  /**
+   * Add another SieveStats' counts and links into this one. Used to combine
+   * statistics gathered by separate worker threads.
+   */
+  public void merge(SieveStats other) {
+    numProposed += other.numProposed;
+    numRemoved += other.numRemoved;
+    numFromClosure += other.numFromClosure;
+    numCalls += other.numCalls;
+    wallNanos += other.wallNanos;
+    cpuNanos += other.cpuNanos;
+    allocBytes += other.allocBytes;
+    correctLinks.addAll(other.correctLinks);
+    incorrectLinks.addAll(other.incorrectLinks);
+    lonelyLinks.addAll(other.lonelyLinks);
+    Counters.addInPlace(guessCounts, other.guessCounts);
+  }
+
   public void addCorrect(TLink link) {
     correctLinks.add(link);
     guessCounts.incrementCount(link.getRelation() + " " + link.getRelation());
@@ -158,6 +199,13 @@ public class SieveStats {
     printer.println("Links ignored:\t" + numRemoved);
     printer.println("Links produced from closure:\t" + numFromClosure);
     printer.println("Links not in gold:\t" + lonelyLinks.size());
+    if (Timings.isEnabled())
+      printer.printf("Time (wall/cpu):\t%.1f ms / %.1f ms\t(%d docs)\n",
+          wallNanos / 1e6, cpuNanos / 1e6, numCalls);
+    else
+      printer.printf("Time (wall):\t%.1f ms\t(%d docs)\n", wallNanos / 1e6,
+          numCalls);
+    printer.printf("Links proposed per second:\t%.1f\n", linksPerSecond());
 
     // Overall precision.
     double totalGuessed = correctLinks.size() + incorrectLinks.size();
@@ -195,7 +243,7 @@ public class SieveStats {
 
   /**
    * Create a file with the statistics for this sieve including all guessed
-   * links.
+   * links, and a .json file with its counts and timings.
    */
   public void dumpStatsToFile() {
     try {
@@ -240,8 +288,34 @@ public class SieveStats {
 
       writer.flush();
       writer.close();
+
+      dumpJSON(new File(statsOutputDir + File.separator + this.sieveName
+          + ".json"));
     } catch (Exception ex) {
       ex.printStackTrace();
     }
   }
+
+  /**
+   * Write this sieve's counts, precision and timings as one JSON object.
+   */
+  public void dumpJSON(File file) throws IOException {
+    int totalGuessed = correctLinks.size() + incorrectLinks.size();
+    PrintStream writer = new PrintStream(file, "UTF-8");
+    writer.println("{");
+    writer.println("  \"sieve\": " + Timings.quote(sieveName) + ",");
+    writer.println("  \"proposed\": " + numProposed + ",");
+    writer.println("  \"removed\": " + numRemoved + ",");
+    writer.println("  \"fromClosure\": " + numFromClosure + ",");
+    writer.println("  \"notInGold\": " + lonelyLinks.size() + ",");
+    writer.println("  \"correct\": " + correctLinks.size() + ",");
+    writer.println("  \"guessed\": " + totalGuessed + ",");
+    writer.println("  \"documents\": " + numCalls + ",");
+    writer.printf(Locale.US, "  \"wallMs\": %.3f,\n", wallNanos / 1e6);
+    writer.printf(Locale.US, "  \"cpuMs\": %.3f,\n", cpuNanos / 1e6);
+    writer.println("  \"allocBytes\": " + allocBytes + ",");
+    writer.printf(Locale.US, "  \"linksPerSecond\": %.1f\n", linksPerSecond());
+    writer.println("}");
+    writer.close();
+  }
 }
@@ -0,0 +1,412 @@
+package caevo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Wall-clock time, CPU time and allocation estimates for the pipeline's stages
+ * (parsing, event and timex extraction, each sieve, closure, XML reading and
+ * writing), kept per document and aggregated over the whole run.
+ *
+ * Time a stage with:
+ *
+ * <pre>
+ * Timings.Timer timer = Timings.start(Timings.CLOSURE);
+ * ...
+ * timer.stop(newlinks.size());
+ * </pre>
+ *
+ * Calls are attributed to the document set with setDocument() on the calling
+ * thread. Nothing is recorded unless Timings.enabled=true. A disabled timer
+ * still measures wall time, so callers like SieveStats can use it either way,
+ * but skips the per-thread CPU and allocation counters, which cost far more
+ * than System.nanoTime(). startDetailed() measures everything regardless, for
+ * rare calls like training a model.
+ *
+ * writeReport() writes a JSON summary (per-stage totals, link throughput and
+ * log2 latency histograms) and a CSV with one row per document and stage.
+ */
+public class Timings {
+  public static final String PARSE = "parse";
+  public static final String EVENTS = "events";
+  public static final String TIMEX = "timex";
+  public static final String CLOSURE = "closure";
+  public static final String XML_READ = "xml-read";
+  public static final String XML_WRITE = "xml-write";
+
+  // Histogram bucket i counts calls that took [2^(i-1), 2^i) microseconds.
+  private static final int NUM_BUCKETS = 40;
+
+  private static volatile boolean enabled = false;
+
+  private static final ThreadLocal<String> currentDoc = new ThreadLocal<String>();
+
+  // Run totals by stage, in the order stages were first seen.
+  private static final Map<String, Stage> stages = new LinkedHashMap<String, Stage>();
+  // Document -> stage -> totals, in the order documents were first seen.
+  private static final Map<String, Map<String, Stage>> documents = new LinkedHashMap<String, Map<String, Stage>>();
+
+  private static final ThreadMXBean threadBean = ManagementFactory
+      .getThreadMXBean();
+  private static final boolean cpuSupported = threadBean
+      .isCurrentThreadCpuTimeSupported();
+  private static final boolean allocSupported = allocationSupported();
+
+  private static boolean allocationSupported() {
+    try {
+      return threadBean instanceof com.sun.management.ThreadMXBean
+          && ((com.sun.management.ThreadMXBean) threadBean)
+              .isThreadAllocatedMemorySupported();
+    } catch (Throwable ex) {
+      // Not a HotSpot-style JVM.
+      return false;
+    }
+  }
+
+  /**
+   * Totals for one stage, either over the run or for one document.
+   */
+  public static class Stage {
+    long calls = 0;
+    long wallNanos = 0;
+    long cpuNanos = 0;
+    long allocBytes = 0;
+    long links = 0;
+    long maxWallNanos = 0;
+    long[] wallHistogram = null;
+    long[] cpuHistogram = null;
+
+    Stage(boolean histograms) {
+      if (histograms) {
+        wallHistogram = new long[NUM_BUCKETS];
+        cpuHistogram = new long[NUM_BUCKETS];
+      }
+    }
+
+    void add(long wall, long cpu, long alloc, int numLinks) {
+      calls++;
+      wallNanos += wall;
+      cpuNanos += cpu;
+      allocBytes += alloc;
+      links += numLinks;
+      maxWallNanos = Math.max(maxWallNanos, wall);
+      if (wallHistogram != null) {
+        wallHistogram[bucket(wall)]++;
+        cpuHistogram[bucket(cpu)]++;
+      }
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getWallNanos() {
+      return wallNanos;
+    }
+
+    public long getCpuNanos() {
+      return cpuNanos;
+    }
+
+    public long getAllocBytes() {
+      return allocBytes;
+    }
+
+    public long getLinks() {
+      return links;
+    }
+
+    /**
+     * @return Links produced per second of wall time.
+     */
+    public double linksPerSecond() {
+      return (wallNanos == 0 ? 0.0 : links / (wallNanos / 1e9));
+    }
+  }
+
+  /**
+   * One timed call, started by Timings.start().
+   */
+  public static class Timer {
+    private final String stage;
+    private final String docname;
+    private final boolean detailed;
+    private final long wall0;
+    private final long cpu0;
+    private final long alloc0;
+    private long wall = 0, cpu = 0, alloc = 0;
+
+    Timer(String stage, String docname, boolean detailed) {
+      this.stage = stage;
+      this.docname = docname;
+      this.detailed = detailed;
+      alloc0 = (detailed ? threadAllocatedBytes() : 0);
+      cpu0 = (detailed ? threadCpuNanos() : 0);
+      wall0 = System.nanoTime();
+    }
+
+    public long stop() {
+      return stop(0);
+    }
+
+    /**
+     * Stop timing, and record the call if timings are enabled.
+     *
+     * @param numLinks
+     *          Links this call produced, for throughput.
+     * @return The wall time of the call in nanoseconds.
+     */
+    public long stop(int numLinks) {
+      wall = System.nanoTime() - wall0;
+      if (detailed) {
+        cpu = threadCpuNanos() - cpu0;
+        alloc = threadAllocatedBytes() - alloc0;
+      }
+      if (enabled)
+        record(stage, docname, wall, cpu, alloc, numLinks);
+      return wall;
+    }
+
+    public long getWallNanos() {
+      return wall;
+    }
+
+    /**
+     * @return The CPU time of the call, or 0 if it wasn't measured.
+     */
+    public long getCpuNanos() {
+      return cpu;
+    }
+
+    /**
+     * @return The bytes the call allocated, or 0 if they weren't measured.
+     */
+    public long getAllocBytes() {
+      return alloc;
+    }
+
+    /**
+     * @return True if CPU time and allocation were measured.
+     */
+    public boolean isDetailed() {
+      return detailed;
+    }
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  /**
+   * Set the document that this thread's timings are attributed to. Null for
+   * none, which records to the run totals only.
+   */
+  public static void setDocument(String docname) {
+    if (docname == null)
+      currentDoc.remove();
+    else
+      currentDoc.set(docname);
+  }
+
+  public static String getDocument() {
+    return currentDoc.get();
+  }
+
+  public static String sieveStage(String sieveName) {
+    return "sieve:" + sieveName;
+  }
+
+  public static String trainStage(String modelName) {
+    return "train:" + modelName;
+  }
+
+  public static Timer start(String stage) {
+    return new Timer(stage, currentDoc.get(), enabled);
+  }
+
+  public static Timer start(String stage, String docname) {
+    return new Timer(stage, docname, enabled);
+  }
+
+  /**
+   * Start a timer that measures CPU time and allocation even when timings are
+   * disabled.
+   */
+  public static Timer startDetailed(String stage, String docname) {
+    return new Timer(stage, docname, true);
+  }
+
+  private static long threadCpuNanos() {
+    return (cpuSupported ? threadBean.getCurrentThreadCpuTime() : 0);
+  }
+
+  private static long threadAllocatedBytes() {
+    if (!allocSupported)
+      return 0;
+    return ((com.sun.management.ThreadMXBean) threadBean)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  static int bucket(long nanos) {
+    long micros = nanos / 1000;
+    int bb = 64 - Long.numberOfLeadingZeros(micros);
+    return Math.min(bb, NUM_BUCKETS - 1);
+  }
+
+  private static synchronized void record(String stage, String docname,
+      long wall, long cpu, long alloc, int numLinks) {
+    Stage total = stages.get(stage);
+    if (total == null) {
+      total = new Stage(true);
+      stages.put(stage, total);
+    }
+    total.add(wall, cpu, alloc, numLinks);
+
+    if (docname != null) {
+      Map<String, Stage> docStages = documents.get(docname);
+      if (docStages == null) {
+        docStages = new LinkedHashMap<String, Stage>();
+        documents.put(docname, docStages);
+      }
+      Stage docStage = docStages.get(stage);
+      if (docStage == null) {
+        docStage = new Stage(false);
+        docStages.put(stage, docStage);
+      }
+      docStage.add(wall, cpu, alloc, numLinks);
+    }
+  }
+
+  /**
+   * @return The run totals for a stage, or null if it was never recorded.
+   */
+  public static synchronized Stage getStage(String stage) {
+    return stages.get(stage);
+  }
+
+  public static synchronized List<String> getStageNames() {
+    return new ArrayList<String>(stages.keySet());
+  }
+
+  public static synchronized void clear() {
+    stages.clear();
+    documents.clear();
+  }
+
+  /**
+   * Write basePath.timings.json and basePath.timings.csv.
+   */
+  public static void writeReport(String basePath) {
+    try {
+      writeJSON(new File(basePath + ".timings.json"));
+      writeCSV(new File(basePath + ".timings.csv"));
+      System.out.println("Wrote timings to " + basePath + ".timings.json");
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    }
+  }
+
+  /**
+   * Run totals and histograms for every stage.
+   */
+  public static synchronized void writeJSON(File file) throws IOException {
+    PrintStream out = new PrintStream(file, "UTF-8");
+    out.println("{");
+    out.println("  \"cpuTime\": " + cpuSupported + ",");
+    out.println("  \"allocation\": " + allocSupported + ",");
+    out.println("  \"documents\": " + documents.size() + ",");
+    out.println("  \"histogramBuckets\": \"bucket i counts calls of [2^(i-1), 2^i) microseconds\",");
+    out.println("  \"stages\": {");
+    int ss = 0;
+    for (Map.Entry<String, Stage> entry : stages.entrySet()) {
+      Stage stage = entry.getValue();
+      out.println("    " + quote(entry.getKey()) + ": {");
+      out.println("      \"calls\": " + stage.calls + ",");
+      out.println("      \"wallMs\": " + millis(stage.wallNanos) + ",");
+      out.println("      \"cpuMs\": " + millis(stage.cpuNanos) + ",");
+      out.println("      \"maxWallMs\": " + millis(stage.maxWallNanos) + ",");
+      out.println("      \"allocBytes\": " + stage.allocBytes + ",");
+      out.println("      \"links\": " + stage.links + ",");
+      out.printf(Locale.US, "      \"linksPerSecond\": %.1f,%n",
+          stage.linksPerSecond());
+      out.println("      \"wallHistogram\": " + toJSON(stage.wallHistogram) + ",");
+      out.println("      \"cpuHistogram\": " + toJSON(stage.cpuHistogram));
+      out.println("    }" + (++ss < stages.size() ? "," : ""));
+    }
+    out.println("  }");
+    out.println("}");
+    out.close();
+  }
+
+  /**
+   * One row per document and stage.
+   */
+  public static synchronized void writeCSV(File file) throws IOException {
+    PrintStream out = new PrintStream(file, "UTF-8");
+    out.println("document,stage,calls,wall_ms,cpu_ms,alloc_bytes,links");
+    for (Map.Entry<String, Map<String, Stage>> doc : documents.entrySet()) {
+      for (Map.Entry<String, Stage> entry : doc.getValue().entrySet()) {
+        Stage stage = entry.getValue();
+        out.println(csv(doc.getKey()) + "," + csv(entry.getKey()) + ","
+            + stage.calls + "," + millis(stage.wallNanos) + ","
+            + millis(stage.cpuNanos) + "," + stage.allocBytes + ","
+            + stage.links);
+      }
+    }
+    out.close();
+  }
+
+  private static String millis(long nanos) {
+    // Always a '.' decimal point, whatever the default locale.
+    return String.format(Locale.US, "%.3f", nanos / 1e6);
+  }
+
+  private static String toJSON(long[] counts) {
+    // Drop empty buckets off the end.
+    int last = counts.length;
+    while (last > 0 && counts[last - 1] == 0)
+      last--;
+    StringBuilder sb = new StringBuilder("[");
+    for (int ii = 0; ii < last; ii++) {
+      if (ii > 0)
+        sb.append(", ");
+      sb.append(counts[ii]);
+    }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * @return The string as a JSON string literal, quotes included.
+   */
+  static String quote(String str) {
+    StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+    for (int ii = 0; ii < str.length(); ii++) {
+      char ch = str.charAt(ii);
+      if (ch == '"' || ch == '\\')
+        sb.append('\\').append(ch);
+      else if (ch < 0x20)
+        sb.append(String.format("\\u%04x", (int) ch));
+      else
+        sb.append(ch);
+    }
+    return sb.append('"').toString();
+  }
+
+  private static String csv(String str) {
+    if (str.indexOf(',') < 0 && str.indexOf('"') < 0)
+      return str;
+    return "\"" + str.replace("\"", "\"\"") + "\"";
+  }
+}
@@ -5,9 +5,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.Vector;
 
 import edu.stanford.nlp.ling.CoreAnnotations.CopyAnnotation;
@@ -307,13 +305,15 @@ public class TreeOperator {
 
   /**
    * Assumes the goal is a word index in the sentence, and the first word starts
-   * at index 1.
+   * at index 1. Looked up in the tree's SentenceIndex, which is built once.
    * 
    * @return Subtree rooted where the index begins. It's basically the index's
    *         individual POS tree: (NNP June) or (CD 13)
    */
   public static Tree indexToSubtree(Tree full, int goal) {
-    return indexToSubtreeHelp(full, 0, goal);
+    if (full == null)
+      return null;
+    return SentenceIndex.of(full).preterminal(goal);
   }
 
   public static Tree indexToSubtreeHelp(Tree full, int current, int goal) {
@@ -368,7 +368,7 @@ public class TreeOperator {
 
   public static String pathNodeToNode(Tree tree, Tree sub1, Tree sub2,
       boolean noPOS) {
-    List<Tree> path = tree.pathNodeToNode(sub1, sub2);
+    List<Tree> path = SentenceIndex.of(tree).path(sub1, sub2);
     if (noPOS) {
       if (path.size() < 2) { // probably comparing the same two subtrees
         System.out.println("ERROR: pathNodeToNode length too short: sub1="
@@ -620,69 +620,14 @@ public class TreeOperator {
 
   /**
    * Calculate the shortest dependency path from token index start to end.
-   * Indices start at 1, so the first word in the sentence is index 1.
+   * Indices start at 1, so the first word in the sentence is index 1. Searched
+   * in the list's DependencyGraph, which is built once.
    * 
    * @return A single string representing the shortest path.
    */
   public static String dependencyPath(int start, int end,
       List<TypedDependency> deps) {
-    List<String> paths = paths(start, end, deps, null);
-    // One path? Return now!
-    if (paths.size() == 1)
-      return paths.get(0);
-
-    // More than one path. Find the shortest!
-    String shortest = null;
-    int dist = Integer.MAX_VALUE;
-    for (String path : paths) {
-      int count = path.split("->").length;
-      count += path.split("<-").length;
-      if (count < dist) {
-        dist = count;
-        shortest = path;
-      }
-    }
-    return shortest;
-  }
-
-  /**
-   * Recursive helper function to the main dependency path. Builds all possible
-   * dependency paths between two tokens.
-   */
-  private static List<String> paths(int start, int end,
-      List<TypedDependency> deps, Set<Integer> visited) {
-    // System.out.println("paths start=" + start + " end=" + end);
-    List<String> paths = new ArrayList<String>();
-
-    if (start == end) {
-      paths.add("");
-      return paths;
-    }
-
-    if (visited == null)
-      visited = new HashSet<Integer>();
-    visited.add(start);
-
-    for (TypedDependency dep : deps) {
-      if (dep != null) {
-        // System.out.println("\tdep=" + dep);
-        // System.out.println("\tvisited=" + visited);
-        if (dep.gov().index() == start
-            && !visited.contains(dep.dep().index())) {
-          List<String> newpaths = paths(dep.dep().index(), end, deps, visited);
-          for (String newpath : newpaths)
-            paths.add(dep.reln() + "->" + newpath);
-        }
-        if (dep.dep().index() == start
-            && !visited.contains(dep.gov().index())) {
-          List<String> newpaths = paths(dep.gov().index(), end, deps, visited);
-          for (String newpath : newpaths)
-            paths.add(dep.reln() + "<-" + newpath);
-        }
-      }
-    }
-
-    return paths;
+    return DependencyGraph.of(deps).path(start, end);
   }
 
   public static String directPath(int start, int end,
@@ -1,12 +1,14 @@
 package caevo.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import net.didion.jwnl.JWNL;
@@ -18,10 +20,22 @@ import net.didion.jwnl.data.PointerType;
 import net.didion.jwnl.data.Synset;
 import net.didion.jwnl.data.Word;
 import net.didion.jwnl.dictionary.Dictionary;
+import net.didion.jwnl.princeton.file.PrincetonRandomAccessDictionaryFile;
 
 /**
  * Helper class to lookup lemma forms in WordNet. Caches lookups in memory to
- * speedup the lookup, but can increase memory size.
+ * speedup the lookup. Each cache is a bounded LRU that is safe to share across
+ * threads; its capacity is WordNet.cacheSize, or WordNet.<cache>.cacheSize for
+ * one cache (e.g., WordNet.verbToLemma.cacheSize).
+ * 
+ * The noun category predicates (isNounEvent, isTime, etc.) first check the
+ * precomputed WordNetIndex at WordNet.index, if one is given, before walking
+ * hypernym chains.
+ * 
+ * JWNL's Dictionary is one instance per process, and it reads the dictionary
+ * files by seeking and reading with no locking of its own. Every call into it
+ * (including lazily loaded senses and pointer targets) holds DICTIONARY_LOCK,
+ * so Main's parallel workers can share one WordNet; cached answers don't lock.
  * 
  * Looks for the environment variable "JWNL" to find the path to
  * jwnl_file_properties.xml
@@ -29,19 +43,31 @@ import net.didion.jwnl.dictionary.Dictionary;
  * @author chambers
  */
 public class WordNet {
-  private Map<String, String> _verbToLemma;
-  private Map<String, String> _nounToLemma;
-  private Map<String, String> _adjToLemma;
-  private Map<String, Boolean> _isNounEvent;
-  private Map<String, Boolean> _isPhysicalObject;
-  private Map<String, Boolean> _isNonPersonLocationPhysicalObject;
-  private Map<String, Boolean> _isMaterial;
-  private Map<String, Boolean> _isPersonOrGroup;
-  private Map<String, Boolean> _isNamedEntity;
-  private Map<String, Boolean> _isLocation;
-  private Map<String, Boolean> _isStructure;
-  private Map<String, Boolean> _isMeasure;
-  private Map<String, Boolean> _isTime;
+  public static final int DEFAULT_CACHE_SIZE = 50000;
+
+  // Cached for words that have no lemma, since caches can't hold null.
+  private static final String NO_LEMMA = new String("");
+  // Held around every read of JWNL's shared Dictionary.
+  private static final Object DICTIONARY_LOCK = new Object();
+
+  private final LookupCache<String, String> _verbToLemma;
+  private final LookupCache<String, String> _nounToLemma;
+  private final LookupCache<String, String> _adjToLemma;
+  private final LookupCache<String, Boolean> _isNounEvent;
+  private final LookupCache<String, Boolean> _isPhysicalObject;
+  private final LookupCache<String, Boolean> _isNonPersonLocationPhysicalObject;
+  private final LookupCache<String, Boolean> _isMaterial;
+  private final LookupCache<String, Boolean> _isPersonOrGroup;
+  private final LookupCache<String, Boolean> _isNamedEntity;
+  private final LookupCache<String, Boolean> _isLocation;
+  private final LookupCache<String, Boolean> _isStructure;
+  private final LookupCache<String, Boolean> _isMeasure;
+  private final LookupCache<String, Boolean> _isTime;
+  private final List<LookupCache<String, ?>> _caches =
+      new ArrayList<LookupCache<String, ?>>();
+  private WordNetIndex _index = null;
+  // Where the data came from, for caches of anything derived from it.
+  private String _source;
 
   // HYPERNYM is the main link in WordNet. However, they also have an "instance
   // hypernym"
@@ -58,17 +84,81 @@ public class WordNet {
   }
 
   public WordNet(String wordnetPath) {
+    _verbToLemma = createCache("verbToLemma");
+    _nounToLemma = createCache("nounToLemma");
+    _adjToLemma = createCache("adjToLemma");
+    _isNounEvent = createCache("isNounEvent");
+    _isPhysicalObject = createCache("isPhysicalObject");
+    _isNonPersonLocationPhysicalObject = createCache(
+        "isNonPersonLocationPhysicalObject");
+    _isMaterial = createCache("isMaterial");
+    _isPersonOrGroup = createCache("isPersonOrGroup");
+    _isNamedEntity = createCache("isNamedEntity");
+    _isLocation = createCache("isLocation");
+    _isStructure = createCache("isStructure");
+    _isMeasure = createCache("isMeasure");
+    _isTime = createCache("isTime");
+
+    // Load the precomputed category index, if there is one.
+    _source = "jwnl=" + wordnetPath;
+    try {
+      _source += " backend=" + CaevoProperties.getString("WordNet.backend",
+          "file");
+      String indexPath = CaevoProperties.getString("WordNet.index", null);
+      if (indexPath != null && indexPath.length() > 0) {
+        File indexFile = new File(indexPath);
+        _source += " index=" + indexPath + " " + indexFile.length() + " "
+            + indexFile.lastModified();
+        _index = new WordNetIndex(indexFile);
+        System.out.println("Loaded WordNet index of " + _index.size()
+            + " nouns from " + indexPath);
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+
     // Load WordNet
     if (wordnetPath != null && wordnetPath.length() > 0)
       try {
-        JWNL.initialize(new FileInputStream(wordnetPath));
+        JWNL.initialize(openProperties(wordnetPath));
       } catch (FileNotFoundException e) {
         throw new RuntimeException(e);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
       } catch (JWNLException e) {
         throw new RuntimeException(e);
       }
   }
 
+  /**
+   * @return Where this WordNet reads from: the JWNL properties file, the
+   *         WordNet.backend, and the WordNet.index file (with its size and
+   *         modification time) if there is one.
+   */
+  public String getSource() {
+    return _source;
+  }
+
+  /**
+   * Open the JWNL properties file. With WordNet.backend=memory, the dictionary
+   * files are swapped to WordNetMemoryFile so they are read into memory once
+   * instead of with many small random-access reads.
+   */
+  private InputStream openProperties(String wordnetPath) throws IOException {
+    String backend = CaevoProperties.getString("WordNet.backend", "file");
+    if (!backend.equalsIgnoreCase("memory"))
+      return new FileInputStream(wordnetPath);
+
+    StringBuffer xml = new StringBuffer();
+    for (String line : Util.readLinesFromFile(wordnetPath))
+      xml.append(line).append('\n');
+    String swapped = xml.toString().replace(
+        PrincetonRandomAccessDictionaryFile.class.getName(),
+        WordNetMemoryFile.class.getName());
+    System.out.println("Loading WordNet dictionary files into memory.");
+    return new ByteArrayInputStream(swapped.getBytes("UTF-8"));
+  }
+
   public static String findWordnetPath() {
     // Load WordNet.
     String path = System.getenv("JWNL");
@@ -79,50 +169,80 @@ public class WordNet {
     return path;
   }
 
+  private <V> LookupCache<String, V> createCache(String name) {
+    int size = DEFAULT_CACHE_SIZE;
+    try {
+      size = CaevoProperties.getInt("WordNet.cacheSize", size);
+      size = CaevoProperties.getInt("WordNet." + name + ".cacheSize", size);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    LookupCache<String, V> cache = new LookupCache<String, V>(name, size);
+    _caches.add(cache);
+    return cache;
+  }
+
+  /**
+   * Use the given precomputed index for the noun category predicates, or null
+   * to always walk the hypernym chains.
+   */
+  public void setIndex(WordNetIndex index) {
+    _index = index;
+  }
+
+  /**
+   * @return Null if there is no index or the token isn't in it, otherwise
+   *         whether the token is in the given WordNetIndex category.
+   */
+  private Boolean fromIndex(String token, int category) {
+    if (_index == null)
+      return null;
+    return _index.has(token, category);
+  }
+
   public String hashSizes() {
     String str = "WordNet sizes: ";
-    str += " " + (_verbToLemma != null ? _verbToLemma.size() : 0);
-    str += " " + (_nounToLemma != null ? _nounToLemma.size() : 0);
-    str += " " + (_adjToLemma != null ? _adjToLemma.size() : 0);
-    str += " " + (_isNounEvent != null ? _isNounEvent.size() : 0);
-    str += " " + (_isPhysicalObject != null ? _isPhysicalObject.size() : 0);
-    str += " " + (_isNonPersonLocationPhysicalObject != null
-        ? _isNonPersonLocationPhysicalObject.size() : 0);
-    str += " " + (_isMaterial != null ? _isMaterial.size() : 0);
-    str += " " + (_isPersonOrGroup != null ? _isPersonOrGroup.size() : 0);
-    str += " " + (_isNamedEntity != null ? _isNamedEntity.size() : 0);
-    str += " " + (_isLocation != null ? _isLocation.size() : 0);
-    str += " " + (_isStructure != null ? _isStructure.size() : 0);
-    str += " " + (_isMeasure != null ? _isMeasure.size() : 0);
-    str += " " + (_isTime != null ? _isTime.size() : 0);
+    for (LookupCache<String, ?> cache : _caches)
+      str += " " + cache.size();
     return str;
   }
 
+  /**
+   * @return One line per cache with its size, capacity, hits, misses and
+   *         evictions.
+   */
+  public String cacheStats() {
+    StringBuffer buf = new StringBuffer("WordNet caches:");
+    for (LookupCache<String, ?> cache : _caches)
+      buf.append("\n  ").append(cache.stats());
+    return buf.toString();
+  }
+
   /**
    * @param word
    *          A word
    * @return The lemma of the word if it is a verb, null otherwise
    */
   public String verbToLemma(String word) {
-    if (_verbToLemma == null)
-      _verbToLemma = new HashMap<String, String>();
-
     // save time with a table lookup
-    if (_verbToLemma.containsKey(word))
-      return _verbToLemma.get(word);
+    String cached = _verbToLemma.get(word);
+    if (cached != null)
+      return (cached == NO_LEMMA ? null : cached);
 
     try {
       // don't return lemmas for hyphenated words
       if (word.indexOf('-') > -1 || word.indexOf('/') > -1) {
-        _verbToLemma.put(word, null);
+        _verbToLemma.put(word, NO_LEMMA);
         return null;
       }
 
       // get the lemma
-      IndexWord iword = Dictionary.getInstance().lookupIndexWord(POS.VERB,
-          word);
+      IndexWord iword;
+      synchronized (DICTIONARY_LOCK) {
+        iword = Dictionary.getInstance().lookupIndexWord(POS.VERB, word);
+      }
       if (iword == null) {
-        _verbToLemma.put(word, null);
+        _verbToLemma.put(word, NO_LEMMA);
         return null;
       } else {
         String lemma = iword.getLemma();
@@ -145,25 +265,25 @@ public class WordNet {
    * @return The lemma of the word if it is a noun, null otherwise
    */
   public String nounToLemma(String word) {
-    if (_nounToLemma == null)
-      _nounToLemma = new HashMap<String, String>();
-
     // save time with a table lookup
-    if (_nounToLemma.containsKey(word))
-      return _nounToLemma.get(word);
+    String cached = _nounToLemma.get(word);
+    if (cached != null)
+      return (cached == NO_LEMMA ? null : cached);
 
     try {
       // don't return lemmas for hyphenated words
       if (word.indexOf('-') > -1 || word.indexOf('/') > -1) {
-        _nounToLemma.put(word, null);
+        _nounToLemma.put(word, NO_LEMMA);
         return null;
       }
 
       // get the lemma
-      IndexWord iword = Dictionary.getInstance().lookupIndexWord(POS.NOUN,
-          word);
+      IndexWord iword;
+      synchronized (DICTIONARY_LOCK) {
+        iword = Dictionary.getInstance().lookupIndexWord(POS.NOUN, word);
+      }
       if (iword == null) {
-        _nounToLemma.put(word, null);
+        _nounToLemma.put(word, NO_LEMMA);
         return null;
       } else {
         String lemma = iword.getLemma();
@@ -175,8 +295,11 @@ public class WordNet {
           // (e.g. device).
           if (word.endsWith("es")) {
             String guess = word.substring(0, word.length() - 1);
-            IndexWord iGuess = Dictionary.getInstance()
-                .lookupIndexWord(POS.NOUN, guess);
+            IndexWord iGuess;
+            synchronized (DICTIONARY_LOCK) {
+              iGuess = Dictionary.getInstance().lookupIndexWord(POS.NOUN,
+                  guess);
+            }
             if (iGuess != null && guess.equals(iGuess.getLemma())) {
               lemma = guess;
               // System.out.println("WORDNET guessed singular: " + lemma + "
@@ -188,8 +311,11 @@ public class WordNet {
           // the singular man
           else if (word.endsWith("men")) {
             String guess = word.substring(0, word.length() - 2) + "an";
-            IndexWord iGuess = Dictionary.getInstance()
-                .lookupIndexWord(POS.NOUN, guess);
+            IndexWord iGuess;
+            synchronized (DICTIONARY_LOCK) {
+              iGuess = Dictionary.getInstance().lookupIndexWord(POS.NOUN,
+                  guess);
+            }
             if (iGuess != null && guess.equals(iGuess.getLemma())) {
               lemma = guess;
               // System.out.println("WORDNET guessed singular: " + lemma + "
@@ -220,25 +346,25 @@ public class WordNet {
    * @return The lemma of the word if it is an adjective, null otherwise
    */
   public String adjectiveToLemma(String word) {
-    if (_adjToLemma == null)
-      _adjToLemma = new HashMap<String, String>();
-
     // save time with a table lookup
-    if (_adjToLemma.containsKey(word))
-      return _adjToLemma.get(word);
+    String cached = _adjToLemma.get(word);
+    if (cached != null)
+      return (cached == NO_LEMMA ? null : cached);
 
     try {
       // don't return lemmas for hyphenated words
       if (word.indexOf('-') > -1 || word.indexOf('/') > -1) {
-        _adjToLemma.put(word, null);
+        _adjToLemma.put(word, NO_LEMMA);
         return null;
       }
 
       // get the lemma
-      IndexWord iword = Dictionary.getInstance().lookupIndexWord(POS.ADJECTIVE,
-          word);
+      IndexWord iword;
+      synchronized (DICTIONARY_LOCK) {
+        iword = Dictionary.getInstance().lookupIndexWord(POS.ADJECTIVE, word);
+      }
       if (iword == null) {
-        _adjToLemma.put(word, null);
+        _adjToLemma.put(word, NO_LEMMA);
         return null;
       } else {
         String lemma = iword.getLemma();
@@ -283,16 +409,19 @@ public class WordNet {
    * @return All synsets for the given word and POS category.
    */
   public Synset[] synsetsOf(String token, POS postag) {
-    try {
-      IndexWord iword = Dictionary.getInstance().lookupIndexWord(postag, token);
-      if (iword != null) {
-        Synset[] synsets = iword.getSenses();
-        return synsets;
+    synchronized (DICTIONARY_LOCK) {
+      try {
+        IndexWord iword = Dictionary.getInstance().lookupIndexWord(postag,
+            token);
+        if (iword != null) {
+          Synset[] synsets = iword.getSenses();
+          return synsets;
+        }
+      } catch (Exception ex) {
+        ex.printStackTrace();
       }
-    } catch (Exception ex) {
-      ex.printStackTrace();
+      return null;
     }
-    return null;
   }
 
   /**
@@ -387,7 +516,10 @@ public class WordNet {
               "WARNING: Null hypernym chain in synset: " + synset.getGloss());
         else if (link.getType().getKey().charAt(0) == hypernymChar) {
           try {
-            Synset target = link.getTargetSynset();
+            Synset target;
+            synchronized (DICTIONARY_LOCK) {
+              target = link.getTargetSynset();
+            }
             if (!history.contains(target)) {
               history.add(target);
               chain.add(target);
@@ -459,7 +591,10 @@ public class WordNet {
               // Check that the nominalized word is a verb (e.g. not an
               // adjective).
               try {
-                Synset target = link.getTargetSynset();
+                Synset target;
+                synchronized (DICTIONARY_LOCK) {
+                  target = link.getTargetSynset();
+                }
                 if (target.getPOS() == POS.VERB) {
                   // System.out.println("WordNet isNom() link found: " + link);
                   // System.out.println(" --> " + link.getTargetSynset());
@@ -496,9 +631,12 @@ public class WordNet {
               // Check that the nominalized word is a verb (e.g. not an
               // adjective).
               try {
-                Synset target = link.getTargetSynset();
+                Synset target;
+                synchronized (DICTIONARY_LOCK) {
+                  target = link.getTargetSynset();
+                }
                 if (target.getPOS() == POS.VERB) {
-                  Synset verbSynset = link.getTargetSynset();
+                  Synset verbSynset = target;
                   Word[] verbs = verbSynset.getWords();
                   List<String> theverbs = new ArrayList<String>();
                   for (Word verb : verbs)
@@ -543,10 +681,14 @@ public class WordNet {
 
   public boolean isNounPersonOrGroup(String token, boolean mainSynsetOnly,
       boolean justPerson) {
-    if (_isPersonOrGroup == null)
-      _isPersonOrGroup = new HashMap<String, Boolean>();
-    if (_isPersonOrGroup.containsKey(token))
-      return _isPersonOrGroup.get(token);
+    Boolean cached = _isPersonOrGroup.get(token);
+    if (cached != null)
+      return cached;
+    if (!mainSynsetOnly && !justPerson) {
+      Boolean indexed = fromIndex(token, WordNetIndex.PERSON_OR_GROUP);
+      if (indexed != null)
+        return indexed;
+    }
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     if (synsets == null) {
@@ -621,10 +763,12 @@ public class WordNet {
   }
 
   public boolean isTime(String token) {
-    if (_isTime == null)
-      _isTime = new HashMap<String, Boolean>();
-    if (_isTime.containsKey(token))
-      return _isTime.get(token);
+    Boolean cached = _isTime.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.TIME);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isTime top " + token);
@@ -648,10 +792,12 @@ public class WordNet {
   }
 
   public boolean isLocation(String token) {
-    if (_isLocation == null)
-      _isLocation = new HashMap<String, Boolean>();
-    if (_isLocation.containsKey(token))
-      return _isLocation.get(token);
+    Boolean cached = _isLocation.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.LOCATION);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isNounEntity top " + token);
@@ -679,10 +825,12 @@ public class WordNet {
    * physical objects)
    */
   public boolean isStructure(String token) {
-    if (_isStructure == null)
-      _isStructure = new HashMap<String, Boolean>();
-    if (_isStructure.containsKey(token))
-      return _isStructure.get(token);
+    Boolean cached = _isStructure.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.STRUCTURE);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isNounEntity top " + token);
@@ -713,6 +861,10 @@ public class WordNet {
    * @return true if the token has a synset with an ancestor that is Integer
    */
   public boolean isInteger(String token) {
+    Boolean indexed = fromIndex(token, WordNetIndex.INTEGER);
+    if (indexed != null)
+      return indexed;
+
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isNounEntity top " + token);
     if (synsets == null) {
@@ -740,10 +892,12 @@ public class WordNet {
    *         object synset.
    */
   public boolean isNonPersonLocationPhysicalObject(String token) {
-    if (_isNonPersonLocationPhysicalObject == null)
-      _isNonPersonLocationPhysicalObject = new HashMap<String, Boolean>();
-    if (_isNonPersonLocationPhysicalObject.containsKey(token))
-      return _isNonPersonLocationPhysicalObject.get(token);
+    Boolean cached = _isNonPersonLocationPhysicalObject.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.NON_PERSON_LOCATION_PHYSICAL_OBJECT);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     if (synsets == null) {
@@ -775,10 +929,12 @@ public class WordNet {
    *         object synset.
    */
   public boolean isPhysicalObject(String token) {
-    if (_isPhysicalObject == null)
-      _isPhysicalObject = new HashMap<String, Boolean>();
-    if (_isPhysicalObject.containsKey(token))
-      return _isPhysicalObject.get(token);
+    Boolean cached = _isPhysicalObject.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.PHYSICAL_OBJECT);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     if (synsets == null) {
@@ -808,10 +964,12 @@ public class WordNet {
    * 
    */
   public boolean isMaterial(String token) {
-    if (_isMaterial == null)
-      _isMaterial = new HashMap<String, Boolean>();
-    if (_isMaterial.containsKey(token))
-      return _isMaterial.get(token);
+    Boolean cached = _isMaterial.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.MATERIAL);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isMatter top " + token);
@@ -842,10 +1000,12 @@ public class WordNet {
    */
   public boolean isMeasure(String token) {
     // save time with a table lookup
-    if (_isMeasure == null)
-      _isMeasure = new HashMap<String, Boolean>();
-    if (_isMeasure.containsKey(token))
-      return _isMeasure.get(token);
+    Boolean cached = _isMeasure.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.MEASURE);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isPhysicalObject top " + token);
@@ -878,10 +1038,12 @@ public class WordNet {
    */
   public boolean isNounEvent(String token) {
     // save time with a table lookup
-    if (_isNounEvent == null)
-      _isNounEvent = new HashMap<String, Boolean>();
-    if (_isNounEvent.containsKey(token))
-      return _isNounEvent.get(token);
+    Boolean cached = _isNounEvent.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.NOUN_EVENT);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isNounEvent top " + token);
@@ -914,10 +1076,12 @@ public class WordNet {
    */
   public boolean isNamedEntity(String token) {
     // save time with a table lookup
-    if (_isNamedEntity == null)
-      _isNamedEntity = new HashMap<String, Boolean>();
-    if (_isNamedEntity.containsKey(token))
-      return _isNamedEntity.get(token);
+    Boolean cached = _isNamedEntity.get(token);
+    if (cached != null)
+      return cached;
+    Boolean indexed = fromIndex(token, WordNetIndex.NAMED_ENTITY);
+    if (indexed != null)
+      return indexed;
 
     Synset[] synsets = synsetsOf(token, POS.NOUN);
     // System.out.println("isNounEvent top " + token);
@@ -0,0 +1,267 @@
+package caevo.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import net.didion.jwnl.data.IndexWord;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.dictionary.Dictionary;
+
+/**
+ * A precomputed, memory-mapped table from noun lemmas to the WordNet categories
+ * their hypernym chains reach (event, time, location, etc.). WordNet checks it
+ * before walking hypernym chains through JWNL, and falls back to JWNL for
+ * words that aren't in it.
+ *
+ * Each entry is the answer WordNet's own predicates gave when the index was
+ * built, one bit per category, so lookups agree with the JWNL path exactly.
+ *
+ * Build an index once per WordNet install:
+ *
+ * java caevo.util.WordNetIndex <jwnl_file_properties.xml> <index-out>
+ *
+ * and point WordNet.index at it.
+ *
+ * Layout (big-endian):
+ *
+ * <pre>
+ * "CAEVOWNI" version numEntries keyOffset[numEntries] mask[numEntries] keys
+ * </pre>
+ *
+ * Keys are UTF-8 with a short length prefix, sorted by their bytes, so a
+ * lookup is a binary search over the mapped file.
+ */
+public class WordNetIndex {
+  public static final byte[] MAGIC = "CAEVOWNI"
+      .getBytes(Charset.forName("US-ASCII"));
+  public static final int VERSION = 1;
+
+  // One bit per WordNet predicate.
+  public static final int NOUN_EVENT = 1 << 0;
+  public static final int TIME = 1 << 1;
+  public static final int LOCATION = 1 << 2;
+  public static final int STRUCTURE = 1 << 3;
+  public static final int PHYSICAL_OBJECT = 1 << 4;
+  public static final int NON_PERSON_LOCATION_PHYSICAL_OBJECT = 1 << 5;
+  public static final int MATERIAL = 1 << 6;
+  public static final int MEASURE = 1 << 7;
+  public static final int PERSON_OR_GROUP = 1 << 8;
+  public static final int NAMED_ENTITY = 1 << 9;
+  public static final int INTEGER = 1 << 10;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int HEADER_SIZE = 8 + 4 + 4;
+
+  private final ByteBuffer buffer;
+  private final int numEntries;
+  private final int masksStart;
+
+  /**
+   * Memory-map an index written by write().
+   */
+  public WordNetIndex(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      // The mapping stays valid after the file is closed.
+      raf.close();
+    }
+
+    byte[] magic = new byte[MAGIC.length];
+    buffer.get(magic);
+    for (int ii = 0; ii < MAGIC.length; ii++)
+      if (magic[ii] != MAGIC[ii])
+        throw new IOException("Not a WordNet index: " + file);
+    int version = buffer.getInt();
+    if (version != VERSION)
+      throw new IOException("Unsupported WordNet index version " + version
+          + " in " + file);
+    numEntries = buffer.getInt();
+    masksStart = HEADER_SIZE + 4 * numEntries;
+  }
+
+  public int size() {
+    return numEntries;
+  }
+
+  /**
+   * @return The category bits for the word, or -1 if it isn't in the index.
+   */
+  public int lookup(String word) {
+    byte[] key = word.getBytes(UTF8);
+    int low = 0;
+    int high = numEntries - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareKey(mid, key);
+      if (cmp < 0)
+        low = mid + 1;
+      else if (cmp > 0)
+        high = mid - 1;
+      else
+        return buffer.getInt(masksStart + 4 * mid);
+    }
+    return -1;
+  }
+
+  /**
+   * @return Null if the word isn't in the index, otherwise whether it has the
+   *         given category bit.
+   */
+  public Boolean has(String word, int category) {
+    int mask = lookup(word);
+    if (mask < 0)
+      return null;
+    return (mask & category) != 0;
+  }
+
+  /**
+   * Compare the ith key in the file with the given UTF-8 bytes, unsigned byte
+   * by byte.
+   */
+  private int compareKey(int ii, byte[] key) {
+    int pos = buffer.getInt(HEADER_SIZE + 4 * ii);
+    int length = buffer.getShort(pos) & 0xffff;
+    pos += 2;
+    int common = Math.min(length, key.length);
+    for (int bb = 0; bb < common; bb++) {
+      int diff = (buffer.get(pos + bb) & 0xff) - (key[bb] & 0xff);
+      if (diff != 0)
+        return diff;
+    }
+    return length - key.length;
+  }
+
+  private static int compareBytes(byte[] a, byte[] b) {
+    int common = Math.min(a.length, b.length);
+    for (int bb = 0; bb < common; bb++) {
+      int diff = (a[bb] & 0xff) - (b[bb] & 0xff);
+      if (diff != 0)
+        return diff;
+    }
+    return a.length - b.length;
+  }
+
+  /**
+   * Write the given word to category bits table as an index file.
+   */
+  public static void write(Map<String, Integer> masks, File file)
+      throws IOException {
+    final List<byte[]> keys = new ArrayList<byte[]>();
+    final List<Integer> values = new ArrayList<Integer>();
+    for (Map.Entry<String, Integer> entry : masks.entrySet()) {
+      byte[] key = entry.getKey().getBytes(UTF8);
+      if (key.length > 0xffff)
+        continue;
+      keys.add(key);
+      values.add(entry.getValue());
+    }
+
+    // Sort by the UTF-8 bytes, which is what lookup() searches on.
+    List<Integer> order = new ArrayList<Integer>();
+    for (int ii = 0; ii < keys.size(); ii++)
+      order.add(ii);
+    Collections.sort(order, new Comparator<Integer>() {
+      public int compare(Integer a, Integer b) {
+        return compareBytes(keys.get(a), keys.get(b));
+      }
+    });
+
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.write(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(order.size());
+      int offset = HEADER_SIZE + 8 * order.size();
+      for (int ii : order) {
+        out.writeInt(offset);
+        offset += 2 + keys.get(ii).length;
+      }
+      for (int ii : order)
+        out.writeInt(values.get(ii));
+      for (int ii : order) {
+        out.writeShort(keys.get(ii).length);
+        out.write(keys.get(ii));
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Run each of WordNet's category predicates on a word.
+   */
+  public static int computeMask(WordNet wordnet, String word) {
+    int mask = 0;
+    if (wordnet.isNounEvent(word))
+      mask |= NOUN_EVENT;
+    if (wordnet.isTime(word))
+      mask |= TIME;
+    if (wordnet.isLocation(word))
+      mask |= LOCATION;
+    if (wordnet.isStructure(word))
+      mask |= STRUCTURE;
+    if (wordnet.isPhysicalObject(word))
+      mask |= PHYSICAL_OBJECT;
+    if (wordnet.isNonPersonLocationPhysicalObject(word))
+      mask |= NON_PERSON_LOCATION_PHYSICAL_OBJECT;
+    if (wordnet.isMaterial(word))
+      mask |= MATERIAL;
+    if (wordnet.isMeasure(word))
+      mask |= MEASURE;
+    if (wordnet.isNounPersonOrGroup(word))
+      mask |= PERSON_OR_GROUP;
+    if (wordnet.isNamedEntity(word))
+      mask |= NAMED_ENTITY;
+    if (wordnet.isInteger(word))
+      mask |= INTEGER;
+    return mask;
+  }
+
+  /**
+   * Compute the category bits for every noun lemma in WordNet, with the index
+   * turned off so every answer comes from JWNL.
+   */
+  public static Map<String, Integer> computeAllNouns(WordNet wordnet)
+      throws Exception {
+    wordnet.setIndex(null);
+    Map<String, Integer> masks = new TreeMap<String, Integer>();
+    Iterator<?> iter = Dictionary.getInstance().getIndexWordIterator(POS.NOUN);
+    while (iter.hasNext()) {
+      String lemma = ((IndexWord) iter.next()).getLemma();
+      masks.put(lemma, computeMask(wordnet, lemma));
+      if (masks.size() % 10000 == 0)
+        System.out.println("Indexed " + masks.size() + " nouns...");
+    }
+    return masks;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      System.out.println(
+          "WordNetIndex <jwnl_file_properties.xml> <index-out>");
+      return;
+    }
+    WordNet wordnet = new WordNet(args[0]);
+    Map<String, Integer> masks = computeAllNouns(wordnet);
+    write(masks, new File(args[1]));
+    System.out.println("Wrote " + masks.size() + " nouns to " + args[1]);
+  }
+}
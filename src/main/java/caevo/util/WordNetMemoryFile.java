@@ -0,0 +1,122 @@
+package caevo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.dictionary.file.DictionaryFile;
+import net.didion.jwnl.dictionary.file.DictionaryFileType;
+import net.didion.jwnl.princeton.file.PrincetonRandomAccessDictionaryFile;
+
+/**
+ * A JWNL dictionary file that reads the whole WordNet file into memory when it
+ * is opened, then serves JWNL's seeks and line reads from that array. JWNL
+ * still does all of the parsing (index words to synset offsets, synset
+ * pointers, morphological exception lists); this only replaces the many small
+ * random-access reads on disk with one sequential read per file.
+ *
+ * WordNet selects it when WordNet.backend=memory, by swapping it in as the
+ * file_type in jwnl_file_properties.xml.
+ */
+public class WordNetMemoryFile extends PrincetonRandomAccessDictionaryFile {
+  // Files already read, shared by every instance that opens the same path.
+  private static final Map<String, byte[]> loaded =
+      new HashMap<String, byte[]>();
+
+  private byte[] bytes = null;
+  private int position = 0;
+
+  public WordNetMemoryFile() {
+  }
+
+  public WordNetMemoryFile(String path, POS pos, DictionaryFileType fileType) {
+    super(path, pos, fileType);
+  }
+
+  public DictionaryFile newInstance(String path, POS pos,
+      DictionaryFileType fileType) {
+    return new WordNetMemoryFile(path, pos, fileType);
+  }
+
+  protected void openFile(File path) throws IOException {
+    bytes = load(path);
+    position = 0;
+  }
+
+  private static byte[] load(File path) throws IOException {
+    String key = path.getAbsolutePath();
+    synchronized (loaded) {
+      byte[] data = loaded.get(key);
+      if (data == null) {
+        data = new byte[(int) path.length()];
+        FileInputStream in = new FileInputStream(path);
+        try {
+          int read = 0;
+          while (read < data.length) {
+            int n = in.read(data, read, data.length - read);
+            if (n < 0)
+              throw new IOException("Short read on " + path);
+            read += n;
+          }
+        } finally {
+          in.close();
+        }
+        loaded.put(key, data);
+      }
+      return data;
+    }
+  }
+
+  public boolean isOpen() {
+    return bytes != null;
+  }
+
+  public void close() {
+    bytes = null;
+    position = 0;
+  }
+
+  /**
+   * Same as RandomAccessFile.readLine(): bytes are read as chars, and a line
+   * ends at '\n', '\r' or "\r\n".
+   */
+  public String readLine() throws IOException {
+    if (position >= bytes.length)
+      return null;
+    int start = position;
+    while (position < bytes.length && bytes[position] != '\n'
+        && bytes[position] != '\r')
+      position++;
+    StringBuffer line = new StringBuffer(position - start);
+    for (int ii = start; ii < position; ii++)
+      line.append((char) (bytes[ii] & 0xff));
+    if (position < bytes.length) {
+      if (bytes[position] == '\r' && position + 1 < bytes.length
+          && bytes[position + 1] == '\n')
+        position++;
+      position++;
+    }
+    return line.toString();
+  }
+
+  public void seek(long pos) throws IOException {
+    position = (int) pos;
+  }
+
+  public long getFilePointer() throws IOException {
+    return position;
+  }
+
+  public long length() throws IOException {
+    return bytes.length;
+  }
+
+  public int read() throws IOException {
+    if (position >= bytes.length)
+      return -1;
+    return bytes[position++] & 0xff;
+  }
+}
@@ -0,0 +1,949 @@
+package caevo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import caevo.tlink.TLink;
+import caevo.util.TimebankUtil;
+import caevo.util.TreeOperator;
+import caevo.util.WordNet;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Synset;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TypedDependency;
+
+/**
+ * The TLink and event featurizers as they were before they built
+ * FeatureVectors, copied unchanged from TLinkFeaturizer and TextEventClassifier
+ * except that each returns its Counter instead of a datum. FeatureParityTest
+ * checks the current featurizers against these.
+ */
+public class BaselineFeatures {
+  WordNet _wordnet;
+  boolean _noEventFeats = true;
+
+  public BaselineFeatures(WordNet wordnet) {
+    _wordnet = wordnet;
+  }
+
+  /**
+   * The main function to featurize a TLink. Given two events, featurize both
+   * and create a single TLinkDatum. The "label" is optional and can be null if
+   * we don't know it for testing. For training, you'll want to include the gold
+   * label here. NOTE: **** the label should agree with the order of "event
+   * LABEL time" ***
+   * 
+   * @param event1
+   *          The first event.
+   * @param event2
+   *          The second event. (doesn't have to be second in textual order)
+   * @param label
+   *          The gold label, or null if unknown.
+   * @param trees
+   *          All parse trees for the entire document where these two events
+   *          reside.
+   * @return The features of the TLinkDatum it made.
+   */
+  public Counter<String> createEventTimeDatum(SieveDocument doc, TextEvent event,
+      Timex time, TLink.Type label) {
+    Counter<String> feats = new ClassicCounter<String>();
+    List<Tree> trees = doc.getAllParseTrees();
+
+    // Sanity check
+    if (event == null || time == null)
+      System.out.println(
+          "Null events in createEventTimeDatum(): " + event + " and " + time);
+
+    // Textual order.
+    if (TimebankUtil.isBeforeInText(event, time))
+      feats.incrementCount("event-first");
+    else
+      feats.incrementCount("time-first");
+
+    feats.addAll(getSingleEventPOSFeatures("pos1", event, trees));
+    feats.addAll(getSingleEventFeatures(event, trees)); // tense, modality, etc.
+    feats.addAll(getSingleEventTokenFeatures(1, event, trees)); // token, lemma,
+                                                                // wordnet
+    feats.addAll(getTimexFeatures(time, trees));
+    feats.addAll(getEventTimeBigram(event, time, trees));
+    feats.addAll(getEventTimeTokenPathFeature(event, time, trees));
+    feats.addAll(getParsePathFeatures(event, time, trees));
+    feats.addAll(getDepsPathFeatures(event, time,
+        doc.getSentences().get(event.getSid()).getDeps()));
+    feats.addAll(getDominanceFeatures(event, time, trees)); // always based on
+                                                            // the event's
+                                                            // dominance or not
+
+    return feats;
+  }
+
+  public Counter<String> createEventDocumentTimeDatum(SieveDocument doc,
+      TextEvent event, Timex time, TLink.Type label) {
+    Counter<String> feats = new ClassicCounter<String>();
+    List<Tree> trees = doc.getAllParseTrees();
+
+    // Sanity check
+    if (event == null)
+      System.out.println("Null event in createEventDocumentTimeDatum(): "
+          + event + " and " + time);
+
+    feats.addAll(getSingleEventPOSFeatures("pos1", event, trees));
+    feats.addAll(getSingleEventFeatures(event, trees)); // tense, modality, etc.
+    feats.addAll(getSingleEventTokenFeatures(1, event, trees)); // token, lemma,
+                                                                // wordnet
+    feats.addAll(getSingleEventNearbyBOWFeatures(event, trees)); // +.01
+                                                                 // accuracy,
+                                                                 // very
+                                                                 // minimal.
+
+    return feats;
+  }
+
+  /**
+   * The main function to featurize a TLink. Given two events, featurize both
+   * and create a single TLinkDatum. The "label" is optional and can be null if
+   * we don't know it for testing. For training, you'll want to include the gold
+   * label here.
+   * 
+   * @param event1
+   *          The first event.
+   * @param event2
+   *          The second event. (doesn't have to be second in textual order)
+   * @param label
+   *          The gold label, or null if unknown.
+   * @param events
+   *          The events in the single sentence of these 2 events. If they are
+   *          in diff sentences, just set to null.
+   * @param trees
+   *          All parse trees for the entire document where these two events
+   *          reside.
+   * @return The features of the TLinkDatum it made.
+   */
+  public Counter<String> createEventEventDatum(SieveDocument doc, TextEvent event1,
+      TextEvent event2, TLink.Type label) {
+    Counter<String> feats = new ClassicCounter<String>();
+    List<Tree> trees = doc.getAllParseTrees();
+    List<TextEvent> events = doc.getEvents();
+
+    // Sanity check
+    if (event1 == null || event2 == null)
+      System.out.println(
+          "Null events in createTLinkDatum(): " + event1 + " and " + event2);
+
+    // Flip the order to the natural text order.
+    if (!TimebankUtil.isBeforeInText(event1, event2)) {
+      TextEvent temp = event1;
+      event1 = event2;
+      event2 = temp;
+      if (label != null)
+        label = TLink.invertRelation(label);
+    }
+
+    feats.addAll(getPOSFeatures(event1, event2, trees));
+    feats.addAll(getEventFeatures(event1, event2, trees)); // tense, modality,
+                                                           // etc.
+    feats.addAll(getTokenFeatures(event1, event2, trees, events)); // token,
+                                                                   // lemma,
+                                                                   // wordnet
+    feats.addAll(getSyntacticFeatures(event1, event2, trees)); // prep phrases?
+    feats.addAll(getDominanceFeatures(event1, event2, trees));
+    feats.addAll(getTextOrderFeatures(event1, event2, trees));
+    feats.addAll(getEventInterferenceFeatures(event1, event2, events));
+    feats.addAll(getParsePathFeatures(event1, event2, trees));
+    feats.addAll(getDepsPathFeatures(event1, event2,
+        doc.getSentences().get(event1.getSid()).getDeps()));
+
+    return feats;
+  }
+
+  /**
+   * Event features using just its event POS tags.
+   */
+  private Counter<String> getSingleEventPOSFeatures(String featprefix,
+      TextEvent event1, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    Tree tree1 = trees.get(event1.getSid());
+
+    String pos10 = TreeOperator.indexToPOSTag(tree1, event1.getIndex());
+    String pos11 = TreeOperator.indexToPOSTag(tree1, event1.getIndex() - 1);
+    String pos12 = TreeOperator.indexToPOSTag(tree1, event1.getIndex() - 2);
+    if (event1.getIndex() == 2) {
+      pos12 = "<s>";
+    } else if (event1.getIndex() == 1) {
+      pos11 = "<s>";
+      pos12 = "<pre-s>";
+    }
+    feats.incrementCount(featprefix + "-0-" + pos10);
+    feats.incrementCount(featprefix + "-1-" + pos11);
+    feats.incrementCount(featprefix + "-2-" + pos12);
+    feats.incrementCount(featprefix + "-bi-" + pos11 + "-" + pos10);
+
+    return feats;
+  }
+
+  /**
+   * All features using just the event POS tags.
+   */
+  private Counter<String> getPOSFeatures(TextEvent event1, TextEvent event2,
+      List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    feats.addAll(getSingleEventPOSFeatures("pos1", event1, trees));
+    feats.addAll(getSingleEventPOSFeatures("pos2", event2, trees));
+
+    // bigram
+    Tree tree1 = trees.get(event1.getSid());
+    Tree tree2 = trees.get(event2.getSid());
+    String pos10 = TreeOperator.indexToPOSTag(tree1, event1.getIndex());
+    String pos20 = TreeOperator.indexToPOSTag(tree2, event2.getIndex());
+    feats.incrementCount("posBi-" + pos10 + "-" + pos20);
+
+    return feats;
+  }
+
+  /**
+   * Create features around each event's labeled attributes (tense, aspect, etc)
+   */
+  private Counter<String> getSingleEventFeatures(TextEvent event,
+      List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    if (!_noEventFeats) {
+      feats.incrementCount("ev1Tense-" + event.getTense());
+      feats.incrementCount("ev1Aspect-" + event.getAspect());
+      if (event.getModality() != null)
+        feats.incrementCount("ev1Modality-" + event.getModality());
+      feats.incrementCount("ev1Class-" + event.getTheClass());
+      if (event.getPolarity() != null)
+        feats.incrementCount("ev1Polarity-" + event.getPolarity());
+    }
+
+    // These are from Turker experiments. Will include if the .info file has
+    // them!
+    if (_doHappened && event.getHappened() != null) {
+      feats.incrementCount("ev1Happened-" + event.getHappened());
+    }
+
+    return feats;
+  }
+
+  private Counter<String> getEventTimeTokenPathFeature(TextEvent event,
+      Timex time, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    if (event.getSid() == time.getSid()) {
+      // If they are near each other, grab the intervening n-gram.
+      if (Math.abs(event.getIndex() - time.getTokenOffset()) < 5
+          || Math.abs(event.getIndex() - time.getTokenOffset()
+              + time.getTokenLength() - 1) < 5) {
+        List<String> tokens = TreeOperator
+            .stringLeavesFromTree(trees.get(event.getSid()));
+        String ngram = "EVENT";
+        String tail = "TIME";
+        // System.out.println("token path! " + tokens);
+        // System.out.println("\t" + event + "\t" + time);
+
+        // Figure out if the event or time is first.
+        int start = event.getIndex();
+        int end = time.getTokenOffset();
+        if (start > time.getTokenOffset()) {
+          start = time.getTokenOffset() + time.getTokenLength() - 1;
+          end = event.getIndex();
+          ngram = "TIME";
+          tail = "EVENT";
+        }
+        // System.out.println("start=" + start + " end=" + end);
+        // Because are indices are 1 indexed, but the list of tokens is of
+        // course 0 indexed.
+        start--;
+        end--;
+
+        // Build the intervening string.
+        for (int xx = start + 1; xx < end; xx++)
+          ngram += "_" + tokens.get(xx);
+        ngram += "_" + tail;
+        feats.incrementCount("tokenpath-" + ngram);
+      }
+    }
+
+    return feats;
+  }
+
+  /**
+   * Create features around each event's labeled attributes (tense, aspect, etc)
+   */
+  private Counter<String> getEventFeatures(TextEvent event1, TextEvent event2,
+      List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    if (!_noEventFeats) {
+      feats.incrementCount("ev1Tense-" + event1.getTense());
+      feats.incrementCount("ev2Tense-" + event2.getTense());
+      feats.incrementCount(
+          "tenses-" + event1.getTense() + "-" + event2.getTense());
+      if (event1.getTense() == event2.getTense())
+        feats.incrementCount("tensematch-YES");
+      else
+        feats.incrementCount("tensematch-NO");
+
+      feats.incrementCount("ev1Aspect-" + event1.getAspect());
+      feats.incrementCount("ev2Aspect-" + event2.getAspect());
+      feats.incrementCount(
+          "aspects-" + event1.getAspect() + "-" + event2.getAspect());
+      if (event1.getAspect() == event2.getAspect())
+        feats.incrementCount("aspectmatch-YES");
+      else
+        feats.incrementCount("aspectmatch-NO");
+
+      feats.incrementCount("ev1Modality-" + event1.getModality());
+      feats.incrementCount("ev2Modality-" + event2.getModality());
+      feats.incrementCount(
+          "modalities-" + event1.getModality() + "-" + event2.getModality());
+      if (event1.getModality().equalsIgnoreCase(event2.getModality()))
+        feats.incrementCount("modalmatch-YES");
+      else
+        feats.incrementCount("modalmatch-NO");
+
+      feats.incrementCount("ev1Class-" + event1.getTheClass());
+      feats.incrementCount("ev2Class-" + event2.getTheClass());
+      feats.incrementCount(
+          "classes-" + event1.getTheClass() + "-" + event2.getTheClass());
+      if (event1.getTheClass() == event2.getTheClass())
+        feats.incrementCount("classmatch-YES");
+      else
+        feats.incrementCount("classmatch-NO");
+
+      feats.incrementCount("ev1Polarity-" + event1.getPolarity());
+      feats.incrementCount("ev2Polarity-" + event2.getPolarity());
+      feats.incrementCount(
+          "polarities-" + event1.getPolarity() + "-" + event2.getPolarity());
+      if (event1.getPolarity() == event2.getPolarity())
+        feats.incrementCount("polaritymatch-YES");
+      else
+        feats.incrementCount("polaritymatch-NO");
+    }
+
+    // These are from Turker experiments. Will include if the .info file has
+    // them!
+    if (_doHappened && event1.getHappened() != null) {
+      feats.incrementCount("ev1Happened-" + event1.getHappened());
+      feats.incrementCount("ev2Happened-" + event2.getHappened());
+      feats.incrementCount(
+          "happeneds-" + event1.getHappened() + "-" + event2.getHappened());
+      if (event1.getHappened().equalsIgnoreCase(event2.getHappened()))
+        feats.incrementCount("happenedmatch-YES");
+      else
+        feats.incrementCount("happenedmatch-NO");
+    }
+
+    return feats;
+  }
+
+  /**
+   * Get the single tokens around the target event within a window size.
+   * 
+   * @param event
+   *          The event to link to the document time.
+   * @param trees
+   *          All the parse trees of the entire document.
+   */
+  private Counter<String> getSingleEventNearbyBOWFeatures(TextEvent event,
+      List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+    Tree tree = trees.get(event.getSid());
+    List<String> tokens = TreeOperator.stringLeavesFromTree(tree);
+
+    int window = 2;
+    int start = Math.max(0, event.getIndex() - 1 - window);
+    int end = Math.min(tokens.size() - 1, event.getIndex() - 1 + window);
+
+    for (int xx = 0; xx < window; xx++) {
+      if (start + xx < event.getIndex() - 1)
+        feats.incrementCount("bow-" + tokens.get(start + xx).toLowerCase());
+      if (end - xx > event.getIndex() - 1)
+        feats.incrementCount("bow-" + tokens.get(end - xx).toLowerCase());
+    }
+
+    return feats;
+  }
+
+  /**
+   * Create token/lemma/synset features for an event.
+   * 
+   * @param eventIndex
+   *          Either 1 or 2, the first or second event in your link. This
+   *          differentiates the feature names.
+   */
+  private Counter<String> getSingleEventTokenFeatures(int eventIndex,
+      TextEvent event1, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    String token = event1.getString();
+    String postag = TreeOperator.indexToPOSTag(trees.get(event1.getSid()),
+        event1.getIndex());
+    String lemma = _wordnet.lemmatizeTaggedWord(token, postag);
+
+    // Token and Lemma
+    feats.incrementCount("token" + eventIndex + "-" + token);
+    feats.incrementCount("lemma" + eventIndex + "-" + lemma);
+
+    // WordNet synset
+    Synset[] synsets = null;
+    if (postag.startsWith("VB"))
+      synsets = _wordnet.synsetsOf(token, POS.VERB);
+    else if (postag.startsWith("NN"))
+      synsets = _wordnet.synsetsOf(token, POS.NOUN);
+    if (synsets != null && synsets.length > 0)
+      feats
+          .incrementCount("synset" + eventIndex + "-" + synsets[0].getOffset());
+
+    return feats;
+  }
+
+  private Counter<String> getEventEventBigram(TextEvent event1,
+      TextEvent event2, List<TextEvent> events) {
+    Counter<String> feats = new ClassicCounter<String>();
+    feats.incrementCount("BI-" + event1.getString() + "_" + event2.getString());
+
+    // Bigram with generic "event" tokens between them, based on how many other
+    // events separate them.
+    if (event1.getSid() == event2.getSid()) {
+      int numInterlopers = countInterlopers(event1, event2, events);
+      String str = "SEQ-" + event1.getString();
+      for (int xx = 0; xx < numInterlopers; xx++)
+        str += "_EVENT";
+      str += "_" + event2.getString();
+    }
+
+    return feats;
+  }
+
+  /**
+   * Create token/lemma/synset features with the events.
+   */
+  private Counter<String> getTokenFeatures(TextEvent event1, TextEvent event2,
+      List<Tree> trees, List<TextEvent> events) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    feats.addAll(getSingleEventTokenFeatures(1, event1, trees));
+    feats.addAll(getSingleEventTokenFeatures(2, event2, trees));
+    feats.addAll(getEventEventBigram(event1, event2, events));
+
+    return feats;
+  }
+
+  private Counter<String> getTimexFeatures(Timex timex, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+    List<String> tokens = TreeOperator
+        .stringLeavesFromTree(trees.get(timex.getSid()));
+    int start = timex.getTokenOffset() - 1;
+    int end = start + timex.getTokenLength() - 1; // inclusive
+
+    // Leftmost token in the time phrase.
+    if (TimebankUtil.isDayOfWeek(tokens.get(end)))
+      feats.incrementCount("timetoken-DAYOFWEEK");
+    else
+      feats.incrementCount("timetoken-" + tokens.get(end));
+
+    // Entire time phrase.
+    if (timex.getTokenLength() > 1) {
+      String phrase = tokens.get(start);
+      for (int xx = 1; xx < timex.getTokenLength(); xx++)
+        phrase += "_" + tokens.get(start + xx);
+      feats.incrementCount("timephrase-" + phrase);
+    }
+
+    // Is the timex the last phrase in the sentence?
+    if (tokens.size() - 1 == end)
+      feats.incrementCount("timeEOS");
+
+    return feats;
+  }
+
+  /**
+   * Create one feature string, the bigram of the event word and the rightmost
+   * token in the timex phrase. The bigram is ordered by text order.
+   */
+  private Counter<String> getEventTimeBigram(TextEvent event, Timex timex,
+      List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+    List<String> tokens = TreeOperator
+        .stringLeavesFromTree(trees.get(timex.getSid()));
+    String timeToken = tokens.get(timex.getTokenOffset() - 1);
+    if (TimebankUtil.isDayOfWeek(timeToken))
+      timeToken = "DAYOFWEEK";
+
+    if (event.getSid() == timex.getSid()
+        && event.getIndex() < timex.getTokenOffset())
+      feats.incrementCount(
+          "bi-" + tokens.get(event.getIndex() - 1) + "_" + timeToken);
+    else if (event.getSid() == timex.getSid())
+      feats.incrementCount(
+          "bi-" + timeToken + "_" + tokens.get(event.getIndex() - 1));
+
+    // In different sentences.
+    else {
+      List<String> eventTokens = TreeOperator
+          .stringLeavesFromTree(trees.get(event.getSid()));
+      if (event.getSid() < timex.getSid())
+        feats.incrementCount(
+            "bi-" + eventTokens.get(event.getIndex() - 1) + "_" + timeToken);
+      else
+        feats.incrementCount(
+            "bi-" + timeToken + "_" + eventTokens.get(event.getIndex() - 1));
+    }
+
+    return feats;
+  }
+
+  /**
+   * Check if one of the events syntactically dominates the other. True if yes,
+   * false if no.
+   */
+  public boolean oneEventDominates(TextEvent event1, TextEvent event2,
+      List<Tree> trees) {
+    if (event1 != null) {
+      Tree tree = trees.get(event1.getSid());
+      return oneEventDominates(event1, event2, tree);
+    }
+    return false;
+  }
+
+  public boolean oneEventDominates(TextEvent event1, TextEvent event2,
+      Tree tree) {
+    // Must be in the same sentence.
+    if (event1.getSid() == event2.getSid()) {
+      Tree tree1 = TreeOperator.indexToSubtree(tree, event1.getIndex());
+      Tree tree2 = TreeOperator.indexToSubtree(tree, event2.getIndex());
+
+      // Dominance.
+      if (treeDominates(tree1, tree2, tree)
+          || treeDominates(tree2, tree1, tree))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Features about one event syntactically dominating the other, and sentence
+   * distance.
+   */
+  private Counter<String> getDominanceFeatures(TextEvent event1,
+      TextEvent event2, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    // Must be in the same sentence.
+    if (event1.getSid() == event2.getSid()) {
+      Tree tree = trees.get(event1.getSid());
+      Tree tree1 = TreeOperator.indexToSubtree(tree, event1.getIndex());
+      Tree tree2 = TreeOperator.indexToSubtree(tree, event2.getIndex());
+
+      // Dominance
+      if (treeDominates(tree1, tree2, tree))
+        feats.incrementCount("dominates");
+      else if (treeDominates(tree2, tree1, tree))
+        feats.incrementCount("isDominated");
+    }
+
+    return feats;
+  }
+
+  /**
+   * Features about one event syntactically dominating the other, and sentence
+   * distance.
+   */
+  private Counter<String> getDominanceFeatures(TextEvent event, Timex timex,
+      List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    // Must be in the same sentence.
+    if (event.getSid() == timex.getSid()) {
+      Tree tree = trees.get(event.getSid());
+      Tree tree1 = TreeOperator.indexToSubtree(tree, event.getIndex());
+      Tree tree2 = TreeOperator.indexToSubtree(tree, timex.getTokenOffset());
+
+      // Dominance
+      if (treeDominates(tree1, tree2, tree))
+        feats.incrementCount("dominates");
+      else if (treeDominates(tree2, tree1, tree))
+        feats.incrementCount("isDominated");
+    }
+
+    return feats;
+  }
+
+  private Counter<String> getParsePathFeatures(TextEvent event, Timex timex,
+      List<Tree> trees) {
+    // Only works for same-sentence.
+    if (event.getSid() == timex.getSid()) {
+      if (event.getIndex() < timex.getTokenOffset())
+        return getParsePathFeatures(event.getIndex(),
+            timex.getTokenOffset() + timex.getTokenLength() - 1, "EVENT",
+            "TIME", trees.get(event.getSid()));
+      else
+        return getParsePathFeatures(
+            timex.getTokenOffset() + timex.getTokenLength() - 1,
+            event.getIndex(), "TIME", "EVENT", trees.get(event.getSid()));
+    } else
+      return new ClassicCounter<String>();
+  }
+
+  private Counter<String> getParsePathFeatures(TextEvent event1,
+      TextEvent event2, List<Tree> trees) {
+    // Only works for same-sentence.
+    if (event1.getSid() == event2.getSid())
+      return getParsePathFeatures(event1.getIndex(), event2.getIndex(), null,
+          null, trees.get(event1.getSid()));
+    else
+      return new ClassicCounter<String>();
+  }
+
+  private Counter<String> getParsePathFeatures(int index1, int index2,
+      String pre1, String pre2, Tree tree) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    Tree tree1 = TreeOperator.indexToSubtree(tree, index1);
+    Tree tree2 = TreeOperator.indexToSubtree(tree, index2);
+
+    String path = TreeOperator.pathNodeToNode(tree, tree1, tree2, false);
+    if (pre1 != null)
+      path = pre1 + "_" + path + "_" + pre2;
+    feats.incrementCount("pathfull-" + path);
+    path = TreeOperator.pathNodeToNode(tree, tree1, tree2, true);
+    if (pre1 != null)
+      path = pre1 + "_" + path + "_" + pre2;
+    feats.incrementCount("pathnopos-" + path);
+
+    return feats;
+  }
+
+  private Counter<String> getDepsPathFeatures(TextEvent event, Timex time,
+      List<TypedDependency> deps) {
+    if (event.getSid() == time.getSid())
+      return getDepsPathFeatures(event.getIndex(),
+          time.getTokenOffset() + time.getTokenLength() - 1, deps);
+    else
+      return new ClassicCounter<String>();
+  }
+
+  private Counter<String> getDepsPathFeatures(TextEvent event1,
+      TextEvent event2, List<TypedDependency> deps) {
+    if (event1.getSid() == event2.getSid())
+      return getDepsPathFeatures(event1.getIndex(), event2.getIndex(), deps);
+    else
+      return new ClassicCounter<String>();
+  }
+
+  private Counter<String> getDepsPathFeatures(int index1, int index2,
+      List<TypedDependency> deps) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    String path = TreeOperator.dependencyPath(index1, index2, deps);
+    if (path != null) {
+      feats.incrementCount(path);
+
+      // If the path is long, make a short version:
+      // ccomp->dobj->prep_of->nsubj<-dobj-> BECOMES ccomp->...dobj->
+      /*
+       * Determined that this doesn't change classification results.
+       * 
+       * int numparts = path.split("->").length + path.split("<-").length; if(
+       * numparts > 4 ) { int first = Math.min(path.indexOf("->"),
+       * path.indexOf("<-")); int last = Math.max(path.lastIndexOf("->",
+       * path.length()-3), path.lastIndexOf("<-", path.length()-3)); // This
+       * should never be false. Sanity check. if( first != -1 && last != -1 ) {
+       * String abbr = path.substring(0, first+2) + "..." +
+       * path.substring(last+2); feats.incrementCount(abbr); } }
+       */
+    }
+
+    return feats;
+  }
+
+  /**
+   * Prepositional phrases features.
+   */
+  private Counter<String> getSyntacticFeatures(TextEvent event1,
+      TextEvent event2, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    Tree tree = trees.get(event1.getSid());
+    Tree subtree = TreeOperator.indexToSubtree(tree, event1.getIndex());
+    String prep = isPrepClause(tree, subtree);
+    if (prep != null)
+      feats.incrementCount("prep1-" + prep);
+
+    tree = trees.get(event2.getSid());
+    subtree = TreeOperator.indexToSubtree(tree, event2.getIndex());
+    prep = isPrepClause(tree, subtree);
+    if (prep != null)
+      feats.incrementCount("prep2-" + prep);
+
+    return feats;
+  }
+
+  /**
+   * Prepositional phrases features.
+   */
+  private Counter<String> getTextOrderFeatures(TextEvent event1,
+      TextEvent event2, List<Tree> trees) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    // Same sentence
+    if (event1.getSid() == event2.getSid()) {
+      feats.incrementCount("order-sameSent");
+      if (event1.getIndex() < event2.getIndex()) {
+        feats.incrementCount("order-before");
+        feats.incrementCount("order-sameSent-before");
+      } else {
+        feats.incrementCount("order-after");
+        feats.incrementCount("order-sameSent-after");
+      }
+    }
+    // Different sentence
+    else {
+      feats.incrementCount("order-diffSent");
+      if (event1.getSid() < event2.getSid()) {
+        feats.incrementCount("order-before");
+        feats.incrementCount("order-diffSent-before");
+      } else {
+        feats.incrementCount("order-after");
+        feats.incrementCount("order-diffSent-after");
+      }
+    }
+
+    return feats;
+  }
+
+  /**
+   * A single feature: whether the two events are next to each other or if
+   * another event is in between them.
+   * 
+   * @param events
+   *          Assumes these are the events in the sentence that both given
+   *          events are in. Null is ok if the two key events are in different
+   *          sentences.
+   */
+  private Counter<String> getEventInterferenceFeatures(TextEvent event1,
+      TextEvent event2, List<TextEvent> events) {
+    Counter<String> feats = new ClassicCounter<String>();
+
+    if (event1.getSid() == event2.getSid()) {
+      int numInterlopers = countInterlopers(event1, event2, events);
+
+      if (numInterlopers > 0)
+        feats.incrementCount("notsequential");
+      else
+        feats.incrementCount("sequential");
+    }
+
+    return feats;
+  }
+
+  /**
+   * If the two events are in the same sentence, count how many other events
+   * occur between them. If different sentences, return -1;
+   */
+  private int countInterlopers(TextEvent event1, TextEvent event2,
+      List<TextEvent> events) {
+    if (event1.getSid() == event2.getSid()) {
+      int start = event1.getIndex();
+      int end = event2.getIndex();
+      if (event2.getIndex() < start) {
+        start = event2.getIndex();
+        end = event1.getIndex();
+      }
+
+      int interlopers = 0;
+      for (TextEvent event : events)
+        if (event.getSid() == event1.getSid() && event.getIndex() > start
+            && event.getIndex() < end)
+          interlopers++;
+
+      return interlopers;
+    }
+    return -1;
+  }
+
+  /**
+   * @desc Check if the tree is a clause in a prepositional phrase.
+   * @returns The string preposition that heads the PP
+   */
+  public static String isPrepClause(Tree root, Tree tree) {
+    // System.out.println("isPrepClause: subtree=" + tree);
+    if (tree != null) {
+      Tree p = tree.parent(root).parent(root);
+      // System.out.println("parent=" + p);
+      String pos = p.label().value();
+      // System.out.println("parent pos=" + pos);
+
+      if (!pos.equals("PP")) {
+        // Keep moving up the tree till we hit a new type of POS
+        while (p != null && p.label().toString().equals(pos))
+          p = p.parent(root);
+      }
+
+      // We can hit one sentence, but the S must be the PP clause
+      if (p != null && p.label().value().equals("S")) {
+        p = p.parent(root);
+        if (p == null || !p.label().value().equals("PP"))
+          return null;
+      }
+
+      // We found the PP, return the preposition
+      if (p != null && p.label().value().equals("PP")) {
+        List<Tree> list = p.getChildrenAsList();
+        for (Tree node : list) {
+          if (node.label().value().equals("IN"))
+            return node.firstChild().toString();
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks if the first tree1 syntactically dominates the second tree2.
+   * 
+   * @param tree1
+   *          A subtree.
+   * @param tree2
+   *          A subtree.
+   * @param tree
+   *          The full sentence's parse tree.
+   * @returns True if the first tree dominates the second, false otherwise.
+   */
+  private boolean treeDominates(Tree tree1, Tree tree2, Tree tree) {
+    if (tree1 != null && tree2 != null) {
+      // Find parent tree of event1, check dominance
+      Tree p = tree1.parent(tree); // parent is POS tag
+      if (p.dominates(tree2))
+        return true;
+    } else
+      System.out.println("WARNING: no tree1 or no tree2");
+    return false;
+  }
+
+  /**
+   * Find the path from the current word, up to the first seen S node.
+   * 
+   * @param tree
+   * @param wordIndex
+   * @return
+   */
+  private String pathToSTag(Tree tree, int wordIndex) {
+    Tree subtree = TreeOperator.indexToSubtree(tree, wordIndex);
+    if (subtree == null) {
+      System.out.println("ERROR: couldn't find subtree for word index "
+          + wordIndex + " in tree: " + tree);
+      return null;
+    }
+    List<String> tags = new ArrayList<String>();
+    tags.add(subtree.label().value());
+
+    Tree parentTree = subtree.parent(tree);
+    String tag = "";
+    while (parentTree != null && !tag.equalsIgnoreCase("S")
+        && !tag.equalsIgnoreCase("SBAR")) {
+      tag = parentTree.label().value();
+      tags.add(tag);
+      parentTree = parentTree.parent(tree);
+    }
+
+    // Built the feature string by reversing the list.
+    String path = tags.get(tags.size() - 1);
+    for (int xx = tags.size() - 2; xx >= 0; xx--)
+      path += "-" + tags.get(xx);
+
+    return path;
+  }
+
+  /**
+   * Extract features for a single token in a sentence in order to identify
+   * whether or not it is an event.
+   * 
+   * @param sentence
+   *          The sentence data structure with all parse information filled in.
+   * @param wordIndex
+   *          Starting from 1.
+   * @return
+   */
+  public Counter<String> getEventFeatures(SieveSentence sentence, Tree tree,
+      List<TypedDependency> deps, int wordIndex) {
+    Counter<String> features = new ClassicCounter<String>();
+    List<CoreLabel> tokens = sentence.tokens();// sentence.sentence().toLowerCase().split("\\s+");
+    int size = tokens.size();
+
+    String token = tokens.get(wordIndex - 1)
+        .getString(CoreAnnotations.OriginalTextAnnotation.class).toLowerCase();
+    String tokenPre1 = "<s>";
+    String tokenPre2 = "<s>";
+    if (wordIndex > 1)
+      tokenPre1 = tokens.get(wordIndex - 2)
+          .getString(CoreAnnotations.OriginalTextAnnotation.class)
+          .toLowerCase();
+    if (wordIndex > 2)
+      tokenPre2 = tokens.get(wordIndex - 3)
+          .getString(CoreAnnotations.OriginalTextAnnotation.class)
+          .toLowerCase();
+    String tokenPost1 = "</s>";
+    String tokenPost2 = "</s>";
+    if (wordIndex < size)
+      tokenPost1 = tokens.get(wordIndex)
+          .getString(CoreAnnotations.OriginalTextAnnotation.class)
+          .toLowerCase();
+    if (wordIndex < size - 1)
+      tokenPost2 = tokens.get(wordIndex + 1)
+          .getString(CoreAnnotations.OriginalTextAnnotation.class)
+          .toLowerCase();
+
+    // N-grams.
+    features.incrementCount(token);
+    features.incrementCount(tokenPre1 + "-" + token);
+    features.incrementCount(tokenPre2 + "-" + tokenPre1 + "-" + token);
+
+    // N-grams before the target token.
+    features.incrementCount("PRE-" + tokenPre1);
+    features.incrementCount("PRE-" + tokenPre2 + "-" + tokenPre1);
+
+    // N-grams following the target token.
+    features.incrementCount("POST-" + tokenPost1);
+    features.incrementCount("POST-" + tokenPost1 + "-" + tokenPost2);
+
+    // POS n-grams. (1, 2, 3-gram)
+    String pos = TreeOperator.indexToPOSTag(tree, wordIndex);
+    String posPre1 = "<s>";
+    String posPre2 = "<s>";
+    if (wordIndex > 1)
+      posPre1 = TreeOperator.indexToPOSTag(tree, wordIndex - 1);
+    if (wordIndex > 2)
+      posPre2 = TreeOperator.indexToPOSTag(tree, wordIndex - 2);
+    features.incrementCount(pos);
+    features.incrementCount(posPre1 + "-" + pos);
+    features.incrementCount(posPre2 + "-" + posPre1 + "-" + pos);
+
+    // WordNet lookup
+    features.incrementCount("LEM-" + _wordnet.lemmatizeTaggedWord(token, pos));
+    if (pos != null && pos.startsWith("NN"))
+      features.incrementCount("IS-WORDNET-EV-" + _wordnet.isNounEvent(token));
+
+    // Parse path to Sentence node.
+    String path = pathToSTag(tree, wordIndex);
+    features.incrementCount("PATH-" + path);
+
+    // Typed Dependency triples with which this word is involved.
+    for (TypedDependency dep : deps) {
+      if (dep.gov().index() == wordIndex)
+        features.incrementCount("DEPG-" + dep.reln());
+      else if (dep.dep().index() == wordIndex)
+        features.incrementCount("DEPD-" + dep.reln());
+    }
+
+    return features;
+  }
+}
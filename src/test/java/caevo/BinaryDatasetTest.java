@@ -0,0 +1,98 @@
+package caevo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import caevo.tlink.TLink;
+import caevo.tlink.TLinkClassifier;
+import caevo.tlink.TLinkDatum;
+import caevo.tlink.TLinkFeaturizer;
+import caevo.util.WordNet;
+import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.GeneralDataset;
+import edu.stanford.nlp.classify.LinearClassifier;
+import edu.stanford.nlp.classify.RVFDataset;
+import edu.stanford.nlp.ling.RVFDatum;
+import junit.framework.TestCase;
+
+/**
+ * A binary view of the shared training dataset must train the same classifier
+ * as the per-label copy of the data that MLEventEventSameSent used to build.
+ */
+public class BinaryDatasetTest extends TestCase {
+  static final int CUTOFF = 2;
+
+  List<TLinkDatum> data;
+
+  protected void setUp() {
+    if (Main.wordnet == null)
+      Main.wordnet = new WordNet();
+    data = new TLinkFeaturizer().infoToTLinkFeatures(
+        new SieveDocuments(FeatureParityTest.FIXTURE), null);
+  }
+
+  /**
+   * What MLEventEventSameSent.createBinaryData() did: a new datum per link,
+   * with a copy of its features.
+   */
+  private List<TLinkDatum> createBinaryData(TLink.Type targetLabel) {
+    List<TLinkDatum> binaryData = new ArrayList<TLinkDatum>();
+    for (TLinkDatum datum : data) {
+      TLinkDatum newd = new TLinkDatum();
+      newd.setLabel(
+          (datum.getLabel() == targetLabel) ? targetLabel : TLink.Type.NONE);
+      newd.addFeatures(datum.getFeatures());
+      binaryData.add(newd);
+    }
+    return binaryData;
+  }
+
+  public void testSameAsCopiedData() {
+    assertTrue(data.size() > 5);
+    RVFDataset<String, String> dataset = TLinkClassifier.toDataset(data,
+        CUTOFF);
+
+    Set<TLink.Type> targets = new LinkedHashSet<TLink.Type>();
+    for (TLinkDatum datum : data)
+      targets.add(datum.getLabel());
+    assertTrue(targets.size() > 1);
+
+    for (TLink.Type target : targets) {
+      RVFDataset<String, String> view = TLinkClassifier.binaryDataset(dataset,
+          target.toString(), TLink.Type.NONE.toString());
+      assertSame(dataset.getDataArray(), view.getDataArray());
+      assertSame(dataset.getValuesArray(), view.getValuesArray());
+      assertSame(dataset.featureIndex(), view.featureIndex());
+
+      // The old way: copy, convert, threshold.
+      GeneralDataset<String, String> copied = TLinkClassifier
+          .listToDataset(createBinaryData(target));
+      copied.applyFeatureCountThreshold(CUTOFF);
+
+      assertEquals(copied.labelIndex().objectsList(),
+          view.labelIndex().objectsList());
+      assertEquals(copied.featureIndex().objectsList(),
+          view.featureIndex().objectsList());
+      assertEquals(copied.size(), view.size());
+      for (int ii = 0; ii < view.size(); ii++) {
+        RVFDatum<String, String> expected = ((RVFDataset<String, String>) copied)
+            .getRVFDatum(ii);
+        RVFDatum<String, String> actual = view.getRVFDatum(ii);
+        assertEquals(expected.label(), actual.label());
+        assertEquals(expected.asFeaturesCounter(), actual.asFeaturesCounter());
+      }
+
+      Classifier<String, String> before = TLinkClassifier.train(copied);
+      Classifier<String, String> after = TLinkClassifier.train(view);
+      double[][] expected = ((LinearClassifier<String, String>) before)
+          .weights();
+      double[][] actual = ((LinearClassifier<String, String>) after).weights();
+      assertEquals(expected.length, actual.length);
+      for (int ff = 0; ff < expected.length; ff++)
+        for (int ll = 0; ll < expected[ff].length; ll++)
+          assertEquals(expected[ff][ll], actual[ff][ll], 1e-9);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package caevo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import caevo.Closure;
 import caevo.Evaluate;
@@ -49,4 +50,56 @@ public class ClosureTest extends TestCase {
           Evaluate.isLinkCorrect(link, newClosed));
   }
 
+  /**
+   * Adding links in batches to IncrementalClosure must infer exactly the links
+   * that Closure.computeClosure infers when rerun from scratch after each batch.
+   */
+  public void testIncrementalClosure() throws Exception {
+    Closure closure = new Closure();
+    TLink.Type[] types = { TLink.Type.BEFORE, TLink.Type.AFTER,
+        TLink.Type.INCLUDES, TLink.Type.IS_INCLUDED, TLink.Type.SIMULTANEOUS,
+        TLink.Type.VAGUE };
+    Random rand = new Random(7);
+
+    for (int trial = 0; trial < 20; trial++) {
+      List<TLink> scratch = new ArrayList<TLink>();
+      List<TLink> incremental = new ArrayList<TLink>();
+      IncrementalClosure inc = new IncrementalClosure(closure);
+
+      for (int batch = 0; batch < 5; batch++) {
+        for (int xx = 0; xx < 4; xx++) {
+          String id1 = "e" + rand.nextInt(12);
+          String id2 = "e" + rand.nextInt(12);
+          if (id1.equals(id2) || hasPair(scratch, id1, id2))
+            continue;
+          TLink.Type rel = types[rand.nextInt(types.length)];
+          scratch.add(new EventEventLink(id1, id2, rel));
+          incremental.add(new EventEventLink(id1, id2, rel));
+        }
+
+        List<TLink> expected = closure.computeClosure(scratch);
+        List<TLink> got = inc.computeClosure(incremental);
+        assertEquals(linksToString(expected), linksToString(got));
+        scratch.addAll(expected);
+        incremental.addAll(got);
+      }
+    }
+  }
+
+  private boolean hasPair(List<TLink> links, String id1, String id2) {
+    for (TLink link : links)
+      if ((link.getId1().equals(id1) && link.getId2().equals(id2))
+          || (link.getId1().equals(id2) && link.getId2().equals(id1)))
+        return true;
+    return false;
+  }
+
+  private String linksToString(List<TLink> links) {
+    StringBuffer buf = new StringBuffer();
+    for (TLink link : links)
+      buf.append(link.getId1() + " " + link.getId2() + " " + link.getRelation()
+          + "\n");
+    return buf.toString();
+  }
+
 }
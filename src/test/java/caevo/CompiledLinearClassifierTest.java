@@ -0,0 +1,146 @@
+package caevo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.FeatureDictionary;
+import caevo.util.FeatureVector;
+import caevo.util.Pair;
+import edu.stanford.nlp.classify.LinearClassifier;
+import edu.stanford.nlp.ling.RVFDatum;
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.stats.Counters;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+import junit.framework.TestCase;
+
+/**
+ * The compiled scorer must pick the same labels, with the same probabilities,
+ * as the LinearClassifier it came from.
+ */
+public class CompiledLinearClassifierTest extends TestCase {
+  private LinearClassifier<String, String> classifier;
+
+  protected void setUp() {
+    Index<String> features = new HashIndex<String>(
+        Arrays.asList("tense=PAST", "dist=1", "dep=nsubj"));
+    Index<String> labels = new HashIndex<String>(
+        Arrays.asList("BEFORE", "AFTER", "VAGUE"));
+    double[][] weights = { { 1.5, -0.5, 0.1 }, { -0.2, 0.8, 0.3 },
+        { 0.0, 0.4, -1.1 } };
+    classifier = new LinearClassifier<String, String>(weights, features,
+        labels);
+  }
+
+  private static Counter<String> datum(String... features) {
+    Counter<String> counter = new ClassicCounter<String>();
+    for (String feature : features)
+      counter.incrementCount(feature);
+    return counter;
+  }
+
+  private void assertSameAsClassifier(CompiledLinearClassifier compiled,
+      Counter<String> features) {
+    Counter<String> scores = classifier
+        .scoresOf(new RVFDatum<String, String>(features, null));
+    Counters.logNormalizeInPlace(scores);
+    String expected = Counters.argmax(scores);
+
+    Pair<String, Double> labelProb = compiled.labelProb(features);
+    assertEquals(expected, labelProb.first());
+    assertEquals(Math.exp(scores.getCount(expected)), labelProb.second(),
+        1e-6);
+  }
+
+  public void testMatchesClassifier() {
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .forClassifier(classifier);
+    assertSame(compiled, CompiledLinearClassifier.forClassifier(classifier));
+    assertNull(CompiledLinearClassifier.forClassifier(null));
+    assertEquals(3, compiled.numLabels());
+    assertEquals(-1, compiled.featureRow("unseen"));
+
+    assertSameAsClassifier(compiled, datum("tense=PAST"));
+    assertSameAsClassifier(compiled, datum("dist=1", "dep=nsubj"));
+    assertSameAsClassifier(compiled, datum("dist=1", "dist=1", "unseen"));
+  }
+
+  public void testBatchMatchesSingle() {
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .compile(classifier);
+    List<FeatureVector> batch = new ArrayList<FeatureVector>();
+    String[][] datums = { { "tense=PAST" }, {}, { "dist=1", "dep=nsubj" },
+        { "unseen", "dist=1", "dist=1" } };
+    for (String[] features : datums) {
+      FeatureVector vector = new FeatureVector();
+      for (String feature : features)
+        vector.add(feature);
+      batch.add(vector);
+    }
+
+    List<Pair<String, Double>> results = compiled.labelProbs(batch);
+    assertEquals(batch.size(), results.size());
+    for (int ii = 0; ii < batch.size(); ii++) {
+      Pair<String, Double> single = compiled.labelProb(batch.get(ii));
+      assertEquals(single.first(), results.get(ii).first());
+      assertEquals(single.second(), results.get(ii).second(), 1e-12);
+    }
+    assertTrue(compiled.labelProbs(new ArrayList<FeatureVector>()).isEmpty());
+  }
+
+  public void testIdsAndStringsScoreTheSame() {
+    FeatureVector before = new FeatureVector();
+    before.add("dep=nsubj");
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .compile(classifier);
+    FeatureVector after = new FeatureVector();
+    after.add("dep=nsubj");
+    FeatureVector other = new FeatureVector(new FeatureDictionary());
+    other.add("dep=nsubj");
+
+    // By dictionary id, and by name for the vectors that have none.
+    assertTrue(after.getId(0) >= 0);
+    Pair<String, Double> expected = compiled.labelProb(datum("dep=nsubj"));
+    for (FeatureVector vector : Arrays.asList(before, after, other)) {
+      assertEquals(expected.first(), compiled.labelProb(vector).first());
+      assertEquals(expected.second(), compiled.labelProb(vector).second(),
+          1e-12);
+    }
+  }
+
+  public void testNullFeature() throws Exception {
+    Index<String> features = new HashIndex<String>(
+        Arrays.asList("tense=PAST", null));
+    Index<String> labels = new HashIndex<String>(
+        Arrays.asList("BEFORE", "AFTER"));
+    double[][] weights = { { 1.0, -1.0 }, { -2.0, 2.0 } };
+    classifier = new LinearClassifier<String, String>(weights, features,
+        labels);
+    FeatureVector vector = new FeatureVector();
+    vector.add("tense=PAST");
+    vector.add(null);
+
+    File file = File.createTempFile("classifier", ".compiled");
+    file.deleteOnExit();
+    CompiledLinearClassifier.compile(classifier).write(file.getPath());
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .read(file.getPath());
+    assertEquals(1, compiled.featureRow(null));
+    assertSameAsClassifier(compiled, vector.toCounter());
+    assertEquals("AFTER", compiled.classOf(vector));
+  }
+
+  public void testWriteAndRead() throws Exception {
+    File file = File.createTempFile("classifier", ".compiled");
+    file.deleteOnExit();
+    CompiledLinearClassifier.compile(classifier).write(file.getPath());
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .read(file.getPath());
+    assertEquals(3, compiled.numFeatures());
+    assertSameAsClassifier(compiled, datum("tense=PAST", "dep=nsubj"));
+  }
+}
@@ -0,0 +1,63 @@
+package caevo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import caevo.tlink.TLink;
+import caevo.util.ConfusionMatrix;
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+import junit.framework.TestCase;
+
+/**
+ * The matrix-based printing in Evaluate must match the Counter-based printing.
+ */
+public class ConfusionMatrixTest extends TestCase {
+  private static final TLink.Type[][] PAIRS = {
+      { TLink.Type.BEFORE, TLink.Type.BEFORE },
+      { TLink.Type.BEFORE, TLink.Type.AFTER },
+      { TLink.Type.BEFORE, TLink.Type.BEFORE },
+      { TLink.Type.IS_INCLUDED, TLink.Type.VAGUE },
+      { TLink.Type.VAGUE, TLink.Type.VAGUE },
+      { TLink.Type.BEGINS, TLink.Type.INCLUDES } };
+
+  public void testSamePrintout() {
+    ConfusionMatrix matrix = new ConfusionMatrix();
+    Counter<String> guessCounts = new ClassicCounter<String>();
+    Counter<TLink.Type> goldCounts = new ClassicCounter<TLink.Type>();
+    for (TLink.Type[] pair : PAIRS) {
+      matrix.add(pair[0], pair[1]);
+      matrix.addGold(pair[0]);
+      guessCounts.incrementCount(pair[0] + " " + pair[1]);
+      goldCounts.incrementCount(pair[0]);
+    }
+    matrix.addGold(TLink.Type.AFTER);
+    goldCounts.incrementCount(TLink.Type.AFTER);
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    Evaluate.printConfusionMatrix(guessCounts, new PrintStream(expected));
+    Evaluate.printPerRelationPRF(guessCounts, goldCounts,
+        new PrintStream(expected));
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    Evaluate.printConfusionMatrix(matrix, new PrintStream(actual));
+    Evaluate.printPerRelationPRF(matrix, new PrintStream(actual));
+    assertEquals(expected.toString(), actual.toString());
+
+    assertEquals(guessCounts, matrix.toCounter());
+    assertEquals(goldCounts, matrix.goldCounter());
+  }
+
+  public void testMerge() {
+    ConfusionMatrix one = new ConfusionMatrix();
+    ConfusionMatrix two = new ConfusionMatrix();
+    one.add(TLink.Type.BEFORE, TLink.Type.AFTER);
+    two.add(TLink.Type.BEFORE, TLink.Type.AFTER);
+    two.add(TLink.Type.AFTER, TLink.Type.AFTER);
+    two.addGold(TLink.Type.AFTER);
+    one.merge(two);
+    assertEquals(2, one.getCount(TLink.Type.BEFORE, TLink.Type.AFTER));
+    assertEquals(3, one.getGuessCount(TLink.Type.AFTER));
+    assertEquals(1, one.getGoldCount(TLink.Type.AFTER));
+    assertEquals(0, one.getGoldCount(TLink.Type.BEFORE));
+  }
+}
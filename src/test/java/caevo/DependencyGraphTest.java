@@ -0,0 +1,49 @@
+package caevo;
+
+import java.util.List;
+
+import caevo.util.DependencyGraph;
+import caevo.util.TreeOperator;
+import edu.stanford.nlp.trees.TypedDependency;
+import junit.framework.TestCase;
+
+/**
+ * Token lookups and shortest paths over a sentence's dependencies.
+ */
+public class DependencyGraphTest extends TestCase {
+  // The dog barked at the cat that ran
+  private static final String DEPS = "det(dog-2, The-1)\n"
+      + "nsubj(barked-3, dog-2)\n" + "prep_at(barked-3, cat-6)\n"
+      + "det(cat-6, the-5)\n" + "nsubj(ran-8, cat-6)\n"
+      + "rcmod(cat-6, ran-8)\n";
+
+  public void testLookups() {
+    List<TypedDependency> deps = TreeOperator.stringToDependencies(DEPS);
+    DependencyGraph graph = new DependencyGraph(deps);
+
+    assertEquals(1, graph.getDeps(3, 2).size());
+    assertTrue(graph.getDeps(2, 3).isEmpty());
+    assertEquals(1, graph.getDepsBetween(2, 3).size());
+    assertEquals(2, graph.getDepsBetween(6, 8).size());
+    assertEquals(1, graph.getGovernors(6).size());
+    assertEquals("det", graph.getDependents(6).get(0).reln().toString());
+    assertEquals(4, graph.getDeps(6).size());
+    assertTrue(graph.getDeps(7).isEmpty());
+  }
+
+  public void testShortestPaths() {
+    List<TypedDependency> deps = TreeOperator.stringToDependencies(DEPS);
+    DependencyGraph graph = DependencyGraph.of(deps);
+    assertSame(graph, DependencyGraph.of(deps));
+
+    assertEquals("", graph.path(1, 1));
+    assertEquals("nsubj->", graph.path(3, 2));
+    assertEquals("nsubj<-", graph.path(2, 3));
+    assertEquals("det<-nsubj<-prep_at->det->", graph.path(1, 5));
+    // Two paths of the same length: the one through the earlier dependency.
+    assertEquals("nsubj<-prep_at->nsubj<-", graph.path(2, 8));
+    assertEquals("nsubj<-prep_at->nsubj<-", TreeOperator.dependencyPath(2, 8,
+        deps));
+    assertNull(graph.path(2, 7));
+  }
+}
@@ -0,0 +1,72 @@
+package caevo;
+
+import caevo.util.DerivedCache;
+import caevo.util.DerivedCache.Policy;
+import junit.framework.TestCase;
+
+/**
+ * Cache policies for rebuildable structures.
+ */
+public class DerivedCacheTest extends TestCase {
+
+  public void testStrongKeepsEverything() {
+    DerivedCache cache = new DerivedCache("test", Policy.STRONG, 1);
+    DerivedCache.Slot<String> slot = cache.newSlot();
+    assertNull(slot.get());
+    slot.set("tree", 1000);
+    assertEquals("tree", slot.get());
+    // Only misses are counted under strong.
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.0, cache.getHitRate(), 1e-9);
+  }
+
+  public void testLRUBudget() {
+    DerivedCache cache = new DerivedCache("test", Policy.LRU, 250);
+    DerivedCache.Slot<String> one = cache.newSlot();
+    DerivedCache.Slot<String> two = cache.newSlot();
+    DerivedCache.Slot<String> three = cache.newSlot();
+    one.set("one", 100);
+    two.set("two", 100);
+    assertEquals("one", one.get()); // two is now the least recently used
+    three.set("three", 100);
+
+    assertEquals("one", one.get());
+    assertNull(two.get());
+    assertEquals("three", three.get());
+    assertEquals(200, cache.getBytes());
+    assertEquals(1, cache.getEvictions());
+
+    // Replacing a value doesn't count it twice.
+    three.set("three", 100);
+    assertEquals(200, cache.getBytes());
+
+    // A value bigger than the budget is still kept until the next one.
+    DerivedCache.Slot<String> big = cache.newSlot();
+    big.set("big", 1000);
+    assertEquals("big", big.get());
+    assertNull(one.get());
+  }
+
+  public void testSoftKeepsReachable() {
+    DerivedCache cache = new DerivedCache("test", Policy.SOFT, 0);
+    DerivedCache.Slot<String> slot = cache.newSlot();
+    slot.set("tree", 1000);
+    assertEquals("tree", slot.get());
+    assertEquals(0, cache.getBytes());
+    assertNull(cache.<String> newSlot().get());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(0.5, cache.getHitRate(), 1e-9);
+  }
+
+  public void testParsePolicy() {
+    assertEquals(Policy.LRU, DerivedCache.parsePolicy(" lru"));
+    assertEquals(Policy.SOFT, DerivedCache.parsePolicy("Soft"));
+    try {
+      DerivedCache.parsePolicy("weak");
+      fail();
+    } catch (IllegalArgumentException ex) {
+    }
+  }
+}
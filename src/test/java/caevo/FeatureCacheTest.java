@@ -0,0 +1,138 @@
+package caevo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import caevo.tlink.FeatureCache;
+import caevo.tlink.TLink;
+import caevo.tlink.TLinkClassifier;
+import caevo.tlink.TLinkDatum;
+import caevo.tlink.TLinkFeaturizer;
+import caevo.util.WordNet;
+import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.LinearClassifier;
+import edu.stanford.nlp.classify.RVFDataset;
+import junit.framework.TestCase;
+
+/**
+ * Featurized training data reads back from the cache exactly as it was written,
+ * and is only read back for the same documents and settings.
+ */
+public class FeatureCacheTest extends TestCase {
+  static final int CUTOFF = 2;
+
+  File dir;
+
+  protected void setUp() throws Exception {
+    if (Main.wordnet == null)
+      Main.wordnet = new WordNet();
+    dir = File.createTempFile("featurecache", "");
+    dir.delete();
+    System.setProperty("TLinkFeaturizer.cacheDir", dir.getPath());
+  }
+
+  protected void tearDown() {
+    System.clearProperty("TLinkFeaturizer.cacheDir");
+    File[] files = dir.listFiles();
+    if (files != null)
+      for (File file : files)
+        file.delete();
+    dir.delete();
+  }
+
+  private static SieveDocuments fixture() {
+    return new SieveDocuments(FeatureParityTest.FIXTURE);
+  }
+
+  public void testKeyCoversSettingsAndDocuments() {
+    SieveDocuments docs = fixture();
+    TLinkFeaturizer featurizer = new TLinkFeaturizer();
+    String key = FeatureCache.key(featurizer, docs, null);
+    assertEquals(key, FeatureCache.key(new TLinkFeaturizer(), fixture(), null));
+
+    featurizer._sameSentenceOnly = true;
+    assertFalse(key.equals(FeatureCache.key(featurizer, docs, null)));
+    featurizer._sameSentenceOnly = false;
+    featurizer._eventDCTOnly = true;
+    assertFalse(key.equals(FeatureCache.key(featurizer, docs, null)));
+    featurizer._eventDCTOnly = false;
+    assertEquals(key, FeatureCache.key(featurizer, docs, null));
+
+    // The same documents with one event's tense changed.
+    SieveDocuments changed = fixture();
+    TextEvent event = changed.getDocuments().get(0).getEvents().get(0);
+    event.setTense(TextEvent.Tense.FUTURE);
+    assertFalse(key.equals(FeatureCache.key(featurizer, changed, null)));
+
+    Set<String> names = new HashSet<String>();
+    names.add("ABC19980108.1830.0711.tml");
+    assertFalse(key.equals(FeatureCache.key(featurizer, fixture(), names)));
+  }
+
+  public void testSecondCallReadsCache() throws Exception {
+    SieveDocuments docs = fixture();
+    TLinkFeaturizer featurizer = new TLinkFeaturizer();
+    RVFDataset<String, String> first = featurizer.infoToDataset(docs, null);
+    assertTrue(first.size() > 0);
+    File file = new File(dir, FeatureCache.key(featurizer, docs, null)
+        + ".features");
+    assertTrue(file.exists());
+
+    // Swap the cache file's contents, and the next call must return them.
+    FeatureCache.write(new RVFDataset<String, String>(), file);
+    assertEquals(0, featurizer.infoToDataset(docs, null).size());
+  }
+
+  public void testCachedDataTrainsSameClassifier() {
+    SieveDocuments docs = fixture();
+    TLinkFeaturizer featurizer = new TLinkFeaturizer();
+    Classifier<String, String> uncached = TLinkClassifier.train(
+        featurizer.infoToTLinkFeatures(docs, null), CUTOFF);
+
+    featurizer.infoToDataset(docs, null);
+    RVFDataset<String, String> cached = featurizer.infoToDataset(docs, null);
+    TLinkClassifier.threshold(cached, CUTOFF);
+    Classifier<String, String> fromCache = TLinkClassifier.train(cached);
+
+    LinearClassifier<String, String> expected = (LinearClassifier<String, String>) uncached;
+    LinearClassifier<String, String> actual = (LinearClassifier<String, String>) fromCache;
+    assertEquals(expected.labelIndex().objectsList(),
+        actual.labelIndex().objectsList());
+    assertEquals(expected.featureIndex().objectsList(),
+        actual.featureIndex().objectsList());
+    double[][] weights = expected.weights();
+    for (int ff = 0; ff < weights.length; ff++)
+      for (int ll = 0; ll < weights[ff].length; ll++)
+        assertEquals(weights[ff][ll], actual.weights()[ff][ll], 1e-9);
+  }
+
+  public void testRoundTrip() throws Exception {
+    List<TLinkDatum> data = new ArrayList<TLinkDatum>();
+    TLinkDatum before = new TLinkDatum(TLink.Type.BEFORE);
+    before.addFeature("tense1-PAST");
+    before.addFeature("pos-VBD", 2.0);
+    data.add(before);
+    TLinkDatum after = new TLinkDatum(TLink.Type.AFTER);
+    after.addFeature("tense1-PRESENT");
+    after.addFeature("pos-VBD");
+    data.add(after);
+    RVFDataset<String, String> dataset = TLinkClassifier.toDataset(data, 0);
+
+    File file = File.createTempFile("featurecache", ".features");
+    try {
+      FeatureCache.write(dataset, file);
+      RVFDataset<String, String> read = FeatureCache.read(file);
+
+      assertEquals(dataset.size(), read.size());
+      assertEquals(dataset.labelIndex().objectsList(), read.labelIndex().objectsList());
+      assertEquals(dataset.featureIndex().objectsList(), read.featureIndex().objectsList());
+      for (int ii = 0; ii < dataset.size(); ii++)
+        assertEquals(dataset.getRVFDatum(ii), read.getRVFDatum(ii));
+    } finally {
+      file.delete();
+    }
+  }
+}
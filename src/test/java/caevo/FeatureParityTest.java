@@ -0,0 +1,100 @@
+package caevo;
+
+import java.util.List;
+
+import caevo.tlink.TLinkFeaturizer;
+import caevo.util.FeatureDictionary;
+import caevo.util.FeatureVector;
+import caevo.util.WordNet;
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.trees.Tree;
+import junit.framework.TestCase;
+
+/**
+ * The FeatureVector featurizers must produce exactly the feature multisets
+ * that the Counter-based featurizers did, on a real TimeBank document (the
+ * first five sentences of ABC19980108.1830.0711).
+ */
+public class FeatureParityTest extends TestCase {
+  static final String FIXTURE = "src/test/resources/ABC19980108-SIEVE.xml";
+
+  SieveDocument doc;
+  BaselineFeatures baseline;
+  TLinkFeaturizer featurizer;
+
+  protected void setUp() {
+    if (Main.wordnet == null)
+      Main.wordnet = new WordNet();
+    doc = new SieveDocuments(FIXTURE).getDocuments().get(0);
+    baseline = new BaselineFeatures(Main.wordnet);
+    featurizer = new TLinkFeaturizer();
+  }
+
+  public void testEventEventFeatures() {
+    List<TextEvent> events = doc.getEvents();
+    assertTrue(events.size() > 3);
+    for (TextEvent event1 : events)
+      for (TextEvent event2 : events)
+        if (event1 != event2)
+          assertEquals(event1.getEiid() + "-" + event2.getEiid(),
+              baseline.createEventEventDatum(doc, event1, event2, null),
+              featurizer.createEventEventDatum(doc, event1, event2, null)
+                  .getFeatures());
+  }
+
+  public void testEventTimeFeatures() {
+    int pairs = 0;
+    for (SieveSentence sentence : doc.getSentences())
+      for (Timex timex : sentence.timexes())
+        for (TextEvent event : doc.getEvents()) {
+          assertEquals(event.getEiid() + "-" + timex.getTid(),
+              baseline.createEventTimeDatum(doc, event, timex, null),
+              featurizer.createEventTimeDatum(doc, event, timex, null)
+                  .getFeatures());
+          pairs++;
+        }
+    assertTrue(pairs > 0);
+  }
+
+  public void testEventDCTFeatures() {
+    Timex dct = doc.getDocstamp().get(0);
+    for (TextEvent event : doc.getEvents())
+      assertEquals(event.getEiid(),
+          baseline.createEventDocumentTimeDatum(doc, event, dct, null),
+          featurizer.createEventDocumentTimeDatum(doc, event, dct, null)
+              .getFeatures());
+  }
+
+  public void testWithEventAttributes() {
+    baseline._noEventFeats = false;
+    featurizer._noEventFeats = false;
+    testEventEventFeatures();
+    testEventTimeFeatures();
+  }
+
+  public void testEventFeatures() {
+    TextEventClassifier classifier = new TextEventClassifier(
+        new SieveDocuments(), Main.wordnet);
+    List<Tree> trees = doc.getAllParseTrees();
+    for (SieveSentence sentence : doc.getSentences()) {
+      Tree tree = trees.get(sentence.sid());
+      for (int wordi = 1; wordi <= sentence.tokens().size(); wordi++) {
+        FeatureVector features = new FeatureVector();
+        classifier.addEventFeatures(features, sentence, tree,
+            sentence.getDeps(), wordi);
+        Counter<String> expected = baseline.getEventFeatures(sentence, tree,
+            sentence.getDeps(), wordi);
+        assertEquals(sentence.sid() + ":" + wordi, expected,
+            features.toCounter());
+      }
+    }
+  }
+
+  public void testFeaturizingDoesNotGrowDictionary() {
+    int size = FeatureDictionary.shared().size();
+    for (TextEvent event1 : doc.getEvents())
+      for (TextEvent event2 : doc.getEvents())
+        featurizer.createEventEventDatum(doc, event1, event2, null);
+    assertEquals(size, FeatureDictionary.shared().size());
+  }
+}
@@ -0,0 +1,149 @@
+package caevo;
+
+import java.util.Arrays;
+
+import caevo.tlink.TLinkDatum;
+import caevo.util.CompiledLinearClassifier;
+import caevo.util.FeatureDictionary;
+import caevo.util.FeatureVector;
+import caevo.util.Pair;
+import edu.stanford.nlp.classify.LinearClassifier;
+import edu.stanford.nlp.stats.ClassicCounter;
+import edu.stanford.nlp.stats.Counter;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+import junit.framework.TestCase;
+
+/**
+ * FeatureVectors must render exactly the feature strings the featurizers built
+ * by concatenation.
+ */
+public class FeatureVectorTest extends TestCase {
+
+  public void testSameStringsAsConcatenation() {
+    TextEvent.Tense tense = TextEvent.Tense.PAST;
+    TextEvent.Aspect aspect = null;
+    String pos = null;
+    long offset = 1234567890123L;
+
+    Counter<String> expected = new ClassicCounter<String>();
+    expected.incrementCount("ev1Tense-" + tense);
+    expected.incrementCount("aspects-" + aspect + "-" + tense);
+    expected.incrementCount("<s>" + "-" + pos);
+    expected.incrementCount("synset" + 2 + "-" + offset);
+    expected.incrementCount("IS-WORDNET-EV-" + true);
+    expected.incrementCount("order-before");
+    expected.incrementCount("order-before");
+    expected.incrementCount(null);
+
+    FeatureVector feats = new FeatureVector();
+    feats.start("ev1Tense-").append(tense).add();
+    feats.start("aspects-").append(aspect).append('-').append(tense).add();
+    feats.start("<s>").append('-').append(pos).add();
+    feats.start("synset").append(2).append('-').append(offset).add();
+    feats.start("IS-WORDNET-EV-").append(true).add();
+    feats.add("order-before");
+    feats.add("order-before");
+    feats.add(null);
+
+    // Null features are kept, like incrementCount(null) kept them.
+    assertEquals(8, feats.size());
+    assertEquals(expected, feats.toCounter());
+    assertEquals("ev1Tense-PAST", feats.getFeature(0));
+    assertEquals(feats.getFeature(5), feats.getFeature(6));
+    assertNull(feats.getFeature(7));
+  }
+
+  public void testOnlyKnownFeaturesGetIds() {
+    FeatureDictionary dictionary = new FeatureDictionary();
+    int known = dictionary.intern("tense-PAST");
+    FeatureVector feats = new FeatureVector(dictionary);
+    feats.start("tense-").append("PAST").add();
+    feats.start("tense-").append("FUTURE").add();
+    feats.add("tense-FUTURE");
+    assertEquals(known, feats.getId(0));
+    assertTrue(feats.getId(1) < 0);
+    assertTrue(feats.getId(2) < 0);
+    assertEquals("tense-FUTURE", feats.getFeature(1));
+    assertEquals(2.0, feats.toCounter().getCount("tense-FUTURE"), 0.0);
+    // Featurizing only looks features up.
+    assertEquals(1, dictionary.size());
+    assertEquals(-1, dictionary.lookup("tense-FUTURE"));
+
+    feats.clear();
+    feats.add("tense-PRESENT");
+    assertEquals("tense-PRESENT", feats.getFeature(0));
+  }
+
+  public void testDictionary() {
+    FeatureDictionary dictionary = new FeatureDictionary();
+    StringBuilder sb = new StringBuilder("bow-");
+    int id = dictionary.intern(sb.append("said"));
+    assertEquals(id, dictionary.intern("bow-said"));
+    assertEquals("bow-said", dictionary.get(id));
+    for (int ii = 0; ii < 5000; ii++)
+      dictionary.intern("f" + ii);
+    assertEquals(5001, dictionary.size());
+    assertEquals(id, dictionary.intern("bow-said"));
+    assertEquals("f4999", dictionary.get(dictionary.intern("f4999")));
+  }
+
+  public void testInternAll() {
+    FeatureDictionary dictionary = new FeatureDictionary();
+    int known = dictionary.intern("timeEOS");
+    int[] ids = dictionary.internAll(new String[] { "bow-said", null,
+        "timeEOS", "bow-said" });
+    assertEquals(-1, ids[1]);
+    assertEquals(known, ids[2]);
+    assertEquals(ids[0], ids[3]);
+    assertEquals(ids[0], dictionary.lookup("bow-said"));
+    assertEquals(2, dictionary.size());
+  }
+
+  public void testReuseAndAddAll() {
+    FeatureVector one = new FeatureVector();
+    one.start("prep1-").append("in").add();
+    FeatureVector other = new FeatureVector(new FeatureDictionary());
+    other.add("timeEOS", 2.0);
+    one.addAll(other);
+    assertEquals(2.0, one.toCounter().getCount("timeEOS"), 0.0);
+
+    one.clear();
+    assertTrue(one.isEmpty());
+    one.add("dominates");
+    assertEquals(1, one.toCounter().keySet().size());
+  }
+
+  public void testDatumScoresItsVector() {
+    Index<String> features = new HashIndex<String>(
+        Arrays.asList("pos1-0-VBD", "order-before", "dominates"));
+    Index<String> labels = new HashIndex<String>(
+        Arrays.asList("BEFORE", "AFTER", "VAGUE"));
+    double[][] weights = { { 1.5, -0.5, 0.1 }, { -0.2, 0.8, 0.3 },
+        { 0.0, 0.4, -1.1 } };
+    CompiledLinearClassifier compiled = CompiledLinearClassifier
+        .compile(new LinearClassifier<String, String>(weights, features,
+            labels));
+
+    FeatureVector feats = new FeatureVector();
+    feats.start("pos1").append("-0-").append("VBD").add();
+    feats.add("order-before");
+    feats.add("unseen");
+    // Compiling put the classifier's features in the dictionary.
+    assertTrue(feats.getId(0) >= 0);
+    assertTrue(feats.getId(2) < 0);
+    TLinkDatum datum = new TLinkDatum();
+    datum.addFeatures(feats);
+    assertSame(feats, datum.getFeatureVector());
+
+    Pair<String, Double> fromCounter = compiled.labelProb(feats.toCounter());
+    Pair<String, Double> fromVector = compiled.labelProb(feats);
+    assertEquals(fromCounter.first(), fromVector.first());
+    assertEquals(fromCounter.second(), fromVector.second(), 1e-12);
+
+    // Asking for strings moves the features into the Counter.
+    assertEquals(1.0, datum.getCount("order-before"), 0.0);
+    assertNull(datum.getFeatureVector());
+    assertEquals(3.0, datum.totalCount(), 0.0);
+  }
+}
@@ -0,0 +1,34 @@
+package caevo;
+
+import caevo.util.Log;
+import junit.framework.TestCase;
+
+/**
+ * Log levels come from Log.<component>, then Log.level.
+ */
+public class LogTest extends TestCase {
+
+  public void testComponentLevel() {
+    System.setProperty("Log.LogTestTrace", "trace");
+    Log log = Log.getLog("LogTestTrace");
+    assertEquals(Log.Level.TRACE, log.getLevel());
+    assertTrue(log.isTrace());
+    assertTrue(log.isError());
+  }
+
+  public void testGuards() {
+    System.setProperty("Log.LogTestWarn", "WARN");
+    Log log = Log.getLog("LogTestWarn");
+    assertTrue(log.isWarn());
+    assertFalse(log.isInfo());
+    assertFalse(log.isDebug());
+
+    log.setLevel(Log.Level.OFF);
+    assertFalse(log.isError());
+    assertFalse(log.isEnabled(Log.Level.OFF));
+  }
+
+  public void testSameInstance() {
+    assertSame(Log.getLog(LogTest.class), Log.getLog("LogTest"));
+  }
+}
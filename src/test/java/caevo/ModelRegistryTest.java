@@ -0,0 +1,57 @@
+package caevo;
+
+import java.io.File;
+import java.util.Arrays;
+
+import caevo.util.ModelRegistry;
+import edu.stanford.nlp.classify.Classifier;
+import edu.stanford.nlp.classify.LinearClassifier;
+import edu.stanford.nlp.io.IOUtils;
+import edu.stanford.nlp.util.HashIndex;
+import edu.stanford.nlp.util.Index;
+import junit.framework.TestCase;
+
+/**
+ * Models are loaded once, on request, and shared.
+ */
+public class ModelRegistryTest extends TestCase {
+
+  protected void setUp() {
+    ModelRegistry.clear();
+  }
+
+  protected void tearDown() {
+    ModelRegistry.clear();
+  }
+
+  public void testLoadedOnceAndShared() throws Exception {
+    Index<String> features = new HashIndex<String>(Arrays.asList("f1", "f2"));
+    Index<String> labels = new HashIndex<String>(
+        Arrays.asList("BEFORE", "AFTER"));
+    double[][] weights = { { 1.0, -1.0 }, { -1.0, 1.0 } };
+    File file = File.createTempFile("model", ".classifier");
+    file.deleteOnExit();
+    IOUtils.writeObjectToFile(
+        new LinearClassifier<String, String>(weights, features, labels), file);
+
+    assertFalse(ModelRegistry.isLoaded(file.getPath()));
+    Classifier<String, String> first = ModelRegistry
+        .getClassifier(file.getPath());
+    assertNotNull(first);
+    assertTrue(ModelRegistry.isLoaded(file.getPath()));
+    assertSame(first, ModelRegistry.getClassifier(file.getPath()));
+
+    assertEquals(1, ModelRegistry.getModels().size());
+    ModelRegistry.Model model = ModelRegistry.getModels().get(0);
+    assertEquals(file.getPath(), model.getName());
+    assertTrue(model.getRetainedBytes() > 0);
+  }
+
+  public void testMissingModel() {
+    assertNull(ModelRegistry.getClassifier("/models/no-such-model"));
+    assertEquals(1, ModelRegistry.getModels().size());
+    // The failed load is remembered, not tried again.
+    assertNull(ModelRegistry.getClassifier("/models/no-such-model"));
+    assertEquals(1, ModelRegistry.getModels().size());
+  }
+}
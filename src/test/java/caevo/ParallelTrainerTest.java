@@ -0,0 +1,129 @@
+package caevo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import caevo.util.ParallelTrainer;
+import caevo.util.Timings;
+import junit.framework.TestCase;
+
+/**
+ * Training jobs return their results in order, however many threads run them.
+ */
+public class ParallelTrainerTest extends TestCase {
+
+  private Map<String, Callable<Integer>> jobs(int num) {
+    Map<String, Callable<Integer>> jobs = new LinkedHashMap<String, Callable<Integer>>();
+    for (int ii = 0; ii < num; ii++) {
+      final int value = ii;
+      jobs.put("model" + ii, new Callable<Integer>() {
+        public Integer call() throws InterruptedException {
+          Thread.sleep(10 * (5 - value % 5));
+          return value * value;
+        }
+      });
+    }
+    return jobs;
+  }
+
+  public void testSameResultsInOrder() {
+    int before = ParallelTrainer.getThreads();
+    try {
+      for (int threads : new int[] { 1, 3 }) {
+        ParallelTrainer.setThreads(threads);
+        Map<String, Integer> results = ParallelTrainer.run(jobs(7));
+        assertEquals(7, results.size());
+        int ii = 0;
+        for (Map.Entry<String, Integer> result : results.entrySet()) {
+          assertEquals("model" + ii, result.getKey());
+          assertEquals(ii * ii, result.getValue().intValue());
+          ii++;
+        }
+      }
+    } finally {
+      ParallelTrainer.setThreads(before);
+    }
+  }
+
+  public void testNestedJobsShareThreads() {
+    int before = ParallelTrainer.getThreads();
+    ParallelTrainer.setThreads(3);
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger most = new AtomicInteger();
+    try {
+      Map<String, Callable<Map<String, Integer>>> outer = new LinkedHashMap<String, Callable<Map<String, Integer>>>();
+      for (int ii = 0; ii < 3; ii++) {
+        outer.put("sieve" + ii, new Callable<Map<String, Integer>>() {
+          public Map<String, Integer> call() {
+            Map<String, Callable<Integer>> inner = new LinkedHashMap<String, Callable<Integer>>();
+            for (final Map.Entry<String, Callable<Integer>> job : jobs(3)
+                .entrySet()) {
+              inner.put(job.getKey(), new Callable<Integer>() {
+                public Integer call() throws Exception {
+                  int now = running.incrementAndGet();
+                  synchronized (most) {
+                    most.set(Math.max(most.get(), now));
+                  }
+                  try {
+                    return job.getValue().call();
+                  } finally {
+                    running.decrementAndGet();
+                  }
+                }
+              });
+            }
+            return ParallelTrainer.run(inner);
+          }
+        });
+      }
+      Map<String, Map<String, Integer>> results = ParallelTrainer.run(outer);
+      assertEquals(3, results.size());
+      assertEquals(Integer.valueOf(4), results.get("sieve2").get("model2"));
+      assertTrue(most.get() <= 3);
+    } finally {
+      ParallelTrainer.setThreads(before);
+    }
+  }
+
+  public void testFailureIsTimed() {
+    Timings.clear();
+    Timings.setEnabled(true);
+    try {
+      Map<String, Callable<Integer>> jobs = new LinkedHashMap<String, Callable<Integer>>();
+      jobs.put("broken", new Callable<Integer>() {
+        public Integer call() {
+          throw new IllegalStateException("no data");
+        }
+      });
+      ParallelTrainer.run(jobs);
+      fail();
+    } catch (IllegalStateException ex) {
+      assertEquals(1,
+          Timings.getStage(Timings.trainStage("broken")).getCalls());
+    } finally {
+      Timings.setEnabled(false);
+      Timings.clear();
+    }
+  }
+
+  public void testFailurePropagates() {
+    int before = ParallelTrainer.getThreads();
+    ParallelTrainer.setThreads(2);
+    try {
+      Map<String, Callable<Integer>> jobs = jobs(3);
+      jobs.put("broken", new Callable<Integer>() {
+        public Integer call() {
+          throw new IllegalStateException("no data");
+        }
+      });
+      ParallelTrainer.run(jobs);
+      fail();
+    } catch (RuntimeException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    } finally {
+      ParallelTrainer.setThreads(before);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package caevo;
+
+import caevo.util.SentenceIndex;
+import caevo.util.TreeOperator;
+import edu.stanford.nlp.trees.Tree;
+import junit.framework.TestCase;
+
+/**
+ * The index must answer the same as searching the tree itself.
+ */
+public class SentenceIndexTest extends TestCase {
+
+  public void testMatchesTreeSearch() {
+    Tree tree = Tree.valueOf("(ROOT (S (NP (DT The) (NN dog)) (VP (VBD barked) (PP (IN at) (NP (NNP June))))))");
+    SentenceIndex index = new SentenceIndex(tree);
+
+    assertEquals(5, index.size());
+    assertNull(index.preterminal(0));
+    assertNull(index.preterminal(6));
+    for (int ii = 1; ii <= index.size(); ii++)
+      assertSame(TreeOperator.indexToSubtreeHelp(tree, 0, ii), index.preterminal(ii));
+    assertEquals("VBD", index.posTag(3));
+    assertEquals("June", index.token(5));
+
+    for (Tree node : tree) {
+      assertSame(node.parent(tree), index.parent(node));
+      for (Tree other : tree) {
+        assertEquals(node.dominates(other), index.dominates(node, other));
+        assertEquals(tree.pathNodeToNode(node, other), index.path(node, other));
+      }
+    }
+  }
+
+  public void testTokenSpans() {
+    Tree tree = Tree.valueOf("(ROOT (S (NP (DT The) (NN dog)) (VP (VBD barked))))");
+    SentenceIndex index = new SentenceIndex(tree);
+    Tree vp = index.parent(index.preterminal(3));
+    assertEquals(3, index.firstToken(vp));
+    assertEquals(3, index.lastToken(vp));
+    assertEquals(1, index.firstToken(tree));
+    assertEquals(3, index.lastToken(tree));
+    assertEquals(-1, index.depth(Tree.valueOf("(NN cat)")));
+    assertSame(SentenceIndex.of(tree), SentenceIndex.of(tree));
+  }
+}
@@ -0,0 +1,62 @@
+package caevo;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+/**
+ * Write documents to the binary format and make sure they come back out with
+ * the same .info.xml as they went in with.
+ */
+public class SieveBinaryTest extends TestCase {
+
+  public void testRoundTrip() throws Exception {
+    SieveDocuments docs = new SieveDocuments();
+    docs.addDocument(TestDocuments.buildDocument("doc1"));
+    docs.addDocument(TestDocuments.buildDocument("doc2"));
+
+    File binfile = File.createTempFile("sieve", ".info.bin");
+    binfile.deleteOnExit();
+    docs.writeToBinary(binfile);
+    assertTrue(SieveBinary.isBinary(binfile));
+
+    SieveDocuments loaded = new SieveDocuments(binfile.getPath());
+    assertEquals(2, loaded.getDocuments().size());
+    assertEquals(TestDocuments.toXMLString(docs),
+        TestDocuments.toXMLString(loaded));
+
+    // Lookups and lazy parses work on the decoded documents.
+    SieveDocument doc = loaded.getDocument("doc2");
+    assertNotNull(doc.getEventByEiid("ei1"));
+    assertNotNull(doc.getTimexByTid("t1"));
+    assertEquals(4, doc.getSentences().get(0).getParseTree().getLeaves()
+        .size());
+  }
+
+  public void testReadOneDocument() throws Exception {
+    SieveDocuments docs = new SieveDocuments();
+    docs.addDocument(TestDocuments.buildDocument("doc1"));
+    docs.addDocument(TestDocuments.buildDocument("doc2"));
+
+    File binfile = File.createTempFile("sieve", ".info.bin");
+    binfile.deleteOnExit();
+    docs.writeToBinary(binfile);
+
+    SieveBinary.Reader reader = new SieveBinary.Reader(binfile);
+    assertEquals(2, reader.size());
+    assertEquals("doc2", reader.getDocument(1).getDocname());
+    assertEquals(2, reader.getDocument(0).getTlinks().size());
+    reader.close();
+  }
+
+  public void testNotBinary() throws Exception {
+    File xmlfile = File.createTempFile("sieve", ".info.xml");
+    xmlfile.deleteOnExit();
+    SieveDocuments docs = new SieveDocuments();
+    docs.addDocument(TestDocuments.buildDocument("doc1"));
+    docs.writeToXML(xmlfile);
+    assertFalse(SieveBinary.isBinary(xmlfile));
+    assertEquals(TestDocuments.toXMLString(docs),
+        TestDocuments.toXMLString(new SieveDocuments(xmlfile.getPath())));
+  }
+}
@@ -0,0 +1,53 @@
+package caevo;
+
+import java.util.Properties;
+
+import caevo.util.SieveConfig;
+import junit.framework.TestCase;
+
+/**
+ * SieveConfig reads a sieve's settings once into an immutable snapshot.
+ */
+public class SieveConfigTest extends TestCase {
+
+  private SieveConfig config() {
+    Properties props = new Properties();
+    props.setProperty("ReichenbachDG13.sentWindow", "2");
+    props.setProperty("ReichenbachDG13.sameTense", "true");
+    props.setProperty("ReichenbachDG13.contextType", " naive ");
+    props.setProperty("ReichenbachDG13.typo", "1");
+    props.setProperty("Wordnet209.sentWindow", "5");
+    return SieveConfig.fromProperties("ReichenbachDG13", props);
+  }
+
+  public void testTypedValues() {
+    SieveConfig config = config();
+    assertEquals(2, config.getInt("sentWindow", 0));
+    assertTrue(config.getBoolean("sameTense", false));
+    assertEquals("naive", config.getString("contextType", null));
+    assertEquals(7, config.getInt("missing", 7));
+    assertEquals(4, config.keys().size());
+  }
+
+  public void testBadValue() {
+    SieveConfig config = config().with("sameTense", "maybe");
+    try {
+      config.getBoolean("sameTense", false);
+      fail("Expected a bad boolean to be rejected.");
+    } catch (IllegalArgumentException ex) {
+      assertTrue(ex.getMessage().contains("ReichenbachDG13.sameTense"));
+    }
+  }
+
+  public void testWithLeavesOriginal() {
+    SieveConfig config = config();
+    SieveConfig wider = config.with("sentWindow", "3");
+    assertEquals(2, config.getInt("sentWindow", 0));
+    assertEquals(3, wider.getInt("sentWindow", 0));
+  }
+
+  public void testUnknownKeys() {
+    assertEquals(1, config().checkKeys("sentWindow", "sameTense",
+        "contextType").size());
+  }
+}
@@ -0,0 +1,59 @@
+package caevo;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+/**
+ * Stream documents through SieveDocumentsWriter and SieveDocumentsReader and
+ * make sure they match what the whole-file XML reader and writer give.
+ */
+public class SieveDocumentsStreamTest extends TestCase {
+
+  public void testWriteThenRead() throws Exception {
+    SieveDocuments docs = new SieveDocuments();
+    for (int ii = 0; ii < 3; ii++)
+      docs.addDocument(TestDocuments.buildDocument("doc" + ii));
+
+    File xmlfile = File.createTempFile("sieve", ".info.xml");
+    xmlfile.deleteOnExit();
+    SieveDocumentsWriter writer = new SieveDocumentsWriter(xmlfile);
+    for (SieveDocument doc : docs.getDocuments())
+      writer.write(doc);
+    writer.close();
+    assertEquals(3, writer.size());
+
+    // The whole-file reader sees the same documents...
+    assertEquals(TestDocuments.toXMLString(docs),
+        TestDocuments.toXMLString(new SieveDocuments(xmlfile.getPath())));
+
+    // ...and so does the streaming reader, one at a time.
+    SieveDocuments streamed = new SieveDocuments();
+    SieveDocumentsReader reader = new SieveDocumentsReader(xmlfile);
+    for (SieveDocument doc : reader)
+      streamed.addDocument(doc);
+    reader.close();
+    assertEquals(TestDocuments.toXMLString(docs),
+        TestDocuments.toXMLString(streamed));
+  }
+
+  public void testReadWholeFileOutput() throws Exception {
+    SieveDocuments docs = new SieveDocuments();
+    docs.addDocument(TestDocuments.buildDocument("doc0"));
+    docs.addDocument(TestDocuments.buildDocument("doc1"));
+
+    File xmlfile = File.createTempFile("sieve", ".info.xml");
+    xmlfile.deleteOnExit();
+    docs.writeToXML(xmlfile);
+
+    SieveDocumentsReader reader = new SieveDocumentsReader(xmlfile);
+    assertEquals("doc0", reader.nextDocument().getDocname());
+    SieveDocument second = reader.nextDocument();
+    assertEquals("doc1", second.getDocname());
+    assertEquals("Stocks fell Tuesday.", second.getSentences().get(0)
+        .sentence());
+    assertEquals(2, second.getTlinks().size());
+    assertNull(reader.nextDocument());
+    reader.close();
+  }
+}
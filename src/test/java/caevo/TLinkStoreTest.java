@@ -0,0 +1,72 @@
+package caevo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import caevo.tlink.EventEventLink;
+import caevo.tlink.TLink;
+import caevo.tlink.TLinkStore;
+import junit.framework.TestCase;
+
+/**
+ * Pair lookups, removal and ordering in the TLinkStore.
+ */
+public class TLinkStoreTest extends TestCase {
+
+  private static TLink link(String id1, String id2) {
+    return new EventEventLink(id1, id2, TLink.Type.BEFORE);
+  }
+
+  public void testPairLookup() {
+    TLinkStore store = new TLinkStore();
+    TLink ab = link("e1", "e2");
+    TLink ba = link("e2", "e1");
+    assertNull(store.add(ab));
+    assertSame(ab, store.add(ba));
+
+    assertTrue(store.containsPair("e1", "e2"));
+    assertTrue(store.containsPair("e2", "e1"));
+    assertFalse(store.containsPair("e1", "e3"));
+    assertFalse(store.containsPair("e1", "e12"));
+    assertSame(ba, store.get("e1", "e2"));
+    assertSame(ab, store.getDirected("e1", "e2"));
+    assertSame(ba, store.getDirected("e2", "e1"));
+    assertEquals(2, store.getAll("e2", "e1").size());
+    assertEquals(2, store.size());
+    assertEquals(1, store.numPairs());
+    assertSame(ba, store.getAll("e2", "e1").get(0));
+  }
+
+  public void testRemoveKeepsOrder() {
+    TLinkStore store = new TLinkStore();
+    List<TLink> links = new ArrayList<TLink>();
+    for (int ii = 0; ii < 200; ii++) {
+      TLink tlink = link("e" + ii, "t" + (ii % 7));
+      links.add(tlink);
+      store.add(tlink);
+    }
+    TLink other = link("e5", "t5");
+    store.add(other);
+
+    assertTrue(store.remove(links.get(5)));
+    assertFalse(store.remove(links.get(5)));
+    assertSame(other, store.get("e5", "t5"));
+    assertTrue(store.remove(other));
+    assertFalse(store.containsPair("e5", "t5"));
+    assertEquals(2, store.removePair("t0", "e0") + store.removePair("e7", "t0"));
+
+    links.remove(7);
+    links.remove(5);
+    links.remove(0);
+    assertEquals(links, store.asList());
+    assertEquals(links.size(), store.size());
+    List<TLink> iterated = new ArrayList<TLink>();
+    for (TLink tlink : store)
+      iterated.add(tlink);
+    assertEquals(links, iterated);
+
+    // Chains are rebuilt after compaction.
+    assertSame(links.get(10), store.get(links.get(10).getId2(),
+        links.get(10).getId1()));
+  }
+}
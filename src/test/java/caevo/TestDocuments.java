@@ -0,0 +1,62 @@
+package caevo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+
+import caevo.tlink.EventEventLink;
+import caevo.tlink.EventTimeLink;
+import caevo.tlink.TLink;
+import edu.stanford.nlp.ling.CoreLabel;
+
+/**
+ * Small documents built in code for the tests that read and write them.
+ */
+public class TestDocuments {
+
+  /**
+   * @return One sentence, "Stocks fell Tuesday.", with an event, a timex, a
+   *         DCT and two tlinks.
+   */
+  public static SieveDocument buildDocument(String name) {
+    SieveDocument doc = new SieveDocument(name);
+
+    List<CoreLabel> tokens = SieveSentence
+        .stringToCoreLabels("\"\" \"Stocks\" \" \"\n\"\" \"fell\" \" \"\n"
+            + "\"\" \"Tuesday\" \"\"\n\"\" \".\" \"\"");
+    List<TextEvent> events = new ArrayList<TextEvent>();
+    TextEvent event = new TextEvent("fell", "e1", 0, 2);
+    event.addEiid("ei1");
+    event.setTense(TextEvent.Tense.PAST);
+    events.add(event);
+    List<Timex> timexes = new ArrayList<Timex>();
+    Timex timex = new Timex();
+    timex.setTid("t1");
+    timex.setText("Tuesday");
+    timex.setType(Timex.Type.DATE);
+    timex.setValue("2014-08-19");
+    timex.setSpan(3, 4);
+    timexes.add(timex);
+
+    doc.addSentence("Stocks fell Tuesday.", tokens,
+        "(ROOT (S (NP (NNS Stocks)) (VP (VBD fell) (NP-TMP (NNP Tuesday))) (. .)))",
+        "nsubj(fell-2, Stocks-1)\ntmod(fell-2, Tuesday-3)\n", events, timexes);
+
+    Timex dct = new Timex();
+    dct.setTid("t0");
+    dct.setType(Timex.Type.DATE);
+    dct.setValue("2014-08-22");
+    dct.setDocumentFunction(Timex.DocumentFunction.CREATION_TIME);
+    doc.addCreationTime(dct);
+
+    doc.addTlink(new EventTimeLink("ei1", "t1", TLink.Type.IS_INCLUDED));
+    doc.addTlink(new EventEventLink("ei1", "ei1", TLink.Type.VAGUE));
+    return doc;
+  }
+
+  public static String toXMLString(SieveDocuments docs) {
+    return new XMLOutputter(Format.getPrettyFormat()).outputString(docs.toXML());
+  }
+}
@@ -0,0 +1,88 @@
+package caevo;
+
+import java.io.File;
+import java.util.List;
+
+import caevo.util.SieveStats;
+import caevo.util.Timings;
+import caevo.util.Util;
+import junit.framework.TestCase;
+
+/**
+ * Record a few stage timings and check the per-run totals and the report
+ * files.
+ */
+public class TimingsTest extends TestCase {
+
+  protected void setUp() {
+    Timings.clear();
+    Timings.setEnabled(true);
+  }
+
+  protected void tearDown() {
+    Timings.setEnabled(false);
+    Timings.setDocument(null);
+    Timings.clear();
+  }
+
+  public void testNothingRecordedWhenDisabled() {
+    Timings.setEnabled(false);
+    Timings.Timer timer = Timings.start(Timings.CLOSURE, "doc0");
+    assertTrue(timer.stop(3) >= 0);
+    assertNull(Timings.getStage(Timings.CLOSURE));
+    // Only wall time is measured.
+    assertFalse(timer.isDetailed());
+    assertEquals(0, timer.getCpuNanos());
+    assertEquals(0, timer.getAllocBytes());
+    assertTrue(Timings.startDetailed(Timings.CLOSURE, null).isDetailed());
+  }
+
+  public void testRunTotals() {
+    Timings.setDocument("doc0");
+    Timings.start(Timings.sieveStage("AllVagueSieve")).stop(5);
+    Timings.start(Timings.sieveStage("AllVagueSieve")).stop(2);
+    Timings.start(Timings.CLOSURE).stop();
+
+    Timings.Stage sieve = Timings.getStage("sieve:AllVagueSieve");
+    assertEquals(2, sieve.getCalls());
+    assertEquals(7, sieve.getLinks());
+    assertEquals(1, Timings.getStage(Timings.CLOSURE).getCalls());
+    assertEquals(2, Timings.getStageNames().size());
+  }
+
+  public void testReport() throws Exception {
+    Timings.start(Timings.PARSE, "doc0").stop();
+    Timings.start(Timings.PARSE, "doc0").stop();
+    Timings.start(Timings.PARSE, "doc,1").stop();
+    // No document: run totals only.
+    Timings.start(Timings.XML_WRITE).stop();
+
+    File base = File.createTempFile("sieve", ".xml");
+    base.deleteOnExit();
+    Timings.writeReport(base.getPath());
+    File json = new File(base.getPath() + ".timings.json");
+    File csv = new File(base.getPath() + ".timings.csv");
+    json.deleteOnExit();
+    csv.deleteOnExit();
+
+    List<String> rows = Util.readLinesFromFile(csv.getPath());
+    assertEquals(3, rows.size());
+    assertTrue(rows.get(1).startsWith("doc0,parse,2,"));
+    assertTrue(rows.get(2).startsWith("\"doc,1\",parse,1,"));
+
+    String report = "";
+    for (String line : Util.readLinesFromFile(json.getPath()))
+      report += line.trim();
+    assertTrue(report.contains("\"parse\": {\"calls\": 3,"));
+    assertTrue(report.contains("\"xml-write\": {\"calls\": 1,"));
+    assertTrue(report.contains("\"documents\": 2,"));
+  }
+
+  public void testSieveStatsEscapesName() throws Exception {
+    File json = File.createTempFile("sievestats", ".json");
+    json.deleteOnExit();
+    new SieveStats("Odd \"Sieve\"\\1").dumpJSON(json);
+    List<String> lines = Util.readLinesFromFile(json.getPath());
+    assertEquals("  \"sieve\": \"Odd \\\"Sieve\\\"\\\\1\",", lines.get(1));
+  }
+}
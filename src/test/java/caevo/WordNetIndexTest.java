@@ -0,0 +1,47 @@
+package caevo;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import caevo.util.WordNetIndex;
+import junit.framework.TestCase;
+
+/**
+ * Write a small WordNet category index and look words up in it.
+ */
+public class WordNetIndexTest extends TestCase {
+
+  public void testLookup() throws Exception {
+    Map<String, Integer> masks = new HashMap<String, Integer>();
+    masks.put("week", WordNetIndex.TIME);
+    masks.put("house", WordNetIndex.STRUCTURE | WordNetIndex.PHYSICAL_OBJECT);
+    masks.put("soldier", WordNetIndex.PERSON_OR_GROUP
+        | WordNetIndex.PHYSICAL_OBJECT);
+    masks.put("knife", WordNetIndex.PHYSICAL_OBJECT);
+    masks.put("café", WordNetIndex.STRUCTURE);
+    masks.put("george bush", WordNetIndex.NAMED_ENTITY);
+    masks.put("hammer", 0);
+
+    File file = File.createTempFile("wordnet", ".index");
+    file.deleteOnExit();
+    WordNetIndex.write(masks, file);
+
+    WordNetIndex index = new WordNetIndex(file);
+    assertEquals(masks.size(), index.size());
+    for (Map.Entry<String, Integer> entry : masks.entrySet())
+      assertEquals(entry.getKey(), entry.getValue().intValue(),
+          index.lookup(entry.getKey()));
+
+    assertEquals(Boolean.TRUE, index.has("week", WordNetIndex.TIME));
+    assertEquals(Boolean.FALSE, index.has("hammer", WordNetIndex.TIME));
+    assertEquals(Boolean.FALSE,
+        index.has("knife", WordNetIndex.PERSON_OR_GROUP));
+
+    // Words that aren't indexed fall back to JWNL.
+    assertEquals(-1, index.lookup("weeks"));
+    assertEquals(-1, index.lookup("a"));
+    assertEquals(-1, index.lookup("zzz"));
+    assertNull(index.has("weeks", WordNetIndex.TIME));
+  }
+}
@@ -0,0 +1,103 @@
+package caevo;
+
+import java.io.IOException;
+
+import caevo.util.WordNet;
+import caevo.util.WordNetMemoryFile;
+import junit.framework.TestCase;
+import net.didion.jwnl.data.POS;
+import net.didion.jwnl.data.Synset;
+import net.didion.jwnl.dictionary.file.DictionaryFileType;
+import net.didion.jwnl.princeton.file.PrincetonRandomAccessDictionaryFile;
+
+/**
+ * The in-memory WordNet files must read the same lines as the files on disk,
+ * and the lines they read must give the synsets and lemmas that WordNet
+ * returns.
+ */
+public class WordNetMemoryFileTest extends TestCase {
+  // Same dictionary as src/test/resources/jwnl_file_properties.xml.
+  private static final String DICT = "src/test/resources/wordnet/dict";
+
+  public void testSameLinesAsDisk() throws IOException {
+    String[] nouns = { "house", "soldier", "week" };
+    PrincetonRandomAccessDictionaryFile disk = open(
+        new PrincetonRandomAccessDictionaryFile(DICT, POS.NOUN,
+            DictionaryFileType.INDEX));
+    WordNetMemoryFile memory = open(
+        new WordNetMemoryFile(DICT, POS.NOUN, DictionaryFileType.INDEX));
+    assertEquals(disk.length(), memory.length());
+
+    for (String noun : nouns) {
+      long offset = findLine(memory, noun + " ");
+      assertTrue(noun, offset >= 0);
+      // At the start of a line, and part way into one like JWNL's binary
+      // search does.
+      for (long pos : new long[] { offset, offset + 3 }) {
+        disk.seek(pos);
+        memory.seek(pos);
+        assertEquals(disk.readLine(), memory.readLine());
+        assertEquals(disk.readLine(), memory.readLine());
+        assertEquals(disk.getFilePointer(), memory.getFilePointer());
+      }
+    }
+    disk.close();
+    memory.close();
+  }
+
+  public void testSynsetsAndLemmas() throws IOException {
+    WordNet wordnet = new WordNet();
+
+    // The synset offsets in the index line are the senses, in order.
+    WordNetMemoryFile index = open(
+        new WordNetMemoryFile(DICT, POS.NOUN, DictionaryFileType.INDEX));
+    for (String noun : new String[] { "house", "soldier", "week" }) {
+      index.seek(findLine(index, noun + " "));
+      String[] fields = index.readLine().trim().split(" ");
+      Synset[] synsets = wordnet.synsetsOf(noun, POS.NOUN);
+      int numSynsets = Integer.parseInt(fields[2]);
+      assertEquals(noun, numSynsets, synsets.length);
+      for (int ii = 0; ii < numSynsets; ii++)
+        assertEquals(noun, Long.parseLong(fields[fields.length - numSynsets
+            + ii]), synsets[ii].getOffset());
+    }
+    index.close();
+
+    // Irregular forms come from the exception lists.
+    WordNetMemoryFile verbs = open(
+        new WordNetMemoryFile(DICT, POS.VERB, DictionaryFileType.EXCEPTION));
+    verbs.seek(findLine(verbs, "were "));
+    assertEquals("were be", verbs.readLine().trim());
+    assertEquals("be", wordnet.lemmatizeTaggedWord("were", "VBD"));
+    verbs.close();
+
+    WordNetMemoryFile nouns = open(
+        new WordNetMemoryFile(DICT, POS.NOUN, DictionaryFileType.EXCEPTION));
+    nouns.seek(findLine(nouns, "men "));
+    assertEquals("men man", nouns.readLine().trim());
+    assertEquals("man", wordnet.lemmatizeTaggedWord("men", "NNS"));
+    nouns.close();
+  }
+
+  private static <F extends PrincetonRandomAccessDictionaryFile> F open(F file)
+      throws IOException {
+    file.open();
+    return file;
+  }
+
+  /**
+   * @return The offset of the first line that starts with the prefix, or -1.
+   */
+  private static long findLine(WordNetMemoryFile file, String prefix)
+      throws IOException {
+    file.seek(0);
+    long offset = 0;
+    String line;
+    while ((line = file.readLine()) != null) {
+      if (line.startsWith(prefix))
+        return offset;
+      offset = file.getFilePointer();
+    }
+    return -1;
+  }
+}